@@ -0,0 +1,270 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.common.core.jobs;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.eclipse.core.runtime.jobs.Job;
+
+
+/**
+ * The registry of the objects locked by scheduled {@link StudioJob}s.
+ * <p>
+ * Two runnables of the same type conflict if one of their lock identifiers
+ * is a prefix of the other one's. The identifiers held by the runnables of
+ * each type are indexed in a sorted map, so a conflict check needs a few
+ * logarithmic lookups per identifier, independent of the number of scheduled
+ * jobs and their locked objects.
+ * <p>
+ * The locks of a job are registered when it is scheduled and released when it is done.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class LockRegistry
+{
+    /** The held lock identifiers and their holders, per runnable type. */
+    private final Map<Class<?>, NavigableMap<String, List<StudioRunnableWithProgress>>> index = new HashMap<>();
+
+    /** The locks registered by each job. */
+    private final Map<Job, List<Lock>> jobLocks = new IdentityHashMap<>();
+
+
+    /**
+     * Registers the locks of the given job, unless they conflict with the locks of other jobs.
+     *
+     * @param job the job
+     * @param runnables the runnables of the job
+     * @param lockIdentifiers the lock identifiers of each runnable
+     *
+     * @return true if the locks were registered, false if a conflict exists
+     */
+    synchronized boolean tryLock( Job job, StudioRunnableWithProgress[] runnables, String[][] lockIdentifiers )
+    {
+        for ( int i = 0; i < runnables.length; i++ )
+        {
+            NavigableMap<String, List<StudioRunnableWithProgress>> held = index.get( runnables[i].getClass() );
+            if ( held != null )
+            {
+                for ( String identifier : lockIdentifiers[i] )
+                {
+                    if ( isLockedByPrefix( held, identifier, runnables[i] )
+                        || isLockedByExtension( held, identifier, runnables[i] ) )
+                    {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        // a rescheduled job replaces its locks
+        unlock( job );
+
+        List<Lock> locks = new ArrayList<>();
+        for ( int i = 0; i < runnables.length; i++ )
+        {
+            Class<?> type = runnables[i].getClass();
+            NavigableMap<String, List<StudioRunnableWithProgress>> held = index.get( type );
+            if ( held == null )
+            {
+                held = new TreeMap<>();
+                index.put( type, held );
+            }
+
+            for ( String identifier : lockIdentifiers[i] )
+            {
+                List<StudioRunnableWithProgress> holders = held.get( identifier );
+                if ( holders == null )
+                {
+                    holders = new ArrayList<>( 1 );
+                    held.put( identifier, holders );
+                }
+                holders.add( runnables[i] );
+                locks.add( new Lock( type, identifier, runnables[i] ) );
+            }
+        }
+        jobLocks.put( job, locks );
+
+        return true;
+    }
+
+
+    /**
+     * Releases the locks of the given job.
+     *
+     * @param job the job
+     */
+    synchronized void unlock( Job job )
+    {
+        List<Lock> locks = jobLocks.remove( job );
+        if ( locks == null )
+        {
+            return;
+        }
+
+        for ( Lock lock : locks )
+        {
+            NavigableMap<String, List<StudioRunnableWithProgress>> held = index.get( lock.type );
+            List<StudioRunnableWithProgress> holders = held.get( lock.identifier );
+            holders.remove( lock.runnable );
+            if ( holders.isEmpty() )
+            {
+                held.remove( lock.identifier );
+                if ( held.isEmpty() )
+                {
+                    index.remove( lock.type );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Checks if another runnable holds an identifier that is a prefix of the given identifier,
+     * including the identifier itself.
+     * <p>
+     * All prefixes are less than or equal to the identifier. The greatest held identifier
+     * that is not greater than the probe is either a prefix, or its common prefix with
+     * the probe is shorter than the probe and becomes the next probe.
+     *
+     * @param held the held identifiers
+     * @param identifier the identifier
+     * @param runnable the runnable that checks
+     *
+     * @return true, if a prefix is held by another runnable
+     */
+    private boolean isLockedByPrefix( NavigableMap<String, List<StudioRunnableWithProgress>> held,
+        String identifier, StudioRunnableWithProgress runnable )
+    {
+        String probe = identifier;
+        while ( true )
+        {
+            Map.Entry<String, List<StudioRunnableWithProgress>> floor = held.floorEntry( probe );
+            if ( floor == null )
+            {
+                return false;
+            }
+
+            String key = floor.getKey();
+            if ( probe.startsWith( key ) )
+            {
+                if ( isHeldByOther( floor.getValue(), runnable ) )
+                {
+                    return true;
+                }
+                if ( key.isEmpty() )
+                {
+                    return false;
+                }
+                probe = key.substring( 0, key.length() - 1 );
+            }
+            else
+            {
+                probe = probe.substring( 0, getCommonPrefixLength( key, probe ) );
+            }
+        }
+    }
+
+
+    /**
+     * Checks if another runnable holds an identifier that starts with the given identifier.
+     * These identifiers directly follow the identifier in the sorted map.
+     *
+     * @param held the held identifiers
+     * @param identifier the identifier
+     * @param runnable the runnable that checks
+     *
+     * @return true, if an extension is held by another runnable
+     */
+    private boolean isLockedByExtension( NavigableMap<String, List<StudioRunnableWithProgress>> held,
+        String identifier, StudioRunnableWithProgress runnable )
+    {
+        for ( Map.Entry<String, List<StudioRunnableWithProgress>> entry : held.tailMap( identifier, true )
+            .entrySet() )
+        {
+            if ( !entry.getKey().startsWith( identifier ) )
+            {
+                return false;
+            }
+            if ( isHeldByOther( entry.getValue(), runnable ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    private static boolean isHeldByOther( List<StudioRunnableWithProgress> holders,
+        StudioRunnableWithProgress runnable )
+    {
+        for ( StudioRunnableWithProgress holder : holders )
+        {
+            if ( holder != runnable )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    private static int getCommonPrefixLength( String s1, String s2 )
+    {
+        int length = Math.min( s1.length(), s2.length() );
+        for ( int i = 0; i < length; i++ )
+        {
+            if ( s1.charAt( i ) != s2.charAt( i ) )
+            {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * A lock identifier held by a runnable.
+     */
+    private static class Lock
+    {
+        /** The runnable type. */
+        private final Class<?> type;
+
+        /** The lock identifier. */
+        private final String identifier;
+
+        /** The runnable. */
+        private final StudioRunnableWithProgress runnable;
+
+
+        private Lock( Class<?> type, String identifier, StudioRunnableWithProgress runnable )
+        {
+            this.type = type;
+            this.identifier = identifier;
+            this.runnable = runnable;
+        }
+    }
+}
@@ -24,7 +24,9 @@ package org.apache.directory.studio.common.core.jobs;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 
 
 /**
@@ -34,6 +36,9 @@ import org.eclipse.core.runtime.jobs.Job;
  */
 public class StudioJob<T extends StudioRunnableWithProgress> extends Job
 {
+    /** The registry of the objects locked by scheduled jobs. */
+    private static final LockRegistry LOCK_REGISTRY = new LockRegistry();
+
     /** The runnables. */
     protected T[] runnables;
 
@@ -47,6 +52,14 @@ public class StudioJob<T extends StudioRunnableWithProgress> extends Job
     {
         super( runnables[0].getName() );
         this.runnables = runnables;
+
+        addJobChangeListener( new JobChangeAdapter()
+        {
+            public void done( IJobChangeEvent event )
+            {
+                LOCK_REGISTRY.unlock( StudioJob.this );
+            }
+        } );
     }
 
 
@@ -147,45 +160,20 @@ public class StudioJob<T extends StudioRunnableWithProgress> extends Job
     {
         // We don't schedule a job if the same type of runnable should run
         // that works on the same entry as the current runnable.
+        // The locks are registered here and released when the job is done.
 
-        for ( T runnable : runnables )
+        if ( !super.shouldSchedule() )
         {
-            Object[] myLockedObjects = runnable.getLockedObjects();
-            String[] myLockedObjectsIdentifiers = getLockIdentifiers( myLockedObjects );
+            return false;
+        }
 
-            Job[] jobs = getJobManager().find( null );
-            
-            for ( Job job : jobs )
-            {
-                if ( job instanceof StudioJob )
-                {
-                    @SuppressWarnings("unchecked")
-                    StudioJob<StudioRunnableWithProgress> otherJob = ( StudioJob<StudioRunnableWithProgress> ) job;
-                    
-                    for ( StudioRunnableWithProgress otherRunnable : otherJob.runnables )
-                    {
-                        if ( ( runnable.getClass() == otherRunnable.getClass() ) && ( runnable != otherRunnable ) )
-                        {
-                            Object[] otherLockedObjects = otherRunnable.getLockedObjects();
-                            String[] otherLockedObjectIdentifiers = getLockIdentifiers( otherLockedObjects );
-
-                            for ( String other : otherLockedObjectIdentifiers )
-                            {
-                                for ( String myLockedObjectIdentifier : myLockedObjectsIdentifiers )
-                                {
-                                    if ( other.startsWith( myLockedObjectIdentifier ) || myLockedObjectIdentifier.startsWith( other ) )
-                                    {
-                                        return false;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
+        String[][] lockIdentifiers = new String[runnables.length][];
+        for ( int i = 0; i < runnables.length; i++ )
+        {
+            lockIdentifiers[i] = getLockIdentifiers( runnables[i].getLockedObjects() );
         }
-        
-        return super.shouldSchedule();
+
+        return LOCK_REGISTRY.tryLock( this, runnables, lockIdentifiers );
     }
 
 
@@ -0,0 +1,262 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.studio.common.core.jobs;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the {@link LockRegistry} and its use in {@link StudioJob#shouldSchedule()}.
+ * The lock identifiers are paths, an ancestor's identifier is a prefix of its
+ * descendants' identifiers.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LockRegistryTest
+{
+    private LockRegistry registry;
+
+
+    @BeforeEach
+    public void setUp()
+    {
+        registry = new LockRegistry();
+    }
+
+
+    @Test
+    public void testSameIdentifier()
+    {
+        assertTrue( lock( createJob(), new TestRunnable(), "dc=com/ou=users/cn=a" ) );
+        assertFalse( lock( createJob(), new TestRunnable(), "dc=com/ou=users/cn=a" ) );
+    }
+
+
+    @Test
+    public void testAncestorIsLocked()
+    {
+        assertTrue( lock( createJob(), new TestRunnable(), "dc=com/ou=users" ) );
+
+        assertFalse( lock( createJob(), new TestRunnable(), "dc=com/ou=users/cn=a" ) );
+        assertFalse( lock( createJob(), new TestRunnable(), "dc=com/ou=users/cn=a/cn=b" ) );
+    }
+
+
+    @Test
+    public void testDescendantIsLocked()
+    {
+        assertTrue( lock( createJob(), new TestRunnable(), "dc=com/ou=users/cn=a/cn=b" ) );
+
+        assertFalse( lock( createJob(), new TestRunnable(), "dc=com/ou=users/cn=a" ) );
+        assertFalse( lock( createJob(), new TestRunnable(), "dc=com" ) );
+        assertFalse( lock( createJob(), new TestRunnable(), "" ) );
+    }
+
+
+    @Test
+    public void testSiblings()
+    {
+        assertTrue( lock( createJob(), new TestRunnable(), "dc=com/ou=users/cn=a" ) );
+        assertTrue( lock( createJob(), new TestRunnable(), "dc=com/ou=users/cn=b" ) );
+        assertTrue( lock( createJob(), new TestRunnable(), "dc=com/ou=groups" ) );
+        assertTrue( lock( createJob(), new TestRunnable(), "dc=com/ou=users/cn=c/cn=d" ) );
+    }
+
+
+    @Test
+    public void testAncestorBehindSiblings()
+    {
+        // the greatest held identifier below the probe is not its prefix,
+        // the prefix "dc=com" is found by shortening the probe
+        Job ancestorJob = createJob();
+        assertTrue( lock( ancestorJob, new TestRunnable(), "dc=com" ) );
+        assertTrue( registry.tryLock( createJob(), new StudioRunnableWithProgress[]
+            { new TestRunnable() }, new String[][]
+            { { "dc=com/ou=a", "dc=com/ou=c/cn=d" } } ) );
+
+        assertFalse( lock( createJob(), new TestRunnable(), "dc=com/ou=c/cn=x" ) );
+
+        registry.unlock( ancestorJob );
+        assertTrue( lock( createJob(), new TestRunnable(), "dc=com/ou=c/cn=x" ) );
+    }
+
+
+    @Test
+    public void testOtherRunnableType()
+    {
+        assertTrue( lock( createJob(), new TestRunnable(), "dc=com/ou=users" ) );
+
+        assertTrue( lock( createJob(), new OtherTestRunnable(), "dc=com/ou=users" ) );
+        assertTrue( lock( createJob(), new OtherTestRunnable(), "dc=com/ou=groups" ) );
+        assertFalse( lock( createJob(), new OtherTestRunnable(), "dc=com" ) );
+    }
+
+
+    @Test
+    public void testUnlock()
+    {
+        Job job = createJob();
+        assertTrue( lock( job, new TestRunnable(), "dc=com/ou=users" ) );
+        assertFalse( lock( createJob(), new TestRunnable(), "dc=com/ou=users/cn=a" ) );
+
+        registry.unlock( job );
+        registry.unlock( job );
+
+        assertTrue( lock( createJob(), new TestRunnable(), "dc=com/ou=users/cn=a" ) );
+        assertTrue( lock( createJob(), new TestRunnable(), "dc=com/ou=groups" ) );
+        assertFalse( lock( createJob(), new TestRunnable(), "dc=com" ) );
+    }
+
+
+    @Test
+    public void testRescheduledJobReplacesItsLocks()
+    {
+        Job job = createJob();
+        TestRunnable runnable = new TestRunnable();
+        assertTrue( lock( job, runnable, "dc=com/ou=users" ) );
+
+        // the runnable does not conflict with itself
+        assertTrue( lock( job, runnable, "dc=com/ou=users/cn=a" ) );
+
+        assertTrue( lock( createJob(), new TestRunnable(), "dc=com/ou=users/cn=b" ) );
+        assertFalse( lock( createJob(), new TestRunnable(), "dc=com/ou=users/cn=a" ) );
+    }
+
+
+    @Test
+    public void testShouldSchedule() throws Exception
+    {
+        String base = UUID.randomUUID().toString();
+        StudioJob<TestRunnable> parentJob = new StudioJob<TestRunnable>( new TestRunnable( base ) );
+        StudioJob<TestRunnable> childJob = new StudioJob<TestRunnable>( new TestRunnable( base + "/cn=a" ) );
+        StudioJob<TestRunnable> siblingJob = new StudioJob<TestRunnable>( new TestRunnable( base + "/cn=b" ) );
+
+        assertTrue( parentJob.shouldSchedule() );
+        assertFalse( childJob.shouldSchedule() );
+
+        // the locks are released when the job is done
+        scheduleAndWait( parentJob );
+        assertEquals( 1, parentJob.runnables[0].runs );
+
+        assertTrue( childJob.shouldSchedule() );
+        assertTrue( siblingJob.shouldSchedule() );
+        assertFalse( parentJob.shouldSchedule() );
+
+        scheduleAndWait( childJob );
+        scheduleAndWait( siblingJob );
+        assertEquals( 1, childJob.runnables[0].runs );
+        assertEquals( 1, siblingJob.runnables[0].runs );
+
+        scheduleAndWait( parentJob );
+        assertEquals( 2, parentJob.runnables[0].runs );
+    }
+
+
+    /**
+     * Schedules the job and waits until the job change listeners of the job,
+     * including the one releasing its locks, were notified that it is done.
+     */
+    private static void scheduleAndWait( Job job ) throws InterruptedException
+    {
+        final CountDownLatch done = new CountDownLatch( 1 );
+        JobChangeAdapter listener = new JobChangeAdapter()
+        {
+            public void done( IJobChangeEvent event )
+            {
+                done.countDown();
+            }
+        };
+
+        job.addJobChangeListener( listener );
+        job.schedule();
+        assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+        job.removeJobChangeListener( listener );
+    }
+
+
+    private boolean lock( Job job, StudioRunnableWithProgress runnable, String identifier )
+    {
+        return registry.tryLock( job, new StudioRunnableWithProgress[]
+            { runnable }, new String[][]
+            { { identifier } } );
+    }
+
+
+    private static Job createJob()
+    {
+        return new StudioJob<TestRunnable>( new TestRunnable() );
+    }
+
+
+    private static class TestRunnable implements StudioRunnableWithProgress
+    {
+        private final Object[] lockedObjects;
+
+        private volatile int runs;
+
+
+        TestRunnable( Object... lockedObjects )
+        {
+            this.lockedObjects = lockedObjects;
+        }
+
+
+        public void run( StudioProgressMonitor monitor )
+        {
+            runs++;
+        }
+
+
+        public Object[] getLockedObjects()
+        {
+            return lockedObjects;
+        }
+
+
+        public String getErrorMessage()
+        {
+            return "error"; //$NON-NLS-1$
+        }
+
+
+        public String getName()
+        {
+            return "test"; //$NON-NLS-1$
+        }
+    }
+
+
+    private static class OtherTestRunnable extends TestRunnable
+    {
+    }
+}
@@ -110,6 +110,33 @@ public class ConnectionParameter
         DEFAULT, FILE, MANUAL
     }
 
+    /** The key for the connection parameter "Use connection pool" */
+    public static final String CONNECTION_PARAMETER_POOL_ENABLED = "connection.poolEnabled"; //$NON-NLS-1$
+
+    /** The key for the connection parameter "Minimum number of pooled connections" */
+    public static final String CONNECTION_PARAMETER_POOL_MIN_SIZE = "connection.poolMinSize"; //$NON-NLS-1$
+
+    /** The key for the connection parameter "Maximum number of pooled connections" */
+    public static final String CONNECTION_PARAMETER_POOL_MAX_SIZE = "connection.poolMaxSize"; //$NON-NLS-1$
+
+    /** The key for the connection parameter "Idle time in seconds before a pooled connection is evicted" */
+    public static final String CONNECTION_PARAMETER_POOL_IDLE_EVICTION_SECONDS = "connection.poolIdleEvictionSeconds"; //$NON-NLS-1$
+
+    /** The default minimum number of pooled connections */
+    public static final int DEFAULT_POOL_MIN_SIZE = 0;
+
+    /** The default maximum number of pooled connections */
+    public static final int DEFAULT_POOL_MAX_SIZE = 4;
+
+    /** The default idle time in seconds before a pooled connection is evicted */
+    public static final int DEFAULT_POOL_IDLE_EVICTION_SECONDS = 300;
+
+    /** The key for the connection parameter "Maximum number of outstanding write requests" */
+    public static final String CONNECTION_PARAMETER_WRITE_WINDOW_SIZE = "connection.writeWindowSize"; //$NON-NLS-1$
+
+    /** The default maximum number of outstanding write requests, 1 means no pipelining */
+    public static final int DEFAULT_WRITE_WINDOW_SIZE = 1;
+
     /** The unique id. */
     private String id;
 
@@ -827,6 +854,127 @@ public class ConnectionParameter
     }
 
 
+    /**
+     * Checks if the connection pool is enabled. If enabled, independent
+     * operations may run in parallel, each on its own bound connection.
+     * 
+     * @return true, if the connection pool is enabled
+     */
+    public boolean isPoolEnabled()
+    {
+        return getExtendedBoolProperty( CONNECTION_PARAMETER_POOL_ENABLED );
+    }
+
+
+    /**
+     * Sets the connection pool enabled flag.
+     * 
+     * @param poolEnabled the connection pool enabled flag
+     */
+    public void setPoolEnabled( boolean poolEnabled )
+    {
+        setExtendedBoolProperty( CONNECTION_PARAMETER_POOL_ENABLED, poolEnabled );
+    }
+
+
+    /**
+     * Gets the minimum number of idle connections kept in the pool.
+     * 
+     * @return the minimum pool size
+     */
+    public int getPoolMinSize()
+    {
+        int minSize = getExtendedIntProperty( CONNECTION_PARAMETER_POOL_MIN_SIZE );
+
+        return minSize < 0 ? DEFAULT_POOL_MIN_SIZE : minSize;
+    }
+
+
+    /**
+     * Sets the minimum number of idle connections kept in the pool.
+     * 
+     * @param poolMinSize the minimum pool size
+     */
+    public void setPoolMinSize( int poolMinSize )
+    {
+        setExtendedIntProperty( CONNECTION_PARAMETER_POOL_MIN_SIZE, poolMinSize );
+    }
+
+
+    /**
+     * Gets the maximum number of connections in the pool.
+     * 
+     * @return the maximum pool size
+     */
+    public int getPoolMaxSize()
+    {
+        int maxSize = getExtendedIntProperty( CONNECTION_PARAMETER_POOL_MAX_SIZE );
+
+        return maxSize < 1 ? DEFAULT_POOL_MAX_SIZE : maxSize;
+    }
+
+
+    /**
+     * Sets the maximum number of connections in the pool.
+     * 
+     * @param poolMaxSize the maximum pool size
+     */
+    public void setPoolMaxSize( int poolMaxSize )
+    {
+        setExtendedIntProperty( CONNECTION_PARAMETER_POOL_MAX_SIZE, poolMaxSize );
+    }
+
+
+    /**
+     * Gets the time in seconds a pooled connection may stay idle before it is evicted.
+     * 
+     * @return the idle eviction time in seconds
+     */
+    public int getPoolIdleEvictionSeconds()
+    {
+        int seconds = getExtendedIntProperty( CONNECTION_PARAMETER_POOL_IDLE_EVICTION_SECONDS );
+
+        return seconds < 0 ? DEFAULT_POOL_IDLE_EVICTION_SECONDS : seconds;
+    }
+
+
+    /**
+     * Sets the time in seconds a pooled connection may stay idle before it is evicted.
+     * 
+     * @param poolIdleEvictionSeconds the idle eviction time in seconds
+     */
+    public void setPoolIdleEvictionSeconds( int poolIdleEvictionSeconds )
+    {
+        setExtendedIntProperty( CONNECTION_PARAMETER_POOL_IDLE_EVICTION_SECONDS, poolIdleEvictionSeconds );
+    }
+
+
+    /**
+     * Gets the maximum number of write requests that are sent without waiting
+     * for their responses during bulk modifications, e.g. LDIF imports.
+     * 
+     * @return the write window size, 1 if write requests are not pipelined
+     */
+    public int getWriteWindowSize()
+    {
+        int windowSize = getExtendedIntProperty( CONNECTION_PARAMETER_WRITE_WINDOW_SIZE );
+
+        return windowSize < 1 ? DEFAULT_WRITE_WINDOW_SIZE : windowSize;
+    }
+
+
+    /**
+     * Sets the maximum number of write requests that are sent without waiting
+     * for their responses during bulk modifications.
+     * 
+     * @param writeWindowSize the write window size
+     */
+    public void setWriteWindowSize( int writeWindowSize )
+    {
+        setExtendedIntProperty( CONNECTION_PARAMETER_WRITE_WINDOW_SIZE, writeWindowSize );
+    }
+
+
     /**
      * Creates a unique id.
      * 
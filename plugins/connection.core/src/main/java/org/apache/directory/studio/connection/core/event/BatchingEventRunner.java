@@ -0,0 +1,129 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.connection.core.event;
+
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * An {@link EventRunner} that collects the event runnables and runs them in batches.
+ * The first runnable of a batch schedules the batch, the runnables executed until
+ * the batch runs are added to it. Redundant {@link CoalescingEventRunnable}s
+ * are dropped. The runnables of a batch are run in the order they were executed.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public abstract class BatchingEventRunner implements EventRunner
+{
+    /** The pending runnables. */
+    private List<EventRunnable> pendingRunnables = new ArrayList<EventRunnable>();
+
+    /** The coalescing keys of the pending runnables. */
+    private Set<Object> pendingCoalescingKeys = new HashSet<Object>();
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * This implementation adds the given {@link EventRunnable} to the
+     * pending batch and schedules the batch if it is a new one.
+     */
+    public void execute( EventRunnable runnable )
+    {
+        boolean newBatch;
+
+        synchronized ( this )
+        {
+            if ( runnable instanceof CoalescingEventRunnable )
+            {
+                Object coalescingKey = ( ( CoalescingEventRunnable ) runnable ).getCoalescingKey();
+                if ( coalescingKey != null && !pendingCoalescingKeys.add( coalescingKey ) )
+                {
+                    return;
+                }
+            }
+
+            newBatch = pendingRunnables.isEmpty();
+            pendingRunnables.add( runnable );
+        }
+
+        if ( newBatch )
+        {
+            schedule( new Runnable()
+            {
+                public void run()
+                {
+                    runPendingRunnables();
+                }
+            } );
+        }
+    }
+
+
+    /**
+     * Schedules the given batch.
+     *
+     * @param batch the batch to schedule
+     */
+    protected abstract void schedule( Runnable batch );
+
+
+    /**
+     * Runs the pending runnables. If a runnable fails the other ones are run
+     * nevertheless, the first failure is rethrown afterwards.
+     */
+    private void runPendingRunnables()
+    {
+        List<EventRunnable> batch;
+
+        synchronized ( this )
+        {
+            batch = pendingRunnables;
+            pendingRunnables = new ArrayList<EventRunnable>();
+            pendingCoalescingKeys.clear();
+        }
+
+        RuntimeException failure = null;
+
+        for ( EventRunnable runnable : batch )
+        {
+            try
+            {
+                runnable.run();
+            }
+            catch ( RuntimeException e )
+            {
+                if ( failure == null )
+                {
+                    failure = e;
+                }
+            }
+        }
+
+        if ( failure != null )
+        {
+            throw failure;
+        }
+    }
+}
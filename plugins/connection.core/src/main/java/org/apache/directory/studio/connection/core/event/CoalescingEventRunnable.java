@@ -0,0 +1,40 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.connection.core.event;
+
+
+/**
+ * An {@link EventRunnable} that may be merged with other pending runnables.
+ * A {@link BatchingEventRunner} drops the runnable if a runnable with an equal
+ * coalescing key is already waiting to be run, the waiting runnable notifies
+ * the listener about the current state anyway.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface CoalescingEventRunnable extends EventRunnable
+{
+    /**
+     * Gets the coalescing key. Runnables with equal keys are redundant,
+     * so the key must include the listener.
+     *
+     * @return the coalescing key, null if the runnable must not be merged
+     */
+    Object getCoalescingKey();
+}
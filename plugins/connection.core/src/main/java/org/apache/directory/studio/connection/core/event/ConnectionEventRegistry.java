@@ -140,6 +140,35 @@ public class ConnectionEventRegistry
         }
     }
 
+
+    /**
+     * Runs the given runnable with event firing resumed in the current thread.
+     * This allows a bulk operation to notify listeners about intermediate results.
+     * Afterwards event firing is suspended again if it was suspended before.
+     *
+     * @param runnable the runnable
+     */
+    public static void runWithEventFiringResumed( Runnable runnable )
+    {
+        boolean suspended;
+        synchronized ( suspendedEventFiringThreads )
+        {
+            suspended = suspendedEventFiringThreads.remove( Thread.currentThread().getId() );
+        }
+
+        try
+        {
+            runnable.run();
+        }
+        finally
+        {
+            if ( suspended )
+            {
+                suspendEventFiringInCurrentThread();
+            }
+        }
+    }
+
     private static final EventManager<ConnectionUpdateListener, EventRunner> connectionUpdateEventManager = new EventManager<ConnectionUpdateListener, EventRunner>();
 
 
@@ -178,4 +178,15 @@ public interface ConnectionWrapper
 
     ExtendedResponse extended( ExtendedRequest request, final StudioProgressMonitor monitor );
 
+
+    /**
+     * Opens a pipeline for asynchronous write requests.
+     *
+     * @param windowSize the maximum number of outstanding requests
+     * @param monitor the progress monitor, used to cancel outstanding requests
+     *
+     * @return the write pipeline
+     */
+    WritePipeline openWritePipeline( int windowSize, final StudioProgressMonitor monitor );
+
 }
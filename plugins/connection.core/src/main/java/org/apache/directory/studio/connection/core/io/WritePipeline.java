@@ -0,0 +1,124 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.connection.core.io;
+
+
+import java.util.Collection;
+
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.Modification;
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+
+
+/**
+ * A WritePipeline sends write requests asynchronously. Up to the window size
+ * requests are in flight without waiting for their responses, when the window
+ * is full the oldest response is received before the next request is sent.
+ * <p>
+ * The requests are processed by the server in any order, the caller is responsible
+ * to wait for a pending write before submitting a request that depends on it,
+ * e.g. the creation of a child entry.
+ * <p>
+ * A WritePipeline is not thread-safe, it is meant to be used by a single job.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface WritePipeline
+{
+    /**
+     * Sends a modify request.
+     *
+     * @param dn the Dn
+     * @param modifications the modification items
+     * @param controls the controls
+     *
+     * @return the pending write
+     */
+    PendingWrite modifyEntry( Dn dn, Collection<Modification> modifications, Control[] controls );
+
+
+    /**
+     * Sends a modify Dn request.
+     *
+     * @param oldDn the old Dn
+     * @param newDn the new Dn
+     * @param deleteOldRdn true to delete the old Rdn
+     * @param controls the controls
+     *
+     * @return the pending write
+     */
+    PendingWrite renameEntry( Dn oldDn, Dn newDn, boolean deleteOldRdn, Control[] controls );
+
+
+    /**
+     * Sends an add request.
+     *
+     * @param entry the entry
+     * @param controls the controls
+     *
+     * @return the pending write
+     */
+    PendingWrite createEntry( Entry entry, Control[] controls );
+
+
+    /**
+     * Sends a delete request.
+     *
+     * @param dn the Dn of the entry to delete
+     * @param controls the controls
+     *
+     * @return the pending write
+     */
+    PendingWrite deleteEntry( Dn dn, Control[] controls );
+
+
+    /**
+     * Gets the maximum number of outstanding requests.
+     *
+     * @return the window size
+     */
+    int getWindowSize();
+
+
+    /**
+     * Receives all outstanding responses and closes this pipeline.
+     * Responses that were not awaited are discarded.
+     */
+    void close();
+
+    /**
+     * A write request that was sent but whose response may not have been received yet.
+     *
+     * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+     */
+    interface PendingWrite
+    {
+        /**
+         * Waits for the response of the write request. Errors are reported to the
+         * given monitor, exactly like the synchronous methods of {@link ConnectionWrapper}.
+         * Referrals are followed using the given monitor.
+         *
+         * @param monitor the progress monitor
+         */
+        void await( StudioProgressMonitor monitor );
+    }
+}
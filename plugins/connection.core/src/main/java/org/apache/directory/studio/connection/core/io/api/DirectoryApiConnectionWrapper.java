@@ -20,11 +20,22 @@
 package org.apache.directory.studio.connection.core.io.api;
 
 
+import java.nio.ByteBuffer;
 import java.security.KeyStore;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.naming.directory.SearchControls;
@@ -36,6 +47,11 @@ import javax.security.auth.login.AppConfigurationEntry;
 import javax.security.auth.login.AppConfigurationEntry.LoginModuleControlFlag;
 import javax.security.auth.login.Configuration;
 
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.apache.directory.api.ldap.codec.api.DefaultConfigurableBinaryAttributeDetector;
 import org.apache.directory.api.ldap.model.cursor.SearchCursor;
 import org.apache.directory.api.ldap.model.entry.Entry;
@@ -69,6 +85,7 @@ import org.apache.directory.api.ldap.model.message.ResultResponse;
 import org.apache.directory.api.ldap.model.message.SearchRequest;
 import org.apache.directory.api.ldap.model.message.SearchRequestImpl;
 import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.message.controls.PagedResults;
 import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.api.ldap.model.url.LdapUrl;
 import org.apache.directory.ldap.client.api.LdapConnectionConfig;
@@ -77,6 +94,7 @@ import org.apache.directory.ldap.client.api.SaslCramMd5Request;
 import org.apache.directory.ldap.client.api.SaslDigestMd5Request;
 import org.apache.directory.ldap.client.api.SaslGssApiRequest;
 import org.apache.directory.ldap.client.api.exception.InvalidConnectionException;
+import org.apache.directory.ldap.client.api.future.ResponseFuture;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
@@ -94,6 +112,7 @@ import org.apache.directory.studio.connection.core.io.ConnectionWrapper;
 import org.apache.directory.studio.connection.core.io.ConnectionWrapperUtils;
 import org.apache.directory.studio.connection.core.io.StudioLdapException;
 import org.apache.directory.studio.connection.core.io.StudioTrustManager;
+import org.apache.directory.studio.connection.core.io.WritePipeline;
 import org.eclipse.core.runtime.Preferences;
 import org.eclipse.osgi.util.NLS;
 
@@ -108,12 +127,30 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
     /** The search request number */
     private static int searchRequestNum = 0;
 
+    /** The time after which a pooled connection kept for an abandoned paged search is given back to the pool */
+    private static final long PAGED_SEARCH_CONNECTION_TIMEOUT_MILLIS = 10 * 60 * 1000L;
+
     /** The Studio connection  */
     private Connection connection;
 
     /** The LDAP connection */
     private LdapNetworkConnection ldapConnection;
 
+    /** The LDAP connection configuration, shared with the pooled connections */
+    private LdapConnectionConfig ldapConnectionConfig;
+
+    /** The credentials used for the last successful bind, reused to bind the pooled connections */
+    private ICredentials bindCredentials;
+
+    /** The pool of additional bound LDAP connections, only used if the connection pool is enabled */
+    private GenericObjectPool<LdapNetworkConnection> connectionPool;
+
+    /** The pooled LDAP connections currently in use */
+    private Set<LdapNetworkConnection> borrowedConnections = ConcurrentHashMap.newKeySet();
+
+    /** The pooled LDAP connections kept for the next page of a paged search, by paged results cookie */
+    private Map<ByteBuffer, PagedSearchConnection> pagedSearchConnections = new ConcurrentHashMap<>();
+
     /** The binary attribute detector */
     private DefaultConfigurableBinaryAttributeDetector binaryAttributeDetector;
 
@@ -156,6 +193,7 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
         ldapConnection = null;
 
         LdapConnectionConfig ldapConnectionConfig = new LdapConnectionConfig();
+        this.ldapConnectionConfig = ldapConnectionConfig;
         ldapConnectionConfig.setLdapHost( connection.getHost() );
         ldapConnectionConfig.setLdapPort( connection.getPort() );
 
@@ -210,18 +248,56 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
         {
             public void run()
             {
-                /*
-                 * Use local temp variable while the connection is being established and secured.
-                 * This process can take a while and the user might be asked to inspect the server
-                 * certificate. During that process the connection must not be used.
-                 */
-                LdapNetworkConnection ldapConnectionUnderConstruction = null;
                 try
                 {
-                    // Set lower timeout for connecting
-                    long oldTimeout = ldapConnectionConfig.getTimeout();
-                    ldapConnectionConfig.setTimeout( Math.min( oldTimeout, 5000L ) );
+                    // Now set the LDAP connection once the (optional) security layer is in place
+                    ldapConnection = openLdapConnection( ldapConnectionConfig );
+                }
+                catch ( Exception e )
+                {
+                    exception = toStudioLdapException( e );
+                    ldapConnection = null;
+                    binaryAttributeDetector = null;
+                }
+            }
+        };
+
+        runAndMonitor( runnable, monitor );
+
+        if ( runnable.getException() != null )
+        {
+            throw runnable.getException();
+        }
+    }
+
+
+    /**
+     * Opens and secures a new LDAP connection.
+     * 
+     * @param ldapConnectionConfig the LDAP connection configuration
+     * @return the connected LDAP connection
+     * @throws Exception if the connection can't be established or secured
+     */
+    private LdapNetworkConnection openLdapConnection( LdapConnectionConfig ldapConnectionConfig ) throws Exception
+    {
+        /*
+         * Use local temp variable while the connection is being established and secured.
+         * This process can take a while and the user might be asked to inspect the server
+         * certificate. During that process the connection must not be used.
+         */
+        LdapNetworkConnection ldapConnectionUnderConstruction = null;
+
+        try
+        {
+            // The configuration is shared with the pooled connections, which may connect concurrently
+            synchronized ( ldapConnectionConfig )
+            {
+                // Set lower timeout for connecting
+                long oldTimeout = ldapConnectionConfig.getTimeout();
+                ldapConnectionConfig.setTimeout( Math.min( oldTimeout, 5000L ) );
 
+                try
+                {
                     // Connecting
                     ldapConnectionUnderConstruction = new LdapNetworkConnection( ldapConnectionConfig );
                     ldapConnectionUnderConstruction.connect();
@@ -231,57 +307,47 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                     {
                         ldapConnectionUnderConstruction.startTls();
                     }
-
+                }
+                finally
+                {
                     // Set original timeout again
                     ldapConnectionConfig.setTimeout( oldTimeout );
-                    ldapConnectionUnderConstruction.setTimeOut( oldTimeout );
+                }
 
-                    // Now set the LDAP connection once the (optional) security layer is in place
-                    ldapConnection = ldapConnectionUnderConstruction;
+                ldapConnectionUnderConstruction.setTimeOut( oldTimeout );
+            }
 
-                    if ( !isConnected() )
-                    {
-                        throw new Exception( Messages.DirectoryApiConnectionWrapper_UnableToConnect );
-                    }
+            if ( !ldapConnectionUnderConstruction.isConnected() )
+            {
+                throw new Exception( Messages.DirectoryApiConnectionWrapper_UnableToConnect );
+            }
 
-                    // DIRSTUDIO-1219: Verify secure connection if ldaps:// or StartTLS is configured
-                    if ( ldapConnectionConfig.isUseTls() || ldapConnectionConfig.isUseSsl() )
-                    {
-                        if ( !isSecured() )
-                        {
-                            throw new Exception( Messages.DirectoryApiConnectionWrapper_UnsecuredConnection );
-                        }
-                    }
-                }
-                catch ( Exception e )
+            // DIRSTUDIO-1219: Verify secure connection if ldaps:// or StartTLS is configured
+            if ( ldapConnectionConfig.isUseTls() || ldapConnectionConfig.isUseSsl() )
+            {
+                if ( !ldapConnectionUnderConstruction.isSecured() )
                 {
-                    exception = toStudioLdapException( e );
-
-                    try
-                    {
-                        if ( ldapConnectionUnderConstruction != null )
-                        {
-                            ldapConnectionUnderConstruction.close();
-                        }
-                    }
-                    catch ( Exception exception )
-                    {
-                        // Nothing to do
-                    }
-                    finally
-                    {
-                        ldapConnection = null;
-                        binaryAttributeDetector = null;
-                    }
+                    throw new Exception( Messages.DirectoryApiConnectionWrapper_UnsecuredConnection );
                 }
             }
-        };
-
-        runAndMonitor( runnable, monitor );
 
-        if ( runnable.getException() != null )
+            return ldapConnectionUnderConstruction;
+        }
+        catch ( Exception e )
         {
-            throw runnable.getException();
+            try
+            {
+                if ( ldapConnectionUnderConstruction != null )
+                {
+                    ldapConnectionUnderConstruction.close();
+                }
+            }
+            catch ( Exception exception )
+            {
+                // Nothing to do
+            }
+
+            throw e;
         }
     }
 
@@ -297,6 +363,8 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
             jobThread = null;
             t.interrupt();
         }
+        closeConnectionPool();
+        bindCredentials = null;
         if ( ldapConnection != null )
         {
             try
@@ -330,7 +398,8 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
     }
 
 
-    private BindResponse bindSimple( String bindPrincipal, String bindPassword ) throws LdapException
+    private BindResponse bindSimple( LdapNetworkConnection ldapConnection, String bindPrincipal,
+        String bindPassword ) throws LdapException
     {
         BindRequest bindRequest = new BindRequestImpl();
         bindRequest.setName( bindPrincipal );
@@ -340,6 +409,122 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
     }
 
 
+    /**
+     * Binds the given LDAP connection, using the authentication method of the connection parameter.
+     * 
+     * @param ldapConnection the LDAP connection to bind
+     * @param credentials the credentials, may be null if no authentication is used
+     * @throws Exception if the bind fails
+     */
+    private void bindLdapConnection( LdapNetworkConnection ldapConnection, ICredentials credentials )
+        throws Exception
+    {
+        BindResponse bindResponse = null;
+
+        // No Authentication
+        if ( connection.getConnectionParameter()
+            .getAuthMethod() == ConnectionParameter.AuthenticationMethod.NONE )
+        {
+            BindRequest bindRequest = new BindRequestImpl();
+            bindResponse = ldapConnection.bind( bindRequest );
+        }
+        else
+        {
+            String bindPrincipal = credentials.getBindPrincipal();
+            String bindPassword = credentials.getBindPassword();
+
+            switch ( connection.getConnectionParameter().getAuthMethod() )
+            {
+                case SIMPLE:
+                    // Simple Authentication
+                    bindResponse = bindSimple( ldapConnection, bindPrincipal, bindPassword );
+                    break;
+
+                case SASL_CRAM_MD5:
+                    // CRAM-MD5 Authentication
+                    SaslCramMd5Request cramMd5Request = new SaslCramMd5Request();
+                    cramMd5Request.setUsername( bindPrincipal );
+                    cramMd5Request.setCredentials( bindPassword );
+                    cramMd5Request
+                        .setQualityOfProtection( connection.getConnectionParameter().getSaslQop() );
+                    cramMd5Request.setSecurityStrength( connection.getConnectionParameter()
+                        .getSaslSecurityStrength() );
+                    cramMd5Request.setMutualAuthentication( connection.getConnectionParameter()
+                        .isSaslMutualAuthentication() );
+
+                    bindResponse = ldapConnection.bind( cramMd5Request );
+                    break;
+
+                case SASL_DIGEST_MD5:
+                    // DIGEST-MD5 Authentication
+                    SaslDigestMd5Request digestMd5Request = new SaslDigestMd5Request();
+                    digestMd5Request.setUsername( bindPrincipal );
+                    digestMd5Request.setCredentials( bindPassword );
+                    digestMd5Request.setRealmName( connection.getConnectionParameter().getSaslRealm() );
+                    digestMd5Request.setQualityOfProtection( connection.getConnectionParameter()
+                        .getSaslQop() );
+                    digestMd5Request.setSecurityStrength( connection.getConnectionParameter()
+                        .getSaslSecurityStrength() );
+                    digestMd5Request.setMutualAuthentication( connection.getConnectionParameter()
+                        .isSaslMutualAuthentication() );
+
+                    bindResponse = ldapConnection.bind( digestMd5Request );
+                    break;
+
+                case SASL_GSSAPI:
+                    // GSSAPI Authentication
+                    SaslGssApiRequest gssApiRequest = new SaslGssApiRequest();
+
+                    Preferences preferences = ConnectionCorePlugin.getDefault().getPluginPreferences();
+                    boolean useKrb5SystemProperties = preferences
+                        .getBoolean( ConnectionCoreConstants.PREFERENCE_USE_KRB5_SYSTEM_PROPERTIES );
+                    String krb5LoginModule = preferences
+                        .getString( ConnectionCoreConstants.PREFERENCE_KRB5_LOGIN_MODULE );
+
+                    if ( !useKrb5SystemProperties )
+                    {
+                        gssApiRequest.setUsername( bindPrincipal );
+                        gssApiRequest.setCredentials( bindPassword );
+                        gssApiRequest.setQualityOfProtection( connection
+                            .getConnectionParameter().getSaslQop() );
+                        gssApiRequest.setSecurityStrength( connection
+                            .getConnectionParameter()
+                            .getSaslSecurityStrength() );
+                        gssApiRequest.setMutualAuthentication( connection
+                            .getConnectionParameter()
+                            .isSaslMutualAuthentication() );
+                        gssApiRequest
+                            .setLoginModuleConfiguration( new InnerConfiguration(
+                                krb5LoginModule ) );
+
+                        switch ( connection.getConnectionParameter().getKrb5Configuration() )
+                        {
+                            case FILE:
+                                gssApiRequest.setKrb5ConfFilePath( connection.getConnectionParameter()
+                                    .getKrb5ConfigurationFile() );
+                                break;
+                            case MANUAL:
+                                gssApiRequest.setRealmName( connection.getConnectionParameter()
+                                    .getKrb5Realm() );
+                                gssApiRequest.setKdcHost( connection.getConnectionParameter()
+                                    .getKrb5KdcHost() );
+                                gssApiRequest.setKdcPort( connection.getConnectionParameter()
+                                    .getKrb5KdcPort() );
+                                break;
+                            default:
+                                break;
+                        }
+                    }
+
+                    bindResponse = ldapConnection.bind( gssApiRequest );
+                    break;
+            }
+        }
+
+        checkResponse( bindResponse );
+    }
+
+
     private void doBind( final StudioProgressMonitor monitor ) throws Exception
     {
         if ( isConnected() )
@@ -350,16 +535,10 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                 {
                     try
                     {
-                        BindResponse bindResponse = null;
+                        ICredentials credentials = null;
 
-                        // No Authentication
                         if ( connection.getConnectionParameter()
-                            .getAuthMethod() == ConnectionParameter.AuthenticationMethod.NONE )
-                        {
-                            BindRequest bindRequest = new BindRequestImpl();
-                            bindResponse = ldapConnection.bind( bindRequest );
-                        }
-                        else
+                            .getAuthMethod() != ConnectionParameter.AuthenticationMethod.NONE )
                         {
                             // Setup credentials
                             IAuthHandler authHandler = ConnectionCorePlugin.getDefault().getAuthHandler();
@@ -370,7 +549,7 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                                 monitor.reportError( Messages.model__no_auth_handler, exception );
                                 throw exception;
                             }
-                            ICredentials credentials = authHandler
+                            credentials = authHandler
                                 .getCredentials( connection.getConnectionParameter() );
                             if ( credentials == null )
                             {
@@ -385,98 +564,10 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                                 monitor.reportError( Messages.model__no_credentials, exception );
                                 throw exception;
                             }
-                            String bindPrincipal = credentials.getBindPrincipal();
-                            String bindPassword = credentials.getBindPassword();
-
-                            switch ( connection.getConnectionParameter().getAuthMethod() )
-                            {
-                                case SIMPLE:
-                                    // Simple Authentication
-                                    bindResponse = bindSimple( bindPrincipal, bindPassword );
-                                    break;
-
-                                case SASL_CRAM_MD5:
-                                    // CRAM-MD5 Authentication
-                                    SaslCramMd5Request cramMd5Request = new SaslCramMd5Request();
-                                    cramMd5Request.setUsername( bindPrincipal );
-                                    cramMd5Request.setCredentials( bindPassword );
-                                    cramMd5Request
-                                        .setQualityOfProtection( connection.getConnectionParameter().getSaslQop() );
-                                    cramMd5Request.setSecurityStrength( connection.getConnectionParameter()
-                                        .getSaslSecurityStrength() );
-                                    cramMd5Request.setMutualAuthentication( connection.getConnectionParameter()
-                                        .isSaslMutualAuthentication() );
-
-                                    bindResponse = ldapConnection.bind( cramMd5Request );
-                                    break;
-
-                                case SASL_DIGEST_MD5:
-                                    // DIGEST-MD5 Authentication
-                                    SaslDigestMd5Request digestMd5Request = new SaslDigestMd5Request();
-                                    digestMd5Request.setUsername( bindPrincipal );
-                                    digestMd5Request.setCredentials( bindPassword );
-                                    digestMd5Request.setRealmName( connection.getConnectionParameter().getSaslRealm() );
-                                    digestMd5Request.setQualityOfProtection( connection.getConnectionParameter()
-                                        .getSaslQop() );
-                                    digestMd5Request.setSecurityStrength( connection.getConnectionParameter()
-                                        .getSaslSecurityStrength() );
-                                    digestMd5Request.setMutualAuthentication( connection.getConnectionParameter()
-                                        .isSaslMutualAuthentication() );
-
-                                    bindResponse = ldapConnection.bind( digestMd5Request );
-                                    break;
-
-                                case SASL_GSSAPI:
-                                    // GSSAPI Authentication
-                                    SaslGssApiRequest gssApiRequest = new SaslGssApiRequest();
-
-                                    Preferences preferences = ConnectionCorePlugin.getDefault().getPluginPreferences();
-                                    boolean useKrb5SystemProperties = preferences
-                                        .getBoolean( ConnectionCoreConstants.PREFERENCE_USE_KRB5_SYSTEM_PROPERTIES );
-                                    String krb5LoginModule = preferences
-                                        .getString( ConnectionCoreConstants.PREFERENCE_KRB5_LOGIN_MODULE );
-
-                                    if ( !useKrb5SystemProperties )
-                                    {
-                                        gssApiRequest.setUsername( bindPrincipal );
-                                        gssApiRequest.setCredentials( bindPassword );
-                                        gssApiRequest.setQualityOfProtection( connection
-                                            .getConnectionParameter().getSaslQop() );
-                                        gssApiRequest.setSecurityStrength( connection
-                                            .getConnectionParameter()
-                                            .getSaslSecurityStrength() );
-                                        gssApiRequest.setMutualAuthentication( connection
-                                            .getConnectionParameter()
-                                            .isSaslMutualAuthentication() );
-                                        gssApiRequest
-                                            .setLoginModuleConfiguration( new InnerConfiguration(
-                                                krb5LoginModule ) );
-
-                                        switch ( connection.getConnectionParameter().getKrb5Configuration() )
-                                        {
-                                            case FILE:
-                                                gssApiRequest.setKrb5ConfFilePath( connection.getConnectionParameter()
-                                                    .getKrb5ConfigurationFile() );
-                                                break;
-                                            case MANUAL:
-                                                gssApiRequest.setRealmName( connection.getConnectionParameter()
-                                                    .getKrb5Realm() );
-                                                gssApiRequest.setKdcHost( connection.getConnectionParameter()
-                                                    .getKrb5KdcHost() );
-                                                gssApiRequest.setKdcPort( connection.getConnectionParameter()
-                                                    .getKrb5KdcPort() );
-                                                break;
-                                            default:
-                                                break;
-                                        }
-                                    }
-
-                                    bindResponse = ldapConnection.bind( gssApiRequest );
-                                    break;
-                            }
                         }
 
-                        checkResponse( bindResponse );
+                        bindLdapConnection( ldapConnection, credentials );
+                        bindCredentials = credentials;
                     }
                     catch ( Exception e )
                     {
@@ -587,12 +678,13 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                     request.setDerefAliases( convertAliasDerefMode( aliasesDereferencingMethod ) );
 
                     // Performing the search operation
-                    SearchCursor cursor = ldapConnection.search( request );
+                    SearchCursor cursor = operationConnection.search( request );
 
                     // Returning the result of the search
                     searchResultEnumeration = new StudioSearchResultEnumeration( connection, cursor, searchBase, filter,
                         searchControls, aliasesDereferencingMethod, referralsHandlingMethod, controls, requestNum,
                         monitor, referralsInfo );
+                    keepConnectionUntilClosed = true;
                 }
                 catch ( Exception e )
                 {
@@ -616,6 +708,8 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
             }
         };
 
+        runnable.pagedResultsCookie = getPagedResultsCookie( controls );
+
         try
         {
             checkConnectionAndRunAndMonitor( runnable, monitor );
@@ -734,7 +828,7 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                     }
 
                     // Performing the modify operation
-                    ModifyResponse modifyResponse = ldapConnection.modify( request );
+                    ModifyResponse modifyResponse = operationConnection.modify( request );
 
                     // Handle referral
                     ReferralHandlingDataConsumer consumer = referralHandlingData -> referralHandlingData.connectionWrapper
@@ -813,7 +907,7 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                     }
 
                     // Performing the rename operation
-                    ModifyDnResponse modifyDnResponse = ldapConnection.modifyDn( request );
+                    ModifyDnResponse modifyDnResponse = operationConnection.modifyDn( request );
 
                     // Handle referral
                     ReferralHandlingDataConsumer consumer = referralHandlingData -> referralHandlingData.connectionWrapper
@@ -889,7 +983,7 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                     }
 
                     // Performing the add operation
-                    AddResponse addResponse = ldapConnection.add( request );
+                    AddResponse addResponse = operationConnection.add( request );
 
                     // Handle referral
                     ReferralHandlingDataConsumer consumer = referralHandlingData -> {
@@ -968,7 +1062,7 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
                     }
 
                     // Performing the delete operation
-                    DeleteResponse deleteResponse = ldapConnection.delete( request );
+                    DeleteResponse deleteResponse = operationConnection.delete( request );
 
                     // Handle referral
                     ReferralHandlingDataConsumer consumer = referralHandlingData -> referralHandlingData.connectionWrapper
@@ -1033,7 +1127,7 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
             {
                 try
                 {
-                    ExtendedResponse response = ldapConnection.extended( request );
+                    ExtendedResponse response = operationConnection.extended( request );
                     outerResponse[0] = response;
 
                     // TODO: handle referrals?
@@ -1073,6 +1167,15 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
         return outerResponse[0];
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public WritePipeline openWritePipeline( int windowSize, StudioProgressMonitor monitor )
+    {
+        return new DirectoryApiWritePipeline( Math.max( 1, windowSize ), monitor );
+    }
+
+
     /**
      * Inner runnable used in connection wrapper operations.
      *
@@ -1084,6 +1187,37 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
         protected StudioLdapException exception = null;
         protected boolean canceled = false;
 
+        /** The LDAP connection the operation runs on, either the main or a pooled connection */
+        protected LdapNetworkConnection operationConnection = null;
+
+        /** Set if the result still uses the operation connection after the run, e.g. a search cursor */
+        protected boolean keepConnectionUntilClosed = false;
+
+        /** The paged results cookie of a search, the next page must be requested on the same connection */
+        protected byte[] pagedResultsCookie = null;
+
+
+        /**
+         * Gets the connection the operation must run on. The connection is owned by
+         * the caller, e.g. a write pipeline, and it isn't given back to the pool after the run.
+         *
+         * @return the connection, or null to run on a pooled or on the main connection
+         */
+        protected LdapNetworkConnection getPinnedConnection()
+        {
+            return null;
+        }
+
+
+        /**
+         * Called if the pinned connection broke or the operation was canceled,
+         * the pinned connection must not be used anymore.
+         */
+        protected void pinnedConnectionFailed()
+        {
+        }
+
+
         /**
          * Gets the exception.
          * 
@@ -1125,6 +1259,8 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
             searchResultEnumeration = null;
             exception = null;
             canceled = false;
+            operationConnection = null;
+            keepConnectionUntilClosed = false;
         }
     }
 
@@ -1206,13 +1342,75 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
         // loop for reconnection
         for ( int i = 0; i <= 1; i++ )
         {
-            runAndMonitor( runnable, monitor );
+            LdapNetworkConnection pinnedConnection = runnable.getPinnedConnection();
+            LdapNetworkConnection pooledConnection = null;
+
+            if ( pinnedConnection == null )
+            {
+                if ( ( runnable.pagedResultsCookie != null ) && ( runnable.pagedResultsCookie.length > 0 ) )
+                {
+                    // the cookie is only valid on the connection that returned it, the main
+                    // connection is used if that connection isn't a pooled one
+                    pooledConnection = takePagedSearchConnection( runnable.pagedResultsCookie );
+                }
+                else
+                {
+                    pooledConnection = borrowPooledConnection();
+                }
+            }
+
+            if ( pinnedConnection != null )
+            {
+                runnable.operationConnection = pinnedConnection;
+            }
+            else
+            {
+                runnable.operationConnection = pooledConnection != null ? pooledConnection : ldapConnection;
+            }
+
+            try
+            {
+                runAndMonitor( runnable, monitor );
+            }
+            finally
+            {
+                boolean failed = runnable.getException() instanceof InvalidConnectionException
+                    || monitor.isCanceled();
+
+                if ( pinnedConnection != null )
+                {
+                    if ( failed )
+                    {
+                        runnable.pinnedConnectionFailed();
+                    }
+                }
+                else if ( pooledConnection != null )
+                {
+                    if ( failed )
+                    {
+                        invalidatePooledConnection( pooledConnection );
+                    }
+                    else if ( runnable.keepConnectionUntilClosed && runnable.getResult() != null )
+                    {
+                        // the search cursor is still reading from the connection
+                        final StudioSearchResultEnumeration result = runnable.getResult();
+                        result.setCloseCallback( () -> releaseSearchConnection( pooledConnection, result ) );
+                    }
+                    else
+                    {
+                        returnPooledConnection( pooledConnection );
+                    }
+                }
+            }
 
             // check reconnection
             if ( ( i == 0 ) && ( runnable.getException() instanceof InvalidConnectionException ) )
             {
-                doConnect( monitor );
-                doBind( monitor );
+                if ( ( pooledConnection == null ) && ( pinnedConnection == null ) )
+                {
+                    doConnect( monitor );
+                    doBind( monitor );
+                }
                 runnable.reset();
             }
             else
@@ -1228,10 +1426,33 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
     {
         if ( !monitor.isCanceled() )
         {
+            // pooled connections run in parallel, so only the main connection tracks the job thread
+            final boolean isPooled = runnable.operationConnection != null
+                && runnable.operationConnection != ldapConnection;
+            final Thread currentThread = Thread.currentThread();
+
             // monitor
             StudioProgressMonitor.CancelListener listener = event -> {
                 if ( monitor.isCanceled() )
                 {
+                    if ( isPooled )
+                    {
+                        if ( currentThread.isAlive() )
+                        {
+                            currentThread.interrupt();
+                        }
+
+                        try
+                        {
+                            runnable.operationConnection.close();
+                        }
+                        catch ( Exception e )
+                        {
+                        }
+
+                        return;
+                    }
+
                     if ( jobThread != null && jobThread.isAlive() )
                     {
                         jobThread.interrupt();
@@ -1253,7 +1474,10 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
             };
 
             monitor.addCancelListener( listener );
-            jobThread = Thread.currentThread();
+            if ( !isPooled )
+            {
+                jobThread = currentThread;
+            }
 
             // run
             try
@@ -1263,7 +1487,10 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
             finally
             {
                 monitor.removeCancelListener( listener );
-                jobThread = null;
+                if ( !isPooled )
+                {
+                    jobThread = null;
+                }
             }
 
             if ( monitor.isCanceled() )
@@ -1273,6 +1500,863 @@ public class DirectoryApiConnectionWrapper implements ConnectionWrapper
         }
     }
 
+
+    /**
+     * Borrows a bound LDAP connection from the connection pool.
+     * 
+     * @return a pooled LDAP connection, or null if the pool is disabled or exhausted,
+     *         in that case the main connection should be used
+     */
+    private LdapNetworkConnection borrowPooledConnection()
+    {
+        GenericObjectPool<LdapNetworkConnection> pool = getConnectionPool();
+
+        if ( pool == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            LdapNetworkConnection pooledConnection = pool.borrowObject();
+            borrowedConnections.add( pooledConnection );
+
+            return pooledConnection;
+        }
+        catch ( NoSuchElementException e )
+        {
+            // the pool is exhausted, fall back to the main connection
+            return null;
+        }
+        catch ( Exception e )
+        {
+            // the pooled connection can't be established, fall back to the main connection
+            return null;
+        }
+    }
+
+
+    /**
+     * Releases the pooled LDAP connection of an exhausted or closed search cursor. If the
+     * search is a paged search with more pages, the connection is kept for the next page,
+     * as the paged results cookie is bound to the connection that returned it.
+     *
+     * @param pooledConnection the pooled LDAP connection
+     * @param result the search result enumeration
+     */
+    private void releaseSearchConnection( LdapNetworkConnection pooledConnection,
+        StudioSearchResultEnumeration result )
+    {
+        byte[] cookie = getPagedResultsCookie( result.getResponseControls() );
+
+        returnExpiredPagedSearchConnections();
+
+        if ( ( cookie != null ) && ( cookie.length > 0 ) && borrowedConnections.contains( pooledConnection ) )
+        {
+            PagedSearchConnection previous = pagedSearchConnections.put( ByteBuffer.wrap( cookie.clone() ),
+                new PagedSearchConnection( pooledConnection ) );
+
+            if ( previous != null && previous.connection != pooledConnection )
+            {
+                returnPooledConnection( previous.connection );
+            }
+        }
+        else
+        {
+            returnPooledConnection( pooledConnection );
+        }
+    }
+
+
+    /**
+     * Takes the pooled LDAP connection kept for the next page of a paged search.
+     *
+     * @param cookie the paged results cookie
+     * @return the pooled LDAP connection, or null if the previous page didn't run on a pooled connection
+     */
+    private LdapNetworkConnection takePagedSearchConnection( byte[] cookie )
+    {
+        returnExpiredPagedSearchConnections();
+
+        PagedSearchConnection pagedSearchConnection = pagedSearchConnections.remove( ByteBuffer.wrap( cookie ) );
+
+        if ( pagedSearchConnection == null )
+        {
+            return null;
+        }
+
+        if ( !pagedSearchConnection.connection.isConnected() )
+        {
+            invalidatePooledConnection( pagedSearchConnection.connection );
+            return null;
+        }
+
+        return pagedSearchConnection.connection;
+    }
+
+
+    /**
+     * Gives the connections of abandoned paged searches back to the connection pool.
+     */
+    private void returnExpiredPagedSearchConnections()
+    {
+        long expired = System.currentTimeMillis() - PAGED_SEARCH_CONNECTION_TIMEOUT_MILLIS;
+
+        for ( Map.Entry<ByteBuffer, PagedSearchConnection> entry : pagedSearchConnections.entrySet() )
+        {
+            if ( ( entry.getValue().keptSince < expired )
+                && pagedSearchConnections.remove( entry.getKey(), entry.getValue() ) )
+            {
+                returnPooledConnection( entry.getValue().connection );
+            }
+        }
+    }
+
+
+    /**
+     * Gets the cookie of the paged results control in the given controls.
+     *
+     * @param controls the controls, may be null
+     * @return the cookie, or null if there is no paged results control
+     */
+    private static byte[] getPagedResultsCookie( Control[] controls )
+    {
+        return controls != null ? getPagedResultsCookie( Arrays.asList( controls ) ) : null;
+    }
+
+
+    private static byte[] getPagedResultsCookie( Collection<Control> controls )
+    {
+        for ( Control control : controls )
+        {
+            if ( control instanceof PagedResults )
+            {
+                return ( ( PagedResults ) control ).getCookie();
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Gives a pooled LDAP connection back to the connection pool.
+     * 
+     * @param pooledConnection the pooled LDAP connection
+     */
+    private void returnPooledConnection( LdapNetworkConnection pooledConnection )
+    {
+        if ( borrowedConnections.remove( pooledConnection ) )
+        {
+            try
+            {
+                connectionPool.returnObject( pooledConnection );
+            }
+            catch ( Exception e )
+            {
+                // the pool was closed or replaced meanwhile
+                closeQuietly( pooledConnection );
+            }
+        }
+    }
+
+
+    /**
+     * Removes a broken pooled LDAP connection from the connection pool.
+     * 
+     * @param pooledConnection the pooled LDAP connection
+     */
+    private void invalidatePooledConnection( LdapNetworkConnection pooledConnection )
+    {
+        if ( borrowedConnections.remove( pooledConnection ) )
+        {
+            try
+            {
+                connectionPool.invalidateObject( pooledConnection );
+            }
+            catch ( Exception e )
+            {
+                // the pool was closed or replaced meanwhile
+                closeQuietly( pooledConnection );
+            }
+        }
+    }
+
+
+    /**
+     * Gets the connection pool, creates it if the connection pool is enabled
+     * and the main connection is bound.
+     * 
+     * @return the connection pool, null if the connection pool is disabled
+     */
+    private synchronized GenericObjectPool<LdapNetworkConnection> getConnectionPool()
+    {
+        ConnectionParameter parameter = connection.getConnectionParameter();
+
+        if ( !parameter.isPoolEnabled() || ldapConnectionConfig == null || !isConnected() )
+        {
+            return null;
+        }
+
+        if ( connectionPool == null )
+        {
+            GenericObjectPoolConfig<LdapNetworkConnection> poolConfig = new GenericObjectPoolConfig<>();
+            poolConfig.setMaxTotal( parameter.getPoolMaxSize() );
+            poolConfig.setMaxIdle( parameter.getPoolMaxSize() );
+            poolConfig.setMinIdle( Math.min( parameter.getPoolMinSize(), parameter.getPoolMaxSize() ) );
+            poolConfig.setBlockWhenExhausted( false );
+            poolConfig.setTestOnBorrow( true );
+            poolConfig.setTestWhileIdle( true );
+            poolConfig.setLifo( true );
+            poolConfig.setMinEvictableIdleTimeMillis( parameter.getPoolIdleEvictionSeconds() * 1000L );
+            poolConfig.setTimeBetweenEvictionRunsMillis(
+                Math.max( 1000L, Math.min( 30000L, parameter.getPoolIdleEvictionSeconds() * 1000L ) ) );
+            poolConfig.setNumTestsPerEvictionRun( parameter.getPoolMaxSize() );
+            poolConfig.setJmxEnabled( false );
+
+            connectionPool = new GenericObjectPool<>( new PooledLdapConnectionFactory(), poolConfig );
+        }
+
+        return connectionPool;
+    }
+
+
+    /**
+     * Closes the connection pool and all pooled LDAP connections.
+     */
+    private synchronized void closeConnectionPool()
+    {
+        if ( connectionPool != null )
+        {
+            connectionPool.close();
+            connectionPool = null;
+        }
+
+        // the connections kept for paged searches are borrowed, they are closed below
+        pagedSearchConnections.clear();
+
+        for ( LdapNetworkConnection borrowedConnection : borrowedConnections )
+        {
+            closeQuietly( borrowedConnection );
+        }
+
+        borrowedConnections.clear();
+    }
+
+
+    private static void closeQuietly( LdapNetworkConnection ldapConnection )
+    {
+        try
+        {
+            ldapConnection.close();
+        }
+        catch ( Exception e )
+        {
+            // ignore
+        }
+    }
+
+    /**
+     * A pooled LDAP connection kept for the next page of a paged search.
+     */
+    private static final class PagedSearchConnection
+    {
+        /** The pooled LDAP connection */
+        private final LdapNetworkConnection connection;
+
+        /** The time the connection is kept since */
+        private final long keptSince = System.currentTimeMillis();
+
+
+        private PagedSearchConnection( LdapNetworkConnection connection )
+        {
+            this.connection = connection;
+        }
+    }
+
+
+    /**
+     * Factory for the pooled LDAP connections. Each pooled connection uses the
+     * configuration and the credentials of the main connection.
+     *
+     * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+     */
+    private final class PooledLdapConnectionFactory extends BasePooledObjectFactory<LdapNetworkConnection>
+    {
+        @Override
+        public LdapNetworkConnection create() throws Exception
+        {
+            LdapConnectionConfig config = ldapConnectionConfig;
+
+            if ( config == null )
+            {
+                throw new InvalidConnectionException( Messages.DirectoryApiConnectionWrapper_NoConnection );
+            }
+
+            LdapNetworkConnection pooledConnection = openLdapConnection( config );
+
+            try
+            {
+                bindLdapConnection( pooledConnection, bindCredentials );
+            }
+            catch ( Exception e )
+            {
+                closeQuietly( pooledConnection );
+                throw e;
+            }
+
+            return pooledConnection;
+        }
+
+
+        @Override
+        public PooledObject<LdapNetworkConnection> wrap( LdapNetworkConnection pooledConnection )
+        {
+            return new DefaultPooledObject<>( pooledConnection );
+        }
+
+
+        @Override
+        public boolean validateObject( PooledObject<LdapNetworkConnection> pooledObject )
+        {
+            LdapNetworkConnection pooledConnection = pooledObject.getObject();
+
+            return pooledConnection.isConnected() && pooledConnection.isAuthenticated();
+        }
+
+
+        @Override
+        public void destroyObject( PooledObject<LdapNetworkConnection> pooledObject )
+        {
+            closeQuietly( pooledObject.getObject() );
+        }
+    }
+
+    /**
+     * Write pipeline that sends the requests using the asynchronous operations
+     * of the LDAP connection. All requests are sent on one pooled connection,
+     * which is given back to the pool when the pipeline is closed.
+     *
+     * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+     */
+    private final class DirectoryApiWritePipeline implements WritePipeline
+    {
+        /** The maximum number of outstanding requests */
+        private final int windowSize;
+
+        /** The progress monitor used to send the requests */
+        private final StudioProgressMonitor monitor;
+
+        /** The sent requests whose responses were not received yet, in sending order */
+        private final Deque<DirectoryApiPendingWrite<?>> outstandingWrites = new ArrayDeque<>();
+
+        /** The pooled LDAP connection the requests are sent on, null to send them on the main connection */
+        private LdapNetworkConnection pipelineConnection;
+
+        /** Set once the pooled LDAP connection was borrowed */
+        private boolean pipelineConnectionBorrowed = false;
+
+
+        private DirectoryApiWritePipeline( int windowSize, StudioProgressMonitor monitor )
+        {
+            this.windowSize = windowSize;
+            this.monitor = monitor;
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public PendingWrite modifyEntry( final Dn dn, final Collection<Modification> modifications,
+            final Control[] controls )
+        {
+            return send( new DirectoryApiPendingWrite<ModifyResponse>()
+            {
+                ResponseFuture<ModifyResponse> sendRequest( LdapNetworkConnection ldapConnection )
+                    throws LdapException
+                {
+                    ModifyRequest request = new ModifyRequestImpl();
+                    request.setName( dn );
+                    if ( modifications != null )
+                    {
+                        for ( Modification modification : modifications )
+                        {
+                            request.addModification( modification );
+                        }
+                    }
+                    if ( controls != null )
+                    {
+                        request.addAllControls( controls );
+                    }
+
+                    return ldapConnection.modifyAsync( request );
+                }
+
+
+                void followReferral( ReferralHandlingData referralHandlingData, StudioProgressMonitor monitor )
+                    throws LdapException
+                {
+                    referralHandlingData.connectionWrapper.modifyEntry( new Dn( referralHandlingData.referralDn ),
+                        modifications, controls, monitor, referralHandlingData.newReferralsInfo );
+                }
+
+
+                void log( ILdapLogger logger, StudioLdapException exception )
+                {
+                    logger.logChangetypeModify( connection, dn, modifications, controls, exception );
+                }
+            } );
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public PendingWrite renameEntry( final Dn oldDn, final Dn newDn, final boolean deleteOldRdn,
+            final Control[] controls )
+        {
+            return send( new DirectoryApiPendingWrite<ModifyDnResponse>()
+            {
+                ResponseFuture<ModifyDnResponse> sendRequest( LdapNetworkConnection ldapConnection )
+                    throws LdapException
+                {
+                    ModifyDnRequest request = new ModifyDnRequestImpl();
+                    request.setName( oldDn );
+                    request.setDeleteOldRdn( deleteOldRdn );
+                    request.setNewRdn( newDn.getRdn() );
+                    request.setNewSuperior( newDn.getParent() );
+                    if ( controls != null )
+                    {
+                        request.addAllControls( controls );
+                    }
+
+                    return ldapConnection.modifyDnAsync( request );
+                }
+
+
+                void followReferral( ReferralHandlingData referralHandlingData, StudioProgressMonitor monitor )
+                {
+                    referralHandlingData.connectionWrapper.renameEntry( oldDn, newDn, deleteOldRdn, controls,
+                        monitor, referralHandlingData.newReferralsInfo );
+                }
+
+
+                void log( ILdapLogger logger, StudioLdapException exception )
+                {
+                    logger.logChangetypeModDn( connection, oldDn, newDn, deleteOldRdn, controls, exception );
+                }
+            } );
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public PendingWrite createEntry( final Entry entry, final Control[] controls )
+        {
+            return send( new DirectoryApiPendingWrite<AddResponse>()
+            {
+                ResponseFuture<AddResponse> sendRequest( LdapNetworkConnection ldapConnection ) throws LdapException
+                {
+                    AddRequest request = new AddRequestImpl();
+                    request.setEntry( entry );
+                    if ( controls != null )
+                    {
+                        request.addAllControls( controls );
+                    }
+
+                    return ldapConnection.addAsync( request );
+                }
+
+
+                void followReferral( ReferralHandlingData referralHandlingData, StudioProgressMonitor monitor )
+                    throws LdapException
+                {
+                    Entry entryWithReferralDn = entry.clone();
+                    entryWithReferralDn.setDn( referralHandlingData.referralDn );
+                    referralHandlingData.connectionWrapper.createEntry( entryWithReferralDn, controls, monitor,
+                        referralHandlingData.newReferralsInfo );
+                }
+
+
+                void log( ILdapLogger logger, StudioLdapException exception )
+                {
+                    logger.logChangetypeAdd( connection, entry, controls, exception );
+                }
+            } );
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public PendingWrite deleteEntry( final Dn dn, final Control[] controls )
+        {
+            return send( new DirectoryApiPendingWrite<DeleteResponse>()
+            {
+                ResponseFuture<DeleteResponse> sendRequest( LdapNetworkConnection ldapConnection )
+                    throws LdapException
+                {
+                    DeleteRequest request = new DeleteRequestImpl();
+                    request.setName( dn );
+                    if ( controls != null )
+                    {
+                        request.addAllControls( controls );
+                    }
+
+                    return ldapConnection.deleteAsync( request );
+                }
+
+
+                void followReferral( ReferralHandlingData referralHandlingData, StudioProgressMonitor monitor )
+                    throws LdapException
+                {
+                    referralHandlingData.connectionWrapper.deleteEntry( new Dn( referralHandlingData.referralDn ),
+                        controls, monitor, referralHandlingData.newReferralsInfo );
+                }
+
+
+                void log( ILdapLogger logger, StudioLdapException exception )
+                {
+                    logger.logChangetypeDelete( connection, dn, controls, exception );
+                }
+            } );
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public int getWindowSize()
+        {
+            return windowSize;
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public void close()
+        {
+            try
+            {
+                while ( !outstandingWrites.isEmpty() )
+                {
+                    outstandingWrites.poll().receive( monitor );
+                }
+            }
+            finally
+            {
+                // all responses are received, the connection isn't used anymore
+                releasePipelineConnection( monitor.isCanceled() );
+            }
+        }
+
+
+        /**
+         * Gets the pooled LDAP connection the requests are sent on, it is
+         * borrowed when the first request is sent.
+         *
+         * @return the pooled LDAP connection, null to send on the main connection
+         */
+        private LdapNetworkConnection getPipelineConnection()
+        {
+            if ( !pipelineConnectionBorrowed )
+            {
+                pipelineConnectionBorrowed = true;
+                pipelineConnection = borrowPooledConnection();
+            }
+
+            return pipelineConnection;
+        }
+
+
+        /**
+         * Gives the pooled LDAP connection back to the pool. The following
+         * requests, if any, are sent on the main connection.
+         *
+         * @param invalidate true if the connection broke or the pipeline was canceled
+         */
+        private void releasePipelineConnection( boolean invalidate )
+        {
+            if ( pipelineConnection != null )
+            {
+                if ( invalidate )
+                {
+                    invalidatePooledConnection( pipelineConnection );
+                }
+                else
+                {
+                    returnPooledConnection( pipelineConnection );
+                }
+
+                pipelineConnection = null;
+            }
+        }
+
+
+        /**
+         * Sends the request of the given pending write, if the window is full
+         * the oldest response is received first.
+         *
+         * @param pendingWrite the pending write
+         * @return the pending write
+         */
+        private PendingWrite send( final DirectoryApiPendingWrite<?> pendingWrite )
+        {
+            while ( outstandingWrites.size() >= windowSize )
+            {
+                outstandingWrites.poll().receive( monitor );
+            }
+
+            if ( connection.isReadOnly() )
+            {
+                pendingWrite.exception = new Exception(
+                    NLS.bind( Messages.error__connection_is_readonly, connection.getName() ) );
+                return pendingWrite;
+            }
+
+            InnerRunnable runnable = new InnerRunnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        pendingWrite.send( operationConnection );
+                    }
+                    catch ( Exception e )
+                    {
+                        exception = toStudioLdapException( e );
+                    }
+                }
+
+
+                protected LdapNetworkConnection getPinnedConnection()
+                {
+                    // the responses are received later, so the connection must not go back to the pool now
+                    return getPipelineConnection();
+                }
+
+
+                protected void pinnedConnectionFailed()
+                {
+                    releasePipelineConnection( true );
+                }
+            };
+
+            try
+            {
+                checkConnectionAndRunAndMonitor( runnable, monitor );
+            }
+            catch ( Exception e )
+            {
+                pendingWrite.exception = e;
+            }
+
+            if ( runnable.getException() != null )
+            {
+                pendingWrite.exception = runnable.getException();
+            }
+            else if ( pendingWrite.future != null )
+            {
+                outstandingWrites.add( pendingWrite );
+            }
+
+            return pendingWrite;
+        }
+
+
+        /**
+         * A sent write request and its response.
+         *
+         * @param <R> the response type
+         */
+        private abstract class DirectoryApiPendingWrite<R extends ResultResponse> implements PendingWrite
+        {
+            /** The response future, null if the request wasn't sent */
+            private ResponseFuture<R> future;
+
+            /** The response, null if not received yet */
+            private R response;
+
+            /** The exception that occurred while sending the request or receiving the response */
+            private Exception exception;
+
+            /** The received flag */
+            private boolean received = false;
+
+
+            /**
+             * Sends the request.
+             *
+             * @param ldapConnection the LDAP connection
+             * @return the response future
+             * @throws LdapException if the request can't be sent
+             */
+            abstract ResponseFuture<R> sendRequest( LdapNetworkConnection ldapConnection ) throws LdapException;
+
+
+            private void send( LdapNetworkConnection ldapConnection ) throws LdapException
+            {
+                future = sendRequest( ldapConnection );
+            }
+
+
+            /**
+             * Repeats the operation synchronously on the referral connection.
+             *
+             * @param referralHandlingData the referral handling data
+             * @param monitor the progress monitor
+             * @throws LdapException if the referral Dn is invalid
+             */
+            abstract void followReferral( ReferralHandlingData referralHandlingData, StudioProgressMonitor monitor )
+                throws LdapException;
+
+
+            /**
+             * Logs the operation.
+             *
+             * @param logger the LDAP logger
+             * @param exception the exception, null if the operation succeeded
+             */
+            abstract void log( ILdapLogger logger, StudioLdapException exception );
+
+
+            /**
+             * Receives the response, waits at most the connection timeout.
+             *
+             * @param monitor the progress monitor
+             */
+            private void receive( StudioProgressMonitor monitor )
+            {
+                if ( received )
+                {
+                    return;
+                }
+                received = true;
+
+                if ( future == null )
+                {
+                    return;
+                }
+
+                long timeoutMillis = connection.getTimeoutMillis();
+                long start = System.currentTimeMillis();
+
+                try
+                {
+                    while ( response == null )
+                    {
+                        if ( monitor.isCanceled() )
+                        {
+                            future.cancel( true );
+                            exception = new CancelException();
+                            return;
+                        }
+
+                        if ( timeoutMillis > 0 && System.currentTimeMillis() - start > timeoutMillis )
+                        {
+                            future.cancel( true );
+                            exception = new LdapException(
+                                NLS.bind( Messages.DirectoryApiConnectionWrapper_RequestTimedOut, timeoutMillis ) );
+                            return;
+                        }
+
+                        // poll in short intervals to recognize cancellation
+                        try
+                        {
+                            response = future.get( 100L, TimeUnit.MILLISECONDS );
+                        }
+                        catch ( TimeoutException e )
+                        {
+                            // no response yet
+                        }
+
+                        if ( response == null && future.isCancelled() )
+                        {
+                            // the connection was closed meanwhile
+                            exception = new InvalidConnectionException(
+                                Messages.DirectoryApiConnectionWrapper_NoConnection );
+                            return;
+                        }
+                    }
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    exception = new CancelException();
+                }
+                catch ( ExecutionException e )
+                {
+                    exception = toStudioLdapException( e );
+                }
+            }
+
+
+            /**
+             * {@inheritDoc}
+             */
+            public void await( StudioProgressMonitor monitor )
+            {
+                outstandingWrites.remove( this );
+                receive( monitor );
+
+                StudioLdapException studioLdapException = null;
+
+                if ( exception instanceof CancelException )
+                {
+                    monitor.setCanceled( true );
+                    monitor.reportError( exception );
+                    return;
+                }
+                else if ( exception instanceof StudioLdapException )
+                {
+                    studioLdapException = ( StudioLdapException ) exception;
+                }
+                else if ( exception instanceof LdapException )
+                {
+                    studioLdapException = toStudioLdapException( exception );
+                }
+                else if ( exception != null )
+                {
+                    // e.g. read-only connection, the synchronous operations don't log those either
+                    monitor.reportError( exception );
+                    return;
+                }
+                else
+                {
+                    try
+                    {
+                        // Handle referral
+                        if ( checkAndHandleReferral( response, monitor, null,
+                            referralHandlingData -> followReferral( referralHandlingData, monitor ) ) )
+                        {
+                            return;
+                        }
+
+                        // Checking the response
+                        checkResponse( response );
+                    }
+                    catch ( Exception e )
+                    {
+                        studioLdapException = toStudioLdapException( e );
+                    }
+                }
+
+                for ( ILdapLogger logger : getLdapLoggers() )
+                {
+                    log( logger, studioLdapException );
+                }
+
+                if ( studioLdapException != null )
+                {
+                    monitor.reportError( studioLdapException );
+                }
+            }
+        }
+    }
+
+
     private final class InnerConfiguration extends Configuration
     {
         private String krb5LoginModule;
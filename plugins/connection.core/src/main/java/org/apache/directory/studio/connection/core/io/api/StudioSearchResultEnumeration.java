@@ -76,6 +76,9 @@ public class StudioSearchResultEnumeration
     private StudioSearchResultEnumeration referralEnumeration;
     private SearchResultDone searchResultDone;
 
+    /** Callback invoked once the cursor is exhausted or closed, e.g. to give back a pooled connection */
+    private Runnable closeCallback;
+
 
     /**
      * Creates a new instance of StudioSearchResultEnumeration.
@@ -130,6 +133,33 @@ public class StudioSearchResultEnumeration
         {
             throw new LdapException( e.getMessage() );
         }
+        finally
+        {
+            runCloseCallback();
+        }
+    }
+
+
+    /**
+     * Sets the callback that is invoked once the underlying cursor is exhausted or closed.
+     * 
+     * @param closeCallback the callback
+     */
+    void setCloseCallback( Runnable closeCallback )
+    {
+        this.closeCallback = closeCallback;
+    }
+
+
+    private void runCloseCallback()
+    {
+        Runnable callback = closeCallback;
+        closeCallback = null;
+
+        if ( callback != null )
+        {
+            callback.run();
+        }
     }
 
 
@@ -169,6 +199,9 @@ public class StudioSearchResultEnumeration
             if ( searchResultDone == null )
             {
                 searchResultDone = ( ( SearchCursor ) cursor ).getSearchResultDone();
+
+                // The cursor is exhausted, the connection isn't needed anymore
+                runCloseCallback();
                 Referral referral = searchResultDone.getLdapResult().getReferral();
                 if ( referralsHandlingMethod != ReferralHandlingMethod.IGNORE && referral != null )
                 {
@@ -31,7 +31,6 @@ import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.jobs.Job;
 
 
 /**
@@ -164,54 +163,6 @@ public class StudioConnectionJob extends StudioJob<StudioConnectionRunnableWithP
     }
 
 
-    /**
-     * {@inheritDoc}
-     */
-    public boolean shouldSchedule()
-    {
-        // We don't schedule a job if the same type of runnable should run
-        // that works on the same entry as the current runnable.
-
-        for ( StudioConnectionRunnableWithProgress runnable : runnables )
-        {
-            Object[] myLockedObjects = runnable.getLockedObjects();
-            String[] myLockedObjectsIdentifiers = getLockIdentifiers( myLockedObjects );
-
-            Job[] jobs = getJobManager().find( null );
-            for ( int i = 0; i < jobs.length; i++ )
-            {
-                Job job = jobs[i];
-                if ( job instanceof StudioConnectionJob )
-                {
-                    StudioConnectionJob otherJob = ( StudioConnectionJob ) job;
-                    for ( StudioConnectionRunnableWithProgress otherRunnable : otherJob.runnables )
-                    {
-                        if ( runnable.getClass() == otherRunnable.getClass() && runnable != otherRunnable )
-                        {
-                            Object[] otherLockedObjects = otherRunnable.getLockedObjects();
-                            String[] otherLockedObjectIdentifiers = getLockIdentifiers( otherLockedObjects );
-
-                            for ( int j = 0; j < otherLockedObjectIdentifiers.length; j++ )
-                            {
-                                String other = otherLockedObjectIdentifiers[j];
-                                for ( int k = 0; k < myLockedObjectsIdentifiers.length; k++ )
-                                {
-                                    String my = myLockedObjectsIdentifiers[k];
-                                    if ( other.startsWith( my ) || my.startsWith( other ) )
-                                    {
-                                        return false;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return super.shouldSchedule();
-    }
-
-
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,247 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.studio.connection.core.event;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the {@link BatchingEventRunner} with {@link CoalescingEventRunnable}s.
+ * The scheduled batches are collected and run by the test.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class BatchingEventRunnerTest
+{
+    private TestEventRunner runner;
+
+    private List<String> log;
+
+
+    @BeforeEach
+    public void setUp()
+    {
+        runner = new TestEventRunner();
+        log = new ArrayList<String>();
+    }
+
+
+    @Test
+    public void testOneBatchIsScheduled()
+    {
+        runner.execute( new LogRunnable( "a" ) ); //$NON-NLS-1$
+        runner.execute( new LogRunnable( "b" ) ); //$NON-NLS-1$
+        runner.execute( new LogRunnable( "c" ) ); //$NON-NLS-1$
+
+        assertEquals( 1, runner.batches.size() );
+        assertTrue( log.isEmpty() );
+
+        runner.runBatches();
+        assertEquals( Arrays.asList( "a", "b", "c" ), log ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+
+    @Test
+    public void testDuplicatesAreCoalesced()
+    {
+        runner.execute( new CoalescingLogRunnable( "a", "key1" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        runner.execute( new CoalescingLogRunnable( "b", "key2" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        runner.execute( new CoalescingLogRunnable( "c", "key1" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        runner.execute( new CoalescingLogRunnable( "d", "key2" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        runner.execute( new CoalescingLogRunnable( "e", "key1" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+
+        runner.runBatches();
+        assertEquals( Arrays.asList( "a", "b" ), log ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+
+    @Test
+    public void testNullKeyIsNotCoalesced()
+    {
+        runner.execute( new CoalescingLogRunnable( "a", null ) ); //$NON-NLS-1$
+        runner.execute( new CoalescingLogRunnable( "b", null ) ); //$NON-NLS-1$
+        runner.execute( new LogRunnable( "c" ) ); //$NON-NLS-1$
+        runner.execute( new LogRunnable( "c" ) ); //$NON-NLS-1$
+
+        runner.runBatches();
+        assertEquals( Arrays.asList( "a", "b", "c", "c" ), log ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+    }
+
+
+    @Test
+    public void testOrderIsPreserved()
+    {
+        runner.execute( new LogRunnable( "a" ) ); //$NON-NLS-1$
+        runner.execute( new CoalescingLogRunnable( "b", "key1" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        runner.execute( new LogRunnable( "c" ) ); //$NON-NLS-1$
+        runner.execute( new CoalescingLogRunnable( "d", "key1" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        runner.execute( new CoalescingLogRunnable( "e", "key2" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        runner.execute( new LogRunnable( "f" ) ); //$NON-NLS-1$
+
+        // the coalesced runnable keeps the position of the first one
+        runner.runBatches();
+        assertEquals( Arrays.asList( "a", "b", "c", "e", "f" ), log ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+    }
+
+
+    @Test
+    public void testRunFlushesTheBatch()
+    {
+        runner.execute( new CoalescingLogRunnable( "a", "key1" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        runner.runBatches();
+
+        // after the flush the key is not pending anymore and a new batch is scheduled
+        runner.execute( new CoalescingLogRunnable( "b", "key1" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals( 1, runner.batches.size() );
+        runner.runBatches();
+
+        assertEquals( Arrays.asList( "a", "b" ), log ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+
+    @Test
+    public void testRunnablesExecutedWhileRunningGoToTheNextBatch()
+    {
+        runner.execute( new LogRunnable( "a" ) //$NON-NLS-1$
+        {
+            public void run()
+            {
+                super.run();
+                runner.execute( new CoalescingLogRunnable( "b", "key1" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+        } );
+        runner.execute( new CoalescingLogRunnable( "c", "key1" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+
+        Runnable first = runner.batches.remove( 0 );
+        first.run();
+        assertEquals( Arrays.asList( "a", "c" ), log ); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals( 1, runner.batches.size() );
+
+        runner.runBatches();
+        assertEquals( Arrays.asList( "a", "c", "b" ), log ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+
+    @Test
+    public void testFailureDoesNotStopTheBatch()
+    {
+        final RuntimeException failure = new RuntimeException( "first" ); //$NON-NLS-1$
+        runner.execute( new LogRunnable( "a" ) ); //$NON-NLS-1$
+        runner.execute( new LogRunnable( "b" ) //$NON-NLS-1$
+        {
+            public void run()
+            {
+                super.run();
+                throw failure;
+            }
+        } );
+        runner.execute( new LogRunnable( "c" ) //$NON-NLS-1$
+        {
+            public void run()
+            {
+                super.run();
+                throw new RuntimeException( "second" ); //$NON-NLS-1$
+            }
+        } );
+        runner.execute( new LogRunnable( "d" ) ); //$NON-NLS-1$
+
+        RuntimeException thrown = assertThrows( RuntimeException.class, () -> runner.runBatches() );
+        assertSame( failure, thrown );
+        assertEquals( Arrays.asList( "a", "b", "c", "d" ), log ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+    }
+
+
+    /**
+     * Collects the scheduled batches.
+     */
+    private static class TestEventRunner extends BatchingEventRunner
+    {
+        private final List<Runnable> batches = new ArrayList<Runnable>();
+
+
+        protected void schedule( Runnable batch )
+        {
+            batches.add( batch );
+        }
+
+
+        private void runBatches()
+        {
+            while ( !batches.isEmpty() )
+            {
+                batches.remove( 0 ).run();
+            }
+        }
+    }
+
+
+    /**
+     * Adds its name to the log when run.
+     */
+    private class LogRunnable implements EventRunnable
+    {
+        private final String name;
+
+
+        LogRunnable( String name )
+        {
+            this.name = name;
+        }
+
+
+        public void run()
+        {
+            log.add( name );
+        }
+    }
+
+
+    /**
+     * A {@link LogRunnable} with a coalescing key.
+     */
+    private class CoalescingLogRunnable extends LogRunnable implements CoalescingEventRunnable
+    {
+        private final Object coalescingKey;
+
+
+        CoalescingLogRunnable( String name, Object coalescingKey )
+        {
+            super( name );
+            this.coalescingKey = coalescingKey;
+        }
+
+
+        public Object getCoalescingKey()
+        {
+            return coalescingKey;
+        }
+    }
+}
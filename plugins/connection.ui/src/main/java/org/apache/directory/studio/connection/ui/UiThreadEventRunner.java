@@ -20,6 +20,7 @@
 package org.apache.directory.studio.connection.ui;
 
 
+import org.apache.directory.studio.connection.core.event.BatchingEventRunner;
 import org.apache.directory.studio.connection.core.event.EventRunnable;
 import org.apache.directory.studio.connection.core.event.EventRunner;
 import org.eclipse.swt.widgets.Display;
@@ -27,20 +28,20 @@ import org.eclipse.swt.widgets.Display;
 
 /**
  * Implementation of {@link EventRunner} that executes an {@link EventRunnable}
- * withing the SWT UI thread.
+ * withing the SWT UI thread. The runnables are run in batches, all runnables
+ * executed until the UI thread gets to the batch share a single asyncExec.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
-public class UiThreadEventRunner implements EventRunner
+public class UiThreadEventRunner extends BatchingEventRunner
 {
     /**
      * {@inheritDoc}
      *
-     * This implementation executes the given {@link EventRunnable} within
-     * the SWT UI thread.
+     * This implementation runs the batch within the SWT UI thread.
      */
-    public void execute( EventRunnable runnable )
+    protected void schedule( Runnable batch )
     {
-        Display.getDefault().asyncExec( runnable );
+        Display.getDefault().asyncExec( batch );
     }
 }
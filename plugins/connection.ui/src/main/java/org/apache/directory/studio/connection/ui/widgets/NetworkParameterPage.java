@@ -94,6 +94,19 @@ import org.eclipse.ui.dialogs.PreferencesUtil;
  * | |                                                                       | |
  * | | [] Read-Only (prevents any add, delete, modify or rename operation)   | |
  * | |                                                                       | |
+ * | | Connection Pool                                                       | |
+ * | | .-------------------------------------------------------------------. | |
+ * | | | [] Use a connection pool to run independent operations in parallel| | |
+ * | | |  Minimum idle connections :   [                                 ] | | |
+ * | | |  Maximum connections :        [                                 ] | | |
+ * | | |  Idle eviction time (s) :     [                                 ] | | |
+ * | | +-------------------------------------------------------------------+ | |
+ * | |                                                                       | |
+ * | | Bulk Modifications                                                    | |
+ * | | .-------------------------------------------------------------------. | |
+ * | | |  Outstanding write requests : [                                 ] | | |
+ * | | +-------------------------------------------------------------------+ | |
+ * | |                                                                       | |
  * | +-----------------------------------------------------------------------+ |
  * +---------------------------------------------------------------------------+
  * </pre>
@@ -134,6 +147,21 @@ public class NetworkParameterPage extends AbstractConnectionParameterPage
     /** A timeout for the connection. Default to 30s */
     private Text timeoutSecondsText;
 
+    /** The checkbox to enable the connection pool */
+    private Button poolEnabledCheckbox;
+
+    /** The minimum number of idle pooled connections */
+    private Text poolMinSizeText;
+
+    /** The maximum number of pooled connections */
+    private Text poolMaxSizeText;
+
+    /** The idle time in seconds before a pooled connection is evicted */
+    private Text poolIdleEvictionSecondsText;
+
+    /** The maximum number of outstanding write requests during bulk modifications */
+    private Text writeWindowSizeText;
+
     /**
      * A listener for the Link data widget. It will open the CertificateValidationPreference dialog.
      */
@@ -206,6 +234,39 @@ public class NetworkParameterPage extends AbstractConnectionParameterPage
     }
 
 
+    /**
+     * Gets the pool enabled flag.
+     *
+     * @return the pool enabled flag
+     */
+    private boolean isPoolEnabled()
+    {
+        return poolEnabledCheckbox.getSelection();
+    }
+
+
+    /**
+     * Gets an integer value of a pool or bulk modification setting text widget.
+     *
+     * @param text the text widget
+     * @param defaultValue the value to use if the text is empty
+     * @return the integer value
+     */
+    private int getPoolValue( Text text, int defaultValue )
+    {
+        String value = text.getText();
+
+        if ( Strings.isEmpty( value ) )
+        {
+            return defaultValue;
+        }
+        else
+        {
+            return Integer.parseInt( value );
+        }
+    }
+
+
     /**
      * Gets the encyrption method.
      *
@@ -339,6 +400,41 @@ public class NetworkParameterPage extends AbstractConnectionParameterPage
         readOnlyConnectionCheckbox = BaseWidgetUtils.createCheckbox( composite,
             Messages.getString( "NetworkParameterPage.ReadOnly" ), 1 ); //$NON-NLS-1$
 
+        BaseWidgetUtils.createSpacer( composite, 1 );
+
+        // The connection pool
+        Group poolGroup = BaseWidgetUtils.createGroup( composite, Messages
+            .getString( "NetworkParameterPage.ConnectionPool" ), 1 ); //$NON-NLS-1$
+        Composite poolComposite = BaseWidgetUtils.createColumnContainer( poolGroup, 2, 1 );
+        poolEnabledCheckbox = BaseWidgetUtils.createCheckbox( poolComposite,
+            Messages.getString( "NetworkParameterPage.UseConnectionPool" ), 2 ); //$NON-NLS-1$
+        BaseWidgetUtils.createLabel( poolComposite, Messages.getString( "NetworkParameterPage.PoolMinSize" ), 1 ); //$NON-NLS-1$
+        poolMinSizeText = BaseWidgetUtils.createText( poolComposite,
+            Integer.toString( ConnectionParameter.DEFAULT_POOL_MIN_SIZE ), 1 );
+        poolMinSizeText.setTextLimit( 3 );
+        BaseWidgetUtils.createLabel( poolComposite, Messages.getString( "NetworkParameterPage.PoolMaxSize" ), 1 ); //$NON-NLS-1$
+        poolMaxSizeText = BaseWidgetUtils.createText( poolComposite,
+            Integer.toString( ConnectionParameter.DEFAULT_POOL_MAX_SIZE ), 1 );
+        poolMaxSizeText.setTextLimit( 3 );
+        BaseWidgetUtils.createLabel( poolComposite,
+            Messages.getString( "NetworkParameterPage.PoolIdleEvictionTime" ), 1 ); //$NON-NLS-1$
+        poolIdleEvictionSecondsText = BaseWidgetUtils.createText( poolComposite,
+            Integer.toString( ConnectionParameter.DEFAULT_POOL_IDLE_EVICTION_SECONDS ), 1 );
+        poolIdleEvictionSecondsText.setTextLimit( 7 );
+
+        BaseWidgetUtils.createSpacer( composite, 1 );
+
+        // The bulk modifications
+        Group bulkGroup = BaseWidgetUtils.createGroup( composite, Messages
+            .getString( "NetworkParameterPage.BulkModifications" ), 1 ); //$NON-NLS-1$
+        Composite bulkComposite = BaseWidgetUtils.createColumnContainer( bulkGroup, 2, 1 );
+        BaseWidgetUtils.createLabel( bulkComposite,
+            Messages.getString( "NetworkParameterPage.WriteWindowSize" ), 1 ); //$NON-NLS-1$
+        writeWindowSizeText = BaseWidgetUtils.createText( bulkComposite,
+            Integer.toString( ConnectionParameter.DEFAULT_WRITE_WINDOW_SIZE ), 1 );
+        writeWindowSizeText.setTextLimit( 4 );
+        writeWindowSizeText.setToolTipText( Messages.getString( "NetworkParameterPage.WriteWindowSizeTooltip" ) ); //$NON-NLS-1$
+
         BaseWidgetUtils.createSpacer( composite, 1 );
         nameText.setFocus();
     }
@@ -358,6 +454,11 @@ public class NetworkParameterPage extends AbstractConnectionParameterPage
         viewServerCertificateButton.setEnabled( checkConnectionButton.isEnabled()
             && getEncyrptionMethod() != EncryptionMethod.NONE );
 
+        // set enabled/disabled state of the pool settings
+        poolMinSizeText.setEnabled( isPoolEnabled() );
+        poolMaxSizeText.setEnabled( isPoolEnabled() );
+        poolIdleEvictionSecondsText.setEnabled( isPoolEnabled() );
+
         // validate input fields
         message = null;
         infoMessage = null;
@@ -383,6 +484,11 @@ public class NetworkParameterPage extends AbstractConnectionParameterPage
             timeoutSecondsText.setText( "30" );
         }
 
+        if ( isPoolEnabled() && getPoolValue( poolMaxSizeText, ConnectionParameter.DEFAULT_POOL_MAX_SIZE ) < 1 )
+        {
+            errorMessage = Messages.getString( "NetworkParameterPage.PoolMaxSizeInvalid" ); //$NON-NLS-1$
+        }
+
         if ( ConnectionCorePlugin.getDefault().getConnectionManager().getConnectionByName( nameText.getText() ) != null
             && ( ( connectionParameter == null ) || !nameText.getText().equals( connectionParameter.getName() ) ) )
         {
@@ -418,7 +524,11 @@ public class NetworkParameterPage extends AbstractConnectionParameterPage
         encryptionMethodCombo.select( encryptionMethodIndex );
         readOnlyConnectionCheckbox.setSelection( parameter.isReadOnly() );
         timeoutSecondsText.setText( Long.toString( parameter.getTimeoutMillis() / 1000L ) );
-
+        poolEnabledCheckbox.setSelection( parameter.isPoolEnabled() );
+        poolMinSizeText.setText( Integer.toString( parameter.getPoolMinSize() ) );
+        poolMaxSizeText.setText( Integer.toString( parameter.getPoolMaxSize() ) );
+        poolIdleEvictionSecondsText.setText( Integer.toString( parameter.getPoolIdleEvictionSeconds() ) );
+        writeWindowSizeText.setText( Integer.toString( parameter.getWriteWindowSize() ) );
     }
 
 
@@ -532,6 +642,32 @@ public class NetworkParameterPage extends AbstractConnectionParameterPage
                 event.doit = false;
             }
         } );
+
+        // The connection pool events
+        poolEnabledCheckbox.addSelectionListener( new SelectionAdapter()
+        {
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public void widgetSelected( SelectionEvent event )
+            {
+                connectionPageModified();
+            }
+        } );
+
+        for ( Text poolText : new Text[]
+            { poolMinSizeText, poolMaxSizeText, poolIdleEvictionSecondsText, writeWindowSizeText } )
+        {
+            poolText.addModifyListener( event -> connectionPageModified() );
+
+            poolText.addVerifyListener( event -> {
+                if ( !event.text.matches( "[0-9]*" ) ) //$NON-NLS-1$
+                {
+                    event.doit = false;
+                }
+            } );
+        }
     }
 
 
@@ -547,6 +683,13 @@ public class NetworkParameterPage extends AbstractConnectionParameterPage
         parameter.setEncryptionMethod( getEncyrptionMethod() );
         parameter.setReadOnly( isReadOnly() );
         parameter.setTimeoutMillis( getTimeoutSeconds() * 1000L );
+        parameter.setPoolEnabled( isPoolEnabled() );
+        parameter.setPoolMinSize( getPoolValue( poolMinSizeText, ConnectionParameter.DEFAULT_POOL_MIN_SIZE ) );
+        parameter.setPoolMaxSize( getPoolValue( poolMaxSizeText, ConnectionParameter.DEFAULT_POOL_MAX_SIZE ) );
+        parameter.setPoolIdleEvictionSeconds( getPoolValue( poolIdleEvictionSecondsText,
+            ConnectionParameter.DEFAULT_POOL_IDLE_EVICTION_SECONDS ) );
+        parameter.setWriteWindowSize( getPoolValue( writeWindowSizeText,
+            ConnectionParameter.DEFAULT_WRITE_WINDOW_SIZE ) );
     }
 
 
@@ -578,7 +721,9 @@ public class NetworkParameterPage extends AbstractConnectionParameterPage
     @Override
 	public boolean areParametersModifed()
     {
-        return isReconnectionRequired() || !StringUtils.equals( connectionParameter.getName(), getName() );
+        return isReconnectionRequired() || !StringUtils.equals( connectionParameter.getName(), getName() )
+            || ( connectionParameter.getWriteWindowSize() != getPoolValue( writeWindowSizeText,
+                ConnectionParameter.DEFAULT_WRITE_WINDOW_SIZE ) );
     }
 
 
@@ -593,7 +738,14 @@ public class NetworkParameterPage extends AbstractConnectionParameterPage
             || ( connectionParameter.getPort() != getPort() )
             || ( connectionParameter.getEncryptionMethod() != getEncyrptionMethod() )
             || ( connectionParameter.isReadOnly() != isReadOnly() )
-            || ( connectionParameter.getTimeoutMillis() != getTimeoutSeconds() * 1000L );
+            || ( connectionParameter.getTimeoutMillis() != getTimeoutSeconds() * 1000L )
+            || ( connectionParameter.isPoolEnabled() != isPoolEnabled() )
+            || ( connectionParameter.getPoolMinSize() != getPoolValue( poolMinSizeText,
+                ConnectionParameter.DEFAULT_POOL_MIN_SIZE ) )
+            || ( connectionParameter.getPoolMaxSize() != getPoolValue( poolMaxSizeText,
+                ConnectionParameter.DEFAULT_POOL_MAX_SIZE ) )
+            || ( connectionParameter.getPoolIdleEvictionSeconds() != getPoolValue( poolIdleEvictionSecondsText,
+                ConnectionParameter.DEFAULT_POOL_IDLE_EVICTION_SECONDS ) );
     }
 
 
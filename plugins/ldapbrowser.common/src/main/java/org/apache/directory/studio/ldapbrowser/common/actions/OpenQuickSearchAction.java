@@ -87,7 +87,7 @@ public class OpenQuickSearchAction extends BrowserAction
             {
                 // Performing the quick search if it has not been performed before
                 // (ie. the quick search was not modified at in the dialog)
-                if ( quickSearch.getSearchResults() == null )
+                if ( quickSearch.getSearchResultList() == null )
                 {
                     new StudioBrowserJob( new SearchRunnable( new ISearch[]
                         { quickSearch } ) ).execute();
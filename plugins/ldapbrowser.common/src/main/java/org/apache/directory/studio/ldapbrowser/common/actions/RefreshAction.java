@@ -75,7 +75,7 @@ public class RefreshAction extends BrowserAction
             boolean searchAgain = true;
             for ( int i = 0; i < searches.length; i++ )
             {
-                if ( searches[i].getSearchResults() == null )
+                if ( searches[i].getSearchResultList() == null )
                 {
                     searchAgain = false;
                     break;
@@ -96,7 +96,7 @@ public class RefreshAction extends BrowserAction
         }
         else if ( searchInput != null && searches.length == 0 && entryInput == null )
         {
-            return searchInput.getSearchResults() == null ? Messages.getString( "RefreshAction.PerformSearch" ) : Messages.getString( "RefreshAction.SearchAgain" ); //$NON-NLS-1$ //$NON-NLS-2$
+            return searchInput.getSearchResultList() == null ? Messages.getString( "RefreshAction.PerformSearch" ) : Messages.getString( "RefreshAction.SearchAgain" ); //$NON-NLS-1$ //$NON-NLS-2$
         }
         else
         {
@@ -260,7 +260,7 @@ public class BrowserContentProvider implements ITreeContentProvider
         {
             ISearch parentSearch = ( ( ISearchResult ) child ).getSearch();
 
-            if ( parentSearch == null || parentSearch.getSearchResults().length <= preferences.getFoldingSize()
+            if ( parentSearch == null || parentSearch.getSearchResultCount() <= preferences.getFoldingSize()
                 || !preferences.isUseFolding() )
             {
                 return parentSearch;
@@ -391,7 +391,7 @@ public class BrowserContentProvider implements ITreeContentProvider
                     objects.add( parentEntry.getTopPageChildrenRunnable() );
                 }
 
-                objects.addAll( Arrays.asList( results ) );
+                objects.addAll( results );
 
                 if ( parentEntry.getNextPageChildrenRunnable() != null )
                 {
@@ -444,26 +444,26 @@ public class BrowserContentProvider implements ITreeContentProvider
                 }
             }
 
-            if ( search.getSearchResults() == null || search.getSearchContinuations() == null )
+            if ( search.getSearchResultList() == null || search.getSearchContinuations() == null )
             {
                 new StudioBrowserJob( new SearchRunnable( new ISearch[]
                     { search } ) ).execute();
                 return new String[]
                     { Messages.getString( "BrowserContentProvider.PerformingSearch" ) }; //$NON-NLS-1$
             }
-            else if ( search.getSearchResults().length + search.getSearchContinuations().length == 0 )
+            else if ( search.getSearchResultCount() + search.getSearchContinuations().length == 0 )
             {
                 return new String[]
                     { Messages.getString( "BrowserContentProvider.NoResults" ) }; //$NON-NLS-1$
             }
-            else if ( search.getSearchResults().length <= preferences.getFoldingSize() || !preferences.isUseFolding() )
+            else if ( search.getSearchResultCount() <= preferences.getFoldingSize() || !preferences.isUseFolding() )
             {
                 if ( searchToSearchResultPagesMap.containsKey( search ) )
                 {
                     searchToSearchResultPagesMap.remove( search );
                 }
 
-                ISearchResult[] results = search.getSearchResults();
+                List<ISearchResult> results = search.getSearchResultList();
                 SearchContinuation[] scs = search.getSearchContinuations();
                 List<Object> objects = new ArrayList<Object>();
 
@@ -472,7 +472,7 @@ public class BrowserContentProvider implements ITreeContentProvider
                     objects.add( search.getTopSearchRunnable() );
                 }
 
-                objects.addAll( Arrays.asList( results ) );
+                objects.addAll( results );
 
                 if ( scs != null )
                 {
@@ -647,15 +647,15 @@ public class BrowserContentProvider implements ITreeContentProvider
         BrowserSearchResultPage[] srPages;
         if ( !searchToSearchResultPagesMap.containsKey( search ) )
         {
-            srPages = getSearchResultPages( search, 0, search.getSearchResults().length - 1 );
+            srPages = getSearchResultPages( search, 0, search.getSearchResultCount() - 1 );
             searchToSearchResultPagesMap.put( search, srPages );
         }
         else
         {
             srPages = searchToSearchResultPagesMap.get( search );
-            if ( search.getSearchResults().length - 1 != srPages[srPages.length - 1].getLast() )
+            if ( search.getSearchResultCount() - 1 != srPages[srPages.length - 1].getLast() )
             {
-                srPages = getSearchResultPages( search, 0, search.getSearchResults().length - 1 );
+                srPages = getSearchResultPages( search, 0, search.getSearchResultCount() - 1 );
                 searchToSearchResultPagesMap.put( search, srPages );
             }
         }
@@ -22,6 +22,7 @@ package org.apache.directory.studio.ldapbrowser.common.widgets.browser;
 
 
 import java.util.Collection;
+import java.util.List;
 
 import org.apache.directory.api.ldap.model.schema.ObjectClass;
 import org.apache.directory.api.ldap.model.schema.ObjectClassTypeEnum;
@@ -163,12 +164,12 @@ public class BrowserLabelProvider extends LabelProvider implements IFontProvider
         else if ( obj instanceof ISearch )
         {
             ISearch search = ( ISearch ) obj;
-            ISearchResult[] results = search.getSearchResults();
+            List<ISearchResult> results = search.getSearchResultList();
             SearchContinuation[] scs = search.getSearchContinuations();
             StringBuffer append = new StringBuffer( search.getName() );
             if ( results != null && scs != null )
             {
-                append.append( " (" ).append( results.length + scs.length ); //$NON-NLS-1$
+                append.append( " (" ).append( results.size() + scs.length ); //$NON-NLS-1$
                 if ( search.isCountLimitExceeded() )
                 {
                     append.append( "+" ); //$NON-NLS-1$
@@ -318,7 +319,7 @@ public class BrowserLabelProvider extends LabelProvider implements IFontProvider
             {
                 return BrowserCommonActivator.getDefault().getImage( BrowserCommonConstants.IMG_SEARCH_UNPERFORMED );
             }
-            else if ( search.getSearchResults() != null )
+            else if ( search.getSearchResultList() != null )
             {
                 return BrowserCommonActivator.getDefault().getImage( BrowserCommonConstants.IMG_SEARCH );
             }
@@ -97,7 +97,7 @@ public class BrowserSearchResultPage
         }
         else
         {
-            // 1. get children
+            // 1. get children, a copy as it is sorted in place
             ISearchResult[] children = search.getSearchResults();
 
             // 2. sort
@@ -275,6 +275,13 @@ public class BrowserUniversalListener implements ConnectionUpdateListener, Entry
     {
         ISearch search = searchUpdateEvent.getSearch();
 
+        if ( searchUpdateEvent.getDetail() == EventDetail.SEARCH_RESULTS_ADDED )
+        {
+            // the search is still running, only its results changed
+            viewer.refresh( search, true );
+            return;
+        }
+
         if ( ( search instanceof IQuickSearch ) && ( searchUpdateEvent.getDetail() == EventDetail.SEARCH_REMOVED ) )
         {
             if ( search.getBrowserConnection().getQuickSearch() == search )
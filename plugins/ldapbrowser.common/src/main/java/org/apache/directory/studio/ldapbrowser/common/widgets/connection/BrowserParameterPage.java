@@ -98,6 +98,8 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
 
     private static final String X_PAGED_SEARCH_SCROLL_MODE = "X-PAGED-SEARCH-SCROLL-MODE"; //$NON-NLS-1$
 
+    private static final String X_ENTRY_CACHE_SIZE = "X-ENTRY-CACHE-SIZE"; //$NON-NLS-1$
+
     /** The checkbox to fetch the base Dn's from namingContexts whenever opening the connection */
     private Button autoFetchBaseDnsButton;
 
@@ -137,6 +139,9 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
     /** The fetch operational attributes button. */
     private Button fetchOperationalAttributesButton;
 
+    /** The entry cache size text. */
+    private Text entryCacheSizeText;
+
 
     /**
      * Creates a new instance of BrowserParameterPage.
@@ -294,6 +299,27 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
     }
 
 
+    /**
+     * Gets the entry cache size.
+     * 
+     * @return the entry cache size
+     */
+    private int getEntryCacheSize()
+    {
+        int entryCacheSize;
+        try
+        {
+            entryCacheSize = Integer.valueOf( entryCacheSizeText.getText() );
+        }
+        catch ( NumberFormatException e )
+        {
+            entryCacheSize = IBrowserConnection.DEFAULT_ENTRY_CACHE_SIZE;
+        }
+        
+        return entryCacheSize;
+    }
+
+
     /**
      * Gets a temporary connection with all connection parameter 
      * entered in this page. 
@@ -409,6 +435,14 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
         fetchOperationalAttributesButton.setToolTipText( Messages
             .getString( "BrowserParameterPage.FetchOperationalAttributesWhileBrowsingTooltip" ) ); //$NON-NLS-1$
         fetchOperationalAttributesButton.setSelection( false );
+
+        // entry cache size
+        Composite entryCacheComposite = BaseWidgetUtils.createColumnContainer( groupComposite, 2, 1 );
+        BaseWidgetUtils.createLabel( entryCacheComposite, Messages
+            .getString( "BrowserParameterPage.EntryCacheSize" ), 1 ); //$NON-NLS-1$
+        entryCacheSizeText = BaseWidgetUtils.createText( entryCacheComposite, Integer
+            .toString( IBrowserConnection.DEFAULT_ENTRY_CACHE_SIZE ), 7, 1 );
+        entryCacheSizeText.setToolTipText( Messages.getString( "BrowserParameterPage.EntryCacheSizeTooltip" ) ); //$NON-NLS-1$
     }
 
 
@@ -506,6 +540,10 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
         boolean fetchOperationalAttributes = parameter
             .getExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_FETCH_OPERATIONAL_ATTRIBUTES );
         fetchOperationalAttributesButton.setSelection( fetchOperationalAttributes );
+
+        int entryCacheSize = parameter.getExtendedIntProperty( IBrowserConnection.CONNECTION_PARAMETER_ENTRY_CACHE_SIZE );
+        entryCacheSizeText.setText( Integer.toString( entryCacheSize < 0 ? IBrowserConnection.DEFAULT_ENTRY_CACHE_SIZE
+            : entryCacheSize ) );
     }
 
 
@@ -614,6 +652,24 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
                 connectionPageModified();
             }
         } );
+
+        entryCacheSizeText.addVerifyListener( new VerifyListener()
+        {
+            public void verifyText( VerifyEvent e )
+            {
+                if ( !e.text.matches( "[0-9]*" ) ) //$NON-NLS-1$
+                {
+                    e.doit = false;
+                }
+            }
+        } );
+        entryCacheSizeText.addModifyListener( new ModifyListener()
+        {
+            public void modifyText( ModifyEvent e )
+            {
+                connectionPageModified();
+            }
+        } );
     }
 
 
@@ -642,6 +698,8 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
             isPagedSearchScrollMode() );
         parameter.setExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_FETCH_OPERATIONAL_ATTRIBUTES,
             isFetchOperationalAttributes() );
+        parameter.setExtendedIntProperty( IBrowserConnection.CONNECTION_PARAMETER_ENTRY_CACHE_SIZE,
+            getEntryCacheSize() );
     }
 
 
@@ -681,10 +739,13 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
             .getExtendedIntProperty( IBrowserConnection.CONNECTION_PARAMETER_PAGED_SEARCH_SIZE );
         boolean pagedSearchScrollMode = connectionParameter
             .getExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_PAGED_SEARCH_SCROLL_MODE );
+        int entryCacheSize = connectionParameter
+            .getExtendedIntProperty( IBrowserConnection.CONNECTION_PARAMETER_ENTRY_CACHE_SIZE );
 
         return isReconnectionRequired() || countLimit != getCountLimit() || timeLimit != getTimeLimit()
             || manageDsaIT != manageDsaIT() || fetchSubentries != isFetchSubentries() || pagedSearch != isPagedSearch()
-            || pagedSearchSize != getPagedSearchSize() || pagedSearchScrollMode != isPagedSearchScrollMode();
+            || pagedSearchSize != getPagedSearchSize() || pagedSearchScrollMode != isPagedSearchScrollMode()
+            || entryCacheSize != getEntryCacheSize();
     }
 
 
@@ -823,6 +884,13 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
         {
             ldapUrl.getExtensions().add( new Extension( false, X_FETCH_OPERATIONAL_ATTRIBUTES, null ) );
         }
+
+        // entry cache size
+        int entryCacheSize = parameter.getExtendedIntProperty( IBrowserConnection.CONNECTION_PARAMETER_ENTRY_CACHE_SIZE );
+        if ( entryCacheSize >= 0 && entryCacheSize != IBrowserConnection.DEFAULT_ENTRY_CACHE_SIZE )
+        {
+            ldapUrl.getExtensions().add( new Extension( false, X_ENTRY_CACHE_SIZE, Integer.toString( entryCacheSize ) ) );
+        }
     }
 
 
@@ -943,5 +1011,18 @@ public class BrowserParameterPage extends AbstractConnectionParameterPage
         Extension fetchOperationalAttributes = ldapUrl.getExtension( X_FETCH_OPERATIONAL_ATTRIBUTES );
         parameter.setExtendedBoolProperty( IBrowserConnection.CONNECTION_PARAMETER_FETCH_OPERATIONAL_ATTRIBUTES,
             fetchOperationalAttributes != null );
+
+        // entry cache size, default if non-numeric or absent
+        String entryCacheSize = ldapUrl.getExtensionValue( X_ENTRY_CACHE_SIZE );
+        try
+        {
+            parameter.setExtendedIntProperty( IBrowserConnection.CONNECTION_PARAMETER_ENTRY_CACHE_SIZE,
+                Integer.valueOf( entryCacheSize ) );
+        }
+        catch ( NumberFormatException e )
+        {
+            parameter.setExtendedIntProperty( IBrowserConnection.CONNECTION_PARAMETER_ENTRY_CACHE_SIZE,
+                IBrowserConnection.DEFAULT_ENTRY_CACHE_SIZE );
+        }
     }
 }
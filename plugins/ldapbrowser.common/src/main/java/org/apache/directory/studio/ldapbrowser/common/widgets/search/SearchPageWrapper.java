@@ -640,6 +640,17 @@ public class SearchPageWrapper extends AbstractWidget
     }
 
 
+    /**
+     * Gets the selected browser connection.
+     * 
+     * @return the selected browser connection, may be null
+     */
+    public IBrowserConnection getBrowserConnection()
+    {
+        return browserConnectionWidget != null ? browserConnectionWidget.getBrowserConnection() : null;
+    }
+
+
     /**
      * Checks if the DNs should be returned/exported.
      * 
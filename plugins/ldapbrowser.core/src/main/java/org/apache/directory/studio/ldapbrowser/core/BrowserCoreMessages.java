@@ -131,6 +131,10 @@ public class BrowserCoreMessages extends NLS
 
     public static String model__copied_n_entries;
 
+    public static String model__copied_n_entries_rate;
+
+    public static String model__copied_n_entries_eta;
+
     public static String model__deleted_n_entries;
 
     public static String model__retrieved_n_entries;
@@ -305,6 +309,14 @@ public class BrowserCoreMessages extends NLS
 
     public static String jobs__export_progress;
 
+    public static String jobs__export_partitions_progress;
+
+    public static String jobs__export_partitions_eta;
+
+    public static String jobs__export_partition_progress;
+
+    public static String jobs__export_partition_eta;
+
     public static String jobs__export_xls_name;
 
     public static String jobs__export_xls_task;
@@ -323,6 +335,54 @@ public class BrowserCoreMessages extends NLS
 
     public static String jobs__import_ldif_error;
 
+    public static String jobs__import_ldif_no_checkpoint;
+
+    public static String jobs__validate_ldif_name;
+
+    public static String jobs__validate_ldif_task;
+
+    public static String jobs__validate_ldif_error;
+
+    public static String jobs__validate_ldif_validated_n_records_m_invalid;
+
+    public static String jobs__validate_ldif_invalid_records;
+
+    public static String jobs__validate_ldif_invalid_record;
+
+    public static String jobs__validate_ldif_no_object_class;
+
+    public static String jobs__validate_ldif_unknown_object_class;
+
+    public static String jobs__validate_ldif_no_structural_object_class;
+
+    public static String jobs__validate_ldif_unknown_attribute;
+
+    public static String jobs__validate_ldif_missing_attribute;
+
+    public static String jobs__validate_ldif_attribute_not_allowed;
+
+    public static String jobs__validate_ldif_single_value;
+
+    public static String jobs__validate_ldif_invalid_syntax;
+
+    public static String jobs__validate_ldif_kind_invalid_record;
+
+    public static String jobs__validate_ldif_kind_no_object_class;
+
+    public static String jobs__validate_ldif_kind_unknown_object_class;
+
+    public static String jobs__validate_ldif_kind_no_structural_object_class;
+
+    public static String jobs__validate_ldif_kind_unknown_attribute;
+
+    public static String jobs__validate_ldif_kind_missing_attribute;
+
+    public static String jobs__validate_ldif_kind_attribute_not_allowed;
+
+    public static String jobs__validate_ldif_kind_single_value;
+
+    public static String jobs__validate_ldif_kind_invalid_syntax;
+
     public static String jobs__import_dsml_name;
 
     public static String jobs__import_dsml_task;
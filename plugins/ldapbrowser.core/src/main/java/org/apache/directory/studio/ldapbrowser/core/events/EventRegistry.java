@@ -21,6 +21,9 @@
 package org.apache.directory.studio.ldapbrowser.core.events;
 
 
+import java.util.Arrays;
+
+import org.apache.directory.studio.connection.core.event.CoalescingEventRunnable;
 import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
 import org.apache.directory.studio.connection.core.event.EventRunnable;
 import org.apache.directory.studio.connection.core.event.EventRunnableFactory;
@@ -64,23 +67,33 @@ public class EventRegistry extends ConnectionEventRegistry
 
     /**
      * Notifies each {@link SearchUpdateListener} about the the given {@link SearchUpdateEvent}.
-     * Uses the {@link EventRunner}s.
+     * Uses the {@link EventRunner}s. Pending notifications about added search results
+     * of the same search are merged.
      *
      * @param searchUpdateEvent the search update event
      * @param source the source
      */
     public static void fireSearchUpdated( final SearchUpdateEvent searchUpdateEvent, final Object source )
     {
+        final Object coalescingKey = searchUpdateEvent.getDetail() == SearchUpdateEvent.EventDetail.SEARCH_RESULTS_ADDED
+            ? Arrays.asList( searchUpdateEvent.getSearch(), searchUpdateEvent.getDetail() )
+            : null;
         EventRunnableFactory<SearchUpdateListener> factory = new EventRunnableFactory<SearchUpdateListener>()
         {
             public EventRunnable createEventRunnable( final SearchUpdateListener listener )
             {
-                return new EventRunnable()
+                return new CoalescingEventRunnable()
                 {
                     public void run()
                     {
                         listener.searchUpdated( searchUpdateEvent );
                     }
+
+
+                    public Object getCoalescingKey()
+                    {
+                        return coalescingKey == null ? null : Arrays.asList( listener, coalescingKey );
+                    }
                 };
             }
         };
@@ -218,7 +231,8 @@ public class EventRegistry extends ConnectionEventRegistry
 
     /**
      * Notifies each {@link EntryUpdateListener} about the the given {@link EntryModificationEvent}.
-     * Uses the {@link EventRunner}s.
+     * Uses the {@link EventRunner}s. Pending notifications about initialized children or 
+     * attributes of the same entry are merged.
      *
      * @param entryUpdateEvent the entry update event
      * @param source the source
@@ -226,16 +240,23 @@ public class EventRegistry extends ConnectionEventRegistry
     public static void fireEntryUpdated( final EntryModificationEvent entryUpdateEvent, final Object source )
     {
         entryUpdateEvent.setSource( source );
+        final Object coalescingKey = getCoalescingKey( entryUpdateEvent, source );
         EventRunnableFactory<EntryUpdateListener> factory = new EventRunnableFactory<EntryUpdateListener>()
         {
             public EventRunnable createEventRunnable( final EntryUpdateListener listener )
             {
-                return new EventRunnable()
+                return new CoalescingEventRunnable()
                 {
                     public void run()
                     {
                         listener.entryUpdated( entryUpdateEvent );
                     }
+
+
+                    public Object getCoalescingKey()
+                    {
+                        return coalescingKey == null ? null : Arrays.asList( listener, coalescingKey );
+                    }
                 };
             }
 
@@ -248,4 +269,25 @@ public class EventRegistry extends ConnectionEventRegistry
         entryUpdateEventManager.fire( factory );
     }
 
+
+    /**
+     * Gets the key to merge redundant entry update events. Events that only tell that 
+     * the children or attributes of an entry were initialized are redundant, the
+     * listeners read the current state of the entry.
+     *
+     * @param entryUpdateEvent the entry update event
+     * @param source the source
+     *
+     * @return the coalescing key, null if the event must not be merged
+     */
+    private static Object getCoalescingKey( EntryModificationEvent entryUpdateEvent, Object source )
+    {
+        if ( entryUpdateEvent instanceof ChildrenInitializedEvent
+            || entryUpdateEvent instanceof AttributesInitializedEvent )
+        {
+            return Arrays.asList( entryUpdateEvent.getClass(), entryUpdateEvent.getModifiedEntry(), source );
+        }
+        return null;
+    }
+
 }
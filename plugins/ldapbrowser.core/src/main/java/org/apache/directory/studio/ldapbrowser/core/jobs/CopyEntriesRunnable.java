@@ -260,8 +260,8 @@ public class CopyEntriesRunnable implements StudioConnectionBulkRunnableWithProg
 
 
     /**
-     * Copy the entries. If scope is SearchControls.SUBTREE_SCOPE the entries are copied
-     * recursively.
+     * Copy the entries. If scope is SearchControls.ONELEVEL_SCOPE or SearchControls.SUBTREE_SCOPE
+     * the children of each entry are copied by a {@link SubtreeCopier}.
      * 
      * @param sourceBrowserConnection the source browser connection
      * @param entries the source entries to copy
@@ -304,6 +304,15 @@ public class CopyEntriesRunnable implements StudioConnectionBulkRunnableWithProg
                 // apply new Rdn to the attributes
                 applyNewRdn( entry, oldRdn, newRdn );
 
+                // the children are copied with a single paged search
+                SubtreeCopier subtreeCopier = null;
+                if ( scope == SearchControls.ONELEVEL_SCOPE || scope == SearchControls.SUBTREE_SCOPE )
+                {
+                    subtreeCopier = new SubtreeCopier( sourceBrowserConnection, oldLdapDn, targetBrowserConnection,
+                        newLdapDn, scope == SearchControls.ONELEVEL_SCOPE ? SearchScope.ONELEVEL
+                            : SearchScope.SUBTREE, dialog, dummyMonitor, monitor );
+                }
+
                 // ManageDsaIT control
                 Control[] controls = null;
                 if ( entry.hasObjectClass( SchemaConstants.REFERRAL_OC ) )
@@ -316,79 +325,16 @@ public class CopyEntriesRunnable implements StudioConnectionBulkRunnableWithProg
                 targetBrowserConnection.getConnection().getConnectionWrapper()
                     .createEntry( entry, controls, dummyMonitor, null );
 
-                while ( dummyMonitor.errorsReported() )
+                if ( dummyMonitor.errorsReported() && subtreeCopier != null
+                    && subtreeCopier.isResumingInto( newLdapDn )
+                    && StudioLdapException.isEntryAlreadyExistsException( dummyMonitor.getException() ) )
                 {
-                    if ( dialog != null
-                        && StudioLdapException.isEntryAlreadyExistsException( dummyMonitor.getException() ) )
-                    {
-                        // open dialog
-                        dialog.setExistingEntry( targetBrowserConnection, newLdapDn );
-                        dialog.open();
-                        EntryExistsCopyStrategy strategy = dialog.getStrategy();
-
-                        if ( strategy != null )
-                        {
-                            dummyMonitor.reset();
-
-                            switch ( strategy )
-                            {
-                                case BREAK:
-                                    monitor.setCanceled( true );
-                                    break;
-
-                                case IGNORE_AND_CONTINUE:
-                                    break;
-
-                                case OVERWRITE_AND_CONTINUE:
-                                    // create modifications
-                                    Collection<Modification> modifications = ModelConverter
-                                        .toReplaceModifications( entry );
-
-                                    // modify entry
-                                    targetBrowserConnection
-                                        .getConnection()
-                                        .getConnectionWrapper()
-                                        .modifyEntry( newLdapDn, modifications, null, dummyMonitor, null );
-
-                                    // force reload of attributes
-                                    IEntry newEntry = targetBrowserConnection.getEntryFromCache( newLdapDn );
-                                    if ( newEntry != null )
-                                    {
-                                        newEntry.setAttributesInitialized( false );
-                                    }
-
-                                    break;
-
-                                case RENAME_AND_CONTINUE:
-                                    Rdn renamedRdn = dialog.getRdn();
-
-                                    // apply renamed Rdn to the attributes
-                                    applyNewRdn( entry, newRdn, renamedRdn );
-
-                                    // compose new Dn
-                                    newLdapDn = parentDn.add( renamedRdn );
-                                    entry.setDn( newLdapDn );
-
-                                    // create entry
-                                    targetBrowserConnection.getConnection().getConnectionWrapper()
-                                        .createEntry( entry, null, dummyMonitor, null );
-
-                                    break;
-                            }
-                        }
-                        else
-                        {
-                            monitor.reportError( dummyMonitor.getException() );
-                            break;
-                        }
-                    }
-                    else
-                    {
-                        monitor.reportError( dummyMonitor.getException() );
-                        break;
-                    }
+                    // created by the interrupted copy, which copied the children into it
+                    dummyMonitor.reset();
                 }
 
+                handleCreateError( targetBrowserConnection, entry, dialog, dummyMonitor, monitor );
+
                 if ( !monitor.isCanceled() && !monitor.errorsReported() )
                 {
                     numberOfCopiedEntries++;
@@ -398,27 +344,9 @@ public class CopyEntriesRunnable implements StudioConnectionBulkRunnableWithProg
                             { Integer.toString( numberOfCopiedEntries ) } ) ); //$NON-NLS-1$
 
                     // copy recursively
-                    if ( scope == SearchControls.ONELEVEL_SCOPE || scope == SearchControls.SUBTREE_SCOPE )
+                    if ( subtreeCopier != null )
                     {
-                        SearchControls searchControls = new SearchControls();
-                        searchControls.setCountLimit( 0 );
-                        searchControls.setReturningAttributes( new String[]
-                            { SchemaConstants.ALL_USER_ATTRIBUTES, SchemaConstants.REF_AT } );
-                        searchControls.setSearchScope( SearchControls.ONELEVEL_SCOPE );
-                        StudioSearchResultEnumeration childEntries = sourceBrowserConnection
-                            .getConnection()
-                            .getConnectionWrapper()
-                            .search( oldLdapDn.getName(), ISearch.FILTER_TRUE, searchControls,
-                                AliasDereferencingMethod.NEVER, ReferralHandlingMethod.IGNORE, null, monitor, null );
-
-                        if ( scope == SearchControls.ONELEVEL_SCOPE )
-                        {
-                            scope = SearchControls.OBJECT_SCOPE;
-                        }
-
-                        numberOfCopiedEntries = copyEntryRecursive( sourceBrowserConnection, childEntries,
-                            targetBrowserConnection, newLdapDn, null, scope, numberOfCopiedEntries, dialog,
-                            dummyMonitor, monitor );
+                        numberOfCopiedEntries = subtreeCopier.copy( entry.getDn(), numberOfCopiedEntries );
                     }
                 }
             }
@@ -432,6 +360,101 @@ public class CopyEntriesRunnable implements StudioConnectionBulkRunnableWithProg
     }
 
 
+    /**
+     * Handles the error of a failed creation of an entry. If the entry already exists
+     * the user is asked for the copy strategy, other errors are reported to the monitor.
+     * 
+     * @param targetBrowserConnection the target browser connection
+     * @param entry the entry to create, its Dn and Rdn attributes are changed if the
+     *        user chooses to rename the entry
+     * @param dialog the dialog to ask for the copy strategy, if null the user won't be
+     *        asked instead the NameAlreadyBoundException it reported to the monitor
+     * @param dummyMonitor the dummy monitor containing the error of the creation, 
+     *        still contains an error if the error couldn't be resolved
+     * @param monitor the real monitor
+     * 
+     * @throws LdapException if the Rdn chosen by the user is invalid
+     */
+    static void handleCreateError( IBrowserConnection targetBrowserConnection, Entry entry,
+        EntryExistsCopyStrategyDialog dialog, StudioProgressMonitor dummyMonitor, StudioProgressMonitor monitor )
+        throws LdapException
+    {
+        while ( dummyMonitor.errorsReported() )
+        {
+            if ( dialog != null
+                && StudioLdapException.isEntryAlreadyExistsException( dummyMonitor.getException() ) )
+            {
+                Dn newLdapDn = entry.getDn();
+
+                // open dialog
+                dialog.setExistingEntry( targetBrowserConnection, newLdapDn );
+                dialog.open();
+                EntryExistsCopyStrategy strategy = dialog.getStrategy();
+
+                if ( strategy != null )
+                {
+                    dummyMonitor.reset();
+
+                    switch ( strategy )
+                    {
+                        case BREAK:
+                            monitor.setCanceled( true );
+                            break;
+
+                        case IGNORE_AND_CONTINUE:
+                            break;
+
+                        case OVERWRITE_AND_CONTINUE:
+                            // create modifications
+                            Collection<Modification> modifications = ModelConverter
+                                .toReplaceModifications( entry );
+
+                            // modify entry
+                            targetBrowserConnection
+                                .getConnection()
+                                .getConnectionWrapper()
+                                .modifyEntry( newLdapDn, modifications, null, dummyMonitor, null );
+
+                            // force reload of attributes
+                            IEntry newEntry = targetBrowserConnection.getEntryFromCache( newLdapDn );
+                            if ( newEntry != null )
+                            {
+                                newEntry.setAttributesInitialized( false );
+                            }
+
+                            break;
+
+                        case RENAME_AND_CONTINUE:
+                            Rdn renamedRdn = dialog.getRdn();
+
+                            // apply renamed Rdn to the attributes
+                            applyNewRdn( entry, newLdapDn.getRdn(), renamedRdn );
+
+                            // compose new Dn
+                            entry.setDn( newLdapDn.getParent().add( renamedRdn ) );
+
+                            // create entry
+                            targetBrowserConnection.getConnection().getConnectionWrapper()
+                                .createEntry( entry, null, dummyMonitor, null );
+
+                            break;
+                    }
+                }
+                else
+                {
+                    monitor.reportError( dummyMonitor.getException() );
+                    break;
+                }
+            }
+            else
+            {
+                monitor.reportError( dummyMonitor.getException() );
+                break;
+            }
+        }
+    }
+
+
     private static void applyNewRdn( Entry entry, Rdn oldRdn, Rdn newRdn ) throws LdapException
     {
         // remove old Rdn attributes and values
@@ -22,25 +22,19 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
-import javax.naming.directory.SearchControls;
-
 import org.apache.directory.api.ldap.model.message.Control;
 import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.Controls;
-import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
-import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
 import org.apache.directory.studio.connection.core.StudioControl;
 import org.apache.directory.studio.connection.core.io.StudioLdapException;
-import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
 import org.apache.directory.studio.ldapbrowser.core.events.BulkModificationEvent;
@@ -50,7 +44,6 @@ import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
-import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
 
 
 /**
@@ -59,8 +52,8 @@ import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
  * Deletes the entry recursively in a optimistic way:
  * <ol>
  * <li>Delete the entry
- * <li>If that fails with error code 66 then perform a one-level search
- *     and start from 1. for each entry. 
+ * <li>If that fails with error code 66 then delete the subtree bottom-up
+ *     and in parallel using the {@link SubtreeDeleter}, then delete the entry again. 
  * </ol>
  *
  * TODO: delete subentries?
@@ -184,32 +177,6 @@ public class DeleteEntriesRunnable implements StudioConnectionBulkRunnableWithPr
                     entryToDelete.getParententry().setChildrenInitialized( false );
                     entryToDelete.getParententry().deleteChild( entryToDelete );
 
-                    // delete from searches
-                    List<ISearch> searches = browserConnection.getSearchManager().getSearches();
-                    for ( ISearch search : searches )
-                    {
-                        if ( search.getSearchResults() != null )
-                        {
-                            ISearchResult[] searchResults = search.getSearchResults();
-                            List<ISearchResult> searchResultList = new ArrayList<ISearchResult>();
-                            searchResultList.addAll( Arrays.asList( searchResults ) );
-                            for ( Iterator<ISearchResult> it = searchResultList.iterator(); it.hasNext(); )
-                            {
-                                ISearchResult result = it.next();
-                                if ( entryToDelete.equals( result.getEntry() ) )
-                                {
-                                    it.remove();
-                                    searchesToUpdateSet.add( search );
-                                }
-                            }
-                            if ( searchesToUpdateSet.contains( search ) )
-                            {
-                                search.setSearchResults( searchResultList.toArray( new ISearchResult[searchResultList
-                                    .size()] ) );
-                            }
-                        }
-                    }
-
                     // delete from cache
                     browserConnection.uncacheEntryRecursive( entryToDelete );
                 }
@@ -221,6 +188,74 @@ public class DeleteEntriesRunnable implements StudioConnectionBulkRunnableWithPr
 
             monitor.worked( 1 );
         }
+
+        // delete from searches, in one pass for all deleted entries
+        removeFromSearches();
+    }
+
+
+    /**
+     * Removes the deleted entries and their descendants from the search results.
+     */
+    private void removeFromSearches()
+    {
+        if ( deletedEntriesSet.isEmpty() )
+        {
+            return;
+        }
+
+        Set<IBrowserConnection> browserConnections = new HashSet<IBrowserConnection>();
+        for ( IEntry deletedEntry : deletedEntriesSet )
+        {
+            browserConnections.add( deletedEntry.getBrowserConnection() );
+        }
+
+        for ( IBrowserConnection browserConnection : browserConnections )
+        {
+            for ( ISearch search : browserConnection.getSearchManager().getSearches() )
+            {
+                List<ISearchResult> searchResults = search.getSearchResultList();
+                if ( searchResults == null )
+                {
+                    continue;
+                }
+
+                List<ISearchResult> searchResultList = new ArrayList<ISearchResult>( searchResults.size() );
+                for ( ISearchResult result : searchResults )
+                {
+                    if ( !isDeleted( result.getEntry() ) )
+                    {
+                        searchResultList.add( result );
+                    }
+                }
+
+                if ( searchResultList.size() < searchResults.size() )
+                {
+                    search.setSearchResults( searchResultList.toArray( new ISearchResult[searchResultList.size()] ) );
+                    searchesToUpdateSet.add( search );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Checks if the entry or one of its parents was deleted.
+     *
+     * @param entry the entry
+     *
+     * @return true, if the entry was deleted
+     */
+    private boolean isDeleted( IEntry entry )
+    {
+        for ( IEntry e = entry; e != null; e = e.getParententry() )
+        {
+            if ( deletedEntriesSet.contains( e ) )
+            {
+                return true;
+            }
+        }
+        return false;
     }
 
 
@@ -247,8 +282,8 @@ public class DeleteEntriesRunnable implements StudioConnectionBulkRunnableWithPr
      * Deletes the entry recursively in a optimistic way:
      * <ol>
      * <li>Deletes the entry
-     * <li>If that fails then perform a one-level search and call the 
-     * method for each found entry
+     * <li>If that fails then delete all entries below the entry using
+     * the {@link SubtreeDeleter} and delete the entry again
      * </ol>
      * 
      * @param browserConnection the browser connection
@@ -278,54 +313,10 @@ public class DeleteEntriesRunnable implements StudioConnectionBulkRunnableWithPr
         }
         else if ( StudioLdapException.isContextNotEmptyException( dummyMonitor.getException() ) )
         {
-            // do not follow referrals or dereference aliases when deleting entries
-            AliasDereferencingMethod aliasDereferencingMethod = AliasDereferencingMethod.NEVER;
-            ReferralHandlingMethod referralsHandlingMethod = ReferralHandlingMethod.IGNORE;
-
-            // perform one-level search and delete recursively
-            int numberInBatch;
+            // delete the subtree bottom-up
             dummyMonitor.reset();
-            do
-            {
-                numberInBatch = 0;
-
-                SearchControls searchControls = new SearchControls();
-                searchControls.setCountLimit( 1000 );
-                searchControls.setReturningAttributes( new String[0] );
-                searchControls.setSearchScope( SearchControls.ONELEVEL_SCOPE );
-                StudioSearchResultEnumeration result = browserConnection
-                    .getConnection()
-                    .getConnectionWrapper()
-                    .search( dn.getName(), ISearch.FILTER_TRUE, searchControls, aliasDereferencingMethod,
-                        referralsHandlingMethod, null, dummyMonitor, null );
-
-                try
-                {
-                    // delete all child entries
-                    while ( !dummyMonitor.isCanceled() && !dummyMonitor.errorsReported() && result.hasMore() )
-                    {
-                        Dn childDn = result.next().getDn();
-
-                        numberOfDeletedEntries = optimisticDeleteEntryRecursive( browserConnection, childDn, false,
-                            false, numberOfDeletedEntries, dummyMonitor, monitor );
-                        numberInBatch++;
-                    }
-                }
-                catch ( Exception e )
-                {
-                    int ldapStatusCode = JNDIUtils.getLdapStatusCode( e );
-                    if ( ldapStatusCode == 3 || ldapStatusCode == 4 || ldapStatusCode == 11 )
-                    {
-                        // continue with search
-                    }
-                    else
-                    {
-                        dummyMonitor.reportError( e );
-                        break;
-                    }
-                }
-            }
-            while ( numberInBatch > 0 && !monitor.isCanceled() && !dummyMonitor.errorsReported() );
+            numberOfDeletedEntries = new SubtreeDeleter( browserConnection, monitor ).deleteChildren( dn,
+                numberOfDeletedEntries, dummyMonitor );
 
             // try to delete the entry again 
             if ( !dummyMonitor.errorsReported() )
@@ -0,0 +1,195 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import org.apache.directory.api.dsmlv2.DsmlDecorator;
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+import org.dom4j.Namespace;
+import org.dom4j.io.OutputFormat;
+import org.dom4j.io.XMLWriter;
+
+
+/**
+ * Writes a DSMLv2 document incrementally.
+ * <p>
+ * The enclosing elements (e.g. batchResponse and searchResponse) are opened and
+ * closed explicitly, the requests and responses are serialized one by one as soon
+ * as they are written. Only the current element is kept in memory, so the memory
+ * consumption does not depend on the number of exported entries.
+ * <p>
+ * The produced document is indented like the documents produced by
+ * {@link org.apache.directory.api.dsmlv2.response.BatchResponseDsml#toDsml()}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class DsmlStreamWriter implements Closeable
+{
+    /** The indentation of one level */
+    private static final String INDENT = "   "; //$NON-NLS-1$
+
+    /** The line separator */
+    private static final String NEWLINE = "\n"; //$NON-NLS-1$
+
+    /** The underlying writer */
+    private Writer writer;
+
+    /** The writer used to serialize the single elements */
+    private XMLWriter xmlWriter;
+
+    /** The names of the currently open elements */
+    private Deque<String> openElements = new ArrayDeque<>();
+
+    /** The namespaces declared by the open elements */
+    private List<Namespace> declaredNamespaces = new ArrayList<>();
+
+
+    /**
+     * Creates a new instance of DsmlStreamWriter and writes the XML declaration.
+     *
+     * @param writer the writer, should be buffered and use the UTF-8 encoding
+     * @throws IOException if an I/O error occurs
+     */
+    DsmlStreamWriter( Writer writer ) throws IOException
+    {
+        this.writer = writer;
+
+        OutputFormat format = OutputFormat.createPrettyPrint();
+        format.setIndent( INDENT );
+        format.setLineSeparator( NEWLINE );
+        format.setSuppressDeclaration( true );
+        xmlWriter = new XMLWriter( writer, format )
+        {
+            protected void writeNamespace( Namespace namespace ) throws IOException
+            {
+                // Namespaces declared by an enclosing element are not repeated
+                if ( !declaredNamespaces.contains( namespace ) )
+                {
+                    super.writeNamespace( namespace );
+                }
+            }
+        };
+
+        writer.write( "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" ); //$NON-NLS-1$
+    }
+
+
+    /**
+     * Opens an enclosing element, all subsequently written elements are its children
+     * until it is closed with {@link #endElement()}.
+     *
+     * @param name the element name
+     * @param namespaces the namespaces to declare
+     * @throws IOException if an I/O error occurs
+     */
+    void startElement( String name, Namespace... namespaces ) throws IOException
+    {
+        newLine( openElements.size() );
+        writer.write( '<' );
+        writer.write( name );
+
+        for ( Namespace namespace : namespaces )
+        {
+            writer.write( ' ' );
+            writer.write( namespace.asXML() );
+        }
+
+        writer.write( '>' );
+        openElements.push( name );
+        declaredNamespaces.addAll( Arrays.asList( namespaces ) );
+    }
+
+
+    /**
+     * Serializes the given request or response as child of the current element.
+     *
+     * @param decorator the DSML request or response
+     * @throws IOException if an I/O error occurs
+     */
+    void writeElement( DsmlDecorator<?> decorator ) throws IOException
+    {
+        // The element is added to a detached document whose root has no namespace, this
+        // keeps the XMLWriter from declaring an empty default namespace on each element
+        Element parent = DocumentHelper.createDocument().addElement( openElements.peek() );
+        Element element = decorator.toDsml( parent );
+
+        xmlWriter.setIndentLevel( openElements.size() );
+        xmlWriter.write( element );
+    }
+
+
+    /**
+     * Closes the current enclosing element.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void endElement() throws IOException
+    {
+        String name = openElements.pop();
+        newLine( openElements.size() );
+        writer.write( "</" ); //$NON-NLS-1$
+        writer.write( name );
+        writer.write( '>' );
+    }
+
+
+    /**
+     * Closes all open elements, flushes and closes the underlying writer. The XML writer
+     * doesn't buffer, so the elements aren't flushed one by one.
+     */
+    public void close() throws IOException
+    {
+        try
+        {
+            while ( !openElements.isEmpty() )
+            {
+                endElement();
+            }
+
+            writer.write( NEWLINE );
+            xmlWriter.flush();
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+
+    private void newLine( int level ) throws IOException
+    {
+        writer.write( NEWLINE );
+
+        for ( int i = 0; i < level; i++ )
+        {
+            writer.write( INDENT );
+        }
+    }
+}
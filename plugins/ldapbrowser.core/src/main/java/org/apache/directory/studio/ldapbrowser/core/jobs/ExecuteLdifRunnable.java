@@ -21,9 +21,11 @@
 package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 
+import java.io.File;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -37,6 +39,7 @@ import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
 import org.apache.directory.studio.ldifparser.parser.LdifParser;
+import org.apache.directory.studio.ldifparser.parser.ParallelLdifParser;
 
 
 /**
@@ -52,6 +55,12 @@ public class ExecuteLdifRunnable implements StudioConnectionBulkRunnableWithProg
     /** The LDIF to execute. */
     private String ldif;
 
+    /** The LDIF file to execute, if no LDIF string is given. */
+    private File ldifFile;
+
+    /** The charset of the LDIF file. */
+    private Charset charset;
+
     /** The update if entry exists flag. */
     private boolean updateIfEntryExists;
 
@@ -76,6 +85,26 @@ public class ExecuteLdifRunnable implements StudioConnectionBulkRunnableWithProg
     }
 
 
+    /**
+     * Creates a new instance of ExecuteLdifJob that streams the LDIF from a file
+     * instead of holding it in memory.
+     * 
+     * @param browserConnection the browser connection
+     * @param ldifFile the LDIF file to execute
+     * @param charset the charset of the LDIF file
+     * @param continueOnError the continue on error flag
+     */
+    public ExecuteLdifRunnable( IBrowserConnection browserConnection, File ldifFile, Charset charset,
+        boolean updateIfEntryExists, boolean continueOnError )
+    {
+        this.browserConnection = browserConnection;
+        this.ldifFile = ldifFile;
+        this.charset = charset;
+        this.continueOnError = continueOnError;
+        this.updateIfEntryExists = updateIfEntryExists;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -101,7 +130,14 @@ public class ExecuteLdifRunnable implements StudioConnectionBulkRunnableWithProg
     public Object[] getLockedObjects()
     {
         List<Object> l = new ArrayList<Object>();
-        l.add( browserConnection.getUrl() + "_" + DigestUtils.shaHex( ldif ) ); //$NON-NLS-1$
+        if ( ldifFile != null )
+        {
+            l.add( browserConnection.getUrl() + "_" + ldifFile.getAbsolutePath() ); //$NON-NLS-1$
+        }
+        else
+        {
+            l.add( browserConnection.getUrl() + "_" + DigestUtils.shaHex( ldif ) ); //$NON-NLS-1$
+        }
         return l.toArray();
     }
 
@@ -120,7 +156,14 @@ public class ExecuteLdifRunnable implements StudioConnectionBulkRunnableWithProg
      */
     public void run( StudioProgressMonitor monitor )
     {
-        executeLdif( browserConnection, ldif, updateIfEntryExists, continueOnError, monitor );
+        if ( ldifFile != null )
+        {
+            executeLdif( browserConnection, ldifFile, charset, updateIfEntryExists, continueOnError, monitor );
+        }
+        else
+        {
+            executeLdif( browserConnection, ldif, updateIfEntryExists, continueOnError, monitor );
+        }
     }
 
 
@@ -167,6 +210,63 @@ public class ExecuteLdifRunnable implements StudioConnectionBulkRunnableWithProg
     }
 
 
+    /**
+     * Executes the LDIF file. The file is memory-mapped and parsed in chunks by the
+     * {@link ParallelLdifParser}, it is never read into memory as a whole.
+     *
+     * @param browserConnection the browser connection
+     * @param ldifFile the LDIF file
+     * @param charset the charset of the LDIF file
+     * @param updateIfEntryExists the update if entry exists flag
+     * @param continueOnError the continue on error flag
+     * @param monitor the progress monitor
+     */
+    public static void executeLdif( IBrowserConnection browserConnection, File ldifFile, Charset charset,
+        boolean updateIfEntryExists, boolean continueOnError, StudioProgressMonitor monitor )
+    {
+        monitor.beginTask( BrowserCoreMessages.jobs__execute_ldif_task, 2 );
+        monitor.reportProgress( " " ); //$NON-NLS-1$
+        monitor.worked( 1 );
+
+        ParallelLdifParser parser = new ParallelLdifParser();
+
+        try
+        {
+            LdifEnumeration enumeration = parser.parse( ldifFile, charset );
+
+            Writer logWriter = new Writer()
+            {
+                public void close()
+                {
+                }
+
+
+                public void flush()
+                {
+                }
+
+
+                public void write( char[] cbuf, int off, int len )
+                {
+                }
+            };
+
+            ImportLdifRunnable.importLdif( browserConnection, enumeration, logWriter, updateIfEntryExists,
+                continueOnError, monitor );
+
+            logWriter.close();
+        }
+        catch ( Exception e )
+        {
+            monitor.reportError( e );
+        }
+        finally
+        {
+            parser.close();
+        }
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -22,9 +22,11 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
@@ -32,6 +34,7 @@ import java.util.Map;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.text.translate.CharSequenceTranslator;
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.entry.Entry;
 import org.apache.directory.api.ldap.model.exception.LdapException;
 import org.apache.directory.api.ldap.model.schema.AttributeType;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
@@ -40,6 +43,7 @@ import org.apache.directory.studio.connection.core.jobs.StudioConnectionRunnable
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
+import org.apache.directory.studio.ldapbrowser.core.jobs.ExportLdifRunnable.DefaultLdifEnumeration;
 import org.apache.directory.studio.ldapbrowser.core.model.AttributeDescription;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
@@ -72,6 +76,12 @@ public class ExportCsvRunnable implements StudioConnectionRunnableWithProgress
     /** The export dn flag. */
     private boolean exportDn;
 
+    /** The attribute used to partition the export, null to partition by the first-level children. */
+    private String partitionAttribute;
+
+    /** The lower bounds of the partitions. */
+    private String[] partitionBounds;
+
 
     /**
      * Creates a new instance of ExportCsvRunnable.
@@ -91,6 +101,20 @@ public class ExportCsvRunnable implements StudioConnectionRunnableWithProgress
     }
 
 
+    /**
+     * Partitions the export by ranges of the values of the given attribute. This is only
+     * used if the connection pool is enabled, see {@link ShardedExporter}.
+     * 
+     * @param attribute the attribute
+     * @param bounds the sorted lower bounds of the ranges
+     */
+    public void setPartitionAttribute( String attribute, String... bounds )
+    {
+        this.partitionAttribute = attribute;
+        this.partitionBounds = bounds;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -140,18 +164,19 @@ public class ExportCsvRunnable implements StudioConnectionRunnableWithProgress
 
         Preferences coreStore = BrowserCorePlugin.getDefault().getPluginPreferences();
 
-        String attributeDelimiter = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_ATTRIBUTEDELIMITER );
-        String valueDelimiter = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_VALUEDELIMITER );
-        String quoteCharacter = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_QUOTECHARACTER );
-        String lineSeparator = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_LINESEPARATOR );
-        String encoding = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_ENCODING );
-        int binaryEncoding = coreStore.getInt( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_BINARYENCODING );
-        String[] exportAttributes = this.searchParameter.getReturningAttributes();
+        final String attributeDelimiter = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_ATTRIBUTEDELIMITER );
+        final String valueDelimiter = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_VALUEDELIMITER );
+        final String quoteCharacter = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_QUOTECHARACTER );
+        final String lineSeparator = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_LINESEPARATOR );
+        final String encoding = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_ENCODING );
+        final int binaryEncoding = coreStore.getInt( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_BINARYENCODING );
+        final String[] exportAttributes = this.searchParameter.getReturningAttributes();
 
         try
         {
             // open file
-            FileOutputStream fos = new FileOutputStream( exportCsvFilename );
+            File file = new File( exportCsvFilename ).getAbsoluteFile();
+            FileOutputStream fos = new FileOutputStream( file );
             OutputStreamWriter osw = new OutputStreamWriter( fos, encoding );
             BufferedWriter bufferedWriter = new BufferedWriter( osw );
 
@@ -172,8 +197,35 @@ public class ExportCsvRunnable implements StudioConnectionRunnableWithProgress
 
             // export
             int count = 0;
-            exportToCsv( browserConnection, searchParameter, bufferedWriter, count, monitor, exportAttributes,
-                attributeDelimiter, valueDelimiter, quoteCharacter, lineSeparator, encoding, binaryEncoding, exportDn );
+            ShardedExporter exporter = new ShardedExporter( browserConnection, searchParameter, monitor );
+            exporter.setPartitionAttribute( partitionAttribute, partitionBounds );
+            if ( exporter.createPartitions() )
+            {
+                // export large subtrees with concurrent searches
+                bufferedWriter.flush();
+                exporter.export( fos, Charset.forName( encoding ), new ShardedExporter.EntryWriterFactory()
+                    {
+                        public ShardedExporter.EntryWriter create( final Writer writer )
+                        {
+                            return new ShardedExporter.EntryWriter()
+                            {
+                                public void write( Entry entry ) throws IOException
+                                {
+                                    writer.write( recordToCsv( browserConnection,
+                                        DefaultLdifEnumeration.toLdifContentRecord( entry ), exportAttributes,
+                                        attributeDelimiter, valueDelimiter, quoteCharacter, lineSeparator, encoding,
+                                        binaryEncoding, exportDn ) );
+                                }
+                            };
+                        }
+                    } );
+            }
+            else
+            {
+                exportToCsv( browserConnection, searchParameter, bufferedWriter, count, monitor, exportAttributes,
+                    attributeDelimiter, valueDelimiter, quoteCharacter, lineSeparator, encoding, binaryEncoding,
+                    exportDn );
+            }
 
             // close file
             bufferedWriter.close();
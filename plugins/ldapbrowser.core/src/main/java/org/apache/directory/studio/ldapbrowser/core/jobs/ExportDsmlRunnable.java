@@ -23,15 +23,17 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 import java.io.BufferedWriter;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.directory.api.dsmlv2.DsmlDecorator;
+import org.apache.directory.api.dsmlv2.ParserUtils;
 import org.apache.directory.api.dsmlv2.request.AddRequestDsml;
-import org.apache.directory.api.dsmlv2.request.BatchRequestDsml;
 import org.apache.directory.api.dsmlv2.response.BatchResponseDsml;
 import org.apache.directory.api.dsmlv2.response.SearchResponseDsml;
 import org.apache.directory.api.dsmlv2.response.SearchResultDoneDsml;
@@ -194,36 +196,24 @@ public class ExportDsmlRunnable implements StudioConnectionRunnableWithProgress
             StudioSearchResultEnumeration ne = SearchRunnable.search( browserConnection, searchParameter, dummyMonitor );
             monitor.worked( 1 );
 
-            // Getting the DSML string associated to the search
-            // and the type of answer the user is expecting
-            String dsmlExportString = null;
-            
-            switch ( type )
+            // Writing the DSML document to the destination file while
+            // iterating over the search results
+            try ( DsmlStreamWriter writer = new DsmlStreamWriter( new BufferedWriter( new OutputStreamWriter(
+                new FileOutputStream( exportDsmlFilename ), StandardCharsets.UTF_8 ) ) ) )
             {
-                case RESPONSE:
-                    dsmlExportString = processAsDsmlResponse( ne, dummyMonitor );
-                    break;
-                case REQUEST:
-                    dsmlExportString = processAsDsmlRequest( ne, dummyMonitor );
-                    break;
-            }
-            
-            monitor.worked( 1 );
-
-            // Writing the DSML string to the final destination file.
-            if ( dsmlExportString != null )
-            {
-                try ( FileOutputStream fos = new FileOutputStream( exportDsmlFilename ) )
+                switch ( type )
                 {
-                    try ( OutputStreamWriter osw = new OutputStreamWriter( fos, "UTF-8" ) ) //$NON-NLS-1$
-                    {
-                        try ( BufferedWriter bufferedWriter = new BufferedWriter( osw ) )
-                        {
-                            bufferedWriter.write( dsmlExportString );
-                        }
-                    }
+                    case RESPONSE:
+                        processAsDsmlResponse( ne, writer, dummyMonitor );
+                        break;
+                    case REQUEST:
+                        processAsDsmlRequest( ne, writer, dummyMonitor );
+                        break;
                 }
+
+                monitor.worked( 1 );
             }
+
             monitor.worked( 1 );
         }
         catch ( Exception e )
@@ -234,22 +224,49 @@ public class ExportDsmlRunnable implements StudioConnectionRunnableWithProgress
 
 
     /**
-     * Processes the {@link StudioSearchResultEnumeration} as a DSML response.
+     * Processes the {@link StudioSearchResultEnumeration} as a DSML response
+     * and writes each search result as soon as it is received.
      *
      * @param sre the search result enumeration
+     * @param writer the DSML writer
      * @param monitor the monitor
-     * @return the associated DSML
-     * @throws LdapException
+     * @throws IOException if an I/O error occurs
      */
-    private String processAsDsmlResponse( StudioSearchResultEnumeration sre, StudioProgressMonitor monitor ) throws LdapException
+    private void processAsDsmlResponse( StudioSearchResultEnumeration sre, DsmlStreamWriter writer,
+        StudioProgressMonitor monitor ) throws IOException
     {
-        // Creating the batch reponse
-        BatchResponseDsml batchResponse = new BatchResponseDsml();
+        writer.startElement( "batchResponse", ParserUtils.DSML_NAMESPACE, ParserUtils.XSD_NAMESPACE, //$NON-NLS-1$
+            ParserUtils.XSI_NAMESPACE );
+        writer.startElement( "searchResponse" ); //$NON-NLS-1$
 
-        processAsDsmlResponse( sre, batchResponse, monitor, searchParameter );
+        try
+        {
+            int count = 0;
 
-        // Returning the associated DSML
-        return batchResponse.toDsml();
+            if ( !monitor.errorsReported() )
+            {
+                // Writing a search result entry or reference for each result
+                while ( sre.hasMore() )
+                {
+                    Entry entry = sre.next().getEntry();
+                    writer.writeElement( convertSearchResultToDsml( entry ) );
+
+                    count++;
+                    monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_progress,
+                        new String[]
+                            { Integer.toString( count ) } ) );
+                }
+            }
+        }
+        catch ( LdapException e )
+        {
+            handleSearchException( e, monitor );
+        }
+
+        // Writing a search result done at the end of the results
+        writer.writeElement( createSearchResultDone( monitor ) );
+        writer.endElement();
+        writer.endElement();
     }
 
 
@@ -293,18 +310,44 @@ public class ExportDsmlRunnable implements StudioConnectionRunnableWithProgress
         }
         catch ( LdapException e )
         {
-            int ldapStatusCode = JNDIUtils.getLdapStatusCode( e );
-            if ( ldapStatusCode == 3 || ldapStatusCode == 4 || ldapStatusCode == 11 )
-            {
-                // ignore
-            }
-            else
-            {
-                monitor.reportError( e );
-            }
+            handleSearchException( e, monitor );
         }
 
         // Creating and adding a search result done at the end of the results
+        sr.addResponse( createSearchResultDone( monitor ) );
+    }
+
+
+    /**
+     * Reports the given search exception to the monitor, unless it
+     * just indicates that a time or size limit was exceeded.
+     *
+     * @param e the exception
+     * @param monitor the monitor
+     */
+    private static void handleSearchException( LdapException e, StudioProgressMonitor monitor )
+    {
+        int ldapStatusCode = JNDIUtils.getLdapStatusCode( e );
+        if ( ldapStatusCode == 3 || ldapStatusCode == 4 || ldapStatusCode == 11 )
+        {
+            // ignore
+        }
+        else
+        {
+            monitor.reportError( e );
+        }
+    }
+
+
+    /**
+     * Creates the search result done that terminates a search response,
+     * its result code reflects the errors reported to the monitor.
+     *
+     * @param monitor the monitor
+     * @return the search result done DSML
+     */
+    private static SearchResultDoneDsml createSearchResultDone( StudioProgressMonitor monitor )
+    {
         SearchResultDone srd = new SearchResultDoneImpl();
         LdapResult ldapResult = srd.getLdapResult();
         if ( !monitor.errorsReported() )
@@ -325,7 +368,8 @@ public class ExportDsmlRunnable implements StudioConnectionRunnableWithProgress
                 ldapResult.setDiagnosticMessage( t.getMessage() );
             }
         }
-        sr.addResponse( new SearchResultDoneDsml( codec, srd ) );
+
+        return new SearchResultDoneDsml( codec, srd );
     }
 
 
@@ -407,21 +451,22 @@ public class ExportDsmlRunnable implements StudioConnectionRunnableWithProgress
 
 
     /**
-     * Processes the {@link StudioSearchResultEnumeration} as a DSML request.
+     * Processes the {@link StudioSearchResultEnumeration} as a DSML request
+     * and writes an add request for each search result as soon as it is received.
      *
      * @param sre
      *      the search result enumeration
+     * @param writer
+     *      the DSML writer
      * @param monitor 
      *      the monitor
-     * @return
-     *      the associated DSML
-     * @throws LdapException
+     * @throws IOException
+     *      if an I/O error occurs
      */
-    private String processAsDsmlRequest( StudioSearchResultEnumeration sre, StudioProgressMonitor monitor )
-        throws LdapException
+    private void processAsDsmlRequest( StudioSearchResultEnumeration sre, DsmlStreamWriter writer,
+        StudioProgressMonitor monitor ) throws IOException
     {
-        // Creating the batch request
-        BatchRequestDsml batchRequest = new BatchRequestDsml();
+        writer.startElement( "batchRequest", ParserUtils.XSD_NAMESPACE, ParserUtils.XSI_NAMESPACE ); //$NON-NLS-1$
 
         try
         {
@@ -429,12 +474,11 @@ public class ExportDsmlRunnable implements StudioConnectionRunnableWithProgress
 
             if ( !monitor.errorsReported() )
             {
-                // Creating and adding an add request for each result
+                // Writing an add request for each result
                 while ( sre.hasMore() )
                 {
                     Entry entry = sre.next().getEntry();
-                    AddRequestDsml arDsml = convertToAddRequestDsml( entry );
-                    batchRequest.addRequest( arDsml );
+                    writer.writeElement( convertToAddRequestDsml( entry ) );
 
                     count++;
                     monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_progress,
@@ -445,19 +489,10 @@ public class ExportDsmlRunnable implements StudioConnectionRunnableWithProgress
         }
         catch ( LdapException e )
         {
-            int ldapStatusCode = JNDIUtils.getLdapStatusCode( e );
-            if ( ldapStatusCode == 3 || ldapStatusCode == 4 || ldapStatusCode == 11 )
-            {
-                // ignore
-            }
-            else
-            {
-                monitor.reportError( e );
-            }
+            handleSearchException( e, monitor );
         }
 
-        // Returning the associated DSML
-        return batchRequest.toDsml();
+        writer.endElement();
     }
 
 
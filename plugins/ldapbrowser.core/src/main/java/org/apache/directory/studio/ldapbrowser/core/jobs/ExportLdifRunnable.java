@@ -22,8 +22,12 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 
 import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -44,19 +48,16 @@ import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
-import org.apache.directory.studio.ldapbrowser.core.model.IValue;
 import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
-import org.apache.directory.studio.ldapbrowser.core.model.impl.DummyEntry;
 import org.apache.directory.studio.ldapbrowser.core.utils.AttributeComparator;
 import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
-import org.apache.directory.studio.ldapbrowser.core.utils.ModelConverter;
 import org.apache.directory.studio.ldapbrowser.core.utils.Utils;
 import org.apache.directory.studio.ldifparser.LdifFormatParameters;
+import org.apache.directory.studio.ldifparser.LdifUtils;
 import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
 import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
 import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
-import org.apache.directory.studio.ldifparser.model.lines.LdifDnLine;
 import org.apache.directory.studio.ldifparser.model.lines.LdifSepLine;
 import org.apache.directory.studio.ldifparser.model.lines.LdifVersionLine;
 
@@ -77,6 +78,12 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
     /** The search parameter. */
     private SearchParameter searchParameter;
 
+    /** The attribute used to partition the export, null to partition by the first-level children. */
+    private String partitionAttribute;
+
+    /** The lower bounds of the partitions. */
+    private String[] partitionBounds;
+
 
     /**
      * Creates a new instance of ExportLdifRunnable.
@@ -94,6 +101,20 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
     }
 
 
+    /**
+     * Partitions the export by ranges of the values of the given attribute. This is only
+     * used if the connection pool is enabled, see {@link ShardedExporter}.
+     * 
+     * @param attribute the attribute
+     * @param bounds the sorted lower bounds of the ranges
+     */
+    public void setPartitionAttribute( String attribute, String... bounds )
+    {
+        this.partitionAttribute = attribute;
+        this.partitionBounds = bounds;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -144,17 +165,20 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
 
         try
         {
-            // open file
-            FileWriter fileWriter = new FileWriter( exportLdifFilename );
-            BufferedWriter bufferedWriter = new BufferedWriter( fileWriter );
+            // open file, compressed if the file name ends with .gz
+            File file = new File( exportLdifFilename ).getAbsoluteFile();
+            OutputStream outputStream = LdifUtils.openOutputStream( file );
+            BufferedWriter bufferedWriter = new BufferedWriter( new OutputStreamWriter( outputStream,
+                Charset.defaultCharset() ), LdifUtils.STREAM_BUFFER_SIZE );
 
             // export
             int count = 0;
-            export( browserConnection, searchParameter, bufferedWriter, count, monitor );
+            export( browserConnection, searchParameter, partitionAttribute, partitionBounds, file,
+                outputStream, bufferedWriter, count, monitor );
 
             // close file
             bufferedWriter.close();
-            fileWriter.close();
+            outputStream.close();
 
         }
         catch ( Exception e )
@@ -164,13 +188,13 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
     }
 
 
-    private static void export( IBrowserConnection browserConnection, SearchParameter searchParameter,
+    private static void export( final IBrowserConnection browserConnection, SearchParameter searchParameter,
+        String partitionAttribute, String[] partitionBounds, File file, OutputStream outputStream,
         BufferedWriter bufferedWriter, int count, StudioProgressMonitor monitor ) throws IOException
     {
         try
         {
-            LdifEnumeration enumeration = search( browserConnection, searchParameter, monitor );
-            LdifFormatParameters ldifFormatParameters = Utils.getLdifFormatParameters();
+            final LdifFormatParameters ldifFormatParameters = Utils.getLdifFormatParameters();
 
             // add version spec
             if ( BrowserCorePlugin.getDefault().getPluginPreferences()
@@ -184,36 +208,40 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
                 bufferedWriter.write( ldifSepLineString );
             }
 
-            // add the records
-            while ( !monitor.isCanceled() && !monitor.errorsReported() && enumeration.hasNext() )
+            // export large subtrees with concurrent searches
+            ShardedExporter exporter = new ShardedExporter( browserConnection, searchParameter, monitor );
+            exporter.setPartitionAttribute( partitionAttribute, partitionBounds );
+            if ( exporter.createPartitions() )
             {
-                LdifContainer container = enumeration.next();
-
-                if ( container instanceof LdifContentRecord )
-                {
-                    LdifContentRecord record = ( LdifContentRecord ) container;
-                    LdifDnLine dnLine = record.getDnLine();
-                    LdifSepLine sepLine = record.getSepLine();
-
-                    // sort and format
-                    DummyEntry entry = ModelConverter.ldifContentRecordToEntry( record, browserConnection );
-                    List<IValue> sortedValues = AttributeComparator.toSortedValues( entry );
-                    LdifContentRecord newRecord = new LdifContentRecord( dnLine );
-                    for ( IValue value : sortedValues )
+                bufferedWriter.flush();
+                exporter.export( outputStream, Charset.defaultCharset(), new ShardedExporter.EntryWriterFactory()
                     {
-                        newRecord.addAttrVal( ModelConverter.valueToLdifAttrValLine( value ) );
-                    }
-                    newRecord.finish( sepLine );
-                    String s = newRecord.toFormattedString( ldifFormatParameters );
+                        public ShardedExporter.EntryWriter create( Writer writer )
+                        {
+                            final LdifLineWriter ldifLineWriter = new LdifLineWriter( writer, ldifFormatParameters );
+                            return new ShardedExporter.EntryWriter()
+                            {
+                                public void write( Entry entry ) throws IOException
+                                {
+                                    writeEntry( browserConnection, entry, ldifLineWriter );
+                                }
+                            };
+                        }
+                    } );
+                return;
+            }
 
-                    // String s = record.toFormattedString();
-                    bufferedWriter.write( s );
+            // add the entries
+            LdifLineWriter ldifLineWriter = new LdifLineWriter( bufferedWriter, ldifFormatParameters );
+            DefaultLdifEnumeration enumeration = search( browserConnection, searchParameter, monitor );
+            while ( !monitor.isCanceled() && !monitor.errorsReported() && enumeration.hasNext() )
+            {
+                writeEntry( browserConnection, enumeration.nextEntry(), ldifLineWriter );
 
-                    count++;
-                    monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_progress,
-                        new String[]
-                            { Integer.toString( count ) } ) );
-                }
+                count++;
+                monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_progress,
+                    new String[]
+                        { Integer.toString( count ) } ) );
             }
         }
         catch ( LdapException loe )
@@ -231,7 +259,41 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
     }
 
 
-    static LdifEnumeration search( IBrowserConnection browserConnection, SearchParameter parameter,
+    /**
+     * Sorts the attributes and values of the entry and writes it as LDIF content record.
+     * The values are written directly from the entry, string values as they are or
+     * base64 encoded if needed, binary values base64 encoded from their bytes.
+     *
+     * @param browserConnection the browser connection
+     * @param entry the entry
+     * @param ldifLineWriter the LDIF line writer
+     *
+     * @throws IOException if writing fails
+     */
+    private static void writeEntry( IBrowserConnection browserConnection, Entry entry,
+        LdifLineWriter ldifLineWriter ) throws IOException
+    {
+        ldifLineWriter.writeDn( entry.getDn().getName() );
+        for ( Attribute attribute : AttributeComparator.toSortedAttributes( entry, browserConnection.getSchema() ) )
+        {
+            String attributeDescription = attribute.getUpId();
+            for ( Value value : AttributeComparator.toSortedValues( attribute ) )
+            {
+                if ( value.isHumanReadable() )
+                {
+                    ldifLineWriter.writeAttrVal( attributeDescription, value.getString() );
+                }
+                else
+                {
+                    ldifLineWriter.writeAttrVal( attributeDescription, value.getBytes() );
+                }
+            }
+        }
+        ldifLineWriter.writeSeparator();
+    }
+
+
+    static DefaultLdifEnumeration search( IBrowserConnection browserConnection, SearchParameter parameter,
         StudioProgressMonitor monitor )
     {
         StudioSearchResultEnumeration result = SearchRunnable.search( browserConnection, parameter, monitor );
@@ -298,7 +360,30 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
 
         public LdifContainer next() throws LdapException
         {
-            Entry entry = enumeration.next().getEntry();
+            return toLdifContentRecord( nextEntry() );
+        }
+
+
+        /**
+         * Gets the next entry without converting it to a LDIF content record.
+         *
+         * @return the next entry
+         * @throws LdapException if the search fails
+         */
+        Entry nextEntry() throws LdapException
+        {
+            return enumeration.next().getEntry();
+        }
+
+
+        /**
+         * Converts the given entry to a LDIF content record.
+         *
+         * @param entry the entry
+         * @return the LDIF content record
+         */
+        static LdifContentRecord toLdifContentRecord( Entry entry )
+        {
             Dn dn = entry.getDn();
             LdifContentRecord record = LdifContentRecord.create( dn.getName() );
 
@@ -323,5 +408,25 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
             return record;
         }
 
+
+        /**
+         * Closes the underlying search result enumeration, this gives a pooled
+         * connection back to the pool if the enumeration isn't exhausted.
+         */
+        void close()
+        {
+            if ( enumeration != null )
+            {
+                try
+                {
+                    enumeration.close();
+                }
+                catch ( LdapException e )
+                {
+                    // ignore
+                }
+            }
+        }
+
     }
 }
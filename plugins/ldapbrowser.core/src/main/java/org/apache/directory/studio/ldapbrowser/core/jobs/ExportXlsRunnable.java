@@ -23,7 +23,10 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import org.apache.commons.codec.digest.DigestUtils;
@@ -44,25 +47,36 @@ import org.apache.directory.studio.ldapbrowser.core.utils.Utils;
 import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
 import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
-import org.apache.poi.hssf.usermodel.HSSFCell;
-import org.apache.poi.hssf.usermodel.HSSFRow;
-import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.eclipse.core.runtime.Preferences;
 
 
 /**
- * Runnable to export directory content to an XLS file.
+ * Runnable to export directory content to an XLS or XLSX file.
+ * <p>
+ * The XLS format is limited to {@link #MAX_COUNT_LIMIT} entries and is built in memory,
+ * the XLSX format is streamed to the file and has no such limit.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
 public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
 {
-    /** The maximum count limit */
+    /** The maximum count limit of the XLS format */
     public static final int MAX_COUNT_LIMIT = 65000;
 
+    /** The number of rows kept in memory when writing the XLSX format */
+    private static final int ROW_ACCESS_WINDOW_SIZE = 100;
+
+    /** The maximum column width, in units of 1/256th of a character width */
+    private static final int MAX_COLUMN_WIDTH = 255 * 256;
+
     /** The postal address decoder. */
     private static CharSequenceTranslator DECODER = Utils.createPostalAddressDecoder( "\n" ); //$NON-NLS-1$;
 
@@ -148,69 +162,98 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
         String valueDelimiter = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_XLS_VALUEDELIMITER );
         int binaryEncoding = coreStore.getInt( BrowserCoreConstants.PREFERENCE_FORMAT_XLS_BINARYENCODING );
 
-        HSSFWorkbook wb = new HSSFWorkbook();
-        HSSFSheet sheet = wb.createSheet( "Export" ); //$NON-NLS-1$
-
-        // header
-        HSSFRow headerRow = sheet.createRow( 0 );
-        LinkedHashMap<String, Integer> attributeNameMap = new LinkedHashMap<String, Integer>();
-        if ( this.exportDn )
+        // The XLSX format is written with a sliding window of rows, older rows are flushed
+        // to a temporary file. The header row is kept in the in-memory template workbook
+        // because new attributes may be added to it until the last entry is written.
+        boolean streaming = isXlsx( exportXlsFilename );
+        Workbook wb;
+        Sheet sheet;
+        Row headerRow;
+        if ( streaming )
         {
-            int cellNum = 0;
-            attributeNameMap.put( "dn", cellNum ); //$NON-NLS-1$
-            createStringCell( headerRow, cellNum ).setCellValue( "dn" ); //$NON-NLS-1$
+            XSSFWorkbook template = new XSSFWorkbook();
+            headerRow = template.createSheet( "Export" ).createRow( 0 ); //$NON-NLS-1$
+            SXSSFWorkbook sxssfWorkbook = new SXSSFWorkbook( template, ROW_ACCESS_WINDOW_SIZE );
+            sxssfWorkbook.setCompressTempFiles( true );
+            wb = sxssfWorkbook;
+            sheet = wb.getSheetAt( 0 );
         }
-
-        // max export
-        if ( searchParameter.getCountLimit() < 1 || searchParameter.getCountLimit() > MAX_COUNT_LIMIT )
+        else
         {
-            searchParameter.setCountLimit( MAX_COUNT_LIMIT );
+            wb = new HSSFWorkbook();
+            sheet = wb.createSheet( "Export" ); //$NON-NLS-1$
+            headerRow = sheet.createRow( 0 );
         }
 
-        // export
         try
         {
-            int count = 0;
-            exportToXls( browserConnection, searchParameter, sheet, headerRow, count, monitor, attributeNameMap,
-                valueDelimiter, binaryEncoding, this.exportDn );
-        }
-        catch ( Exception e )
-        {
-            monitor.reportError( e );
-        }
+            // header
+            LinkedHashMap<String, Integer> attributeNameMap = new LinkedHashMap<String, Integer>();
+            List<Integer> columnWidths = new ArrayList<Integer>();
+            if ( this.exportDn )
+            {
+                int cellNum = 0;
+                attributeNameMap.put( "dn", cellNum ); //$NON-NLS-1$
+                setCellValue( createStringCell( headerRow, cellNum ), "dn", columnWidths ); //$NON-NLS-1$
+            }
 
-        // column width
-        for ( int i = 0; i <= sheet.getLastRowNum(); i++ )
-        {
-            HSSFRow row = sheet.getRow( i );
-            for ( short j = 0; row != null && j <= row.getLastCellNum(); j++ )
+            // max export
+            if ( !streaming
+                && ( searchParameter.getCountLimit() < 1 || searchParameter.getCountLimit() > MAX_COUNT_LIMIT ) )
             {
-                HSSFCell cell = row.getCell( j );
-                if ( cell != null && cell.getCellType() == HSSFCell.CELL_TYPE_STRING )
-                {
-                    String value = cell.getStringCellValue();
+                searchParameter.setCountLimit( MAX_COUNT_LIMIT );
+            }
 
-                    if ( ( short ) ( value.length() * 256 * 1.1 ) > sheet.getColumnWidth( j ) )
-                    {
-                        sheet.setColumnWidth( j, ( short ) ( value.length() * 256 * 1.1 ) );
-                    }
-                }
+            // export
+            try
+            {
+                int count = 0;
+                exportToXls( browserConnection, searchParameter, sheet, headerRow, count, monitor, attributeNameMap,
+                    columnWidths, valueDelimiter, binaryEncoding, this.exportDn );
+            }
+            catch ( Exception e )
+            {
+                monitor.reportError( e );
             }
-        }
 
-        try
-        {
-            FileOutputStream fileOut = new FileOutputStream( exportXlsFilename );
-            wb.write( fileOut );
-            fileOut.close();
+            // column width, tracked while the cells were written
+            for ( int i = 0; i < columnWidths.size(); i++ )
+            {
+                sheet.setColumnWidth( i, columnWidths.get( i ) );
+            }
+
+            try ( FileOutputStream fileOut = new FileOutputStream( exportXlsFilename ) )
+            {
+                wb.write( fileOut );
+            }
+            catch ( Exception e )
+            {
+                monitor.reportError( e );
+            }
         }
-        catch ( Exception e )
+        finally
         {
-            monitor.reportError( e );
+            if ( wb instanceof SXSSFWorkbook )
+            {
+                // delete the temporary files
+                ( ( SXSSFWorkbook ) wb ).dispose();
+            }
         }
     }
 
 
+    /**
+     * Checks if the given file is written in the XLSX format.
+     * 
+     * @param filename the filename
+     * @return true if the filename has the xlsx extension
+     */
+    public static boolean isXlsx( String filename )
+    {
+        return filename.toLowerCase( Locale.ENGLISH ).endsWith( ".xlsx" ); //$NON-NLS-1$
+    }
+
+
     /**
      * Exports to XLS.
      * 
@@ -221,6 +264,7 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
      * @param count the count
      * @param monitor the monitor
      * @param attributeNameMap the attribute name map
+     * @param columnWidths the column widths
      * @param valueDelimiter the value delimiter
      * @param binaryEncoding the binary encoding
      * @param exportDn the export dn
@@ -228,10 +272,13 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
      * @throws IOException Signals that an I/O exception has occurred.
      */
     private static void exportToXls( IBrowserConnection browserConnection, SearchParameter searchParameter,
-        HSSFSheet sheet, HSSFRow headerRow, int count, StudioProgressMonitor monitor,
-        LinkedHashMap<String, Integer> attributeNameMap, String valueDelimiter, int binaryEncoding, boolean exportDn )
-        throws IOException
+        Sheet sheet, Row headerRow, int count, StudioProgressMonitor monitor,
+        LinkedHashMap<String, Integer> attributeNameMap, List<Integer> columnWidths, String valueDelimiter,
+        int binaryEncoding, boolean exportDn ) throws IOException
     {
+        CellStyle wrapStyle = sheet.getWorkbook().createCellStyle();
+        wrapStyle.setWrapText( true );
+
         try
         {
             LdifEnumeration enumeration = ExportLdifRunnable.search( browserConnection, searchParameter, monitor );
@@ -242,10 +289,10 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
                 if ( container instanceof LdifContentRecord )
                 {
                     LdifContentRecord record = ( LdifContentRecord ) container;
-                    recordToHSSFRow( browserConnection, record, sheet, headerRow, attributeNameMap, valueDelimiter,
-                        binaryEncoding, exportDn );
-
                     count++;
+                    recordToRow( browserConnection, record, sheet.createRow( count ), headerRow, attributeNameMap,
+                        columnWidths, wrapStyle, valueDelimiter, binaryEncoding, exportDn );
+
                     monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_progress,
                         new String[]
                             { Integer.toString( count ) } ) );
@@ -269,34 +316,32 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
 
 
     /**
-     * Transforms an LDIF record to an HSSF row.
+     * Transforms an LDIF record to a spreadsheet row.
      * 
      * @param browserConnection the browser connection
      * @param record the record
-     * @param sheet the sheet
+     * @param row the row
      * @param headerRow the header row
      * @param headerRowAttributeNameMap the header row attribute name map
+     * @param columnWidths the column widths
+     * @param wrapStyle the cell style for multi-line values
      * @param valueDelimiter the value delimiter
      * @param binaryEncoding the binary encoding
      * @param exportDn the export dn
      */
-    private static void recordToHSSFRow( IBrowserConnection browserConnection, LdifContentRecord record,
-        HSSFSheet sheet, HSSFRow headerRow, Map<String, Integer> headerRowAttributeNameMap, String valueDelimiter,
-        int binaryEncoding, boolean exportDn )
+    private static void recordToRow( IBrowserConnection browserConnection, LdifContentRecord record, Row row,
+        Row headerRow, Map<String, Integer> headerRowAttributeNameMap, List<Integer> columnWidths,
+        CellStyle wrapStyle, String valueDelimiter, int binaryEncoding, boolean exportDn )
     {
         // group multi-valued attributes
         Map<String, String> attributeMap = ExportCsvRunnable.getAttributeMap( null, record, valueDelimiter, "UTF-16", //$NON-NLS-1$
             binaryEncoding );
 
-        CellStyle wrapStyle = sheet.getWorkbook().createCellStyle();
-        wrapStyle.setWrapText( true );
-
         // output attributes
-        HSSFRow row = sheet.createRow( sheet.getLastRowNum() + 1 );
         if ( exportDn )
         {
-            HSSFCell cell = createStringCell(row, 0 );
-            cell.setCellValue( record.getDnLine().getValueAsString() );
+            Cell cell = createStringCell( row, 0 );
+            setCellValue( cell, record.getDnLine().getValueAsString(), columnWidths );
         }
         for ( String attributeName : attributeMap.keySet() )
         {
@@ -306,14 +351,14 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
             {
                 int cellNum = headerRowAttributeNameMap.size();
                 headerRowAttributeNameMap.put( attributeName, new Integer( cellNum ) );
-                HSSFCell cell = createStringCell( headerRow, cellNum );
-                cell.setCellValue( attributeName );
+                Cell cell = createStringCell( headerRow, cellNum );
+                setCellValue( cell, attributeName, columnWidths );
             }
 
             if ( headerRowAttributeNameMap.containsKey( attributeName ) )
             {
-                int cellNum = headerRowAttributeNameMap.get( attributeName ).shortValue();
-                HSSFCell cell = createStringCell( row, cellNum );
+                int cellNum = headerRowAttributeNameMap.get( attributeName ).intValue();
+                Cell cell = createStringCell( row, cellNum );
                 AttributeType type = browserConnection.getSchema().getAttributeTypeDescription( attributeName );
                 if ( SchemaConstants.POSTAL_ADDRESS_SYNTAX.equals( type.getSyntaxOid() ) )
                 {
@@ -321,18 +366,44 @@ public class ExportXlsRunnable implements StudioConnectionRunnableWithProgress
                     value = DECODER.translate( value );
                     cell.setCellStyle( wrapStyle );
                 }
-                cell.setCellValue( value );
+                setCellValue( cell, value, columnWidths );
             }
         }
 
     }
 
 
-    private static HSSFCell createStringCell( HSSFRow row, int cellNum )
+    private static Cell createStringCell( Row row, int cellNum )
     {
-        HSSFCell cell = row.createCell( cellNum );
+        Cell cell = row.createCell( cellNum );
         cell.setCellType( Cell.CELL_TYPE_STRING );
         return cell;
     }
 
+
+    /**
+     * Sets the value of the cell and widens its column if the value is longer
+     * than all values written to the column before.
+     * 
+     * @param cell the cell
+     * @param value the value
+     * @param columnWidths the column widths
+     */
+    private static void setCellValue( Cell cell, String value, List<Integer> columnWidths )
+    {
+        cell.setCellValue( value );
+
+        int column = cell.getColumnIndex();
+        while ( columnWidths.size() <= column )
+        {
+            columnWidths.add( 0 );
+        }
+
+        int width = Math.min( ( int ) ( value.length() * 256 * 1.1 ), MAX_COLUMN_WIDTH );
+        if ( width > columnWidths.get( column ) )
+        {
+            columnWidths.set( column, width );
+        }
+    }
+
 }
@@ -0,0 +1,341 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+import org.apache.directory.studio.ldifparser.parser.ParallelLdifParser;
+
+
+/**
+ * The checkpoint of an LDIF import. It records the byte position in the LDIF file up to
+ * which all containers were processed and logged, together with the number of imported
+ * and failed records. The checkpoint is stored next to the log file, so an interrupted
+ * import can be resumed at the recorded position and appends to the same log file.
+ * <p>
+ * The checkpoint is only valid for the unchanged LDIF file, the length, the modification
+ * time and the charset of the file are stored and verified when the checkpoint is loaded.
+ * The position is tracked by the {@link ParallelLdifParser}, for gzip compressed LDIF
+ * files it refers to the uncompressed data.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class ImportLdifCheckpoint
+{
+    /** The suffix appended to the log file name. */
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint"; //$NON-NLS-1$
+
+    /** The minimum interval between two saved checkpoints in milliseconds. */
+    private static final long SAVE_INTERVAL = 2000L;
+
+    /** The keys of the checkpoint properties. */
+    private static final String LDIF_FILE = "ldifFile"; //$NON-NLS-1$
+    private static final String LDIF_LENGTH = "ldifLength"; //$NON-NLS-1$
+    private static final String LDIF_LAST_MODIFIED = "ldifLastModified"; //$NON-NLS-1$
+    private static final String CHARSET = "charset"; //$NON-NLS-1$
+    private static final String OFFSET = "offset"; //$NON-NLS-1$
+    private static final String IMPORTED_COUNT = "importedCount"; //$NON-NLS-1$
+    private static final String ERROR_COUNT = "errorCount"; //$NON-NLS-1$
+
+    /** The LDIF file. */
+    private final File ldifFile;
+
+    /** The checkpoint file. */
+    private final File checkpointFile;
+
+    /** The charset of the LDIF file. */
+    private final Charset charset;
+
+    /** The log writer, flushed before the checkpoint is saved. */
+    private Writer logWriter;
+
+    /** The parser of the LDIF file, it tracks the byte positions of the containers. */
+    private ParallelLdifParser parser;
+
+    /** The byte position up to which all containers were processed. */
+    private long offset;
+
+    /** The number of imported records. */
+    private int importedCount;
+
+    /** The number of failed records. */
+    private int errorCount;
+
+    /** Set if all containers of the LDIF file were processed. */
+    private boolean complete;
+
+    /** The time the checkpoint was saved the last time. */
+    private long lastSaved = System.currentTimeMillis();
+
+
+    /**
+     * Creates a new instance of ImportLdifCheckpoint.
+     *
+     * @param ldifFile the LDIF file
+     * @param logFile the log file
+     * @param charset the charset of the LDIF file
+     */
+    ImportLdifCheckpoint( File ldifFile, File logFile, Charset charset )
+    {
+        this.ldifFile = ldifFile;
+        this.checkpointFile = getCheckpointFile( logFile );
+        this.charset = charset;
+    }
+
+
+    /**
+     * Gets the checkpoint file of the given log file.
+     *
+     * @param logFile the log file
+     * @return the checkpoint file
+     */
+    static File getCheckpointFile( File logFile )
+    {
+        return new File( logFile.getPath() + CHECKPOINT_SUFFIX );
+    }
+
+
+    /**
+     * Loads the checkpoint file.
+     *
+     * @return true if the checkpoint file exists and matches the LDIF file and charset
+     * @throws IOException if the checkpoint file can't be read
+     */
+    boolean load() throws IOException
+    {
+        if ( !checkpointFile.isFile() )
+        {
+            return false;
+        }
+
+        Properties properties = new Properties();
+        try ( InputStream in = new FileInputStream( checkpointFile ) )
+        {
+            properties.load( in );
+        }
+
+        try
+        {
+            if ( !ldifFile.getAbsolutePath().equals( properties.getProperty( LDIF_FILE ) )
+                || ldifFile.length() != Long.parseLong( properties.getProperty( LDIF_LENGTH ) )
+                || ldifFile.lastModified() != Long.parseLong( properties.getProperty( LDIF_LAST_MODIFIED ) )
+                || !charset.name().equals( properties.getProperty( CHARSET ) ) )
+            {
+                return false;
+            }
+
+            offset = Long.parseLong( properties.getProperty( OFFSET ) );
+            importedCount = Integer.parseInt( properties.getProperty( IMPORTED_COUNT ) );
+            errorCount = Integer.parseInt( properties.getProperty( ERROR_COUNT ) );
+        }
+        catch ( NumberFormatException e )
+        {
+            return false;
+        }
+
+        return offset >= 0;
+    }
+
+
+    /**
+     * Gets the byte position behind the container that was read last from the
+     * enumeration of the parser.
+     *
+     * @return the byte position
+     */
+    long getReadPosition()
+    {
+        return parser.getPosition();
+    }
+
+
+    /**
+     * Advances the checkpoint to the byte position behind a processed container.
+     * The checkpoint is saved if the save interval elapsed.
+     *
+     * @param position the byte position behind the processed and logged container,
+     *        as returned by {@link #getReadPosition()} after the container was read
+     * @param importedCount the number of imported records
+     * @param errorCount the number of failed records
+     * @throws IOException if the checkpoint can't be saved
+     */
+    void advance( long position, int importedCount, int errorCount ) throws IOException
+    {
+        this.offset = position;
+        this.importedCount = importedCount;
+        this.errorCount = errorCount;
+
+        long now = System.currentTimeMillis();
+        if ( now - lastSaved >= SAVE_INTERVAL )
+        {
+            save();
+            lastSaved = now;
+        }
+    }
+
+
+    /**
+     * Saves the checkpoint if the LDIF file was not processed completely,
+     * otherwise the checkpoint file is deleted.
+     *
+     * @throws IOException if the checkpoint can't be saved
+     */
+    void finish() throws IOException
+    {
+        if ( isComplete() )
+        {
+            Files.deleteIfExists( checkpointFile.toPath() );
+        }
+        else
+        {
+            save();
+        }
+    }
+
+
+    /**
+     * Saves the checkpoint. The log writer is flushed before, so the log file contains
+     * the results of all records before the checkpoint. The checkpoint file is replaced
+     * atomically where the file system supports it.
+     *
+     * @throws IOException if the checkpoint can't be saved
+     */
+    void save() throws IOException
+    {
+        if ( logWriter != null )
+        {
+            logWriter.flush();
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty( LDIF_FILE, ldifFile.getAbsolutePath() );
+        properties.setProperty( LDIF_LENGTH, Long.toString( ldifFile.length() ) );
+        properties.setProperty( LDIF_LAST_MODIFIED, Long.toString( ldifFile.lastModified() ) );
+        properties.setProperty( CHARSET, charset.name() );
+        properties.setProperty( OFFSET, Long.toString( offset ) );
+        properties.setProperty( IMPORTED_COUNT, Integer.toString( importedCount ) );
+        properties.setProperty( ERROR_COUNT, Integer.toString( errorCount ) );
+
+        File tempFile = new File( checkpointFile.getPath() + ".tmp" ); //$NON-NLS-1$
+        try ( OutputStream out = new FileOutputStream( tempFile ) )
+        {
+            properties.store( out, null );
+        }
+
+        try
+        {
+            Files.move( tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch ( AtomicMoveNotSupportedException e )
+        {
+            Files.move( tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        }
+    }
+
+
+    /**
+     * Marks the LDIF file as processed completely.
+     */
+    void setComplete()
+    {
+        this.complete = true;
+    }
+
+
+    /**
+     * Checks if all containers of the LDIF file were processed.
+     *
+     * @return true, if the LDIF file was processed completely
+     */
+    boolean isComplete()
+    {
+        return complete;
+    }
+
+
+    /**
+     * Sets the log writer that is flushed before the checkpoint is saved.
+     *
+     * @param logWriter the log writer
+     */
+    void setLogWriter( Writer logWriter )
+    {
+        this.logWriter = logWriter;
+    }
+
+
+    /**
+     * Sets the parser of the LDIF file. The charset of the LDIF file must be one
+     * the parser tracks the positions for.
+     *
+     * @param parser the parser
+     * @see ParallelLdifParser#isPositionTracked(Charset)
+     */
+    void setParser( ParallelLdifParser parser )
+    {
+        this.parser = parser;
+    }
+
+
+    /**
+     * Gets the byte position up to which all containers were processed.
+     *
+     * @return the offset
+     */
+    long getOffset()
+    {
+        return offset;
+    }
+
+
+    /**
+     * Gets the number of imported records.
+     *
+     * @return the number of imported records
+     */
+    int getImportedCount()
+    {
+        return importedCount;
+    }
+
+
+    /**
+     * Gets the number of failed records.
+     *
+     * @return the number of failed records
+     */
+    int getErrorCount()
+    {
+        return errorCount;
+    }
+}
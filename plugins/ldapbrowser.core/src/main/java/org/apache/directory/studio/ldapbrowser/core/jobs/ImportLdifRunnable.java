@@ -21,19 +21,19 @@
 package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Deque;
 import java.util.List;
 
 import org.apache.commons.codec.digest.DigestUtils;
@@ -52,6 +52,8 @@ import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.ConnectionCoreConstants;
 import org.apache.directory.studio.connection.core.Controls;
 import org.apache.directory.studio.connection.core.io.StudioLdapException;
+import org.apache.directory.studio.connection.core.io.WritePipeline;
+import org.apache.directory.studio.connection.core.io.WritePipeline.PendingWrite;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
 import org.apache.directory.studio.ldapbrowser.core.events.BulkModificationEvent;
@@ -75,7 +77,7 @@ import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
 import org.apache.directory.studio.ldifparser.model.lines.LdifCommentLine;
 import org.apache.directory.studio.ldifparser.model.lines.LdifControlLine;
 import org.apache.directory.studio.ldifparser.model.lines.LdifModSpecTypeLine;
-import org.apache.directory.studio.ldifparser.parser.LdifParser;
+import org.apache.directory.studio.ldifparser.parser.ParallelLdifParser;
 
 
 /**
@@ -100,6 +102,9 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
     /** The continue on error flag. */
     private boolean continueOnError;
 
+    /** The resume flag, to continue an interrupted import at its checkpoint. */
+    private boolean resume;
+
 
     /**
      * Creates a new instance of ImportLdifRunnable.
@@ -136,6 +141,46 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
     }
 
 
+    /**
+     * Sets the resume flag. If set the import continues at the checkpoint saved
+     * by an interrupted import of the same LDIF file and appends to the log file.
+     *
+     * @param resume the resume flag
+     */
+    public void setResume( boolean resume )
+    {
+        this.resume = resume;
+    }
+
+
+    /**
+     * Checks if an interrupted import of the given LDIF file can be resumed, that is
+     * if a checkpoint exists next to the log file and the LDIF file was not modified.
+     * Imports are only checkpointed if the parser tracks the positions for the charset.
+     *
+     * @param ldifFile the LDIF file
+     * @param logFile the log file
+     * @return true, if the import can be resumed
+     */
+    public static boolean canResume( File ldifFile, File logFile )
+    {
+        Charset charset = Charset.defaultCharset();
+        if ( !ParallelLdifParser.isPositionTracked( charset ) )
+        {
+            return false;
+        }
+
+        try
+        {
+            return new ImportLdifCheckpoint( ldifFile, logFile, charset ).load();
+        }
+        catch ( IOException e )
+        {
+            return false;
+        }
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -186,14 +231,35 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
 
         try
         {
-            Reader ldifReader = new BufferedReader( new FileReader( this.ldifFile ) );
-            LdifParser parser = new LdifParser();
-            LdifEnumeration enumeration = parser.parse( ldifReader );
+            Charset charset = Charset.defaultCharset();
+            ImportLdifCheckpoint checkpoint = null;
+            if ( this.logFile != null && ParallelLdifParser.isPositionTracked( charset ) )
+            {
+                checkpoint = new ImportLdifCheckpoint( this.ldifFile, this.logFile, charset );
+                if ( resume && !checkpoint.load() )
+                {
+                    monitor.reportError( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__import_ldif_no_checkpoint,
+                        this.ldifFile.getPath() ) );
+                    return;
+                }
+            }
+
+            ParallelLdifParser parser = new ParallelLdifParser();
+            LdifEnumeration enumeration = parser.parse( this.ldifFile, charset,
+                checkpoint != null ? checkpoint.getOffset() : 0L );
+            if ( checkpoint != null )
+            {
+                checkpoint.setParser( parser );
+            }
 
             Writer logWriter;
             if ( this.logFile != null )
             {
-                logWriter = new BufferedWriter( new FileWriter( this.logFile ) );
+                logWriter = new BufferedWriter( new FileWriter( this.logFile, resume ) );
+                if ( checkpoint != null )
+                {
+                    checkpoint.setLogWriter( logWriter );
+                }
             }
             else
             {
@@ -215,10 +281,21 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
                 };
             }
 
-            importLdif( browserConnection, enumeration, logWriter, updateIfEntryExists, continueOnError, monitor );
+            try
+            {
+                importLdif( browserConnection, enumeration, logWriter, updateIfEntryExists, continueOnError,
+                    checkpoint, monitor );
+            }
+            finally
+            {
+                if ( checkpoint != null )
+                {
+                    checkpoint.finish();
+                }
+            }
 
             logWriter.close();
-            ldifReader.close();
+            parser.close();
         }
         catch ( Exception e )
         {
@@ -248,20 +325,50 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
      */
     static void importLdif( IBrowserConnection browserConnection, LdifEnumeration enumeration, Writer logWriter,
         boolean updateIfEntryExists, boolean continueOnError, StudioProgressMonitor monitor )
+    {
+        importLdif( browserConnection, enumeration, logWriter, updateIfEntryExists, continueOnError, null, monitor );
+    }
+
+
+    /**
+     * Imports the LDIF enumeration and advances the given checkpoint behind each
+     * processed container. If an error occurs and the import doesn't continue on
+     * error the checkpoint stays in front of the failed record.
+     * 
+     * @param browserConnection the browser connection
+     * @param enumeration the LDIF enumeration
+     * @param logWriter the log writer
+     * @param updateIfEntryExists the update if entry exists flag
+     * @param continueOnError the continue on error flag
+     * @param checkpoint the checkpoint, may be null
+     * @param monitor the progress monitor
+     */
+    static void importLdif( IBrowserConnection browserConnection, LdifEnumeration enumeration, Writer logWriter,
+        boolean updateIfEntryExists, boolean continueOnError, ImportLdifCheckpoint checkpoint,
+        StudioProgressMonitor monitor )
     {
         if ( browserConnection == null )
         {
             return;
         }
 
+        int writeWindowSize = browserConnection.getConnection().getConnectionParameter().getWriteWindowSize();
+        if ( writeWindowSize > 1 )
+        {
+            new PipelinedLdifImport( browserConnection, logWriter, updateIfEntryExists, continueOnError,
+                writeWindowSize, checkpoint, monitor ).importLdif( enumeration );
+            return;
+        }
+
         StudioProgressMonitor dummyMonitor = new StudioProgressMonitor( monitor );
-        int importedCount = 0;
-        int errorCount = 0;
+        int importedCount = checkpoint != null ? checkpoint.getImportedCount() : 0;
+        int errorCount = checkpoint != null ? checkpoint.getErrorCount() : 0;
         try
         {
             while ( !monitor.isCanceled() && enumeration.hasNext() )
             {
                 LdifContainer container = enumeration.next();
+                long position = checkpoint != null ? checkpoint.getReadPosition() : -1L;
 
                 if ( container instanceof LdifRecord )
                 {
@@ -288,70 +395,7 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
                             logModification( browserConnection, logWriter, record, monitor );
 
                             // update cache and adjust attribute/children initialization flags
-                            Dn dn = new Dn( record.getDnLine().getValueAsString() );
-                            IEntry entry = browserConnection.getEntryFromCache( dn );
-                            Dn parentDn = dn.getParent();
-                            IEntry parentEntry = null;
-                            while ( parentEntry == null && parentDn != null )
-                            {
-                                parentEntry = browserConnection.getEntryFromCache( parentDn );
-                                parentDn = parentDn.getParent();
-                            }
-
-                            if ( record instanceof LdifChangeDeleteRecord )
-                            {
-                                if ( entry != null )
-                                {
-                                    entry.setAttributesInitialized( false );
-                                    browserConnection.uncacheEntryRecursive( entry );
-                                }
-                                if ( parentEntry != null )
-                                {
-                                    parentEntry.setChildrenInitialized( false );
-                                }
-                            }
-                            else if ( record instanceof LdifChangeModDnRecord )
-                            {
-                                if ( entry != null )
-                                {
-                                    entry.setAttributesInitialized( false );
-                                    browserConnection.uncacheEntryRecursive( entry );
-                                }
-                                if ( parentEntry != null )
-                                {
-                                    parentEntry.setChildrenInitialized( false );
-                                }
-                                LdifChangeModDnRecord modDnRecord = ( LdifChangeModDnRecord ) record;
-                                if ( modDnRecord.getNewsuperiorLine() != null )
-                                {
-                                    Dn newSuperiorDn = new Dn( modDnRecord.getNewsuperiorLine()
-                                        .getValueAsString() );
-                                    IEntry newSuperiorEntry = browserConnection.getEntryFromCache( newSuperiorDn );
-                                    if ( newSuperiorEntry != null )
-                                    {
-                                        newSuperiorEntry.setChildrenInitialized( false );
-                                    }
-                                }
-                            }
-                            else if ( record instanceof LdifChangeAddRecord || record instanceof LdifContentRecord )
-                            {
-                                if ( entry != null )
-                                {
-                                    entry.setAttributesInitialized( false );
-                                }
-                                if ( parentEntry != null )
-                                {
-                                    parentEntry.setChildrenInitialized( false );
-                                    parentEntry.setHasChildrenHint( true );
-                                }
-                            }
-                            else
-                            {
-                                if ( entry != null )
-                                {
-                                    entry.setAttributesInitialized( false );
-                                }
-                            }
+                            updateCache( browserConnection, record );
                         }
                     }
                     catch ( Exception e )
@@ -374,6 +418,16 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
                 {
                     logWriter.write( container.toRawString() );
                 }
+
+                if ( checkpoint != null )
+                {
+                    checkpoint.advance( position, importedCount, errorCount );
+                }
+            }
+
+            if ( checkpoint != null && !enumeration.hasNext() )
+            {
+                checkpoint.setComplete();
             }
 
             if ( errorCount > 0 )
@@ -412,35 +466,17 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
 
         if ( record instanceof LdifContentRecord || record instanceof LdifChangeAddRecord )
         {
-            IEntry dummyEntry;
-            if ( record instanceof LdifContentRecord )
+            Entry entry;
+            try
             {
-                LdifContentRecord attrValRecord = ( LdifContentRecord ) record;
-                try
-                {
-                    dummyEntry = ModelConverter.ldifContentRecordToEntry( attrValRecord, browserConnection );
-                }
-                catch ( LdapInvalidDnException e )
-                {
-                    monitor.reportError( e );
-                    return;
-                }
+                entry = toEntry( browserConnection, record );
             }
-            else
+            catch ( LdapInvalidDnException e )
             {
-                LdifChangeAddRecord changeAddRecord = ( LdifChangeAddRecord ) record;
-                try
-                {
-                    dummyEntry = ModelConverter.ldifChangeAddRecordToEntry( changeAddRecord, browserConnection );
-                }
-                catch ( LdapInvalidDnException e )
-                {
-                    monitor.reportError( e );
-                    return;
-                }
+                monitor.reportError( e );
+                return;
             }
 
-            Entry entry = ModelConverter.toLdapApiEntry( dummyEntry );
             browserConnection.getConnection().getConnectionWrapper()
                 .createEntry( entry, getControls( record ), monitor, null );
 
@@ -464,66 +500,203 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
         else if ( record instanceof LdifChangeModifyRecord )
         {
             LdifChangeModifyRecord modifyRecord = ( LdifChangeModifyRecord ) record;
-            LdifModSpec[] modSpecs = modifyRecord.getModSpecs();
-            Collection<Modification> modifications = new ArrayList<>();
-            for ( int ii = 0; ii < modSpecs.length; ii++ )
+            Collection<Modification> modifications = toModifications( modifyRecord );
+
+            browserConnection.getConnection().getConnectionWrapper()
+                .modifyEntry( new Dn( dn ), modifications, getControls( modifyRecord ), monitor, null );
+        }
+        else if ( record instanceof LdifChangeModDnRecord )
+        {
+            LdifChangeModDnRecord modDnRecord = ( LdifChangeModDnRecord ) record;
+            Dn newDn = getNewDn( modDnRecord );
+            if ( newDn != null )
             {
-                LdifModSpecTypeLine modSpecType = modSpecs[ii].getModSpecType();
-                LdifAttrValLine[] attrVals = modSpecs[ii].getAttrVals();
+                boolean deleteOldRdn = modDnRecord.getDeloldrdnLine().isDeleteOldRdn();
+                browserConnection.getConnection().getConnectionWrapper()
+                    .renameEntry( new Dn( dn ), newDn, deleteOldRdn, getControls( modDnRecord ), monitor, null );
+            }
+        }
+    }
 
-                DefaultAttribute attribute = new DefaultAttribute( modSpecType.getUnfoldedAttributeDescription() );
-                for ( int x = 0; x < attrVals.length; x++ )
-                {
-                    Object valueAsObject = attrVals[x].getValueAsObject();
-                    if ( valueAsObject instanceof String )
-                    {
-                        attribute.add( ( String ) valueAsObject );
-                    }
-                    else if ( valueAsObject instanceof byte[] )
-                    {
-                        attribute.add( ( byte[] ) valueAsObject );
-                    }
-                }
 
-                if ( modSpecType.isAdd() )
-                {
-                    modifications.add( new DefaultModification( ModificationOperation.ADD_ATTRIBUTE, attribute ) );
-                }
-                else if ( modSpecType.isDelete() )
+    /**
+     * Converts the LDIF content record or LDIF change add record to an entry.
+     * 
+     * @param browserConnection the browser connection
+     * @param record the LDIF content record or LDIF change add record
+     * 
+     * @return the entry
+     * @throws LdapInvalidDnException if the record's Dn is invalid
+     * @throws LdapException if the entry can't be converted
+     */
+    private static Entry toEntry( IBrowserConnection browserConnection, LdifRecord record ) throws LdapException
+    {
+        IEntry dummyEntry;
+        if ( record instanceof LdifContentRecord )
+        {
+            dummyEntry = ModelConverter.ldifContentRecordToEntry( ( LdifContentRecord ) record, browserConnection );
+        }
+        else
+        {
+            dummyEntry = ModelConverter.ldifChangeAddRecordToEntry( ( LdifChangeAddRecord ) record,
+                browserConnection );
+        }
+
+        return ModelConverter.toLdapApiEntry( dummyEntry );
+    }
+
+
+    /**
+     * Converts the mod-specs of the LDIF change modify record to modifications.
+     * 
+     * @param modifyRecord the LDIF change modify record
+     * 
+     * @return the modifications
+     * @throws LdapException if a value can't be added to an attribute
+     */
+    private static Collection<Modification> toModifications( LdifChangeModifyRecord modifyRecord )
+        throws LdapException
+    {
+        LdifModSpec[] modSpecs = modifyRecord.getModSpecs();
+        Collection<Modification> modifications = new ArrayList<>();
+        for ( int ii = 0; ii < modSpecs.length; ii++ )
+        {
+            LdifModSpecTypeLine modSpecType = modSpecs[ii].getModSpecType();
+            LdifAttrValLine[] attrVals = modSpecs[ii].getAttrVals();
+
+            DefaultAttribute attribute = new DefaultAttribute( modSpecType.getUnfoldedAttributeDescription() );
+            for ( int x = 0; x < attrVals.length; x++ )
+            {
+                Object valueAsObject = attrVals[x].getValueAsObject();
+                if ( valueAsObject instanceof String )
                 {
-                    modifications.add( new DefaultModification( ModificationOperation.REMOVE_ATTRIBUTE, attribute ) );
+                    attribute.add( ( String ) valueAsObject );
                 }
-                else if ( modSpecType.isReplace() )
+                else if ( valueAsObject instanceof byte[] )
                 {
-                    modifications.add( new DefaultModification( ModificationOperation.REPLACE_ATTRIBUTE, attribute ) );
+                    attribute.add( ( byte[] ) valueAsObject );
                 }
             }
 
-            browserConnection.getConnection().getConnectionWrapper()
-                .modifyEntry( new Dn( dn ), modifications, getControls( modifyRecord ), monitor, null );
+            if ( modSpecType.isAdd() )
+            {
+                modifications.add( new DefaultModification( ModificationOperation.ADD_ATTRIBUTE, attribute ) );
+            }
+            else if ( modSpecType.isDelete() )
+            {
+                modifications.add( new DefaultModification( ModificationOperation.REMOVE_ATTRIBUTE, attribute ) );
+            }
+            else if ( modSpecType.isReplace() )
+            {
+                modifications.add( new DefaultModification( ModificationOperation.REPLACE_ATTRIBUTE, attribute ) );
+            }
+        }
+
+        return modifications;
+    }
+
+
+    /**
+     * Gets the new Dn of the LDIF change moddn record.
+     * 
+     * @param modDnRecord the LDIF change moddn record
+     * 
+     * @return the new Dn, null if the record has no newrdn or deleteoldrdn line
+     * @throws LdapInvalidDnException if the new Dn is invalid
+     */
+    private static Dn getNewDn( LdifChangeModDnRecord modDnRecord ) throws LdapInvalidDnException
+    {
+        if ( modDnRecord.getNewrdnLine() == null || modDnRecord.getDeloldrdnLine() == null )
+        {
+            return null;
+        }
+
+        String newRdn = modDnRecord.getNewrdnLine().getValueAsString();
+        if ( modDnRecord.getNewsuperiorLine() != null )
+        {
+            return new Dn( newRdn, modDnRecord.getNewsuperiorLine().getValueAsString() );
+        }
+        else
+        {
+            Dn dnObject = new Dn( modDnRecord.getDnLine().getValueAsString() );
+            Dn parent = dnObject.getParent();
+            return new Dn( newRdn, parent.getName() );
+        }
+    }
+
+
+    /**
+     * Updates the cache and adjusts the attribute/children initialization flags
+     * of the entries affected by the imported record.
+     * 
+     * @param browserConnection the browser connection
+     * @param record the imported LDIF record
+     * @throws LdapInvalidDnException if the record's Dn is invalid
+     */
+    private static void updateCache( IBrowserConnection browserConnection, LdifRecord record )
+        throws LdapInvalidDnException
+    {
+        Dn dn = new Dn( record.getDnLine().getValueAsString() );
+        IEntry entry = browserConnection.getEntryFromCache( dn );
+        Dn parentDn = dn.getParent();
+        IEntry parentEntry = null;
+        while ( parentEntry == null && parentDn != null )
+        {
+            parentEntry = browserConnection.getEntryFromCache( parentDn );
+            parentDn = parentDn.getParent();
+        }
+
+        if ( record instanceof LdifChangeDeleteRecord )
+        {
+            if ( entry != null )
+            {
+                entry.setAttributesInitialized( false );
+                browserConnection.uncacheEntryRecursive( entry );
+            }
+            if ( parentEntry != null )
+            {
+                parentEntry.setChildrenInitialized( false );
+            }
         }
         else if ( record instanceof LdifChangeModDnRecord )
         {
+            if ( entry != null )
+            {
+                entry.setAttributesInitialized( false );
+                browserConnection.uncacheEntryRecursive( entry );
+            }
+            if ( parentEntry != null )
+            {
+                parentEntry.setChildrenInitialized( false );
+            }
             LdifChangeModDnRecord modDnRecord = ( LdifChangeModDnRecord ) record;
-            if ( modDnRecord.getNewrdnLine() != null && modDnRecord.getDeloldrdnLine() != null )
+            if ( modDnRecord.getNewsuperiorLine() != null )
             {
-                String newRdn = modDnRecord.getNewrdnLine().getValueAsString();
-                boolean deleteOldRdn = modDnRecord.getDeloldrdnLine().isDeleteOldRdn();
-
-                Dn newDn;
-                if ( modDnRecord.getNewsuperiorLine() != null )
+                Dn newSuperiorDn = new Dn( modDnRecord.getNewsuperiorLine().getValueAsString() );
+                IEntry newSuperiorEntry = browserConnection.getEntryFromCache( newSuperiorDn );
+                if ( newSuperiorEntry != null )
                 {
-                    newDn = new Dn( newRdn, modDnRecord.getNewsuperiorLine().getValueAsString() );
+                    newSuperiorEntry.setChildrenInitialized( false );
                 }
-                else
-                {
-                    Dn dnObject = new Dn( dn );
-                    Dn parent = dnObject.getParent();
-                    newDn = new Dn( newRdn, parent.getName() );
-                }
-
-                browserConnection.getConnection().getConnectionWrapper()
-                    .renameEntry( new Dn( dn ), newDn, deleteOldRdn, getControls( modDnRecord ), monitor, null );
+            }
+        }
+        else if ( record instanceof LdifChangeAddRecord || record instanceof LdifContentRecord )
+        {
+            if ( entry != null )
+            {
+                entry.setAttributesInitialized( false );
+            }
+            if ( parentEntry != null )
+            {
+                parentEntry.setChildrenInitialized( false );
+                parentEntry.setHasChildrenHint( true );
+            }
+        }
+        else
+        {
+            if ( entry != null )
+            {
+                entry.setAttributesInitialized( false );
             }
         }
     }
@@ -624,4 +797,397 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
             monitor.reportError( BrowserCoreMessages.model__error_logging_modification, ioe );
         }
     }
+
+
+    /**
+     * Imports LDIF records using a write pipeline. A record is sent without waiting for
+     * the responses of the previous records, unless one of the outstanding records
+     * affects the same entry, a parent or a child entry. The results are logged in
+     * the order of the LDIF records.
+     * <p>
+     * If an error occurs and the import doesn't continue on error, no further records
+     * are sent but the results of the already sent records are still logged.
+     *
+     * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+     */
+    private static class PipelinedLdifImport
+    {
+        /** The browser connection. */
+        private final IBrowserConnection browserConnection;
+
+        /** The log writer. */
+        private final Writer logWriter;
+
+        /** The update if entry exists flag. */
+        private final boolean updateIfEntryExists;
+
+        /** The continue on error flag. */
+        private final boolean continueOnError;
+
+        /** The progress monitor. */
+        private final StudioProgressMonitor monitor;
+
+        /** The progress monitor used to receive the result of a single record. */
+        private final StudioProgressMonitor dummyMonitor;
+
+        /** The write pipeline. */
+        private final WritePipeline pipeline;
+
+        /** The read containers whose results are not logged yet, in LDIF order. */
+        private final Deque<PendingContainer> pendingContainers = new ArrayDeque<>();
+
+        /** The number of imported records. */
+        private int importedCount = 0;
+
+        /** The number of failed records. */
+        private int errorCount = 0;
+
+        /** Set if an error occurred and the import doesn't continue on error. */
+        private boolean stopped = false;
+
+        /** The checkpoint, may be null. */
+        private final ImportLdifCheckpoint checkpoint;
+
+
+        private PipelinedLdifImport( IBrowserConnection browserConnection, Writer logWriter,
+            boolean updateIfEntryExists, boolean continueOnError, int windowSize, ImportLdifCheckpoint checkpoint,
+            StudioProgressMonitor monitor )
+        {
+            this.checkpoint = checkpoint;
+            if ( checkpoint != null )
+            {
+                this.importedCount = checkpoint.getImportedCount();
+                this.errorCount = checkpoint.getErrorCount();
+            }
+            this.browserConnection = browserConnection;
+            this.logWriter = logWriter;
+            this.updateIfEntryExists = updateIfEntryExists;
+            this.continueOnError = continueOnError;
+            this.monitor = monitor;
+            this.dummyMonitor = new StudioProgressMonitor( monitor );
+            this.pipeline = browserConnection.getConnection().getConnectionWrapper()
+                .openWritePipeline( windowSize, monitor );
+        }
+
+
+        /**
+         * Imports the LDIF enumeration.
+         *
+         * @param enumeration the LDIF enumeration
+         */
+        private void importLdif( LdifEnumeration enumeration )
+        {
+            try
+            {
+                while ( !monitor.isCanceled() && !stopped && enumeration.hasNext() )
+                {
+                    LdifContainer container = enumeration.next();
+                    PendingContainer pendingContainer = new PendingContainer( container,
+                        checkpoint != null ? checkpoint.getReadPosition() : -1L );
+
+                    if ( pendingContainer.container instanceof LdifRecord )
+                    {
+                        send( pendingContainer );
+                    }
+
+                    if ( stopped )
+                    {
+                        break;
+                    }
+
+                    pendingContainers.add( pendingContainer );
+
+                    while ( pendingContainers.size() > pipeline.getWindowSize() )
+                    {
+                        complete( pendingContainers.poll() );
+                    }
+                }
+
+                while ( !pendingContainers.isEmpty() )
+                {
+                    complete( pendingContainers.poll() );
+                }
+
+                if ( checkpoint != null && !stopped && !enumeration.hasNext() )
+                {
+                    checkpoint.setComplete();
+                }
+
+                if ( errorCount > 0 && !stopped )
+                {
+                    monitor.reportError( BrowserCoreMessages.bind( BrowserCoreMessages.ldif__n_errors_see_logfile,
+                        new String[]
+                            { "" + errorCount } ) ); //$NON-NLS-1$
+                }
+            }
+            catch ( Exception e )
+            {
+                monitor.reportError( e );
+            }
+            finally
+            {
+                pipeline.close();
+            }
+        }
+
+
+        /**
+         * Sends the LDIF record of the given pending container. Waits for
+         * outstanding records with dependent Dns before.
+         *
+         * @param pendingContainer the pending container of the LDIF record
+         * @throws IOException if logging of a completed record fails
+         */
+        private void send( PendingContainer pendingContainer ) throws IOException
+        {
+            LdifRecord record = ( LdifRecord ) pendingContainer.container;
+
+            try
+            {
+                if ( !record.isValid() )
+                {
+                    throw new LdapSchemaException( BrowserCoreMessages.bind(
+                        BrowserCoreMessages.model__invalid_record, record.getInvalidString() ) );
+                }
+
+                Dn dn = new Dn( record.getDnLine().getValueAsString() );
+                pendingContainer.dns.add( dn );
+
+                Dn newDn = null;
+                if ( record instanceof LdifChangeModDnRecord )
+                {
+                    newDn = getNewDn( ( LdifChangeModDnRecord ) record );
+                    if ( newDn != null )
+                    {
+                        pendingContainer.dns.add( newDn );
+                    }
+                }
+
+                Control[] controls = getControls( record );
+
+                if ( record instanceof LdifContentRecord || record instanceof LdifChangeAddRecord )
+                {
+                    pendingContainer.entry = toEntry( browserConnection, record );
+                    waitForDependencies( pendingContainer );
+                    if ( !stopped )
+                    {
+                        pendingContainer.pendingWrite = pipeline.createEntry( pendingContainer.entry, controls );
+                    }
+                }
+                else if ( record instanceof LdifChangeDeleteRecord )
+                {
+                    waitForDependencies( pendingContainer );
+                    if ( !stopped )
+                    {
+                        pendingContainer.pendingWrite = pipeline.deleteEntry( dn, controls );
+                    }
+                }
+                else if ( record instanceof LdifChangeModifyRecord )
+                {
+                    Collection<Modification> modifications = toModifications( ( LdifChangeModifyRecord ) record );
+                    waitForDependencies( pendingContainer );
+                    if ( !stopped )
+                    {
+                        pendingContainer.pendingWrite = pipeline.modifyEntry( dn, modifications, controls );
+                    }
+                }
+                else if ( record instanceof LdifChangeModDnRecord && newDn != null )
+                {
+                    boolean deleteOldRdn = ( ( LdifChangeModDnRecord ) record ).getDeloldrdnLine().isDeleteOldRdn();
+                    waitForDependencies( pendingContainer );
+                    if ( !stopped )
+                    {
+                        pendingContainer.pendingWrite = pipeline.renameEntry( dn, newDn, deleteOldRdn, controls );
+                    }
+                }
+            }
+            catch ( LdapException e )
+            {
+                pendingContainer.exception = e;
+            }
+        }
+
+
+        /**
+         * Completes the outstanding records up to the last one that affects the
+         * same entry, a parent or a child entry of the given pending container.
+         *
+         * @param pendingContainer the pending container
+         * @throws IOException if logging of a completed record fails
+         */
+        private void waitForDependencies( PendingContainer pendingContainer ) throws IOException
+        {
+            PendingContainer lastDependency = null;
+            for ( PendingContainer outstanding : pendingContainers )
+            {
+                if ( outstanding.conflictsWith( pendingContainer ) )
+                {
+                    lastDependency = outstanding;
+                }
+            }
+
+            if ( lastDependency != null )
+            {
+                PendingContainer completed;
+                do
+                {
+                    completed = pendingContainers.poll();
+                    complete( completed );
+                }
+                while ( completed != lastDependency );
+            }
+        }
+
+
+        /**
+         * Waits for the result of the given pending container, logs it and updates the cache.
+         *
+         * @param pendingContainer the pending container
+         * @throws IOException if logging of a non-record container fails
+         */
+        private void complete( PendingContainer pendingContainer ) throws IOException
+        {
+            if ( !( pendingContainer.container instanceof LdifRecord ) )
+            {
+                logWriter.write( pendingContainer.container.toRawString() );
+                advanceCheckpoint( pendingContainer );
+                return;
+            }
+
+            LdifRecord record = ( LdifRecord ) pendingContainer.container;
+            Exception exception = pendingContainer.exception;
+
+            if ( exception == null && pendingContainer.pendingWrite != null )
+            {
+                dummyMonitor.reset();
+                pendingContainer.pendingWrite.await( dummyMonitor );
+
+                if ( dummyMonitor.errorsReported() && updateIfEntryExists && pendingContainer.entry != null
+                    && StudioLdapException.isEntryAlreadyExistsException( dummyMonitor.getException() ) )
+                {
+                    // creation failed with Error 68, now try to update the existing entry
+                    dummyMonitor.reset();
+
+                    Collection<Modification> modifications = ModelConverter
+                        .toReplaceModifications( pendingContainer.entry );
+                    browserConnection.getConnection().getConnectionWrapper().modifyEntry(
+                        pendingContainer.entry.getDn(), modifications, getControls( record ), dummyMonitor, null );
+                }
+
+                if ( dummyMonitor.errorsReported() )
+                {
+                    exception = dummyMonitor.getException();
+                }
+            }
+
+            if ( exception != null )
+            {
+                errorCount++;
+                logModificationError( browserConnection, logWriter, record, exception, monitor );
+
+                if ( !continueOnError && !stopped )
+                {
+                    stopped = true;
+                    monitor.reportError( exception );
+                }
+            }
+            else
+            {
+                importedCount++;
+                logModification( browserConnection, logWriter, record, monitor );
+
+                try
+                {
+                    // update cache and adjust attribute/children initialization flags
+                    updateCache( browserConnection, record );
+                }
+                catch ( LdapInvalidDnException e )
+                {
+                    // the Dn was already parsed before the record was sent
+                }
+            }
+
+            advanceCheckpoint( pendingContainer );
+
+            monitor.reportProgress( BrowserCoreMessages.bind(
+                BrowserCoreMessages.ldif__imported_n_entries_m_errors, new String[]
+                    { "" + importedCount, "" + errorCount } ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+
+        /**
+         * Advances the checkpoint behind the given completed container. Once the import
+         * was stopped the checkpoint stays in front of the failed record.
+         *
+         * @param pendingContainer the completed pending container
+         * @throws IOException if the checkpoint can't be saved
+         */
+        private void advanceCheckpoint( PendingContainer pendingContainer ) throws IOException
+        {
+            if ( checkpoint != null && !stopped )
+            {
+                checkpoint.advance( pendingContainer.position, importedCount, errorCount );
+            }
+        }
+    }
+
+    /**
+     * A read LDIF container, for LDIF records the sent request and its result.
+     */
+    private static class PendingContainer
+    {
+        /** The LDIF container. */
+        private final LdifContainer container;
+
+        /** The byte position behind the LDIF container, -1 if it isn't tracked. */
+        private final long position;
+
+        /** The Dns affected by the LDIF record. */
+        private final List<Dn> dns = new ArrayList<>( 2 );
+
+        /** The entry to add, for LDIF content records and LDIF change add records. */
+        private Entry entry;
+
+        /** The pending write, null if the record wasn't sent. */
+        private PendingWrite pendingWrite;
+
+        /** The exception that occurred while preparing the request. */
+        private Exception exception;
+
+
+        private PendingContainer( LdifContainer container, long position )
+        {
+            this.container = container;
+            this.position = position;
+        }
+
+
+        /**
+         * Checks if the other pending container must wait for this sent pending container,
+         * that is if they affect the same entry, or a parent and a child entry.
+         *
+         * @param other the other pending container
+         * @return true, if the other pending container must wait for this one
+         */
+        private boolean conflictsWith( PendingContainer other )
+        {
+            if ( pendingWrite == null )
+            {
+                return false;
+            }
+
+            for ( Dn dn : dns )
+            {
+                for ( Dn otherDn : other.dns )
+                {
+                    if ( dn.isDescendantOf( otherDn ) || otherDn.isDescendantOf( dn ) )
+                    {
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        }
+    }
 }
@@ -208,11 +208,11 @@ public class InitializeChildrenRunnable implements StudioConnectionBulkRunnableW
 
         // search
         executeSearch( parent, search, monitor );
-        ISearchResult[] srs = search.getSearchResults();
+        List<ISearchResult> srs = search.getSearchResultList();
         SearchContinuation[] scs = search.getSearchContinuations();
 
         // fill children in search result
-        if ( ( srs != null && srs.length > 0 ) || ( scs != null && scs.length > 0 ) )
+        if ( ( srs != null && !srs.isEmpty() ) || ( scs != null && scs.length > 0 ) )
         {
             // clearing old children before filling new children is
             // necessary to handle aliases and referrals.
@@ -283,7 +283,7 @@ public class InitializeChildrenRunnable implements StudioConnectionBulkRunnableW
                     {
                         // transparently continue search, till count limit is reached
                         if ( ArrayUtils.isNotEmpty( prResponseControl.getCookie() )
-                            && ( search.getCountLimit() == 0 || search.getSearchResults().length < search
+                            && ( search.getCountLimit() == 0 || search.getSearchResultCount() < search
                                 .getCountLimit() ) )
                         {
 
@@ -292,13 +292,13 @@ public class InitializeChildrenRunnable implements StudioConnectionBulkRunnableW
                             prRequestControl.setCookie( prResponseControl.getCookie() );
 
                             executeSearch( parent, search, monitor );
-                            srs = search.getSearchResults();
+                            srs = search.getSearchResultList();
                             scs = search.getSearchContinuations();
                         }
                     }
                 }
             }
-            while ( srs != null && srs.length > 0 );
+            while ( srs != null && !srs.isEmpty() );
         }
         else
         {
@@ -332,11 +332,11 @@ public class InitializeChildrenRunnable implements StudioConnectionBulkRunnableW
     private void executeSubSearch( IEntry parent, ISearch subSearch, StudioProgressMonitor monitor )
     {
         executeSearch( parent, subSearch, monitor );
-        ISearchResult[] subSrs = subSearch.getSearchResults();
+        List<ISearchResult> subSrs = subSearch.getSearchResultList();
         SearchContinuation[] subScs = subSearch.getSearchContinuations();
 
         // fill children in search result
-        if ( subSrs != null && subSrs.length > 0 )
+        if ( subSrs != null && !subSrs.isEmpty() )
         {
             for ( ISearchResult searchResult : subSrs )
             {
@@ -356,10 +356,9 @@ public class InitializeChildrenRunnable implements StudioConnectionBulkRunnableW
     private static void executeSearch( IEntry parent, ISearch search, StudioProgressMonitor monitor )
     {
         SearchRunnable.searchAndUpdateModel( parent.getBrowserConnection(), search, monitor );
-        ISearchResult[] srs = search.getSearchResults();
         monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__init_entries_progress_subcount,
             new String[]
-            { srs == null ? Integer.toString( 0 ) : Integer.toString( srs.length ), parent.getDn().getName() } ) );
+            { Integer.toString( search.getSearchResultCount() ), parent.getDn().getName() } ) );
     }
 
 
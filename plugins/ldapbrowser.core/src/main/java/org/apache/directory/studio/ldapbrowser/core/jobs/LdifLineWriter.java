@@ -0,0 +1,335 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.apache.directory.studio.ldifparser.LdifFormatParameters;
+import org.apache.directory.studio.ldifparser.LdifUtils;
+
+
+/**
+ * Writes formatted LDIF lines to a writer.
+ * <p>
+ * The output is the same as the output of {@link org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine}
+ * and {@link org.apache.directory.studio.ldifparser.model.lines.LdifDnLine} formatted with the same
+ * {@link LdifFormatParameters}, but the lines are not created as objects. Binary values and strings that
+ * must be encoded are base64 encoded directly into a reused character buffer and folded while they are
+ * written. No intermediate strings or byte arrays are created, even for large binary values.
+ * <p>
+ * A LdifLineWriter is not thread-safe.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class LdifLineWriter
+{
+    /** The base64 alphabet */
+    private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/" //$NON-NLS-1$
+        .toCharArray();
+
+    /** The size of the character buffer */
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    /** The writer */
+    private final Writer writer;
+
+    /** The line separator */
+    private final char[] lineSeparator;
+
+    /** The maximum line width */
+    private final int lineWidth;
+
+    /** The value type of plain string values */
+    private final String stringValueType;
+
+    /** The value type of base64 encoded values */
+    private final String base64ValueType;
+
+    /** The character buffer */
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    /** The number of characters in the buffer */
+    private int position;
+
+    /** The number of characters in the current physical line */
+    private int column;
+
+    /** The number of characters that fit in the current physical line */
+    private int columnLimit;
+
+    /** The pending bytes of the current base64 group */
+    private int base64Group;
+
+    /** The number of pending bytes of the current base64 group */
+    private int base64GroupLength;
+
+
+    /**
+     * Creates a new instance of LdifLineWriter.
+     *
+     * @param writer the writer
+     * @param formatParameters the LDIF format parameters
+     */
+    LdifLineWriter( Writer writer, LdifFormatParameters formatParameters )
+    {
+        this.writer = writer;
+        this.lineSeparator = formatParameters.getLineSeparator().toCharArray();
+        this.lineWidth = formatParameters.getLineWidth();
+        this.stringValueType = formatParameters.isSpaceAfterColon() ? ": " : ":"; //$NON-NLS-1$ //$NON-NLS-2$
+        this.base64ValueType = formatParameters.isSpaceAfterColon() ? ":: " : "::"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+
+    /**
+     * Writes a dn line.
+     *
+     * @param dn the Dn
+     * @throws IOException if writing fails
+     */
+    void writeDn( String dn ) throws IOException
+    {
+        writeAttrVal( "dn", dn ); //$NON-NLS-1$
+    }
+
+
+    /**
+     * Writes an attribute value line with a string value. The value is base64
+     * encoded if it isn't a safe string.
+     *
+     * @param attributeDescription the attribute description
+     * @param value the string value
+     * @throws IOException if writing fails
+     */
+    void writeAttrVal( String attributeDescription, String value ) throws IOException
+    {
+        startLine();
+        append( attributeDescription );
+
+        if ( LdifUtils.mustEncode( value ) )
+        {
+            append( base64ValueType );
+            appendBase64Utf8( value );
+        }
+        else
+        {
+            append( stringValueType );
+            append( value );
+        }
+
+        endLine();
+    }
+
+
+    /**
+     * Writes an attribute value line with a base64 encoded binary value.
+     *
+     * @param attributeDescription the attribute description
+     * @param value the binary value
+     * @throws IOException if writing fails
+     */
+    void writeAttrVal( String attributeDescription, byte[] value ) throws IOException
+    {
+        startLine();
+        append( attributeDescription );
+        append( base64ValueType );
+
+        for ( byte b : value )
+        {
+            appendBase64( b );
+        }
+        finishBase64();
+
+        endLine();
+    }
+
+
+    /**
+     * Writes the empty line that ends a record and passes the buffered
+     * characters to the writer.
+     *
+     * @throws IOException if writing fails
+     */
+    void writeSeparator() throws IOException
+    {
+        for ( char c : lineSeparator )
+        {
+            put( c );
+        }
+        flush();
+    }
+
+
+    /**
+     * Passes the buffered characters to the writer.
+     *
+     * @throws IOException if writing fails
+     */
+    void flush() throws IOException
+    {
+        writer.write( buffer, 0, position );
+        position = 0;
+    }
+
+
+    private void startLine()
+    {
+        column = 0;
+        columnLimit = lineWidth;
+    }
+
+
+    private void endLine() throws IOException
+    {
+        for ( char c : lineSeparator )
+        {
+            put( c );
+        }
+    }
+
+
+    private void append( String s ) throws IOException
+    {
+        for ( int i = 0; i < s.length(); i++ )
+        {
+            append( s.charAt( i ) );
+        }
+    }
+
+
+    /**
+     * Appends a character to the current line. If the physical line is full the line
+     * is folded before, continuation lines start with a space.
+     */
+    private void append( char c ) throws IOException
+    {
+        if ( column >= columnLimit )
+        {
+            for ( char s : lineSeparator )
+            {
+                put( s );
+            }
+            put( ' ' );
+            column = 0;
+            columnLimit = Math.max( 1, lineWidth - 1 );
+        }
+
+        put( c );
+        column++;
+    }
+
+
+    private void put( char c ) throws IOException
+    {
+        if ( position == buffer.length )
+        {
+            flush();
+        }
+        buffer[position++] = c;
+    }
+
+
+    /**
+     * Appends the base64 encoded UTF-8 bytes of the given string. Unpaired
+     * surrogates are encoded as '?' like {@link String#getBytes(java.nio.charset.Charset)}.
+     */
+    private void appendBase64Utf8( String s ) throws IOException
+    {
+        for ( int i = 0; i < s.length(); i++ )
+        {
+            char c = s.charAt( i );
+            if ( c < 0x80 )
+            {
+                appendBase64( c );
+            }
+            else if ( c < 0x800 )
+            {
+                appendBase64( 0xC0 | ( c >> 6 ) );
+                appendBase64( 0x80 | ( c & 0x3F ) );
+            }
+            else if ( Character.isHighSurrogate( c ) && i + 1 < s.length()
+                && Character.isLowSurrogate( s.charAt( i + 1 ) ) )
+            {
+                int codePoint = Character.toCodePoint( c, s.charAt( ++i ) );
+                appendBase64( 0xF0 | ( codePoint >> 18 ) );
+                appendBase64( 0x80 | ( ( codePoint >> 12 ) & 0x3F ) );
+                appendBase64( 0x80 | ( ( codePoint >> 6 ) & 0x3F ) );
+                appendBase64( 0x80 | ( codePoint & 0x3F ) );
+            }
+            else if ( Character.isSurrogate( c ) )
+            {
+                appendBase64( '?' );
+            }
+            else
+            {
+                appendBase64( 0xE0 | ( c >> 12 ) );
+                appendBase64( 0x80 | ( ( c >> 6 ) & 0x3F ) );
+                appendBase64( 0x80 | ( c & 0x3F ) );
+            }
+        }
+        finishBase64();
+    }
+
+
+    /**
+     * Adds a byte to the current base64 group, a complete group of three bytes
+     * is appended as four characters.
+     */
+    private void appendBase64( int b ) throws IOException
+    {
+        base64Group = ( base64Group << 8 ) | ( b & 0xFF );
+        base64GroupLength++;
+
+        if ( base64GroupLength == 3 )
+        {
+            append( BASE64[( base64Group >> 18 ) & 0x3F] );
+            append( BASE64[( base64Group >> 12 ) & 0x3F] );
+            append( BASE64[( base64Group >> 6 ) & 0x3F] );
+            append( BASE64[base64Group & 0x3F] );
+            base64Group = 0;
+            base64GroupLength = 0;
+        }
+    }
+
+
+    /**
+     * Appends the pending bytes of the last base64 group with padding.
+     */
+    private void finishBase64() throws IOException
+    {
+        if ( base64GroupLength == 1 )
+        {
+            append( BASE64[( base64Group >> 2 ) & 0x3F] );
+            append( BASE64[( base64Group << 4 ) & 0x3F] );
+            append( '=' );
+            append( '=' );
+        }
+        else if ( base64GroupLength == 2 )
+        {
+            append( BASE64[( base64Group >> 10 ) & 0x3F] );
+            append( BASE64[( base64Group >> 4 ) & 0x3F] );
+            append( BASE64[( base64Group << 2 ) & 0x3F] );
+            append( '=' );
+        }
+        base64Group = 0;
+        base64GroupLength = 0;
+    }
+}
@@ -0,0 +1,563 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.ldap.model.schema.ObjectClassTypeEnum;
+import org.apache.directory.api.ldap.model.schema.SyntaxChecker;
+import org.apache.directory.api.ldap.model.schema.syntaxCheckers.BitStringSyntaxChecker;
+import org.apache.directory.api.ldap.model.schema.syntaxCheckers.BooleanSyntaxChecker;
+import org.apache.directory.api.ldap.model.schema.syntaxCheckers.CountrySyntaxChecker;
+import org.apache.directory.api.ldap.model.schema.syntaxCheckers.DirectoryStringSyntaxChecker;
+import org.apache.directory.api.ldap.model.schema.syntaxCheckers.DnSyntaxChecker;
+import org.apache.directory.api.ldap.model.schema.syntaxCheckers.GeneralizedTimeSyntaxChecker;
+import org.apache.directory.api.ldap.model.schema.syntaxCheckers.IntegerSyntaxChecker;
+import org.apache.directory.api.ldap.model.schema.syntaxCheckers.NumericStringSyntaxChecker;
+import org.apache.directory.api.ldap.model.schema.syntaxCheckers.OidSyntaxChecker;
+import org.apache.directory.api.ldap.model.schema.syntaxCheckers.PrintableStringSyntaxChecker;
+import org.apache.directory.api.ldap.model.schema.syntaxCheckers.UtcTimeSyntaxChecker;
+import org.apache.directory.api.ldap.model.schema.syntaxCheckers.UuidSyntaxChecker;
+import org.apache.directory.api.util.Strings;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
+import org.apache.directory.studio.ldapbrowser.core.model.AttributeDescription;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaUtils;
+import org.apache.directory.studio.ldifparser.model.container.LdifChangeAddRecord;
+import org.apache.directory.studio.ldifparser.model.container.LdifChangeModifyRecord;
+import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
+import org.apache.directory.studio.ldifparser.model.container.LdifModSpec;
+import org.apache.directory.studio.ldifparser.model.container.LdifRecord;
+import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
+
+
+/**
+ * Checks LDIF records against a schema without contacting the server: the object classes
+ * and attribute types must be defined, an entry must have a structural object class and
+ * all mandatory attributes, may only have allowed attributes, single-valued attributes
+ * must not have several values and the values must match the syntax of the attribute type.
+ * <p>
+ * The object class and attribute type lookups are cached per distinct set of object classes
+ * and per attribute description, so most records are checked with a few hash lookups.
+ * A validator is thread-safe, as long as the schema isn't modified.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class LdifSchemaValidator
+{
+    /** The syntax checkers of the syntaxes whose values are checked, by syntax OID */
+    private static final Map<String, SyntaxChecker> SYNTAX_CHECKERS = new HashMap<String, SyntaxChecker>();
+    static
+    {
+        SYNTAX_CHECKERS.put( SchemaConstants.BIT_STRING_SYNTAX, BitStringSyntaxChecker.INSTANCE );
+        SYNTAX_CHECKERS.put( SchemaConstants.BOOLEAN_SYNTAX, BooleanSyntaxChecker.INSTANCE );
+        SYNTAX_CHECKERS.put( SchemaConstants.COUNTRY_STRING_SYNTAX, CountrySyntaxChecker.INSTANCE );
+        SYNTAX_CHECKERS.put( SchemaConstants.DN_SYNTAX, DnSyntaxChecker.INSTANCE );
+        SYNTAX_CHECKERS.put( SchemaConstants.DIRECTORY_STRING_SYNTAX, DirectoryStringSyntaxChecker.INSTANCE );
+        SYNTAX_CHECKERS.put( SchemaConstants.GENERALIZED_TIME_SYNTAX, GeneralizedTimeSyntaxChecker.INSTANCE );
+        SYNTAX_CHECKERS.put( SchemaConstants.INTEGER_SYNTAX, IntegerSyntaxChecker.INSTANCE );
+        SYNTAX_CHECKERS.put( SchemaConstants.NUMERIC_STRING_SYNTAX, NumericStringSyntaxChecker.INSTANCE );
+        SYNTAX_CHECKERS.put( SchemaConstants.OID_SYNTAX, OidSyntaxChecker.INSTANCE );
+        SYNTAX_CHECKERS.put( SchemaConstants.PRINTABLE_STRING_SYNTAX, PrintableStringSyntaxChecker.INSTANCE );
+        SYNTAX_CHECKERS.put( SchemaConstants.UTC_TIME_SYNTAX, UtcTimeSyntaxChecker.INSTANCE );
+        SYNTAX_CHECKERS.put( SchemaConstants.UUID_SYNTAX, UuidSyntaxChecker.INSTANCE );
+    }
+
+    /**
+     * The kinds of violations.
+     */
+    enum Kind
+    {
+        INVALID_RECORD( BrowserCoreMessages.jobs__validate_ldif_kind_invalid_record ),
+        NO_OBJECT_CLASS( BrowserCoreMessages.jobs__validate_ldif_kind_no_object_class ),
+        UNKNOWN_OBJECT_CLASS( BrowserCoreMessages.jobs__validate_ldif_kind_unknown_object_class ),
+        NO_STRUCTURAL_OBJECT_CLASS( BrowserCoreMessages.jobs__validate_ldif_kind_no_structural_object_class ),
+        UNKNOWN_ATTRIBUTE( BrowserCoreMessages.jobs__validate_ldif_kind_unknown_attribute ),
+        MISSING_ATTRIBUTE( BrowserCoreMessages.jobs__validate_ldif_kind_missing_attribute ),
+        ATTRIBUTE_NOT_ALLOWED( BrowserCoreMessages.jobs__validate_ldif_kind_attribute_not_allowed ),
+        SINGLE_VALUE( BrowserCoreMessages.jobs__validate_ldif_kind_single_value ),
+        INVALID_SYNTAX( BrowserCoreMessages.jobs__validate_ldif_kind_invalid_syntax );
+
+        /** The label used in the summary */
+        private String label;
+
+
+        private Kind( String label )
+        {
+            this.label = label;
+        }
+
+
+        /**
+         * Gets the label used in the summary.
+         *
+         * @return the label
+         */
+        String getLabel()
+        {
+            return label;
+        }
+    }
+
+    /** The schema */
+    private Schema schema;
+
+    /** The object class infos, by the sorted lower case object class values of an entry */
+    private ConcurrentMap<String, ObjectClassInfo> objectClassInfos = new ConcurrentHashMap<String, ObjectClassInfo>();
+
+    /** The attribute infos, by lower case attribute description */
+    private ConcurrentMap<String, AttributeInfo> attributeInfos = new ConcurrentHashMap<String, AttributeInfo>();
+
+
+    /**
+     * Creates a new instance of LdifSchemaValidator.
+     *
+     * @param schema the schema
+     */
+    LdifSchemaValidator( Schema schema )
+    {
+        this.schema = schema;
+    }
+
+
+    /**
+     * Validates the given record.
+     *
+     * @param record the record
+     * @return the violations, empty if the record is valid
+     */
+    List<Violation> validate( LdifRecord record )
+    {
+        List<Violation> violations = new ArrayList<Violation>();
+
+        if ( !record.isValid() )
+        {
+            violations.add( new Violation( Kind.INVALID_RECORD, BrowserCoreMessages.bind(
+                BrowserCoreMessages.jobs__validate_ldif_invalid_record, record.getInvalidString() ) ) );
+        }
+        else if ( record instanceof LdifContentRecord )
+        {
+            validateEntry( ( ( LdifContentRecord ) record ).getAttrVals(), violations );
+        }
+        else if ( record instanceof LdifChangeAddRecord )
+        {
+            validateEntry( ( ( LdifChangeAddRecord ) record ).getAttrVals(), violations );
+        }
+        else if ( record instanceof LdifChangeModifyRecord )
+        {
+            for ( LdifModSpec modSpec : ( ( LdifChangeModifyRecord ) record ).getModSpecs() )
+            {
+                validateModSpec( modSpec, violations );
+            }
+        }
+
+        return violations;
+    }
+
+
+    /**
+     * Validates the attributes of a complete entry.
+     *
+     * @param attrVals the attribute value lines of the entry
+     * @param violations the list to add the violations to
+     */
+    private void validateEntry( LdifAttrValLine[] attrVals, List<Violation> violations )
+    {
+        List<String> objectClasses = new ArrayList<String>();
+        Map<AttributeInfo, Integer> valueCounts = new LinkedHashMap<AttributeInfo, Integer>();
+        for ( LdifAttrValLine attrVal : attrVals )
+        {
+            AttributeInfo attributeInfo = getAttributeInfo( attrVal.getUnfoldedAttributeDescription() );
+            if ( attributeInfo.objectClass )
+            {
+                objectClasses.add( attrVal.getValueAsString() );
+            }
+
+            Integer count = valueCounts.get( attributeInfo );
+            valueCounts.put( attributeInfo, count == null ? 1 : count + 1 );
+            validateValue( attributeInfo, attrVal, violations );
+        }
+
+        if ( objectClasses.isEmpty() )
+        {
+            violations.add( new Violation( Kind.NO_OBJECT_CLASS,
+                BrowserCoreMessages.jobs__validate_ldif_no_object_class ) );
+            return;
+        }
+
+        ObjectClassInfo objectClassInfo = getObjectClassInfo( objectClasses );
+        for ( String unknown : objectClassInfo.unknownObjectClasses )
+        {
+            violations.add( new Violation( Kind.UNKNOWN_OBJECT_CLASS, BrowserCoreMessages.bind(
+                BrowserCoreMessages.jobs__validate_ldif_unknown_object_class, unknown ) ) );
+        }
+        if ( !objectClassInfo.structural )
+        {
+            violations.add( new Violation( Kind.NO_STRUCTURAL_OBJECT_CLASS,
+                BrowserCoreMessages.jobs__validate_ldif_no_structural_object_class ) );
+        }
+
+        Set<String> present = new HashSet<String>();
+        for ( Map.Entry<AttributeInfo, Integer> entry : valueCounts.entrySet() )
+        {
+            AttributeInfo attributeInfo = entry.getKey();
+            present.addAll( attributeInfo.oids );
+
+            if ( !attributeInfo.known )
+            {
+                violations.add( new Violation( Kind.UNKNOWN_ATTRIBUTE, BrowserCoreMessages.bind(
+                    BrowserCoreMessages.jobs__validate_ldif_unknown_attribute, attributeInfo.description ) ) );
+            }
+            if ( attributeInfo.known && !attributeInfo.operational && !objectClassInfo.extensible
+                && Collections.disjoint( attributeInfo.oids, objectClassInfo.allowed ) )
+            {
+                violations.add( new Violation( Kind.ATTRIBUTE_NOT_ALLOWED, BrowserCoreMessages.bind(
+                    BrowserCoreMessages.jobs__validate_ldif_attribute_not_allowed, attributeInfo.description ) ) );
+            }
+            if ( attributeInfo.singleValued && entry.getValue() > 1 )
+            {
+                violations.add( new Violation( Kind.SINGLE_VALUE, BrowserCoreMessages.bind(
+                    BrowserCoreMessages.jobs__validate_ldif_single_value, attributeInfo.description,
+                    entry.getValue() ) ) );
+            }
+        }
+
+        for ( Map.Entry<String, String> must : objectClassInfo.must.entrySet() )
+        {
+            if ( !present.contains( must.getKey() ) )
+            {
+                violations.add( new Violation( Kind.MISSING_ATTRIBUTE, BrowserCoreMessages.bind(
+                    BrowserCoreMessages.jobs__validate_ldif_missing_attribute, must.getValue() ) ) );
+            }
+        }
+    }
+
+
+    /**
+     * Validates the values of a modification. The mandatory and allowed attributes
+     * can't be checked without the modified entry.
+     *
+     * @param modSpec the modification
+     * @param violations the list to add the violations to
+     */
+    private void validateModSpec( LdifModSpec modSpec, List<Violation> violations )
+    {
+        LdifAttrValLine[] attrVals = modSpec.getAttrVals();
+        AttributeInfo attributeInfo = getAttributeInfo( modSpec.getModSpecType().getUnfoldedAttributeDescription() );
+        if ( !attributeInfo.known )
+        {
+            violations.add( new Violation( Kind.UNKNOWN_ATTRIBUTE, BrowserCoreMessages.bind(
+                BrowserCoreMessages.jobs__validate_ldif_unknown_attribute, attributeInfo.description ) ) );
+        }
+        if ( modSpec.isDelete() )
+        {
+            return;
+        }
+
+        for ( LdifAttrValLine attrVal : attrVals )
+        {
+            validateValue( attributeInfo, attrVal, violations );
+        }
+        if ( attributeInfo.singleValued && attrVals.length > 1 )
+        {
+            violations.add( new Violation( Kind.SINGLE_VALUE, BrowserCoreMessages.bind(
+                BrowserCoreMessages.jobs__validate_ldif_single_value, attributeInfo.description, attrVals.length ) ) );
+        }
+    }
+
+
+    /**
+     * Validates the syntax of a value. Values that reference an URL are not read.
+     *
+     * @param attributeInfo the attribute info
+     * @param attrVal the attribute value line
+     * @param violations the list to add the violations to
+     */
+    private void validateValue( AttributeInfo attributeInfo, LdifAttrValLine attrVal, List<Violation> violations )
+    {
+        if ( attributeInfo.syntaxChecker == null || attrVal.isValueTypeURL() )
+        {
+            return;
+        }
+
+        String value = attrVal.isValueTypeBase64() ? attrVal.getValueAsString() : attrVal.getUnfoldedValue();
+        if ( !attributeInfo.syntaxChecker.isValidSyntax( value ) )
+        {
+            violations.add( new Violation( Kind.INVALID_SYNTAX, BrowserCoreMessages.bind(
+                BrowserCoreMessages.jobs__validate_ldif_invalid_syntax, new Object[]
+                    { attributeInfo.description, value, attributeInfo.syntaxChecker.getOid() } ) ) );
+        }
+    }
+
+
+    /**
+     * Gets the cached info of the given attribute description.
+     *
+     * @param description the attribute description
+     * @return the attribute info
+     */
+    private AttributeInfo getAttributeInfo( String description )
+    {
+        String key = Strings.toLowerCase( description );
+        AttributeInfo attributeInfo = attributeInfos.get( key );
+        if ( attributeInfo == null )
+        {
+            attributeInfo = new AttributeInfo( description );
+            AttributeInfo existing = attributeInfos.putIfAbsent( key, attributeInfo );
+            if ( existing != null )
+            {
+                attributeInfo = existing;
+            }
+        }
+        return attributeInfo;
+    }
+
+
+    /**
+     * Gets the cached info of the given set of object classes.
+     *
+     * @param objectClasses the object class values of an entry
+     * @return the object class info
+     */
+    private ObjectClassInfo getObjectClassInfo( List<String> objectClasses )
+    {
+        String[] names = new String[objectClasses.size()];
+        for ( int i = 0; i < names.length; i++ )
+        {
+            names[i] = Strings.toLowerCase( objectClasses.get( i ).trim() );
+        }
+        Arrays.sort( names );
+        String key = String.join( "$", names ); //$NON-NLS-1$
+
+        ObjectClassInfo objectClassInfo = objectClassInfos.get( key );
+        if ( objectClassInfo == null )
+        {
+            objectClassInfo = new ObjectClassInfo( objectClasses );
+            ObjectClassInfo existing = objectClassInfos.putIfAbsent( key, objectClassInfo );
+            if ( existing != null )
+            {
+                objectClassInfo = existing;
+            }
+        }
+        return objectClassInfo;
+    }
+
+
+    /**
+     * Gets the lower case numeric OID of the given attribute type name, or the lower
+     * case name if the attribute type isn't defined.
+     *
+     * @param nameOrOid the name or OID of the attribute type
+     * @return the lower case numeric OID or name
+     */
+    private String getAttributeTypeOid( String nameOrOid )
+    {
+        if ( schema.hasAttributeTypeDescription( nameOrOid ) )
+        {
+            return Strings.toLowerCase( schema.getAttributeTypeDescription( nameOrOid ).getOid() );
+        }
+        return Strings.toLowerCase( nameOrOid );
+    }
+
+    /**
+     * A violation of the schema.
+     */
+    static class Violation
+    {
+        /** The kind of violation */
+        private Kind kind;
+
+        /** The message */
+        private String message;
+
+
+        /**
+         * Creates a new instance of Violation.
+         *
+         * @param kind the kind of violation
+         * @param message the message
+         */
+        Violation( Kind kind, String message )
+        {
+            this.kind = kind;
+            this.message = message;
+        }
+
+
+        /**
+         * Gets the kind of violation.
+         *
+         * @return the kind of violation
+         */
+        Kind getKind()
+        {
+            return kind;
+        }
+
+
+        /**
+         * Gets the message.
+         *
+         * @return the message
+         */
+        String getMessage()
+        {
+            return message;
+        }
+    }
+
+    /**
+     * The schema information of an attribute description.
+     */
+    private class AttributeInfo
+    {
+        /** The attribute description */
+        private String description;
+
+        /** True if the attribute type is defined in the schema */
+        private boolean known;
+
+        /** True if the attribute type is objectClass */
+        private boolean objectClass;
+
+        /** True if the attribute type is operational */
+        private boolean operational;
+
+        /** True if the attribute type is single-valued */
+        private boolean singleValued;
+
+        /** The lower case OIDs of the attribute type and its superiors */
+        private Set<String> oids = new HashSet<String>();
+
+        /** The syntax checker, null if the values are not checked */
+        private SyntaxChecker syntaxChecker;
+
+
+        /**
+         * Creates a new instance of AttributeInfo.
+         *
+         * @param description the attribute description
+         */
+        AttributeInfo( String description )
+        {
+            this.description = description;
+
+            String attributeType = new AttributeDescription( description ).getParsedAttributeType();
+            known = schema.hasAttributeTypeDescription( attributeType );
+            if ( !known )
+            {
+                oids.add( Strings.toLowerCase( attributeType ) );
+                objectClass = SchemaConstants.OBJECT_CLASS_AT.equalsIgnoreCase( attributeType );
+                return;
+            }
+
+            AttributeType atd = schema.getAttributeTypeDescription( attributeType );
+            objectClass = SchemaConstants.OBJECT_CLASS_AT_OID.equals( atd.getOid() );
+            operational = SchemaUtils.isOperational( atd );
+            singleValued = atd.isSingleValued();
+            String syntaxOid = SchemaUtils.getSyntaxNumericOidTransitive( atd, schema );
+            syntaxChecker = syntaxOid != null ? SYNTAX_CHECKERS.get( syntaxOid ) : null;
+
+            while ( atd != null && oids.add( Strings.toLowerCase( atd.getOid() ) ) )
+            {
+                String superior = atd.getSuperiorOid();
+                atd = superior != null && schema.hasAttributeTypeDescription( superior ) ? schema
+                    .getAttributeTypeDescription( superior ) : null;
+            }
+        }
+    }
+
+    /**
+     * The schema information of a set of object classes.
+     */
+    private class ObjectClassInfo
+    {
+        /** The object classes that are not defined in the schema */
+        private List<String> unknownObjectClasses = new ArrayList<String>();
+
+        /** True if one of the object classes is structural */
+        private boolean structural;
+
+        /** True if one of the object classes is extensibleObject */
+        private boolean extensible;
+
+        /** The mandatory attribute types, lower case OID to name */
+        private Map<String, String> must = new LinkedHashMap<String, String>();
+
+        /** The lower case OIDs of the allowed attribute types */
+        private Set<String> allowed = new HashSet<String>();
+
+
+        /**
+         * Creates a new instance of ObjectClassInfo.
+         *
+         * @param objectClasses the object class values of an entry
+         */
+        ObjectClassInfo( Collection<String> objectClasses )
+        {
+            for ( String name : objectClasses )
+            {
+                name = name.trim();
+                if ( !schema.hasObjectClassDescription( name ) )
+                {
+                    unknownObjectClasses.add( name );
+                    continue;
+                }
+
+                ObjectClass ocd = schema.getObjectClassDescription( name );
+                structural |= ocd.getType() == ObjectClassTypeEnum.STRUCTURAL;
+                extensible |= SchemaConstants.EXTENSIBLE_OBJECT_OC_OID.equals( ocd.getOid() );
+                for ( String mustName : SchemaUtils.getMustAttributeTypeDescriptionNamesTransitive( ocd, schema ) )
+                {
+                    String oid = getAttributeTypeOid( mustName );
+                    must.put( oid, mustName );
+                    allowed.add( oid );
+                }
+                for ( String mayName : SchemaUtils.getMayAttributeTypeDescriptionNamesTransitive( ocd, schema ) )
+                {
+                    allowed.add( getAttributeTypeOid( mayName ) );
+                }
+            }
+
+            // an entry with an unknown object class is reported once, not for each attribute
+            if ( !unknownObjectClasses.isEmpty() )
+            {
+                extensible = true;
+                must.clear();
+            }
+        }
+    }
+}
@@ -249,10 +249,9 @@ public class MoveEntriesRunnable implements StudioConnectionBulkRunnableWithProg
                 List<ISearch> searches = browserConnection.getSearchManager().getSearches();
                 for ( ISearch search : searches )
                 {
-                    if ( search.getSearchResults() != null )
+                    if ( search.getSearchResultList() != null )
                     {
-                        ISearchResult[] searchResults = search.getSearchResults();
-                        for ( ISearchResult result : searchResults )
+                        for ( ISearchResult result : search.getSearchResultList() )
                         {
                             if ( oldEntry.equals( result.getEntry() ) )
                             {
@@ -35,7 +35,6 @@ import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
-import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
 import org.apache.directory.studio.ldapbrowser.core.model.impl.Search;
 
 
@@ -160,10 +159,9 @@ public class ReadEntryRunnable implements StudioConnectionBulkRunnableWithProgre
             ISearch search = new Search( null, browserConnection, dn, null, ISearch.NO_ATTRIBUTES, SearchScope.OBJECT,
                 1, 0, AliasDereferencingMethod.NEVER, ReferralHandlingMethod.IGNORE, true, controls, false );
             SearchRunnable.searchAndUpdateModel( browserConnection, search, monitor );
-            ISearchResult[] srs = search.getSearchResults();
-            if ( srs.length > 0 )
+            if ( search.getSearchResultCount() > 0 )
             {
-                return srs[0].getEntry();
+                return search.getSearchResultList().get( 0 ).getEntry();
             }
             else
             {
@@ -47,6 +47,7 @@ import org.apache.directory.studio.connection.core.Controls;
 import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
 import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
 import org.apache.directory.studio.connection.core.StudioControl;
+import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResult;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
@@ -77,6 +78,9 @@ import org.apache.directory.studio.ldapbrowser.core.utils.Utils;
  */
 public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
 {
+    /** The minimum interval in milliseconds between two notifications about intermediate search results. */
+    private static final long SEARCH_RESULTS_ADDED_INTERVAL = 1000L;
+
     /** The searches. */
     protected ISearch[] searches;
 
@@ -186,24 +190,9 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
 
                 do
                 {
-                    // perform search
-                    searchAndUpdateModel( searchToPerform.getBrowserConnection(), searchToPerform, monitor );
-
-                    if ( search != searchToPerform )
-                    {
-                        // merge search results
-                        ISearchResult[] sr1 = search.getSearchResults();
-                        ISearchResult[] sr2 = searchToPerform.getSearchResults();
-                        ISearchResult[] sr = new ISearchResult[sr1.length + sr2.length];
-                        System.arraycopy( sr1, 0, sr, 0, sr1.length );
-                        System.arraycopy( sr2, 0, sr, sr1.length, sr2.length );
-                        search.setSearchResults( sr );
-                    }
-                    else
-                    {
-                        // set search results
-                        search.setSearchResults( searchToPerform.getSearchResults() );
-                    }
+                    // perform search, the results of all pages are appended to the search
+                    searchAndUpdateModel( searchToPerform.getBrowserConnection(), searchToPerform, search, true,
+                        monitor );
 
                     // check response controls
                     ISearch clonedSearch = ( ISearch ) searchToPerform.clone();
@@ -258,8 +247,8 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
                         {
                             // transparently continue search, till count limit is reached
                             if ( ArrayUtils.isNotEmpty( prResponseControl.getCookie() )
-                                && ( search.getCountLimit() == 0 || search.getSearchResults().length < search
-                                    .getCountLimit() ) )
+                                && ( search.getCountLimit() == 0
+                                    || search.getSearchResultCount() < search.getCountLimit() ) )
                             {
                                 searchToPerform = nextPageSearch;
                             }
@@ -300,6 +289,30 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
             return;
         }
 
+        search.setSearchResults( new ISearchResult[0] );
+        searchAndUpdateModel( browserConnection, search, search, false, monitor );
+    }
+
+
+    /**
+     * Searches the directory and updates the browser model. The search results
+     * are appended to the result search in batches while they are received.
+     * 
+     * @param browserConnection the browser connection
+     * @param search the search to perform
+     * @param resultSearch the search the results are appended to
+     * @param notifyIntermediateResults true to notify listeners about each batch of search results,
+     *        even if event firing is suspended
+     * @param monitor the progress monitor
+     */
+    private static void searchAndUpdateModel( IBrowserConnection browserConnection, ISearch search,
+        ISearch resultSearch, boolean notifyIntermediateResults, StudioProgressMonitor monitor )
+    {
+        if ( browserConnection.getConnection() == null )
+        {
+            return;
+        }
+
         try
         {
             if ( !monitor.isCanceled() )
@@ -307,6 +320,8 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
                 // add returning attributes for children and alias detection
                 SearchParameter searchParameter = getSearchParameter( search );
                 ArrayList<ISearchResult> searchResultList = new ArrayList<ISearchResult>();
+                int searchResultCount = 0;
+                long lastAddedTime = System.currentTimeMillis();
                 ArrayList<SearchContinuation> searchContinuationList = new ArrayList<SearchContinuation>();
 
                 StudioSearchResultEnumeration enumeration = null;
@@ -364,7 +379,16 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
 
                             searchResultList
                                 .add( new org.apache.directory.studio.ldapbrowser.core.model.impl.SearchResult( entry,
-                                    search ) );
+                                    resultSearch ) );
+                            searchResultCount++;
+
+                            // publish the received search results periodically
+                            long now = System.currentTimeMillis();
+                            if ( now - lastAddedTime >= SEARCH_RESULTS_ADDED_INTERVAL )
+                            {
+                                addSearchResults( resultSearch, searchResultList, notifyIntermediateResults );
+                                lastAddedTime = now;
+                            }
                         }
                         else
                         {
@@ -375,10 +399,10 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
                         }
 
                         monitor
-                            .reportProgress( searchResultList.size() == 1 ? BrowserCoreMessages.model__retrieved_1_entry
+                            .reportProgress( searchResultCount == 1 ? BrowserCoreMessages.model__retrieved_1_entry
                                 : BrowserCoreMessages.bind( BrowserCoreMessages.model__retrieved_n_entries,
                                     new String[]
-                                    { Integer.toString( searchResultList.size() ) } ) );
+                                    { Integer.toString( searchResultCount ) } ) );
                     }
                 }
                 catch ( Exception e )
@@ -393,6 +417,11 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
                         monitor.reportError( e );
                     }
                 }
+                finally
+                {
+                    // gives the connection back, the response controls are still available
+                    closeEnumeration( enumeration );
+                }
 
                 // check for response controls
                 try
@@ -416,24 +445,71 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
                     monitor.reportError( e );
                 }
 
-                monitor.reportProgress( searchResultList.size() == 1 ? BrowserCoreMessages.model__retrieved_1_entry
+                monitor.reportProgress( searchResultCount == 1 ? BrowserCoreMessages.model__retrieved_1_entry
                     : BrowserCoreMessages.bind( BrowserCoreMessages.model__retrieved_n_entries, new String[]
-                    { Integer.toString( searchResultList.size() ) } ) );
+                    { Integer.toString( searchResultCount ) } ) );
                 monitor.worked( 1 );
 
-                search.setSearchResults( ( ISearchResult[] ) searchResultList
-                    .toArray( new ISearchResult[searchResultList.size()] ) );
+                // the remaining search results are notified by the search performed event
+                addSearchResults( resultSearch, searchResultList, false );
                 search.setSearchContinuations( ( SearchContinuation[] ) searchContinuationList
                     .toArray( new SearchContinuation[searchContinuationList.size()] ) );
             }
         }
         catch ( Exception e )
         {
-            if ( search != null )
+            monitor.reportError( e );
+        }
+    }
+
+
+    /**
+     * Closes the given search result enumeration, this gives the connection
+     * used by a canceled or failed search back to the connection pool.
+     *
+     * @param enumeration the search result enumeration, may be null
+     */
+    static void closeEnumeration( StudioSearchResultEnumeration enumeration )
+    {
+        if ( enumeration != null )
+        {
+            try
             {
-                search.setSearchResults( new ISearchResult[0] );
+                enumeration.close();
             }
-            monitor.reportError( e );
+            catch ( LdapException e )
+            {
+                // ignore
+            }
+        }
+    }
+
+
+    /**
+     * Appends the given search results to the search and clears the list.
+     * 
+     * @param search the search
+     * @param searchResultList the search results to append
+     * @param notify true to notify listeners even if event firing is suspended
+     */
+    private static void addSearchResults( final ISearch search, List<ISearchResult> searchResultList, boolean notify )
+    {
+        final ISearchResult[] searchResults = searchResultList.toArray( new ISearchResult[searchResultList.size()] );
+        searchResultList.clear();
+
+        if ( notify )
+        {
+            ConnectionEventRegistry.runWithEventFiringResumed( new Runnable()
+            {
+                public void run()
+                {
+                    search.addSearchResults( searchResults );
+                }
+            } );
+        }
+        else
+        {
+            search.addSearchResults( searchResults );
         }
     }
 
@@ -649,12 +725,15 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
                         entry = new BaseDNEntry( aDn, browserConnection );
                         browserConnection.getRootDSE().addChild( entry );
                         browserConnection.cacheEntry( entry );
-                        enumeration.close();
                     }
                 }
                 catch ( LdapException e )
                 {
                 }
+                finally
+                {
+                    closeEnumeration( enumeration );
+                }
             }
         }
 
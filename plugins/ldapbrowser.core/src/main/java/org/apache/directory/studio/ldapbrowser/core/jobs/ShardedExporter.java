@@ -0,0 +1,647 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.naming.directory.SearchControls;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.message.controls.PagedResults;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.ConnectionParameter;
+import org.apache.directory.studio.connection.core.Controls;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
+import org.apache.directory.studio.ldapbrowser.core.jobs.ExportLdifRunnable.DefaultLdifEnumeration;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
+import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaUtils;
+import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
+import org.apache.directory.studio.ldapbrowser.core.utils.LdapFilterUtils;
+
+
+/**
+ * Exports the entries found by a search with several concurrent searches:
+ * <ol>
+ * <li>The search is split into partitions (shards). By default a subtree search is
+ *     split by the first-level children of the search base: one partition
+ *     contains the search base, each child is searched with a subtree search
+ *     of its own. Alternatively the entries are split into ranges of the values
+ *     of an attribute.
+ * <li>The partitions are searched concurrently by several workers. As the
+ *     connection wrapper borrows a pooled connection for each search the
+ *     searches run over several connections.
+ * <li>Each partition is written uncompressed to a temporary file in the temporary
+ *     directory, at the end the temporary files are appended to the target file in
+ *     the order of the partitions. With the
+ *     first-level partitioning this keeps the parents in front of their children.
+ * </ol>
+ * The export is only partitioned if the connection pool is enabled and the number of
+ * entries isn't limited, otherwise the caller exports the entries with a single search.
+ * Attribute ranges are only used if the attribute has an ordering matching rule,
+ * otherwise the ranges would miss all entries with the attribute.
+ * The progress and the remaining time are reported for the whole export and for each
+ * running partition.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class ShardedExporter
+{
+    /** The page size of the search for the first-level children */
+    private static final int PAGE_SIZE = 1000;
+
+    /** The maximum number of partitions, the export isn't partitioned if the search base has more children */
+    private static final int MAX_PARTITIONS = 1000;
+
+    /** The interval between two progress reports */
+    private static final long PROGRESS_INTERVAL_MILLIS = 1000L;
+
+    /**
+     * Writes the exported entries of one partition.
+     */
+    interface EntryWriter
+    {
+        /**
+         * Formats the given entry and writes it.
+         *
+         * @param entry the entry
+         * @throws LdapException if the entry can't be converted
+         * @throws IOException if writing fails
+         */
+        void write( Entry entry ) throws LdapException, IOException;
+    }
+
+    /**
+     * Creates the entry writer of a partition. The entry writers are used
+     * concurrently, each one by a single worker.
+     */
+    interface EntryWriterFactory
+    {
+        /**
+         * Creates an entry writer.
+         *
+         * @param writer the writer of the partition
+         * @return the entry writer
+         */
+        EntryWriter create( Writer writer );
+    }
+
+    /** The browser connection */
+    private IBrowserConnection browserConnection;
+
+    /** The search parameter of the export */
+    private SearchParameter searchParameter;
+
+    /** The progress monitor */
+    private StudioProgressMonitor monitor;
+
+    /** The number of concurrent workers */
+    private int numberOfWorkers;
+
+    /** The attribute used to split the entries into ranges, null to split by the first-level children */
+    private String partitionAttribute;
+
+    /** The lower bounds of the attribute ranges */
+    private String[] partitionBounds;
+
+    /** The searches of the partitions, null if the export isn't partitioned */
+    private List<SearchParameter> partitions;
+
+
+    /**
+     * Creates a new instance of ShardedExporter.
+     *
+     * @param browserConnection the browser connection
+     * @param searchParameter the search parameter of the export
+     * @param monitor the progress monitor
+     */
+    ShardedExporter( IBrowserConnection browserConnection, SearchParameter searchParameter,
+        StudioProgressMonitor monitor )
+    {
+        this.browserConnection = browserConnection;
+        this.searchParameter = searchParameter;
+        this.monitor = monitor;
+
+        ConnectionParameter parameter = browserConnection.getConnection().getConnectionParameter();
+        this.numberOfWorkers = parameter.isPoolEnabled() ? Math.max( 1, parameter.getPoolMaxSize() ) : 1;
+    }
+
+
+    /**
+     * Splits the entries into ranges of the values of the given attribute instead of
+     * splitting the search by the first-level children. The first partition contains
+     * the entries without the attribute and the entries whose values are lower than
+     * the first bound, the last partition contains the values greater or equal than
+     * the last bound. The ordering is the one of the attribute's ordering rule.
+     *
+     * @param attribute the attribute, the export isn't partitioned if it has no ordering matching rule
+     * @param bounds the sorted lower bounds of the ranges
+     */
+    void setPartitionAttribute( String attribute, String... bounds )
+    {
+        this.partitionAttribute = attribute;
+        this.partitionBounds = bounds;
+    }
+
+
+    /**
+     * Creates the partitions of the export. If a partition attribute without
+     * ordering matching rule is set the export isn't partitioned.
+     *
+     * @return true if the export is partitioned, false if it should be exported with a single search
+     */
+    boolean createPartitions()
+    {
+        partitions = null;
+
+        if ( numberOfWorkers < 2 || searchParameter.getCountLimit() > 0 )
+        {
+            return false;
+        }
+
+        List<SearchParameter> list = new ArrayList<SearchParameter>();
+        if ( partitionAttribute != null && ArrayUtils.isNotEmpty( partitionBounds ) )
+        {
+            if ( !SchemaUtils.hasOrderingMatchingRule( partitionAttribute, browserConnection.getSchema() ) )
+            {
+                // (attribute>=bound) is Undefined, the entries with the attribute would be missing
+                return false;
+            }
+
+            String lowest = "(|(!(" + partitionAttribute + "=*))" //$NON-NLS-1$ //$NON-NLS-2$
+                + lessThan( partitionAttribute, partitionBounds[0] ) + ")"; //$NON-NLS-1$
+            list.add( createPartition( searchParameter.getSearchBase(), searchParameter.getScope(), lowest ) );
+            for ( int i = 0; i < partitionBounds.length; i++ )
+            {
+                String range = greaterOrEqual( partitionAttribute, partitionBounds[i] );
+                if ( i + 1 < partitionBounds.length )
+                {
+                    range += lessThan( partitionAttribute, partitionBounds[i + 1] );
+                }
+                list.add( createPartition( searchParameter.getSearchBase(), searchParameter.getScope(), range ) );
+            }
+        }
+        else if ( searchParameter.getScope() == SearchScope.SUBTREE )
+        {
+            List<Dn> children = findChildren( searchParameter.getSearchBase() );
+            if ( children == null || children.size() < 2 )
+            {
+                return false;
+            }
+
+            list.add( createPartition( searchParameter.getSearchBase(), SearchScope.OBJECT, null ) );
+            for ( Dn child : children )
+            {
+                list.add( createPartition( child, SearchScope.SUBTREE, null ) );
+            }
+        }
+        else
+        {
+            return false;
+        }
+
+        partitions = list;
+        return true;
+    }
+
+
+    /**
+     * Exports the partitions concurrently and appends the formatted records to the given stream.
+     * Errors are reported to the progress monitor.
+     *
+     * @param out the output stream
+     * @param charset the charset of the formatted records
+     * @param entryWriterFactory the factory of the entry writers
+     *
+     * @return the number of exported entries
+     * @throws IOException if an I/O error occurs
+     */
+    int export( OutputStream out, final Charset charset, final EntryWriterFactory entryWriterFactory )
+        throws IOException
+    {
+        final int numberOfPartitions = partitions.size();
+        final File[] files = new File[numberOfPartitions];
+        final ConcurrentLinkedQueue<Integer> queue = new ConcurrentLinkedQueue<Integer>();
+        for ( int i = 0; i < numberOfPartitions; i++ )
+        {
+            files[i] = File.createTempFile( "export", ".tmp" ); //$NON-NLS-1$ //$NON-NLS-2$
+            queue.add( i );
+        }
+
+        final PartitionProgress[] progresses = new PartitionProgress[numberOfPartitions];
+        for ( int i = 0; i < numberOfPartitions; i++ )
+        {
+            progresses[i] = new PartitionProgress();
+        }
+        final AtomicReference<Exception> error = new AtomicReference<Exception>();
+
+        int workers = Math.min( numberOfWorkers, numberOfPartitions );
+        ExecutorService executor = Executors.newFixedThreadPool( workers );
+        final CountDownLatch latch = new CountDownLatch( workers );
+        Runnable worker = new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    Integer index;
+                    while ( !monitor.isCanceled() && error.get() == null && ( index = queue.poll() ) != null )
+                    {
+                        PartitionProgress progress = progresses[index];
+                        progress.startMillis = System.currentTimeMillis();
+                        try ( Writer writer = new BufferedWriter( new OutputStreamWriter( new FileOutputStream(
+                            files[index] ), charset ) ) )
+                        {
+                            exportPartition( partitions.get( index ), entryWriterFactory.create( writer ),
+                                progress.exported );
+                            progress.endMillis = System.currentTimeMillis();
+                        }
+                        catch ( Exception e )
+                        {
+                            error.compareAndSet( null, e );
+                        }
+                    }
+                }
+                finally
+                {
+                    latch.countDown();
+                }
+            }
+        };
+
+        try
+        {
+            for ( int i = 0; i < workers; i++ )
+            {
+                executor.execute( worker );
+            }
+
+            long startMillis = System.currentTimeMillis();
+            try
+            {
+                while ( !latch.await( PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS ) )
+                {
+                    reportProgress( startMillis, progresses );
+                }
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                monitor.setCanceled( true );
+            }
+            reportProgress( startMillis, progresses );
+
+            if ( error.get() != null )
+            {
+                monitor.reportError( error.get() );
+            }
+            else if ( !monitor.isCanceled() )
+            {
+                // concatenate the partitions
+                for ( File file : files )
+                {
+                    Files.copy( file.toPath(), out );
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+            for ( File file : files )
+            {
+                if ( file != null )
+                {
+                    file.delete();
+                }
+            }
+        }
+
+        int exported = 0;
+        for ( PartitionProgress progress : progresses )
+        {
+            exported += progress.exported.get();
+        }
+
+        return exported;
+    }
+
+
+    /**
+     * Exports the entries of one partition.
+     *
+     * @param partition the search of the partition
+     * @param entryWriter the entry writer
+     * @param exported the number of exported entries of the partition
+     *
+     * @throws Exception if the search or writing fails
+     */
+    private void exportPartition( SearchParameter partition, EntryWriter entryWriter, AtomicInteger exported )
+        throws Exception
+    {
+        StudioProgressMonitor workerMonitor = new StudioProgressMonitor( monitor );
+        DefaultLdifEnumeration enumeration = null;
+        try
+        {
+            enumeration = ExportLdifRunnable.search( browserConnection, partition, workerMonitor );
+            while ( !monitor.isCanceled() && !workerMonitor.errorsReported() && enumeration.hasNext() )
+            {
+                entryWriter.write( enumeration.nextEntry() );
+                exported.incrementAndGet();
+            }
+        }
+        catch ( Exception e )
+        {
+            int ldapStatusCode = JNDIUtils.getLdapStatusCode( e );
+            if ( ldapStatusCode != 3 && ldapStatusCode != 4 && ldapStatusCode != 11 )
+            {
+                throw e;
+            }
+        }
+        finally
+        {
+            if ( enumeration != null )
+            {
+                enumeration.close();
+            }
+            workerMonitor.done();
+        }
+
+        if ( workerMonitor.errorsReported() )
+        {
+            throw workerMonitor.getException();
+        }
+    }
+
+
+    /**
+     * Finds the first-level children of the given entry using a paged one-level search.
+     *
+     * @param dn the Dn of the entry
+     *
+     * @return the Dns of the children, null if there are too many children or the search fails
+     */
+    private List<Dn> findChildren( Dn dn )
+    {
+        StudioProgressMonitor dummyMonitor = new StudioProgressMonitor( monitor );
+
+        SearchControls searchControls = new SearchControls();
+        searchControls.setReturningAttributes( new String[]
+            { "1.1" } ); //$NON-NLS-1$
+        searchControls.setSearchScope( SearchControls.ONELEVEL_SCOPE );
+        boolean paged = browserConnection.getRootDSE().isControlSupported( PagedResults.OID );
+        if ( !paged )
+        {
+            searchControls.setCountLimit( MAX_PARTITIONS + 1 );
+        }
+
+        List<Dn> children = new ArrayList<Dn>();
+        byte[] cookie = null;
+        do
+        {
+            Control[] controls = paged ? new Control[]
+                { Controls.newPagedResultsControl( PAGE_SIZE, cookie ) } : null;
+            cookie = null;
+
+            StudioSearchResultEnumeration result = browserConnection.getConnection().getConnectionWrapper()
+                .search( dn.getName(), ISearch.FILTER_TRUE, searchControls,
+                    searchParameter.getAliasesDereferencingMethod(), searchParameter.getReferralsHandlingMethod(),
+                    controls, dummyMonitor, null );
+            if ( result == null )
+            {
+                return null;
+            }
+
+            try
+            {
+                while ( !monitor.isCanceled() && result.hasMore() )
+                {
+                    children.add( result.next().getDn() );
+                    if ( children.size() > MAX_PARTITIONS )
+                    {
+                        // too many partitions, export with a single search
+                        return null;
+                    }
+                }
+
+                for ( Control responseControl : result.getResponseControls() )
+                {
+                    if ( responseControl instanceof PagedResults
+                        && ArrayUtils.isNotEmpty( ( ( PagedResults ) responseControl ).getCookie() ) )
+                    {
+                        cookie = ( ( PagedResults ) responseControl ).getCookie();
+                    }
+                }
+            }
+            catch ( Exception e )
+            {
+                return null;
+            }
+            finally
+            {
+                // abandons the search if it was canceled or stopped early, and gives the connection back
+                SearchRunnable.closeEnumeration( result );
+            }
+        }
+        while ( cookie != null && !monitor.isCanceled() );
+
+        return dummyMonitor.errorsReported() ? null : children;
+    }
+
+
+    /**
+     * Creates the search of a partition.
+     *
+     * @param searchBase the search base
+     * @param scope the scope
+     * @param rangeFilter the filter selecting the entries of the partition, may be null
+     *
+     * @return the search parameter
+     */
+    private SearchParameter createPartition( Dn searchBase, SearchScope scope, String rangeFilter )
+    {
+        SearchParameter partition = ( SearchParameter ) searchParameter.clone();
+        partition.setSearchBase( searchBase );
+        partition.setScope( scope );
+        if ( rangeFilter != null )
+        {
+            String filter = searchParameter.getFilter().trim();
+            if ( !filter.startsWith( "(" ) ) //$NON-NLS-1$
+            {
+                filter = "(" + filter + ")"; //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            partition.setFilter( "(&" + filter + rangeFilter + ")" ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        // the paged results control keeps the cookie, each partition needs its own
+        partition.getControls().clear();
+        for ( Control control : searchParameter.getControls() )
+        {
+            if ( control instanceof PagedResults )
+            {
+                partition.getControls().add( Controls.newPagedResultsControl( ( ( PagedResults ) control ).getSize() ) );
+            }
+            else
+            {
+                partition.getControls().add( control );
+            }
+        }
+
+        return partition;
+    }
+
+
+    private static String greaterOrEqual( String attribute, String bound )
+    {
+        return "(" + attribute + ">=" + LdapFilterUtils.getEncodedValue( bound ) + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+
+    private static String lessThan( String attribute, String bound )
+    {
+        return "(!" + greaterOrEqual( attribute, bound ) + ")"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+
+    /**
+     * Reports the number of exported entries, the throughput and the number of completed
+     * partitions. Once a partition is completed the remaining time is estimated from the
+     * average time per partition. The number of exported entries and the throughput of
+     * each running partition follow, its remaining time is estimated from the average
+     * number of entries of the completed partitions.
+     *
+     * @param startMillis the start time of the export
+     * @param progresses the progress of each partition
+     */
+    private void reportProgress( long startMillis, PartitionProgress[] progresses )
+    {
+        long now = System.currentTimeMillis();
+        int numberOfPartitions = progresses.length;
+        int exported = 0;
+        int completed = 0;
+        long completedEntries = 0;
+        for ( PartitionProgress progress : progresses )
+        {
+            exported += progress.exported.get();
+            if ( progress.endMillis > 0 )
+            {
+                completed++;
+                completedEntries += progress.exported.get();
+            }
+        }
+
+        long elapsedMillis = Math.max( 1L, now - startMillis );
+        long rate = exported * 1000L / elapsedMillis;
+
+        StringBuilder message = new StringBuilder();
+        if ( completed > 0 && completed < numberOfPartitions )
+        {
+            long remainingSeconds = elapsedMillis * ( numberOfPartitions - completed ) / completed / 1000L;
+            message.append( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_partitions_eta,
+                new String[]
+                    { Integer.toString( exported ), Long.toString( rate ), Integer.toString( completed ),
+                        Integer.toString( numberOfPartitions ), formatDuration( remainingSeconds ) } ) );
+        }
+        else
+        {
+            message.append( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_partitions_progress,
+                new String[]
+                    { Integer.toString( exported ), Long.toString( rate ), Integer.toString( completed ),
+                        Integer.toString( numberOfPartitions ) } ) );
+        }
+
+        for ( int i = 0; i < numberOfPartitions; i++ )
+        {
+            PartitionProgress progress = progresses[i];
+            if ( progress.startMillis == 0 || progress.endMillis > 0 )
+            {
+                continue;
+            }
+
+            int partitionExported = progress.exported.get();
+            long partitionRate = partitionExported * 1000L / Math.max( 1L, now - progress.startMillis );
+            long estimatedEntries = completed > 0 ? completedEntries / completed : 0;
+
+            message.append( "; " ); //$NON-NLS-1$
+            if ( estimatedEntries > partitionExported && partitionRate > 0 )
+            {
+                long remainingSeconds = ( estimatedEntries - partitionExported ) / partitionRate;
+                message.append( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_partition_eta,
+                    new String[]
+                        { Integer.toString( i + 1 ), Integer.toString( partitionExported ),
+                            Long.toString( partitionRate ), formatDuration( remainingSeconds ) } ) );
+            }
+            else
+            {
+                message.append( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_partition_progress,
+                    new String[]
+                        { Integer.toString( i + 1 ), Integer.toString( partitionExported ),
+                            Long.toString( partitionRate ) } ) );
+            }
+        }
+
+        monitor.reportProgress( message.toString() );
+    }
+
+
+    private static String formatDuration( long seconds )
+    {
+        return String.format( "%d:%02d:%02d", seconds / 3600, ( seconds / 60 ) % 60, seconds % 60 ); //$NON-NLS-1$
+    }
+
+    /**
+     * The progress of one partition, updated by the worker exporting it.
+     */
+    private static class PartitionProgress
+    {
+        /** The number of exported entries */
+        private final AtomicInteger exported = new AtomicInteger();
+
+        /** The start time, 0 if the partition wasn't started yet */
+        private volatile long startMillis;
+
+        /** The end time, 0 if the partition isn't completed */
+        private volatile long endMillis;
+    }
+}
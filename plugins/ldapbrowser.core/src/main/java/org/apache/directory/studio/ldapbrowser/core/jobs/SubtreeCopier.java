@@ -0,0 +1,838 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.naming.directory.SearchControls;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.message.controls.PagedResults;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
+import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
+import org.apache.directory.studio.connection.core.Controls;
+import org.apache.directory.studio.connection.core.io.StudioLdapException;
+import org.apache.directory.studio.connection.core.io.WritePipeline;
+import org.apache.directory.studio.connection.core.io.WritePipeline.PendingWrite;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
+
+
+/**
+ * Copies the entries below an entry using a single paged search and a write pipeline:
+ * <ol>
+ * <li>The source entries are read with a paged one-level or subtree search
+ * <li>The read entries are collected in a bounded buffer and sorted parent-first
+ * <li>The entries are sent through a {@link WritePipeline} to the target, an entry
+ *     is only sent when the creation of its parent is completed
+ * </ol>
+ * If the server returns a child before its parent and the parent is in a later buffer
+ * the creation of the child fails with error 32, such entries are retried at the end.
+ * <p>
+ * The number of completed entries is recorded as checkpoint. If a copy is canceled or
+ * fails and the same copy is started again it resumes after the checkpoint, provided
+ * the source returns the same entries in the same order. The checkpoint also records
+ * the entries completed after that position and the entries renamed on conflict, an
+ * existing entry is only ignored if the interrupted copy completed it. Other existing
+ * entries are handled by the copy strategy dialog.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class SubtreeCopier
+{
+    /** The page size of the source search */
+    private static final int PAGE_SIZE = 1000;
+
+    /** The number of entries that are sorted parent-first */
+    private static final int BUFFER_SIZE = 1000;
+
+    /** The minimum interval between two progress reports */
+    private static final long PROGRESS_INTERVAL_MILLIS = 500L;
+
+    /** The time after which the checkpoint of an interrupted copy is discarded */
+    private static final long CHECKPOINT_TIMEOUT_MILLIS = 24 * 60 * 60 * 1000L;
+
+    /** The maximum number of kept checkpoints, the oldest checkpoints are discarded first */
+    private static final int MAX_CHECKPOINTS = 100;
+
+    /** The checkpoints of interrupted copies, by copy key */
+    private static final Map<String, Checkpoint> CHECKPOINTS = new ConcurrentHashMap<String, Checkpoint>();
+
+    /** Sorts entries parent-first, keeps the order of entries with the same depth */
+    private static final Comparator<Entry> DEPTH_COMPARATOR = new Comparator<Entry>()
+    {
+        public int compare( Entry e1, Entry e2 )
+        {
+            return Integer.compare( e1.getDn().size(), e2.getDn().size() );
+        }
+    };
+
+    /** The source browser connection */
+    private IBrowserConnection sourceBrowserConnection;
+
+    /** The Dn of the source parent entry */
+    private Dn sourceDn;
+
+    /** The target browser connection */
+    private IBrowserConnection targetBrowserConnection;
+
+    /** The Dn of the target parent entry */
+    private Dn targetDn;
+
+    /** The copy scope, one level or subtree */
+    private SearchScope scope;
+
+    /** The dialog to ask for the copy strategy, may be null */
+    private EntryExistsCopyStrategyDialog dialog;
+
+    /** The dummy monitor, used to receive the result of a single entry */
+    private StudioProgressMonitor dummyMonitor;
+
+    /** The progress monitor */
+    private StudioProgressMonitor monitor;
+
+    /** The key of this copy, used to store the checkpoint */
+    private String checkpointKey;
+
+    /** The checkpoint of an interrupted copy, null if not resuming */
+    private Checkpoint checkpoint;
+
+    /** The checkpoint this copy resumes from, null if all entries are copied */
+    private Checkpoint resumeFrom;
+
+    /** The write pipeline */
+    private WritePipeline pipeline;
+
+    /** The sent entries whose results are not received yet, in sending order */
+    private Deque<PendingRecord> outstanding = new ArrayDeque<PendingRecord>();
+
+    /** The sent entries whose results are not received yet, by normalized source Dn */
+    private Map<String, PendingRecord> outstandingByDn = new HashMap<String, PendingRecord>();
+
+    /** The target Dns of entries that were renamed on conflict, by normalized source Dn */
+    private Map<String, Dn> renamedDns = new HashMap<String, Dn>();
+
+    /** The positions of the entries completed while the checkpoint couldn't advance, by normalized source Dn */
+    private Map<String, Integer> completedDns = new HashMap<String, Integer>();
+
+    /** The entries to retry because their parent wasn't created yet */
+    private List<PendingRecord> retries = new ArrayList<PendingRecord>();
+
+    /** The number of read entries */
+    private int index;
+
+    /** The hash of the normalized Dns of the read entries */
+    private long hash;
+
+    /** The checkpoint up to which all entries are completed, null if none */
+    private Checkpoint confirmed;
+
+    /** Set if the checkpoint can't advance because an entry is retried */
+    private boolean checkpointFrozen;
+
+    /** Set if an error occurred */
+    private boolean stopped;
+
+    /** The number of copied entries, including the entries copied before */
+    private int numberOfCopiedEntries;
+
+    /** The number of entries written in this run */
+    private int numberOfWrittenEntries;
+
+    /** The number of entries the server estimated, 0 if unknown */
+    private int estimatedTotal;
+
+    /** The start time */
+    private long startMillis;
+
+    /** The time of the last progress report */
+    private long lastProgressMillis;
+
+
+    /**
+     * Creates a new instance of SubtreeCopier.
+     *
+     * @param sourceBrowserConnection the source browser connection
+     * @param sourceDn the Dn of the source parent entry
+     * @param targetBrowserConnection the target browser connection
+     * @param targetDn the Dn of the target parent entry
+     * @param scope the copy scope, one level or subtree
+     * @param dialog the dialog to ask for the copy strategy, if null the user won't be
+     *        asked instead the exception is reported to the monitor
+     * @param dummyMonitor the dummy monitor
+     * @param monitor the progress monitor
+     */
+    SubtreeCopier( IBrowserConnection sourceBrowserConnection, Dn sourceDn,
+        IBrowserConnection targetBrowserConnection, Dn targetDn, SearchScope scope,
+        EntryExistsCopyStrategyDialog dialog, StudioProgressMonitor dummyMonitor, StudioProgressMonitor monitor )
+    {
+        this.sourceBrowserConnection = sourceBrowserConnection;
+        this.sourceDn = sourceDn;
+        this.targetBrowserConnection = targetBrowserConnection;
+        this.targetDn = targetDn;
+        this.scope = scope;
+        this.dialog = dialog;
+        this.dummyMonitor = dummyMonitor;
+        this.monitor = monitor;
+
+        this.checkpointKey = sourceBrowserConnection.getConnection().getId() + '|' + sourceDn.getNormName() + '|'
+            + targetBrowserConnection.getConnection().getId() + '|' + targetDn.getNormName() + '|' + scope;
+
+        evictCheckpoints();
+        this.checkpoint = CHECKPOINTS.get( checkpointKey );
+    }
+
+
+    /**
+     * Checks if this copy resumes an interrupted copy that copied the
+     * entries below the given target parent entry.
+     *
+     * @param parentDn the Dn of the target parent entry
+     *
+     * @return true, if the interrupted copy created or updated the given target parent entry
+     */
+    boolean isResumingInto( Dn parentDn )
+    {
+        return checkpoint != null && checkpoint.parentDn.equals( parentDn );
+    }
+
+
+    /**
+     * Copies the entries below the source parent entry.
+     *
+     * @param parentDn the Dn of the target parent entry, differs from the Dn passed to the
+     *        constructor if the parent entry was renamed on conflict
+     * @param numberOfCopiedEntries the number of copied entries
+     *
+     * @return the cumulative number of copied entries
+     */
+    int copy( Dn parentDn, int numberOfCopiedEntries )
+    {
+        this.targetDn = parentDn;
+        this.numberOfCopiedEntries = numberOfCopiedEntries;
+        this.startMillis = System.currentTimeMillis();
+
+        resumeFrom = isResumingInto( parentDn ) && exists( checkpoint.targetDn ) ? checkpoint : null;
+        if ( resumeFrom != null )
+        {
+            renamedDns.putAll( resumeFrom.renamedDns );
+        }
+
+        int windowSize = targetBrowserConnection.getConnection().getConnectionParameter().getWriteWindowSize();
+        pipeline = targetBrowserConnection.getConnection().getConnectionWrapper()
+            .openWritePipeline( windowSize, monitor );
+
+        try
+        {
+            if ( !copyEntries() )
+            {
+                // the source entries changed since the interrupted copy, copy all entries again
+                this.numberOfCopiedEntries = numberOfCopiedEntries;
+                index = 0;
+                hash = 0;
+                confirmed = null;
+                resumeFrom = null;
+                renamedDns.clear();
+                completedDns.clear();
+                copyEntries();
+            }
+
+            completeAll();
+            retry();
+            completeAll();
+        }
+        catch ( Exception e )
+        {
+            stopped = true;
+            dummyMonitor.reportError( e );
+            monitor.reportError( e );
+        }
+        finally
+        {
+            pipeline.close();
+
+            if ( !stopped && !monitor.isCanceled() )
+            {
+                CHECKPOINTS.remove( checkpointKey );
+            }
+            else if ( confirmed != null )
+            {
+                CHECKPOINTS.put( checkpointKey, createCheckpoint() );
+            }
+        }
+
+        return this.numberOfCopiedEntries;
+    }
+
+
+    /**
+     * Reads the source entries with a paged search and copies them, entries
+     * covered by the checkpoint to resume from are skipped.
+     *
+     * @return false if the read entries don't match the checkpoint
+     * @throws LdapException if reading the source entries fails
+     */
+    private boolean copyEntries() throws LdapException
+    {
+        SearchControls searchControls = new SearchControls();
+        searchControls.setCountLimit( 0 );
+        searchControls.setReturningAttributes( new String[]
+            { SchemaConstants.ALL_USER_ATTRIBUTES, SchemaConstants.REF_AT } );
+        searchControls.setSearchScope( scope == SearchScope.ONELEVEL ? SearchControls.ONELEVEL_SCOPE
+            : SearchControls.SUBTREE_SCOPE );
+        boolean paged = sourceBrowserConnection.getRootDSE().isControlSupported( PagedResults.OID );
+
+        List<Entry> buffer = new ArrayList<Entry>( BUFFER_SIZE );
+        byte[] cookie = null;
+        do
+        {
+            Control[] controls = paged ? new Control[]
+                { Controls.newPagedResultsControl( PAGE_SIZE, cookie ) } : null;
+            cookie = null;
+
+            dummyMonitor.reset();
+            StudioSearchResultEnumeration result = sourceBrowserConnection.getConnection().getConnectionWrapper()
+                .search( sourceDn.getName(), ISearch.FILTER_TRUE, searchControls, AliasDereferencingMethod.NEVER,
+                    ReferralHandlingMethod.IGNORE, controls, dummyMonitor, null );
+            if ( result == null )
+            {
+                stopped = true;
+                monitor.reportError( dummyMonitor.getException() );
+                return true;
+            }
+
+            try
+            {
+                while ( !monitor.isCanceled() && !stopped && result.hasMore() )
+                {
+                    Entry entry = result.next().getEntry();
+                    if ( entry.getDn().size() > sourceDn.size() )
+                    {
+                        buffer.add( entry );
+                    }
+
+                    if ( buffer.size() >= BUFFER_SIZE )
+                    {
+                        if ( !copyBuffer( buffer ) )
+                        {
+                            return false;
+                        }
+                        buffer.clear();
+                    }
+                }
+
+                for ( Control responseControl : result.getResponseControls() )
+                {
+                    if ( responseControl instanceof PagedResults )
+                    {
+                        PagedResults prc = ( PagedResults ) responseControl;
+                        estimatedTotal = Math.max( estimatedTotal, prc.getSize() );
+                        if ( ArrayUtils.isNotEmpty( prc.getCookie() ) )
+                        {
+                            cookie = prc.getCookie();
+                        }
+                    }
+                }
+            }
+            finally
+            {
+                // abandons the search if the copy was canceled or stopped, and gives the connection back
+                SearchRunnable.closeEnumeration( result );
+            }
+        }
+        while ( cookie != null && !monitor.isCanceled() && !stopped );
+
+        if ( !buffer.isEmpty() && !monitor.isCanceled() && !stopped && !copyBuffer( buffer ) )
+        {
+            return false;
+        }
+
+        return resumeFrom == null || index >= resumeFrom.count || monitor.isCanceled() || stopped;
+    }
+
+
+    /**
+     * Sorts the buffered entries parent-first and sends them. Entries covered by
+     * the checkpoint are skipped.
+     *
+     * @param buffer the buffered entries
+     *
+     * @return false if the read entries don't match the checkpoint
+     */
+    private boolean copyBuffer( List<Entry> buffer )
+    {
+        Collections.sort( buffer, DEPTH_COMPARATOR );
+
+        for ( Entry entry : buffer )
+        {
+            if ( monitor.isCanceled() || stopped )
+            {
+                break;
+            }
+
+            Dn entrySourceDn = entry.getDn();
+            index++;
+            hash = 31 * hash + entrySourceDn.getNormName().hashCode();
+
+            if ( resumeFrom != null && index <= resumeFrom.count )
+            {
+                // copied by the interrupted copy
+                if ( index == resumeFrom.count )
+                {
+                    if ( hash != resumeFrom.hash )
+                    {
+                        return false;
+                    }
+                    confirmed = resumeFrom;
+                }
+                numberOfCopiedEntries++;
+                reportProgress();
+                continue;
+            }
+
+            send( new PendingRecord( entry, entrySourceDn, index, hash ) );
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Sends the entry of the given record after its parent was completed.
+     *
+     * @param record the record
+     */
+    private void send( PendingRecord record )
+    {
+        PendingRecord parent = outstandingByDn.get( record.sourceDn.getParent().getNormName() );
+        if ( parent != null )
+        {
+            PendingRecord completed;
+            do
+            {
+                completed = outstanding.poll();
+                complete( completed );
+            }
+            while ( completed != parent && !stopped );
+        }
+
+        if ( monitor.isCanceled() || stopped )
+        {
+            return;
+        }
+
+        record.entry.setDn( getTargetDn( record.sourceDn ) );
+
+        // ManageDsaIT control
+        Control[] controls = null;
+        if ( record.entry.hasObjectClass( SchemaConstants.REFERRAL_OC ) )
+        {
+            controls = new Control[]
+                { Controls.MANAGEDSAIT_CONTROL };
+        }
+
+        record.pendingWrite = pipeline.createEntry( record.entry, controls );
+        outstanding.add( record );
+        outstandingByDn.put( record.sourceDn.getNormName(), record );
+
+        while ( outstanding.size() > pipeline.getWindowSize() && !stopped )
+        {
+            complete( outstanding.poll() );
+        }
+    }
+
+
+    /**
+     * Waits for the result of the given record and handles existing entries.
+     *
+     * @param record the record
+     */
+    private void complete( PendingRecord record )
+    {
+        outstandingByDn.remove( record.sourceDn.getNormName() );
+
+        dummyMonitor.reset();
+        record.pendingWrite.await( dummyMonitor );
+
+        if ( dummyMonitor.errorsReported() )
+        {
+            Exception exception = dummyMonitor.getException();
+            if ( resumeFrom != null && resumeFrom.completedDns.containsKey( record.sourceDn.getNormName() )
+                && StudioLdapException.isEntryAlreadyExistsException( exception ) )
+            {
+                // completed by the interrupted copy
+                dummyMonitor.reset();
+            }
+            else if ( !record.retried && StudioLdapException.isNoSuchObjectException( exception ) )
+            {
+                // the parent wasn't created yet
+                dummyMonitor.reset();
+                record.retried = true;
+                retries.add( record );
+                checkpointFrozen = true;
+                return;
+            }
+            else
+            {
+                Dn sentDn = record.entry.getDn();
+                try
+                {
+                    CopyEntriesRunnable.handleCreateError( targetBrowserConnection, record.entry, dialog,
+                        dummyMonitor, monitor );
+                }
+                catch ( LdapException e )
+                {
+                    dummyMonitor.reportError( e );
+                    monitor.reportError( e );
+                }
+
+                if ( dummyMonitor.errorsReported() )
+                {
+                    stopped = true;
+                    return;
+                }
+                if ( !sentDn.equals( record.entry.getDn() ) )
+                {
+                    renamedDns.put( record.sourceDn.getNormName(), record.entry.getDn() );
+                }
+            }
+        }
+
+        if ( monitor.isCanceled() )
+        {
+            return;
+        }
+
+        numberOfCopiedEntries++;
+        numberOfWrittenEntries++;
+        if ( !checkpointFrozen )
+        {
+            confirmed = new Checkpoint( record.index, record.hash, record.entry.getDn() );
+        }
+        else
+        {
+            completedDns.put( record.sourceDn.getNormName(), record.index );
+        }
+        reportProgress();
+    }
+
+
+    /**
+     * Waits for the results of all outstanding records.
+     */
+    private void completeAll()
+    {
+        while ( !outstanding.isEmpty() && !stopped )
+        {
+            complete( outstanding.poll() );
+        }
+    }
+
+
+    /**
+     * Sends the records again whose parent wasn't created when they were sent first.
+     */
+    private void retry()
+    {
+        List<PendingRecord> records = retries;
+        retries = new ArrayList<PendingRecord>();
+        Collections.sort( records, new Comparator<PendingRecord>()
+        {
+            public int compare( PendingRecord r1, PendingRecord r2 )
+            {
+                return Integer.compare( r1.sourceDn.size(), r2.sourceDn.size() );
+            }
+        } );
+
+        for ( PendingRecord record : records )
+        {
+            if ( monitor.isCanceled() || stopped )
+            {
+                break;
+            }
+            send( record );
+        }
+    }
+
+
+    /**
+     * Gets the target Dn of a source entry, takes renamed parents into account.
+     *
+     * @param entrySourceDn the Dn of the source entry
+     *
+     * @return the target Dn
+     */
+    private Dn getTargetDn( Dn entrySourceDn )
+    {
+        try
+        {
+            if ( !renamedDns.isEmpty() )
+            {
+                for ( Dn dn = entrySourceDn.getParent(); dn.size() > sourceDn.size(); dn = dn.getParent() )
+                {
+                    Dn renamedDn = renamedDns.get( dn.getNormName() );
+                    if ( renamedDn != null )
+                    {
+                        return renamedDn.add( entrySourceDn.getDescendantOf( dn ) );
+                    }
+                }
+            }
+
+            return targetDn.add( entrySourceDn.getDescendantOf( sourceDn ) );
+        }
+        catch ( LdapException e )
+        {
+            throw new IllegalArgumentException( e );
+        }
+    }
+
+
+    /**
+     * Checks if an entry exists in the target directory.
+     *
+     * @param dn the Dn
+     *
+     * @return true, if the entry exists
+     */
+    private boolean exists( Dn dn )
+    {
+        SearchControls searchControls = new SearchControls();
+        searchControls.setCountLimit( 1 );
+        searchControls.setReturningAttributes( new String[]
+            { SchemaConstants.NO_ATTRIBUTE } );
+        searchControls.setSearchScope( SearchControls.OBJECT_SCOPE );
+
+        dummyMonitor.reset();
+        StudioSearchResultEnumeration result = targetBrowserConnection.getConnection().getConnectionWrapper()
+            .search( dn.getName(), ISearch.FILTER_TRUE, searchControls, AliasDereferencingMethod.NEVER,
+                ReferralHandlingMethod.IGNORE, null, dummyMonitor, null );
+        try
+        {
+            return result != null && result.hasMore();
+        }
+        catch ( LdapException e )
+        {
+            return false;
+        }
+        finally
+        {
+            SearchRunnable.closeEnumeration( result );
+            dummyMonitor.reset();
+        }
+    }
+
+
+    /**
+     * Creates the checkpoint of this copy from the confirmed position, the entries
+     * completed after it, including those completed by the copy this copy resumes,
+     * and the entries renamed on conflict.
+     *
+     * @return the checkpoint
+     */
+    private Checkpoint createCheckpoint()
+    {
+        Map<String, Integer> checkpointCompletedDns = new HashMap<String, Integer>();
+        if ( resumeFrom != null )
+        {
+            checkpointCompletedDns.putAll( resumeFrom.completedDns );
+        }
+        checkpointCompletedDns.putAll( completedDns );
+
+        for ( Iterator<Integer> it = checkpointCompletedDns.values().iterator(); it.hasNext(); )
+        {
+            if ( it.next() <= confirmed.count )
+            {
+                it.remove();
+            }
+        }
+
+        return new Checkpoint( confirmed.count, confirmed.hash, confirmed.targetDn, targetDn,
+            new HashMap<String, Dn>( renamedDns ), checkpointCompletedDns );
+    }
+
+
+    /**
+     * Discards the expired checkpoints, and the oldest checkpoints if there are too many.
+     */
+    private static void evictCheckpoints()
+    {
+        long expired = System.currentTimeMillis() - CHECKPOINT_TIMEOUT_MILLIS;
+
+        for ( Iterator<Checkpoint> it = CHECKPOINTS.values().iterator(); it.hasNext(); )
+        {
+            if ( it.next().createdMillis < expired )
+            {
+                it.remove();
+            }
+        }
+
+        while ( CHECKPOINTS.size() > MAX_CHECKPOINTS )
+        {
+            Map.Entry<String, Checkpoint> oldest = null;
+            for ( Map.Entry<String, Checkpoint> entry : CHECKPOINTS.entrySet() )
+            {
+                if ( oldest == null || entry.getValue().createdMillis < oldest.getValue().createdMillis )
+                {
+                    oldest = entry;
+                }
+            }
+            if ( oldest == null )
+            {
+                break;
+            }
+            CHECKPOINTS.remove( oldest.getKey(), oldest.getValue() );
+        }
+    }
+
+
+    /**
+     * Reports the number of copied entries, the throughput and, if the server
+     * estimated the number of entries, the remaining time.
+     */
+    private void reportProgress()
+    {
+        long now = System.currentTimeMillis();
+        if ( now - lastProgressMillis < PROGRESS_INTERVAL_MILLIS )
+        {
+            return;
+        }
+        lastProgressMillis = now;
+
+        long elapsedMillis = Math.max( 1L, now - startMillis );
+        long rate = numberOfWrittenEntries * 1000L / elapsedMillis;
+
+        if ( estimatedTotal > index && rate > 0 )
+        {
+            long remainingSeconds = ( estimatedTotal - index ) / rate;
+            String remaining = String.format( "%d:%02d:%02d", remainingSeconds / 3600, //$NON-NLS-1$
+                ( remainingSeconds / 60 ) % 60, remainingSeconds % 60 );
+            int total = numberOfCopiedEntries + estimatedTotal - index;
+            monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.model__copied_n_entries_eta,
+                new String[]
+                    { Integer.toString( numberOfCopiedEntries ), Integer.toString( total ), Long.toString( rate ),
+                        remaining } ) );
+        }
+        else
+        {
+            monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.model__copied_n_entries_rate,
+                new String[]
+                    { Integer.toString( numberOfCopiedEntries ), Long.toString( rate ) } ) );
+        }
+    }
+
+    /**
+     * A read source entry and the pending creation of the target entry.
+     */
+    private static class PendingRecord
+    {
+        /** The entry, its Dn is set to the target Dn when sent */
+        private final Entry entry;
+
+        /** The source Dn */
+        private final Dn sourceDn;
+
+        /** The position in the sending order */
+        private final int index;
+
+        /** The hash of the normalized source Dns up to this entry */
+        private final long hash;
+
+        /** The pending write */
+        private PendingWrite pendingWrite;
+
+        /** Set if the entry is sent a second time */
+        private boolean retried;
+
+
+        private PendingRecord( Entry entry, Dn sourceDn, int index, long hash )
+        {
+            this.entry = entry;
+            this.sourceDn = sourceDn;
+            this.index = index;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * The position up to which all entries of a copy are completed.
+     */
+    private static class Checkpoint
+    {
+        /** The number of completed entries */
+        private final int count;
+
+        /** The hash of the normalized source Dns of the completed entries */
+        private final long hash;
+
+        /** The target Dn of the last completed entry */
+        private final Dn targetDn;
+
+        /** The Dn of the target parent entry, null if not stored */
+        private final Dn parentDn;
+
+        /** The target Dns of entries that were renamed on conflict, by normalized source Dn */
+        private final Map<String, Dn> renamedDns;
+
+        /** The positions of the entries completed after the checkpoint, by normalized source Dn */
+        private final Map<String, Integer> completedDns;
+
+        /** The creation time */
+        private final long createdMillis = System.currentTimeMillis();
+
+
+        private Checkpoint( int count, long hash, Dn targetDn )
+        {
+            this( count, hash, targetDn, null, Collections.<String, Dn> emptyMap(),
+                Collections.<String, Integer> emptyMap() );
+        }
+
+
+        private Checkpoint( int count, long hash, Dn targetDn, Dn parentDn, Map<String, Dn> renamedDns,
+            Map<String, Integer> completedDns )
+        {
+            this.count = count;
+            this.hash = hash;
+            this.targetDn = targetDn;
+            this.parentDn = parentDn;
+            this.renamedDns = renamedDns;
+            this.completedDns = completedDns;
+        }
+    }
+}
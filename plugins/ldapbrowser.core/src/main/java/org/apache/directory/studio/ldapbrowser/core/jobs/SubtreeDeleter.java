@@ -0,0 +1,518 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.naming.directory.SearchControls;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.controls.PagedResults;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
+import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
+import org.apache.directory.studio.connection.core.ConnectionParameter;
+import org.apache.directory.studio.connection.core.Controls;
+import org.apache.directory.studio.connection.core.io.StudioLdapException;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
+import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
+
+
+/**
+ * Deletes all entries below an entry, bottom-up and in parallel:
+ * <ol>
+ * <li>The subtree is enumerated with a paged subtree search and the found
+ *     entries are grouped by their depth. At most MAX_ENTRIES_PER_ROUND
+ *     entries are kept per round, the enumeration continues beyond that limit
+ *     but only the deepest entries are kept, so each round finds leaves.
+ * <li>The deepest level is deleted first, the entries of one level are deleted
+ *     concurrently by several workers. As the connection wrapper borrows a
+ *     pooled connection for each operation the deletes are spread over several
+ *     connections if the connection pool is enabled.
+ * <li>A level is only started when the deeper level is completed, so a parent
+ *     is never deleted before its children
+ * </ol>
+ * Rounds are repeated until the subtree is empty. If a search limit is exceeded
+ * entries may be found whose children were not found. Their deletion fails with
+ * error 66 and they are retried in the next round. If a round deletes nothing
+ * the subtrees of the deepest entries that could not be deleted are deleted
+ * first, each with its own enumeration.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class SubtreeDeleter
+{
+    /** The page size of the subtree search */
+    private static final int PAGE_SIZE = 1000;
+
+    /** The maximum number of entries enumerated in one round */
+    private static final int MAX_ENTRIES_PER_ROUND = 100000;
+
+    /** The browser connection */
+    private IBrowserConnection browserConnection;
+
+    /** The progress monitor */
+    private StudioProgressMonitor monitor;
+
+    /** The number of concurrent delete workers */
+    private int numberOfWorkers;
+
+    /** The maximum number of entries kept in one round */
+    private int maxEntriesPerRound;
+
+
+    /**
+     * Creates a new instance of SubtreeDeleter.
+     *
+     * @param browserConnection the browser connection
+     * @param monitor the progress monitor
+     */
+    SubtreeDeleter( IBrowserConnection browserConnection, StudioProgressMonitor monitor )
+    {
+        this( browserConnection, monitor, getNumberOfWorkers( browserConnection ), MAX_ENTRIES_PER_ROUND );
+    }
+
+
+    /**
+     * Creates a new instance of SubtreeDeleter.
+     *
+     * @param browserConnection the browser connection
+     * @param monitor the progress monitor
+     * @param numberOfWorkers the number of concurrent delete workers
+     * @param maxEntriesPerRound the maximum number of entries kept in one round
+     */
+    SubtreeDeleter( IBrowserConnection browserConnection, StudioProgressMonitor monitor, int numberOfWorkers,
+        int maxEntriesPerRound )
+    {
+        this.browserConnection = browserConnection;
+        this.monitor = monitor;
+        this.numberOfWorkers = numberOfWorkers;
+        this.maxEntriesPerRound = maxEntriesPerRound;
+    }
+
+
+    private static int getNumberOfWorkers( IBrowserConnection browserConnection )
+    {
+        ConnectionParameter parameter = browserConnection.getConnection().getConnectionParameter();
+        return parameter.isPoolEnabled() ? Math.max( 1, parameter.getPoolMaxSize() ) : 1;
+    }
+
+
+    /**
+     * Deletes all entries below the given entry, the entry itself is not deleted.
+     * Errors are reported to the dummy monitor, errors other than error 66 are
+     * also reported to the progress monitor.
+     *
+     * @param dn the Dn of the parent entry
+     * @param numberOfDeletedEntries the number of deleted entries
+     * @param dummyMonitor the dummy monitor
+     *
+     * @return the cumulative number of deleted entries
+     */
+    int deleteChildren( Dn dn, int numberOfDeletedEntries, StudioProgressMonitor dummyMonitor )
+    {
+        ExecutorService executor = numberOfWorkers > 1 ? Executors.newFixedThreadPool( numberOfWorkers ) : null;
+
+        try
+        {
+            return deleteSubtree( dn, numberOfDeletedEntries, executor, dummyMonitor );
+        }
+        finally
+        {
+            if ( executor != null )
+            {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+
+    /**
+     * Deletes all entries below the given entry in rounds.
+     *
+     * @param dn the Dn of the parent entry
+     * @param numberOfDeletedEntries the number of deleted entries
+     * @param executor the executor, null to delete in the current thread
+     * @param dummyMonitor the dummy monitor
+     *
+     * @return the cumulative number of deleted entries
+     */
+    private int deleteSubtree( Dn dn, int numberOfDeletedEntries, ExecutorService executor,
+        StudioProgressMonitor dummyMonitor )
+    {
+        while ( !monitor.isCanceled() && !dummyMonitor.errorsReported() )
+        {
+            Levels levels = new Levels( maxEntriesPerRound );
+            enumerateChildren( dn, levels, dummyMonitor );
+            if ( levels.isEmpty() || dummyMonitor.errorsReported() )
+            {
+                break;
+            }
+
+            // delete bottom-up, level by level
+            int deletedInRound = 0;
+            List<Dn> notEmpty = null;
+            for ( List<Dn> level : levels.getLevels().descendingMap().values() )
+            {
+                if ( monitor.isCanceled() || dummyMonitor.errorsReported() )
+                {
+                    break;
+                }
+
+                List<Dn> notDeleted = new ArrayList<Dn>();
+                int deleted = deleteLevel( level, executor, numberOfDeletedEntries, dummyMonitor, notDeleted );
+                numberOfDeletedEntries += deleted;
+                deletedInRound += deleted;
+                if ( notEmpty == null )
+                {
+                    notEmpty = notDeleted;
+                }
+            }
+
+            if ( deletedInRound == 0 && notEmpty != null )
+            {
+                // the children of the deepest entries were not found, e.g. because a search
+                // limit was exceeded, delete their subtrees with their own enumerations
+                for ( Dn notEmptyDn : notEmpty )
+                {
+                    if ( monitor.isCanceled() || dummyMonitor.errorsReported() )
+                    {
+                        break;
+                    }
+                    int deleted = deleteSubtree( notEmptyDn, numberOfDeletedEntries, executor, dummyMonitor )
+                        - numberOfDeletedEntries;
+                    numberOfDeletedEntries += deleted;
+                    deletedInRound += deleted;
+                }
+            }
+
+            if ( deletedInRound == 0 )
+            {
+                // no progress at all, the final delete of the parent reports the error
+                break;
+            }
+        }
+
+        return numberOfDeletedEntries;
+    }
+
+
+    /**
+     * Enumerates the entries below the given entry using a paged subtree search.
+     *
+     * @param dn the Dn of the parent entry
+     * @param levels the levels to collect the found Dns
+     * @param dummyMonitor the dummy monitor
+     */
+    void enumerateChildren( Dn dn, Levels levels, StudioProgressMonitor dummyMonitor )
+    {
+        // do not follow referrals or dereference aliases when deleting entries
+        AliasDereferencingMethod aliasDereferencingMethod = AliasDereferencingMethod.NEVER;
+        ReferralHandlingMethod referralsHandlingMethod = ReferralHandlingMethod.IGNORE;
+
+        SearchControls searchControls = new SearchControls();
+        searchControls.setReturningAttributes( new String[0] );
+        searchControls.setSearchScope( SearchControls.SUBTREE_SCOPE );
+        boolean paged = browserConnection.getRootDSE().isControlSupported( PagedResults.OID );
+
+        byte[] cookie = null;
+        do
+        {
+            Control[] controls = paged ? new Control[]
+                { Controls.newPagedResultsControl( PAGE_SIZE, cookie ) } : null;
+            cookie = null;
+
+            StudioSearchResultEnumeration result = browserConnection.getConnection().getConnectionWrapper()
+                .search( dn.getName(), ISearch.FILTER_TRUE, searchControls, aliasDereferencingMethod,
+                    referralsHandlingMethod, controls, dummyMonitor, null );
+            if ( result == null )
+            {
+                break;
+            }
+
+            try
+            {
+                while ( !monitor.isCanceled() && result.hasMore() )
+                {
+                    Dn childDn = result.next().getDn();
+                    if ( childDn.size() > dn.size() )
+                    {
+                        levels.add( childDn );
+                    }
+                }
+
+                for ( Control responseControl : result.getResponseControls() )
+                {
+                    if ( responseControl instanceof PagedResults
+                        && ArrayUtils.isNotEmpty( ( ( PagedResults ) responseControl ).getCookie() ) )
+                    {
+                        cookie = ( ( PagedResults ) responseControl ).getCookie();
+                    }
+                }
+            }
+            catch ( Exception e )
+            {
+                int ldapStatusCode = JNDIUtils.getLdapStatusCode( e );
+                if ( ldapStatusCode == 3 || ldapStatusCode == 4 || ldapStatusCode == 11 )
+                {
+                    // continue with the found entries
+                }
+                else
+                {
+                    dummyMonitor.reportError( e );
+                    monitor.reportError( e );
+                }
+                break;
+            }
+            finally
+            {
+                // abandons the search if it was canceled or interrupted, and gives the connection back
+                SearchRunnable.closeEnumeration( result );
+            }
+        }
+        while ( cookie != null && !monitor.isCanceled() );
+    }
+
+
+    /**
+     * Deletes the entries of one level concurrently and waits until all are done.
+     * Entries that still have children are skipped.
+     *
+     * @param dns the Dns of the level
+     * @param executor the executor, null to delete in the current thread
+     * @param numberOfDeletedEntries the number of already deleted entries, used for progress reporting
+     * @param dummyMonitor the dummy monitor
+     * @param notEmpty the list to collect the Dns of the entries that still have children
+     *
+     * @return the number of deleted entries of this level
+     */
+    private int deleteLevel( List<Dn> dns, ExecutorService executor, int numberOfDeletedEntries,
+        StudioProgressMonitor dummyMonitor, List<Dn> notEmpty )
+    {
+        final ConcurrentLinkedQueue<Dn> notEmptyQueue = new ConcurrentLinkedQueue<Dn>();
+        final ConcurrentLinkedQueue<Dn> queue = new ConcurrentLinkedQueue<Dn>( dns );
+        final AtomicInteger deleted = new AtomicInteger();
+        final AtomicReference<Exception> error = new AtomicReference<Exception>();
+
+        int workers = executor == null ? 1 : Math.min( numberOfWorkers, dns.size() );
+        final CountDownLatch latch = new CountDownLatch( workers );
+        Runnable worker = new Runnable()
+        {
+            public void run()
+            {
+                StudioProgressMonitor workerMonitor = new StudioProgressMonitor( monitor );
+                try
+                {
+                    Dn dn;
+                    while ( !monitor.isCanceled() && error.get() == null && ( dn = queue.poll() ) != null )
+                    {
+                        workerMonitor.reset();
+                        deleteEntry( dn, workerMonitor );
+
+                        if ( !workerMonitor.errorsReported() )
+                        {
+                            deleted.incrementAndGet();
+                        }
+                        else if ( StudioLdapException.isContextNotEmptyException( workerMonitor.getException() ) )
+                        {
+                            notEmptyQueue.add( dn );
+                        }
+                        else
+                        {
+                            error.compareAndSet( null, workerMonitor.getException() );
+                        }
+                    }
+                }
+                finally
+                {
+                    workerMonitor.done();
+                    latch.countDown();
+                }
+            }
+        };
+
+        if ( executor == null )
+        {
+            worker.run();
+        }
+        else
+        {
+            for ( int i = 0; i < workers; i++ )
+            {
+                executor.execute( worker );
+            }
+        }
+
+        try
+        {
+            while ( !latch.await( 1, TimeUnit.SECONDS ) )
+            {
+                reportProgress( numberOfDeletedEntries + deleted.get() );
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            monitor.setCanceled( true );
+        }
+        reportProgress( numberOfDeletedEntries + deleted.get() );
+        notEmpty.addAll( notEmptyQueue );
+
+        if ( error.get() != null )
+        {
+            dummyMonitor.reportError( error.get() );
+            monitor.reportError( error.get() );
+        }
+
+        return deleted.get();
+    }
+
+
+    /**
+     * Deletes a single entry.
+     *
+     * @param dn the Dn of the entry
+     * @param workerMonitor the monitor of the worker
+     */
+    void deleteEntry( Dn dn, StudioProgressMonitor workerMonitor )
+    {
+        DeleteEntriesRunnable.deleteEntry( browserConnection, dn, false, false, workerMonitor );
+    }
+
+
+    private void reportProgress( int numberOfDeletedEntries )
+    {
+        monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.model__deleted_n_entries,
+            new String[]
+                { Integer.toString( numberOfDeletedEntries ) } ) );
+    }
+
+
+    /**
+     * The Dns found in one round, grouped by their number of Rdns. If more Dns
+     * than the capacity are added the shallowest ones are dropped, so the deepest
+     * level, which only contains leaves, is always kept.
+     */
+    static class Levels
+    {
+        /** The maximum number of kept Dns */
+        private final int capacity;
+
+        /** The kept Dns, grouped by their number of Rdns */
+        private final NavigableMap<Integer, List<Dn>> levels = new TreeMap<Integer, List<Dn>>();
+
+        /** The number of kept Dns */
+        private int size;
+
+
+        /**
+         * Creates a new instance of Levels.
+         *
+         * @param capacity the maximum number of kept Dns
+         */
+        Levels( int capacity )
+        {
+            this.capacity = capacity;
+        }
+
+
+        /**
+         * Adds a Dn. If the capacity is reached a Dn of the shallowest level
+         * is dropped, or the given Dn if it is not deeper.
+         *
+         * @param dn the Dn
+         */
+        void add( Dn dn )
+        {
+            int depth = dn.size();
+
+            if ( size >= capacity )
+            {
+                Map.Entry<Integer, List<Dn>> shallowest = levels.firstEntry();
+                if ( shallowest == null || depth <= shallowest.getKey() )
+                {
+                    return;
+                }
+
+                List<Dn> level = shallowest.getValue();
+                level.remove( level.size() - 1 );
+                if ( level.isEmpty() )
+                {
+                    levels.remove( shallowest.getKey() );
+                }
+                size--;
+            }
+
+            List<Dn> level = levels.get( depth );
+            if ( level == null )
+            {
+                level = new ArrayList<Dn>();
+                levels.put( depth, level );
+            }
+            level.add( dn );
+            size++;
+        }
+
+
+        /**
+         * @return the kept Dns, grouped by their number of Rdns
+         */
+        NavigableMap<Integer, List<Dn>> getLevels()
+        {
+            return levels;
+        }
+
+
+        /**
+         * @return the number of kept Dns
+         */
+        int size()
+        {
+            return size;
+        }
+
+
+        /**
+         * @return true if no Dn is kept
+         */
+        boolean isEmpty()
+        {
+            return size == 0;
+        }
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.jobs.StudioConnectionRunnableWithProgress;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
+import org.apache.directory.studio.ldapbrowser.core.jobs.LdifSchemaValidator.Kind;
+import org.apache.directory.studio.ldapbrowser.core.jobs.LdifSchemaValidator.Violation;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.apache.directory.studio.ldifparser.LdifFormatParameters;
+import org.apache.directory.studio.ldifparser.LdifParserConstants;
+import org.apache.directory.studio.ldifparser.LdifUtils;
+import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
+import org.apache.directory.studio.ldifparser.model.container.LdifRecord;
+import org.apache.directory.studio.ldifparser.model.lines.LdifCommentLine;
+import org.apache.directory.studio.ldifparser.parser.ParallelLdifParser;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+
+/**
+ * Runnable used to validate an LDIF file against the cached schema of a connection,
+ * without contacting the server. The records are checked in batches on the common
+ * fork/join pool while the file is still being parsed, see {@link LdifSchemaValidator}.
+ * <p>
+ * The invalid records are written to the error file together with their violations,
+ * followed by a summary. The error file can be fixed and imported afterwards.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ValidateLdifRunnable implements StudioConnectionRunnableWithProgress
+{
+    /** The number of records validated by one task */
+    private static final int BATCH_SIZE = 1024;
+
+    /** The browser connection. */
+    private IBrowserConnection browserConnection;
+
+    /** The LDIF file. */
+    private File ldifFile;
+
+    /** The error file, may be null. */
+    private File errorFile;
+
+    /** The number of validated records. */
+    private int recordCount;
+
+    /** The number of invalid records. */
+    private int invalidCount;
+
+    /** The number of violations by kind. */
+    private Map<Kind, Integer> violationCounts = new EnumMap<Kind, Integer>( Kind.class );
+
+
+    /**
+     * Creates a new instance of ValidateLdifRunnable.
+     * 
+     * @param browserConnection the browser connection whose schema is used
+     * @param ldifFile the LDIF file
+     * @param errorFile the file the invalid records are written to, may be null
+     */
+    public ValidateLdifRunnable( IBrowserConnection browserConnection, File ldifFile, File errorFile )
+    {
+        this.browserConnection = browserConnection;
+        this.ldifFile = ldifFile;
+        this.errorFile = errorFile;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * The validation only uses the cached schema, so no connection is opened.
+     */
+    public Connection[] getConnections()
+    {
+        return new Connection[0];
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getName()
+    {
+        return BrowserCoreMessages.jobs__validate_ldif_name;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object[] getLockedObjects()
+    {
+        List<Object> l = new ArrayList<Object>();
+        l.add( browserConnection.getUrl() + "_" + DigestUtils.shaHex( ldifFile.toString() ) ); //$NON-NLS-1$
+        return l.toArray();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getErrorMessage()
+    {
+        return BrowserCoreMessages.jobs__validate_ldif_error;
+    }
+
+
+    /**
+     * Gets the number of validated records.
+     *
+     * @return the number of validated records
+     */
+    public int getRecordCount()
+    {
+        return recordCount;
+    }
+
+
+    /**
+     * Gets the number of invalid records.
+     *
+     * @return the number of invalid records
+     */
+    public int getInvalidCount()
+    {
+        return invalidCount;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run( StudioProgressMonitor monitor )
+    {
+        monitor.beginTask( BrowserCoreMessages.jobs__validate_ldif_task, 2 );
+        monitor.reportProgress( " " ); //$NON-NLS-1$
+        monitor.worked( 1 );
+
+        try
+        {
+            Charset charset = Charset.defaultCharset();
+            ParallelLdifParser parser = new ParallelLdifParser();
+            LdifEnumeration enumeration = parser.parse( ldifFile, charset );
+
+            Writer errorWriter;
+            if ( errorFile != null )
+            {
+                errorWriter = new BufferedWriter( new OutputStreamWriter( LdifUtils.openOutputStream( errorFile ),
+                    charset ), LdifUtils.STREAM_BUFFER_SIZE );
+            }
+            else
+            {
+                errorWriter = new Writer()
+                {
+                    public void close() throws IOException
+                    {
+                    }
+
+
+                    public void flush() throws IOException
+                    {
+                    }
+
+
+                    public void write( char[] cbuf, int off, int len ) throws IOException
+                    {
+                    }
+                };
+            }
+
+            try
+            {
+                validateLdif( enumeration, browserConnection.getSchema(), errorWriter, monitor );
+            }
+            finally
+            {
+                errorWriter.close();
+                parser.close();
+            }
+
+            if ( invalidCount > 0 )
+            {
+                StringBuilder sb = new StringBuilder( BrowserCoreMessages.bind(
+                    BrowserCoreMessages.jobs__validate_ldif_invalid_records, new Object[]
+                        { invalidCount, recordCount, errorFile != null ? errorFile.getPath() : "-" } ) ); //$NON-NLS-1$
+                for ( Map.Entry<Kind, Integer> entry : violationCounts.entrySet() )
+                {
+                    sb.append( BrowserCoreConstants.LINE_SEPARATOR );
+                    sb.append( entry.getValue() ).append( " x " ).append( entry.getKey().getLabel() ); //$NON-NLS-1$
+                }
+                monitor.reportError( sb.toString() );
+            }
+        }
+        catch ( Exception e )
+        {
+            monitor.reportError( e );
+        }
+    }
+
+
+    /**
+     * Validates the LDIF enumeration against the given schema. Batches of records
+     * are validated concurrently, the invalid records are written in the order of
+     * the enumeration.
+     * 
+     * @param enumeration the LDIF enumeration
+     * @param schema the schema
+     * @param errorWriter the writer for the invalid records
+     * @param monitor the progress monitor
+     * @throws LdapException if the LDIF can't be read
+     * @throws IOException if the error writer fails
+     * @throws InterruptedException if interrupted while waiting for a batch
+     * @throws ExecutionException if the validation of a batch fails
+     */
+    void validateLdif( LdifEnumeration enumeration, Schema schema, Writer errorWriter, IProgressMonitor monitor )
+        throws LdapException, IOException, InterruptedException, ExecutionException
+    {
+        final LdifSchemaValidator validator = new LdifSchemaValidator( schema );
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int maxPendingBatches = 2 * pool.getParallelism();
+        Deque<Batch> pending = new ArrayDeque<Batch>();
+
+        List<LdifRecord> records = new ArrayList<LdifRecord>( BATCH_SIZE );
+        while ( !monitor.isCanceled() && enumeration.hasNext() )
+        {
+            LdifContainer container = enumeration.next();
+            if ( container instanceof LdifRecord )
+            {
+                records.add( ( LdifRecord ) container );
+            }
+
+            if ( records.size() == BATCH_SIZE )
+            {
+                pending.add( new Batch( pool, validator, records ) );
+                records = new ArrayList<LdifRecord>( BATCH_SIZE );
+                while ( pending.size() > maxPendingBatches )
+                {
+                    writeBatch( pending.removeFirst(), errorWriter, monitor );
+                }
+            }
+        }
+
+        if ( !records.isEmpty() )
+        {
+            pending.add( new Batch( pool, validator, records ) );
+        }
+        while ( !pending.isEmpty() )
+        {
+            writeBatch( pending.removeFirst(), errorWriter, monitor );
+        }
+
+        writeSummary( errorWriter );
+    }
+
+
+    /**
+     * Waits for the given batch and writes its invalid records.
+     * 
+     * @param batch the batch
+     * @param errorWriter the writer for the invalid records
+     * @param monitor the progress monitor
+     * @throws IOException if the error writer fails
+     * @throws InterruptedException if interrupted while waiting for the batch
+     * @throws ExecutionException if the validation of the batch fails
+     */
+    private void writeBatch( Batch batch, Writer errorWriter, IProgressMonitor monitor ) throws IOException,
+        InterruptedException, ExecutionException
+    {
+        List<List<Violation>> results = batch.result.get();
+        for ( int i = 0; i < results.size(); i++ )
+        {
+            recordCount++;
+            List<Violation> violations = results.get( i );
+            if ( violations.isEmpty() )
+            {
+                continue;
+            }
+
+            invalidCount++;
+            writeComment( errorWriter, "#!RESULT ERROR" ); //$NON-NLS-1$
+            for ( Violation violation : violations )
+            {
+                Integer count = violationCounts.get( violation.getKind() );
+                violationCounts.put( violation.getKind(), count == null ? 1 : count + 1 );
+                writeComment( errorWriter, "#!ERROR " + violation.getMessage() ); //$NON-NLS-1$
+            }
+
+            LdifRecord record = batch.records.get( i );
+            String raw = record.toRawString();
+            errorWriter.write( raw );
+            if ( !raw.endsWith( "\n" ) ) //$NON-NLS-1$
+            {
+                errorWriter.write( LdifParserConstants.LINE_SEPARATOR );
+            }
+            if ( record.getSepLine() == null )
+            {
+                errorWriter.write( LdifParserConstants.LINE_SEPARATOR );
+            }
+        }
+
+        monitor.subTask( BrowserCoreMessages.bind(
+            BrowserCoreMessages.jobs__validate_ldif_validated_n_records_m_invalid, recordCount, invalidCount ) );
+    }
+
+
+    /**
+     * Writes the summary to the end of the error file.
+     * 
+     * @param errorWriter the writer for the invalid records
+     * @throws IOException if the error writer fails
+     */
+    private void writeSummary( Writer errorWriter ) throws IOException
+    {
+        writeComment( errorWriter, "#!SUMMARY RECORDS " + recordCount ); //$NON-NLS-1$
+        writeComment( errorWriter, "#!SUMMARY INVALID_RECORDS " + invalidCount ); //$NON-NLS-1$
+        for ( Map.Entry<Kind, Integer> entry : violationCounts.entrySet() )
+        {
+            writeComment( errorWriter, "#!SUMMARY " + entry.getKey() + " " + entry.getValue() ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+
+    /**
+     * Writes a comment line, line breaks are replaced by spaces.
+     * 
+     * @param errorWriter the writer for the invalid records
+     * @param comment the comment, starting with #
+     * @throws IOException if the error writer fails
+     */
+    private static void writeComment( Writer errorWriter, String comment ) throws IOException
+    {
+        comment = comment.replace( '\r', ' ' ).replace( '\n', ' ' );
+        errorWriter.write( LdifCommentLine.create( comment ).toFormattedString( LdifFormatParameters.DEFAULT ) );
+    }
+
+    /**
+     * A batch of records that is validated on the pool.
+     */
+    private static class Batch
+    {
+        /** The records */
+        private final List<LdifRecord> records;
+
+        /** The violations of each record */
+        private final Future<List<List<Violation>>> result;
+
+
+        /**
+         * Creates a new instance of Batch and submits it to the pool.
+         *
+         * @param pool the pool
+         * @param validator the validator
+         * @param records the records
+         */
+        Batch( ForkJoinPool pool, final LdifSchemaValidator validator, final List<LdifRecord> records )
+        {
+            this.records = records;
+            this.result = pool.submit( new Callable<List<List<Violation>>>()
+            {
+                public List<List<Violation>> call()
+                {
+                    List<List<Violation>> violations = new ArrayList<List<Violation>>( records.size() );
+                    for ( LdifRecord record : records )
+                    {
+                        violations.add( validator.validate( record ) );
+                    }
+                    return violations;
+                }
+            } );
+        }
+    }
+}
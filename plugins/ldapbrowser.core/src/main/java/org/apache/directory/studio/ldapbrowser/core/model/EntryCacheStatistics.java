@@ -0,0 +1,137 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.model;
+
+
+/**
+ * A snapshot of the entry cache statistics of an {@link IBrowserConnection}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class EntryCacheStatistics
+{
+    /** The number of cached entries. */
+    private final int entryCount;
+
+    /** The number of entries with fully loaded attributes. */
+    private final int loadedEntryCount;
+
+    /** The maximum number of entries with fully loaded attributes, 0 means unlimited. */
+    private final int maxLoadedEntryCount;
+
+    /** The number of attribute lookups that found loaded attributes. */
+    private final long hitCount;
+
+    /** The number of attribute lookups of entries without any attributes. */
+    private final long missCount;
+
+    /** The number of entries whose attributes were evicted. */
+    private final long evictionCount;
+
+
+    /**
+     * Creates a new instance of EntryCacheStatistics.
+     *
+     * @param entryCount the number of cached entries
+     * @param loadedEntryCount the number of entries with fully loaded attributes
+     * @param maxLoadedEntryCount the maximum number of entries with fully loaded attributes, 0 means unlimited
+     * @param hitCount the number of attribute lookups that found loaded attributes
+     * @param missCount the number of attribute lookups of entries without any attributes
+     * @param evictionCount the number of entries whose attributes were evicted
+     */
+    public EntryCacheStatistics( int entryCount, int loadedEntryCount, int maxLoadedEntryCount, long hitCount,
+        long missCount, long evictionCount )
+    {
+        this.entryCount = entryCount;
+        this.loadedEntryCount = loadedEntryCount;
+        this.maxLoadedEntryCount = maxLoadedEntryCount;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+
+    /**
+     * Gets the number of cached entries.
+     *
+     * @return the number of cached entries
+     */
+    public int getEntryCount()
+    {
+        return entryCount;
+    }
+
+
+    /**
+     * Gets the number of entries with fully loaded attributes.
+     *
+     * @return the number of entries with fully loaded attributes
+     */
+    public int getLoadedEntryCount()
+    {
+        return loadedEntryCount;
+    }
+
+
+    /**
+     * Gets the maximum number of entries with fully loaded attributes.
+     *
+     * @return the maximum number of entries with fully loaded attributes, 0 means unlimited
+     */
+    public int getMaxLoadedEntryCount()
+    {
+        return maxLoadedEntryCount;
+    }
+
+
+    /**
+     * Gets the number of attribute lookups that found loaded attributes.
+     *
+     * @return the hit count
+     */
+    public long getHitCount()
+    {
+        return hitCount;
+    }
+
+
+    /**
+     * Gets the number of attribute lookups of entries without any attributes,
+     * either because they were never loaded or because they were evicted.
+     *
+     * @return the miss count
+     */
+    public long getMissCount()
+    {
+        return missCount;
+    }
+
+
+    /**
+     * Gets the number of entries whose attributes were evicted. Evicted
+     * attributes are fetched again from the directory when they are needed.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount()
+    {
+        return evictionCount;
+    }
+}
@@ -203,6 +203,12 @@ public interface IBrowserConnection extends Serializable, IAdaptable, Connection
     /** The key for the connection parameter "Use ManageDsaIT Control" */
     String CONNECTION_PARAMETER_MANAGE_DSA_IT = "ldapbrowser.manageDsaIT"; //$NON-NLS-1$
 
+    /** The key for the connection parameter "Entry Cache Size". */
+    String CONNECTION_PARAMETER_ENTRY_CACHE_SIZE = "ldapbrowser.entryCacheSize"; //$NON-NLS-1$
+
+    /** The default maximum number of entries whose fully loaded attributes are kept in memory. */
+    int DEFAULT_ENTRY_CACHE_SIZE = 10000;
+
     /**
      * Gets the URL of this connection.
      * 
@@ -391,6 +397,24 @@ public interface IBrowserConnection extends Serializable, IAdaptable, Connection
     void setPagedSearchSize( int pagedSearchSize );
 
 
+    /**
+     * Gets the maximum number of entries whose fully loaded attributes are kept in memory.
+     * The attributes of the least recently used entries are evicted and
+     * fetched again from the directory when they are needed.
+     * 
+     * @return the entry cache size, 0 means unlimited
+     */
+    int getEntryCacheSize();
+
+
+    /**
+     * Sets the maximum number of entries whose fully loaded attributes are kept in memory.
+     * 
+     * @param entryCacheSize the entry cache size, 0 means unlimited
+     */
+    void setEntryCacheSize( int entryCacheSize );
+
+
     /**
      * Checks if paged search scroll mode should be used.
      * 
@@ -549,4 +573,12 @@ public interface IBrowserConnection extends Serializable, IAdaptable, Connection
      * Clears all caches.
      */
     void clearCaches();
+
+
+    /**
+     * Gets the statistics of the entry cache.
+     * 
+     * @return the entry cache statistics
+     */
+    EntryCacheStatistics getEntryCacheStatistics();
 }
\ No newline at end of file
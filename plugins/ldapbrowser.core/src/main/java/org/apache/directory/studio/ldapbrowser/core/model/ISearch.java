@@ -275,6 +275,16 @@ public interface ISearch extends Serializable, IAdaptable, SearchPropertyPagePro
     ISearchResult[] getSearchResults();
 
 
+    /**
+     * Gets a read-only view of the search results retrieved so far,
+     * null indicates that the search wasn't performed yet. In contrast
+     * to {@link #getSearchResults()} the search results are not copied.
+     * 
+     * @return the search results
+     */
+    List<ISearchResult> getSearchResultList();
+
+
     /**
      * Sets the search results.
      * 
@@ -285,6 +295,26 @@ public interface ISearch extends Serializable, IAdaptable, SearchPropertyPagePro
     void setSearchResults( ISearchResult[] searchResults );
 
 
+    /**
+     * Appends search results to the search results retrieved so far.
+     * 
+     * Calling this method causes firing a search update event
+     * with detail {@link org.apache.directory.studio.ldapbrowser.core.events.SearchUpdateEvent.EventDetail#SEARCH_RESULTS_ADDED}.
+     * 
+     * @param searchResults the search results to append
+     */
+    void addSearchResults( ISearchResult[] searchResults );
+
+
+    /**
+     * Gets the number of search results retrieved so far. In contrast
+     * to {@link #getSearchResults()} no array is created.
+     * 
+     * @return the number of search results
+     */
+    int getSearchResultCount();
+
+
     /**
      * Checks if the count limit exceeded.
      * 
@@ -60,8 +60,8 @@ import org.eclipse.search.ui.ISearchPageScoreComputer;
  * 
  * The class is optimized to save memory. It doesn't hold members to 
  * its children or attributes. Instead the {@link ChildrenInfo} and 
- * {@link AttributeInfo} instances are stored in a map in the 
- * {@link BrowserConnection} instance.
+ * {@link AttributeInfo} instances are stored in the {@link EntryCache}
+ * of the {@link BrowserConnection} instance.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -90,6 +90,9 @@ public abstract class AbstractEntry implements IEntry, ICompareableEntry
 
     private volatile int flags;
 
+    /** The key in the entry cache, computed lazily because normalizing the Dn is expensive. */
+    private transient volatile CacheKey cacheKey;
+
     protected IAttribute objectClassAttribute;
 
 
@@ -419,6 +422,12 @@ public abstract class AbstractEntry implements IEntry, ICompareableEntry
             ai.attributesInitialized = b;
         }
 
+        if ( ai != null && b )
+        {
+            // move the attribute info to the bounded cache of initialized attributes
+            getBrowserConnectionImpl().setAttributeInfo( this, ai );
+        }
+
         if ( ai != null && !b )
         {
             ai.attributeMap.clear();
@@ -855,6 +864,34 @@ public abstract class AbstractEntry implements IEntry, ICompareableEntry
     }
 
 
+    /**
+     * Gets the key of this entry in the entry cache, the normalized Dn. The key is
+     * computed again if the schema of the browser connection has changed.
+     * 
+     * @return the key of this entry in the entry cache
+     */
+    String getCacheKey()
+    {
+        Schema schema = getBrowserConnection().getSchema();
+        CacheKey key = cacheKey;
+        if ( key == null || key.schema != schema )
+        {
+            key = new CacheKey( schema, Utils.getNormalizedOidString( getDn(), schema ) );
+            cacheKey = key;
+        }
+        return key.normalizedDn;
+    }
+
+
+    /**
+     * Resets the key of this entry in the entry cache, must be called when the Dn has changed.
+     */
+    protected void resetCacheKey()
+    {
+        cacheKey = null;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -955,4 +992,28 @@ public abstract class AbstractEntry implements IEntry, ICompareableEntry
         return ocds;
     }
 
+    /**
+     * The normalized Dn of an entry and the schema it was computed with.
+     */
+    private static class CacheKey
+    {
+        /** The schema. */
+        private final Schema schema;
+
+        /** The normalized Dn. */
+        private final String normalizedDn;
+
+
+        /**
+         * Creates a new instance of CacheKey.
+         *
+         * @param schema the schema
+         * @param normalizedDn the normalized Dn
+         */
+        private CacheKey( Schema schema, String normalizedDn )
+        {
+            this.schema = schema;
+            this.normalizedDn = normalizedDn;
+        }
+    }
 }
@@ -21,10 +21,8 @@
 package org.apache.directory.studio.ldapbrowser.core.model.impl;
 
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
-import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.schema.AttributeType;
@@ -58,6 +56,12 @@ public class Attribute implements IAttribute
     /** The serialVersionUID. */
     private static final long serialVersionUID = -5679384884002589786L;
 
+    /** The maximum number of shared attribute descriptions */
+    private static final int MAX_SHARED_ATTRIBUTE_DESCRIPTIONS = 10000;
+
+    /** The shared attribute descriptions, the attributes of all entries use the same instances */
+    private static final ConcurrentHashMap<String, AttributeDescription> SHARED_ATTRIBUTE_DESCRIPTIONS = new ConcurrentHashMap<String, AttributeDescription>();
+
     /** The attribute description */
     private AttributeDescription attributeDescription;
 
@@ -65,7 +69,7 @@ public class Attribute implements IAttribute
     private IEntry entry;
 
     /** The values */
-    private List<IValue> valueList;
+    private ValueStore valueStore;
 
 
     /**
@@ -83,9 +87,39 @@ public class Attribute implements IAttribute
         assert description != null;
 
         this.entry = entry;
-        this.attributeDescription = new AttributeDescription( description );
-        this.valueList = new ArrayList<IValue>();
+        this.attributeDescription = getSharedAttributeDescription( description );
+        this.valueStore = new ValueStore();
+    }
+
+
+    /**
+     * Gets the shared attribute description for the given description. Only a limited
+     * number of attribute descriptions is shared, as they may contain arbitrary options.
+     *
+     * @param description the attribute description
+     *
+     * @return the shared attribute description
+     */
+    private static AttributeDescription getSharedAttributeDescription( String description )
+    {
+        AttributeDescription attributeDescription = SHARED_ATTRIBUTE_DESCRIPTIONS.get( description );
 
+        if ( attributeDescription == null )
+        {
+            attributeDescription = new AttributeDescription( description );
+
+            if ( SHARED_ATTRIBUTE_DESCRIPTIONS.size() < MAX_SHARED_ATTRIBUTE_DESCRIPTIONS )
+            {
+                AttributeDescription existing = SHARED_ATTRIBUTE_DESCRIPTIONS.putIfAbsent( description,
+                    attributeDescription );
+                if ( existing != null )
+                {
+                    attributeDescription = existing;
+                }
+            }
+        }
+
+        return attributeDescription;
     }
 
 
@@ -103,20 +137,7 @@ public class Attribute implements IAttribute
      */
     public boolean isConsistent()
     {
-        if ( valueList.isEmpty() )
-        {
-            return false;
-        }
-
-        for ( IValue value : valueList )
-        {
-            if ( value.isEmpty() )
-            {
-                return false;
-            }
-        }
-
-        return true;
+        return valueStore.size() > 0 && !valueStore.containsEmptyValue();
     }
 
 
@@ -188,7 +209,7 @@ public class Attribute implements IAttribute
     public void addEmptyValue()
     {
         IValue emptyValue = new Value( this );
-        valueList.add( emptyValue );
+        valueStore.add( emptyValue );
         attributeModified( new EmptyValueAddedEvent( getEntry().getBrowserConnection(), getEntry(), this, emptyValue ) );
     }
 
@@ -198,16 +219,12 @@ public class Attribute implements IAttribute
      */
     public void deleteEmptyValue()
     {
-        for ( Iterator<IValue> it = this.valueList.iterator(); it.hasNext(); )
+        IValue value = valueStore.removeEmptyValue( this );
+
+        if ( value != null )
         {
-            IValue value = it.next();
-            if ( value.isEmpty() )
-            {
-                it.remove();
-                attributeModified( new EmptyValueDeletedEvent( getEntry().getBrowserConnection(), getEntry(), this,
-                    value ) );
-                return;
-            }
+            attributeModified( new EmptyValueDeletedEvent( getEntry().getBrowserConnection(), getEntry(), this,
+                value ) );
         }
     }
 
@@ -250,16 +267,7 @@ public class Attribute implements IAttribute
      */
     private boolean internalDeleteValue( IValue valueToDelete )
     {
-        for ( Iterator<IValue> it = valueList.iterator(); it.hasNext(); )
-        {
-            IValue value = it.next();
-            if ( value.equals( valueToDelete ) )
-            {
-                it.remove();
-                return true;
-            }
-        }
-        return false;
+        return valueStore.remove( valueToDelete );
     }
 
 
@@ -269,7 +277,7 @@ public class Attribute implements IAttribute
     public void addValue( IValue valueToAdd ) throws IllegalArgumentException
     {
         checkValue( valueToAdd );
-        valueList.add( valueToAdd );
+        valueStore.add( valueToAdd );
         attributeModified( new ValueAddedEvent( getEntry().getBrowserConnection(), getEntry(), this, valueToAdd ) );
     }
 
@@ -298,7 +306,7 @@ public class Attribute implements IAttribute
         checkValue( newValue );
 
         internalDeleteValue( oldValue );
-        valueList.add( newValue );
+        valueStore.add( newValue );
         attributeModified( new ValueModifiedEvent( getEntry().getBrowserConnection(), getEntry(), this, oldValue,
             newValue ) );
     }
@@ -309,7 +317,14 @@ public class Attribute implements IAttribute
      */
     public IValue[] getValues()
     {
-        return ( IValue[] ) valueList.toArray( new IValue[0] );
+        IValue[] values = new IValue[valueStore.size()];
+
+        for ( int i = 0; i < values.length; i++ )
+        {
+            values[i] = valueStore.get( this, i );
+        }
+
+        return values;
     }
 
 
@@ -318,7 +333,7 @@ public class Attribute implements IAttribute
      */
     public int getValueSize()
     {
-        return valueList.size();
+        return valueStore.size();
     }
 
 
@@ -386,15 +401,14 @@ public class Attribute implements IAttribute
      */
     public byte[][] getBinaryValues()
     {
-        List<byte[]> binaryValueList = new ArrayList<byte[]>();
+        byte[][] binaryValues = new byte[valueStore.size()][];
 
-        IValue[] values = getValues();
-        for ( IValue value : values )
+        for ( int i = 0; i < binaryValues.length; i++ )
         {
-            binaryValueList.add( value.getBinaryValue() );
+            binaryValues[i] = valueStore.getBinaryValue( i );
         }
 
-        return binaryValueList.toArray( new byte[0][] );
+        return binaryValues;
     }
 
 
@@ -405,7 +419,7 @@ public class Attribute implements IAttribute
     {
         if ( getValueSize() > 0 )
         {
-            return ( ( IValue ) valueList.get( 0 ) ).getStringValue();
+            return valueStore.getStringValue( 0 );
         }
         else
         {
@@ -419,15 +433,14 @@ public class Attribute implements IAttribute
      */
     public String[] getStringValues()
     {
-        List<String> stringValueList = new ArrayList<String>();
+        String[] stringValues = new String[valueStore.size()];
 
-        IValue[] values = getValues();
-        for ( IValue value : values )
+        for ( int i = 0; i < stringValues.length; i++ )
         {
-            stringValueList.add( value.getStringValue() );
+            stringValues[i] = valueStore.getStringValue( i );
         }
 
-        return stringValueList.toArray( new String[stringValueList.size()] );
+        return stringValues;
     }
 
 
@@ -22,8 +22,6 @@ package org.apache.directory.studio.ldapbrowser.core.model.impl;
 
 
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.apache.directory.api.ldap.model.exception.LdapInvalidDnException;
 import org.apache.directory.api.ldap.model.name.Dn;
@@ -35,6 +33,7 @@ import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry
 import org.apache.directory.studio.ldapbrowser.core.BookmarkManager;
 import org.apache.directory.studio.ldapbrowser.core.SearchManager;
 import org.apache.directory.studio.ldapbrowser.core.internal.search.LdapSearchPageScoreComputer;
+import org.apache.directory.studio.ldapbrowser.core.model.EntryCacheStatistics;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.IQuickSearch;
@@ -73,17 +72,8 @@ public class BrowserConnection implements IBrowserConnection, Serializable
     /** The quick search. */
     private IQuickSearch quickSearch;
 
-    /** The dn to entry cache. */
-    private volatile Map<String, IEntry> dnToEntryCache;
-
-    /** The entry to children filter map. */
-    private volatile Map<IEntry, String> entryToChildrenFilterMap;
-
-    /** The entry to attribute info map. */
-    private volatile Map<IEntry, AttributeInfo> entryToAttributeInfoMap;
-
-    /** The entry to children info map. */
-    private volatile Map<IEntry, ChildrenInfo> entryToChildrenInfoMap;
+    /** The entry cache, contains the entries and their attribute info, children info and children filter. */
+    private volatile EntryCache entryCache;
 
 
     /**
@@ -124,10 +114,7 @@ public class BrowserConnection implements IBrowserConnection, Serializable
         this.searchManager = new SearchManager( this );
         this.bookmarkManager = new BookmarkManager( this );
 
-        this.entryToChildrenFilterMap = new HashMap<IEntry, String>();
-        this.dnToEntryCache = new HashMap<String, IEntry>();
-        this.entryToAttributeInfoMap = new HashMap<IEntry, AttributeInfo>();
-        this.entryToChildrenInfoMap = new HashMap<IEntry, ChildrenInfo>();
+        this.entryCache = new EntryCache( getEntryCacheSize() );
 
         this.schema = Schema.DEFAULT_SCHEMA;
         this.rootDSE = new RootDSE( this );
@@ -154,10 +141,7 @@ public class BrowserConnection implements IBrowserConnection, Serializable
             search.setSearchResults( null );
         }
 
-        dnToEntryCache.clear();
-        entryToAttributeInfoMap.clear();
-        entryToChildrenInfoMap.clear();
-        entryToChildrenFilterMap.clear();
+        entryCache.clear();
         //        searchManager.setQuickSearch( null ); TODO
 
         rootDSE = new RootDSE( this );
@@ -175,10 +159,11 @@ public class BrowserConnection implements IBrowserConnection, Serializable
             return null;
         }
 
-        String oidDn = Utils.getNormalizedOidString( dn, getSchema() );
-        if ( dnToEntryCache != null && dnToEntryCache.containsKey( oidDn ) )
+        IEntry entry = entryCache == null ? null
+            : entryCache.getEntry( Utils.getNormalizedOidString( dn, getSchema() ) );
+        if ( entry != null )
         {
-            return dnToEntryCache.get( oidDn );
+            return entry;
         }
         if ( getRootDSE().getDn().equals( dn ) )
         {
@@ -414,6 +399,29 @@ public class BrowserConnection implements IBrowserConnection, Serializable
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    public int getEntryCacheSize()
+    {
+        int entryCacheSize = connection.getConnectionParameter().getExtendedIntProperty(
+            CONNECTION_PARAMETER_ENTRY_CACHE_SIZE );
+        return entryCacheSize < 0 ? DEFAULT_ENTRY_CACHE_SIZE : entryCacheSize;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setEntryCacheSize( int entryCacheSize )
+    {
+        connection.getConnectionParameter().setExtendedIntProperty( CONNECTION_PARAMETER_ENTRY_CACHE_SIZE,
+            entryCacheSize );
+        entryCache.setMaxLoadedEntries( entryCacheSize );
+        ConnectionEventRegistry.fireConnectionUpdated( connection, this );
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -594,9 +602,9 @@ public class BrowserConnection implements IBrowserConnection, Serializable
     /**
      * {@inheritDoc}
      */
-    public synchronized void cacheEntry( IEntry entry )
+    public void cacheEntry( IEntry entry )
     {
-        dnToEntryCache.put( Utils.getNormalizedOidString( entry.getDn(), getSchema() ), entry );
+        entryCache.setEntry( getCacheKey( entry ), entry );
     }
 
 
@@ -605,19 +613,16 @@ public class BrowserConnection implements IBrowserConnection, Serializable
      * 
      * @param entry the entry to remove from cache
      */
-    protected synchronized void uncacheEntry( IEntry entry )
+    protected void uncacheEntry( IEntry entry )
     {
-        dnToEntryCache.remove( Utils.getNormalizedOidString( entry.getDn(), getSchema() ) );
-        setAttributeInfo( entry, null );
-        setChildrenInfo( entry, null );
-        setChildrenFilter(entry, null);
+        entryCache.remove( getCacheKey( entry ) );
     }
 
 
     /**
      * {@inheritDoc}
      */
-    public synchronized void uncacheEntryRecursive( IEntry entry )
+    public void uncacheEntryRecursive( IEntry entry )
     {
         IEntry[] children = entry.getChildren();
         if ( entry.getChildren() != null )
@@ -640,7 +645,7 @@ public class BrowserConnection implements IBrowserConnection, Serializable
      */
     protected String getChildrenFilter( IEntry entry )
     {
-        return entryToChildrenFilterMap == null ? null : entryToChildrenFilterMap.get( entry );
+        return entryCache == null ? null : entryCache.getChildrenFilter( getCacheKey( entry ) );
     }
 
 
@@ -652,14 +657,11 @@ public class BrowserConnection implements IBrowserConnection, Serializable
      */
     protected void setChildrenFilter( IEntry entry, String childrenFilter )
     {
-        if ( childrenFilter == null || "".equals( childrenFilter ) ) //$NON-NLS-1$
-        {
-            entryToChildrenFilterMap.remove( entry );
-        }
-        else
+        if ( "".equals( childrenFilter ) ) //$NON-NLS-1$
         {
-            entryToChildrenFilterMap.put( entry, childrenFilter );
+            childrenFilter = null;
         }
+        entryCache.setChildrenFilter( getCacheKey( entry ), childrenFilter );
     }
 
 
@@ -672,26 +674,27 @@ public class BrowserConnection implements IBrowserConnection, Serializable
      */
     protected AttributeInfo getAttributeInfo( IEntry entry )
     {
-        return entryToAttributeInfoMap == null ? null : entryToAttributeInfoMap.get( entry );
+        return entryCache == null ? null : entryCache.getAttributeInfo( getCacheKey( entry ) );
     }
 
 
     /**
-     * Sets the attribute info.
+     * Sets the attribute info. The number of entries with initialized attributes is bounded,
+     * when their attributes are evicted the entry becomes uninitialized and its attributes
+     * are fetched again from the directory when they are needed. The attributes of the 
+     * Root DSE are never evicted, they are required to use the connection.
      * 
      * @param entry the entry
      * @param ai the attribute info, null to remove the attribute info
      */
     protected void setAttributeInfo( IEntry entry, AttributeInfo ai )
     {
-        if ( ai == null )
+        if ( ai != null && ai.attributesInitialized )
         {
-            entryToAttributeInfoMap.remove( entry );
-        }
-        else
-        {
-            entryToAttributeInfoMap.put( entry, ai );
+            // the entry cache size may have been changed in the connection parameter page
+            entryCache.setMaxLoadedEntries( getEntryCacheSize() );
         }
+        entryCache.setAttributeInfo( getCacheKey( entry ), ai, !( entry instanceof IRootDSE ) );
     }
 
 
@@ -704,7 +707,7 @@ public class BrowserConnection implements IBrowserConnection, Serializable
      */
     protected ChildrenInfo getChildrenInfo( IEntry entry )
     {
-        return entryToChildrenInfoMap == null ? null : entryToChildrenInfoMap.get( entry );
+        return entryCache == null ? null : entryCache.getChildrenInfo( getCacheKey( entry ) );
     }
 
 
@@ -716,14 +719,33 @@ public class BrowserConnection implements IBrowserConnection, Serializable
      */
     protected void setChildrenInfo( IEntry entry, ChildrenInfo ci )
     {
-        if ( ci == null )
-        {
-            entryToChildrenInfoMap.remove( entry );
-        }
-        else
+        entryCache.setChildrenInfo( getCacheKey( entry ), ci );
+    }
+
+
+    /**
+     * Gets the key of the entry in the entry cache, the normalized Dn.
+     * 
+     * @param entry the entry
+     * 
+     * @return the key of the entry
+     */
+    private String getCacheKey( IEntry entry )
+    {
+        if ( entry instanceof AbstractEntry )
         {
-            entryToChildrenInfoMap.put( entry, ci );
+            return ( ( AbstractEntry ) entry ).getCacheKey();
         }
+        return Utils.getNormalizedOidString( entry.getDn(), getSchema() );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public EntryCacheStatistics getEntryCacheStatistics()
+    {
+        return entryCache.getStatistics();
     }
 
 
@@ -26,6 +26,7 @@ import org.apache.directory.api.ldap.model.url.LdapUrl;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.ldapbrowser.core.BookmarkManager;
 import org.apache.directory.studio.ldapbrowser.core.SearchManager;
+import org.apache.directory.studio.ldapbrowser.core.model.EntryCacheStatistics;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.IQuickSearch;
@@ -319,6 +320,23 @@ public class DummyConnection implements IBrowserConnection
     }
 
 
+    /** 
+     * {@inheritDoc}
+     */
+    public int getEntryCacheSize()
+    {
+        return 0;
+    }
+
+
+    /** 
+     * {@inheritDoc}
+     */
+    public void setEntryCacheSize( int entryCacheSize )
+    {
+    }
+
+
     /** 
      * {@inheritDoc}
      */
@@ -445,4 +463,13 @@ public class DummyConnection implements IBrowserConnection
     {
     }
 
+
+    /** 
+     * {@inheritDoc}
+     */
+    public EntryCacheStatistics getEntryCacheStatistics()
+    {
+        return new EntryCacheStatistics( 0, 0, 0, 0L, 0L, 0L );
+    }
+
 }
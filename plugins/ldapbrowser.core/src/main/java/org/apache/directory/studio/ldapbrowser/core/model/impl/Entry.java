@@ -119,6 +119,7 @@ public class Entry extends AbstractEntry
     protected void setRdn( Rdn newRdn )
     {
         this.rdn = newRdn;
+        resetCacheKey();
     }
 
 
@@ -128,6 +129,7 @@ public class Entry extends AbstractEntry
     protected void setParent( IEntry newParent )
     {
         this.parent = newParent;
+        resetCacheKey();
     }
 
 }
@@ -0,0 +1,564 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.model.impl;
+
+
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.directory.studio.ldapbrowser.core.model.EntryCacheStatistics;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+
+
+/**
+ * The entry cache of a {@link BrowserConnection}. It holds one record per normalized Dn
+ * with the cached entry and its metadata: the {@link AttributeInfo}, the {@link ChildrenInfo}
+ * and the children filter.
+ * <p>
+ * Lookups don't lock. Updates only lock the record of the affected Dn, so jobs working on
+ * different entries don't block each other.
+ * <p>
+ * The number of entries with initialized attributes is bounded. When the maximum is exceeded
+ * the attributes of entries that were not used recently are evicted, using the second chance
+ * (clock) algorithm: a lookup marks the record as referenced, the eviction skips and unmarks
+ * referenced records once before it evicts them.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class EntryCache implements Serializable
+{
+    private static final long serialVersionUID = -6093817735390614212L;
+
+    /** The number of removed records the eviction queue may hold in addition to the loaded records. */
+    private static final int MAX_STALE_QUEUED_RECORDS = 64;
+
+    /** The records, keyed by the normalized Dn. */
+    private final ConcurrentHashMap<String, Record> records = new ConcurrentHashMap<String, Record>();
+
+    /** The records with initialized attributes, in the order they were loaded. */
+    private final ConcurrentLinkedQueue<Record> loadedQueue = new ConcurrentLinkedQueue<Record>();
+
+    /** The number of records in the loaded queue. */
+    private final AtomicInteger queuedCount = new AtomicInteger();
+
+    /** The number of records with initialized attributes that may be evicted. */
+    private final AtomicInteger loadedCount = new AtomicInteger();
+
+    /** The number of records with an entry. */
+    private final AtomicInteger entryCount = new AtomicInteger();
+
+    /** The flag indicating that a thread evicts records. */
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /** The number of lookups that found initialized attributes. */
+    private final LongAdder hitCount = new LongAdder();
+
+    /** The number of lookups that found no attributes. */
+    private final LongAdder missCount = new LongAdder();
+
+    /** The number of records whose attributes were evicted. */
+    private final LongAdder evictionCount = new LongAdder();
+
+    /** The maximum number of records with initialized attributes, 0 means unbounded. */
+    private volatile int maxLoadedEntries;
+
+
+    /**
+     * Creates a new instance of EntryCache.
+     *
+     * @param maxLoadedEntries the maximum number of entries with initialized attributes, 0 means unbounded
+     */
+    public EntryCache( int maxLoadedEntries )
+    {
+        this.maxLoadedEntries = maxLoadedEntries;
+    }
+
+
+    /**
+     * Gets the cached entry.
+     *
+     * @param key the normalized Dn
+     *
+     * @return the entry, null if the entry is not cached
+     */
+    public IEntry getEntry( String key )
+    {
+        Record record = records.get( key );
+        return record == null ? null : record.entry;
+    }
+
+
+    /**
+     * Caches the entry.
+     *
+     * @param key the normalized Dn
+     * @param entry the entry, null to remove the entry
+     */
+    public void setEntry( String key, IEntry entry )
+    {
+        for ( ;; )
+        {
+            Record record = getOrCreateRecord( key );
+            synchronized ( record )
+            {
+                if ( record.removed )
+                {
+                    continue;
+                }
+
+                if ( record.entry == null && entry != null )
+                {
+                    entryCount.incrementAndGet();
+                }
+                else if ( record.entry != null && entry == null )
+                {
+                    entryCount.decrementAndGet();
+                }
+                record.entry = entry;
+                removeIfEmpty( record );
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Gets the attribute info and marks the record as recently used.
+     *
+     * @param key the normalized Dn
+     *
+     * @return the attribute info, null if no attribute info exists
+     */
+    public AttributeInfo getAttributeInfo( String key )
+    {
+        Record record = records.get( key );
+        AttributeInfo ai = record == null ? null : record.attributeInfo;
+
+        if ( ai == null )
+        {
+            missCount.increment();
+        }
+        else if ( ai.attributesInitialized )
+        {
+            hitCount.increment();
+            if ( !record.referenced )
+            {
+                record.referenced = true;
+            }
+        }
+
+        return ai;
+    }
+
+
+    /**
+     * Sets the attribute info. Initialized attributes are counted against the maximum,
+     * unless they are not evictable. If the maximum is exceeded the attributes of
+     * other records are evicted.
+     *
+     * @param key the normalized Dn
+     * @param ai the attribute info, null to remove the attribute info
+     * @param evictable false if the attributes must never be evicted
+     */
+    public void setAttributeInfo( String key, AttributeInfo ai, boolean evictable )
+    {
+        for ( ;; )
+        {
+            Record record = getOrCreateRecord( key );
+            synchronized ( record )
+            {
+                if ( record.removed )
+                {
+                    continue;
+                }
+
+                record.attributeInfo = ai;
+                record.referenced = false;
+                setLoaded( record, ai != null && ai.attributesInitialized && evictable );
+                if ( record.loaded && !record.queued )
+                {
+                    record.queued = true;
+                    queuedCount.incrementAndGet();
+                    loadedQueue.offer( record );
+                }
+                removeIfEmpty( record );
+                break;
+            }
+        }
+
+        evict();
+    }
+
+
+    /**
+     * Gets the children info.
+     *
+     * @param key the normalized Dn
+     *
+     * @return the children info, null if no children info exists
+     */
+    public ChildrenInfo getChildrenInfo( String key )
+    {
+        Record record = records.get( key );
+        return record == null ? null : record.childrenInfo;
+    }
+
+
+    /**
+     * Sets the children info.
+     *
+     * @param key the normalized Dn
+     * @param ci the children info, null to remove the children info
+     */
+    public void setChildrenInfo( String key, ChildrenInfo ci )
+    {
+        for ( ;; )
+        {
+            Record record = getOrCreateRecord( key );
+            synchronized ( record )
+            {
+                if ( record.removed )
+                {
+                    continue;
+                }
+
+                record.childrenInfo = ci;
+                removeIfEmpty( record );
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Gets the children filter.
+     *
+     * @param key the normalized Dn
+     *
+     * @return the children filter, null if no children filter is set
+     */
+    public String getChildrenFilter( String key )
+    {
+        Record record = records.get( key );
+        return record == null ? null : record.childrenFilter;
+    }
+
+
+    /**
+     * Sets the children filter.
+     *
+     * @param key the normalized Dn
+     * @param childrenFilter the children filter, null to remove the children filter
+     */
+    public void setChildrenFilter( String key, String childrenFilter )
+    {
+        for ( ;; )
+        {
+            Record record = getOrCreateRecord( key );
+            synchronized ( record )
+            {
+                if ( record.removed )
+                {
+                    continue;
+                }
+
+                record.childrenFilter = childrenFilter;
+                removeIfEmpty( record );
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Removes the entry and all its metadata.
+     *
+     * @param key the normalized Dn
+     */
+    public void remove( String key )
+    {
+        Record record = records.get( key );
+        if ( record != null )
+        {
+            synchronized ( record )
+            {
+                if ( !record.removed )
+                {
+                    clearRecord( record );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Removes all entries and their metadata. The counters are not reset.
+     */
+    public void clear()
+    {
+        for ( Record record : records.values() )
+        {
+            synchronized ( record )
+            {
+                if ( !record.removed )
+                {
+                    clearRecord( record );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Gets the maximum number of entries with initialized attributes.
+     *
+     * @return the maximum number of entries with initialized attributes, 0 means unbounded
+     */
+    public int getMaxLoadedEntries()
+    {
+        return maxLoadedEntries;
+    }
+
+
+    /**
+     * Sets the maximum number of entries with initialized attributes. If the new
+     * maximum is exceeded the attributes of the least recently used entries are evicted.
+     *
+     * @param maxLoadedEntries the maximum number of entries with initialized attributes, 0 means unbounded
+     */
+    public void setMaxLoadedEntries( int maxLoadedEntries )
+    {
+        if ( this.maxLoadedEntries != maxLoadedEntries )
+        {
+            this.maxLoadedEntries = maxLoadedEntries;
+            evict();
+        }
+    }
+
+
+    /**
+     * Gets the statistics of this cache.
+     *
+     * @return the statistics
+     */
+    public EntryCacheStatistics getStatistics()
+    {
+        return new EntryCacheStatistics( entryCount.get(), loadedCount.get(), maxLoadedEntries, hitCount.sum(),
+            missCount.sum(), evictionCount.sum() );
+    }
+
+
+    /**
+     * Gets the record of the given key, creates a new record if none exists.
+     *
+     * @param key the normalized Dn
+     *
+     * @return the record
+     */
+    private Record getOrCreateRecord( String key )
+    {
+        Record record = records.get( key );
+        if ( record == null )
+        {
+            Record newRecord = new Record( key );
+            record = records.putIfAbsent( key, newRecord );
+            if ( record == null )
+            {
+                record = newRecord;
+            }
+        }
+        return record;
+    }
+
+
+    /**
+     * Updates the loaded flag and the loaded count. Must be called while holding the record's lock.
+     *
+     * @param record the record
+     * @param loaded the new loaded flag
+     */
+    private void setLoaded( Record record, boolean loaded )
+    {
+        if ( record.loaded != loaded )
+        {
+            record.loaded = loaded;
+            if ( loaded )
+            {
+                loadedCount.incrementAndGet();
+            }
+            else
+            {
+                loadedCount.decrementAndGet();
+            }
+        }
+    }
+
+
+    /**
+     * Clears all fields of the record and removes it. Must be called while holding the record's lock.
+     *
+     * @param record the record
+     */
+    private void clearRecord( Record record )
+    {
+        if ( record.entry != null )
+        {
+            entryCount.decrementAndGet();
+        }
+        record.entry = null;
+        record.attributeInfo = null;
+        record.childrenInfo = null;
+        record.childrenFilter = null;
+        setLoaded( record, false );
+        removeIfEmpty( record );
+    }
+
+
+    /**
+     * Removes the record if it holds neither an entry nor metadata. Concurrent
+     * updates notice the removed flag and retry with a new record.
+     * Must be called while holding the record's lock.
+     *
+     * @param record the record
+     */
+    private void removeIfEmpty( Record record )
+    {
+        if ( record.entry == null && record.attributeInfo == null && record.childrenInfo == null
+            && record.childrenFilter == null )
+        {
+            record.removed = true;
+            records.remove( record.key, record );
+        }
+    }
+
+
+    /**
+     * Evicts the attributes of records until the maximum is met. Only one thread evicts
+     * at a time, other threads return immediately. Removed records are dropped from the
+     * loaded queue, also if the cache is unbounded.
+     */
+    private void evict()
+    {
+        if ( !evicting.compareAndSet( false, true ) )
+        {
+            return;
+        }
+
+        try
+        {
+            for ( ;; )
+            {
+                int max = maxLoadedEntries;
+                int loaded = loadedCount.get();
+                boolean overCapacity = max > 0 && loaded > max;
+                boolean tooManyStale = queuedCount.get() > loaded * 2 + MAX_STALE_QUEUED_RECORDS;
+                if ( !overCapacity && !tooManyStale )
+                {
+                    return;
+                }
+
+                Record record = loadedQueue.poll();
+                if ( record == null )
+                {
+                    return;
+                }
+
+                synchronized ( record )
+                {
+                    if ( !record.loaded )
+                    {
+                        record.queued = false;
+                        queuedCount.decrementAndGet();
+                    }
+                    else if ( record.referenced || !overCapacity )
+                    {
+                        // second chance
+                        record.referenced = false;
+                        loadedQueue.offer( record );
+                    }
+                    else
+                    {
+                        record.queued = false;
+                        queuedCount.decrementAndGet();
+                        record.attributeInfo = null;
+                        setLoaded( record, false );
+                        evictionCount.increment();
+                        removeIfEmpty( record );
+                    }
+                }
+            }
+        }
+        finally
+        {
+            evicting.set( false );
+        }
+    }
+
+    /**
+     * The cached entry and metadata of a single Dn. The fields are read without
+     * locking, they are updated while holding the record's lock.
+     */
+    private static class Record implements Serializable
+    {
+        private static final long serialVersionUID = 2254468412393375384L;
+
+        /** The normalized Dn. */
+        private final String key;
+
+        /** The entry, may be null if only metadata is cached. */
+        private volatile IEntry entry;
+
+        /** The attribute info. */
+        private volatile AttributeInfo attributeInfo;
+
+        /** The children info. */
+        private volatile ChildrenInfo childrenInfo;
+
+        /** The children filter. */
+        private volatile String childrenFilter;
+
+        /** The flag indicating that the attributes were used since the last eviction run. */
+        private volatile boolean referenced;
+
+        /** The flag indicating that the record has evictable initialized attributes. */
+        private boolean loaded;
+
+        /** The flag indicating that the record is in the loaded queue. */
+        private boolean queued;
+
+        /** The flag indicating that the record was removed from the records map. */
+        private boolean removed;
+
+
+        /**
+         * Creates a new instance of Record.
+         *
+         * @param key the normalized Dn
+         */
+        private Record( String key )
+        {
+            this.key = key;
+        }
+    }
+}
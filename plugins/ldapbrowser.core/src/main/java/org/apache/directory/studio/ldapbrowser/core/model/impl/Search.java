@@ -59,7 +59,7 @@ public class Search implements ISearch
     protected IBrowserConnection connection;
 
     /** The search results. */
-    protected ISearchResult[] searchResults;
+    protected SearchResultStore searchResults;
 
     /** The search parameter. */
     protected SearchParameter searchParameter;
@@ -406,7 +406,16 @@ public class Search implements ISearch
      */
     public ISearchResult[] getSearchResults()
     {
-        return searchResults;
+        return searchResults != null ? searchResults.toArray() : null;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<ISearchResult> getSearchResultList()
+    {
+        return searchResults != null ? searchResults.asList() : null;
     }
 
 
@@ -415,7 +424,7 @@ public class Search implements ISearch
      */
     public void setSearchResults( ISearchResult[] searchResults )
     {
-        this.searchResults = searchResults;
+        this.searchResults = searchResults != null ? new SearchResultStore( searchResults ) : null;
         if ( searchResults != null && getName() != null )
         {
             fireSearchUpdated( SearchUpdateEvent.EventDetail.SEARCH_PERFORMED );
@@ -423,6 +432,32 @@ public class Search implements ISearch
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    public void addSearchResults( ISearchResult[] searchResults )
+    {
+        if ( this.searchResults == null )
+        {
+            this.searchResults = new SearchResultStore();
+        }
+        this.searchResults.add( searchResults );
+        if ( getName() != null )
+        {
+            fireSearchUpdated( SearchUpdateEvent.EventDetail.SEARCH_RESULTS_ADDED );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getSearchResultCount()
+    {
+        return searchResults != null ? searchResults.size() : 0;
+    }
+
+
     /**
      * {@inheritDoc}
      */
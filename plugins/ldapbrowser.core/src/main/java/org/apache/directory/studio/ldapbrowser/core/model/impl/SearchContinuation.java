@@ -137,6 +137,34 @@ public class SearchContinuation extends Search implements IContinuation
     }
 
 
+    @Override
+    public List<ISearchResult> getSearchResultList()
+    {
+        if ( state == State.RESOLVED )
+        {
+            return super.getSearchResultList();
+        }
+        else
+        {
+            return null;
+        }
+    }
+
+
+    @Override
+    public int getSearchResultCount()
+    {
+        if ( state == State.RESOLVED )
+        {
+            return super.getSearchResultCount();
+        }
+        else
+        {
+            return 0;
+        }
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,201 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.model.impl;
+
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
+
+
+/**
+ * An appendable store for the results of a search. The results are kept
+ * in fixed-size chunks, so appending never copies the results stored before.
+ * Readers should use the view returned by {@link #asList()}, it shares the
+ * chunks instead of copying the results.
+ * <p>
+ * A SearchResultStore is thread-safe: the search job appends results while
+ * the UI reads them.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SearchResultStore implements Serializable
+{
+    private static final long serialVersionUID = 4567270431393212958L;
+
+    /** The number of search results per chunk. */
+    static final int CHUNK_SIZE = 1024;
+
+    /** The chunks, all but the last one are full. */
+    private final List<ISearchResult[]> chunks = new ArrayList<ISearchResult[]>();
+
+    /** The number of search results. */
+    private int size;
+
+
+    /**
+     * Creates a new empty instance of SearchResultStore.
+     */
+    public SearchResultStore()
+    {
+    }
+
+
+    /**
+     * Creates a new instance of SearchResultStore containing the given search results.
+     *
+     * @param searchResults the search results
+     */
+    public SearchResultStore( ISearchResult[] searchResults )
+    {
+        add( searchResults );
+    }
+
+
+    /**
+     * Appends the given search results.
+     *
+     * @param searchResults the search results
+     */
+    public synchronized void add( ISearchResult[] searchResults )
+    {
+        int offset = 0;
+        while ( offset < searchResults.length )
+        {
+            int indexInChunk = size % CHUNK_SIZE;
+            if ( indexInChunk == 0 )
+            {
+                chunks.add( new ISearchResult[CHUNK_SIZE] );
+            }
+            ISearchResult[] chunk = chunks.get( chunks.size() - 1 );
+            int length = Math.min( CHUNK_SIZE - indexInChunk, searchResults.length - offset );
+            System.arraycopy( searchResults, offset, chunk, indexInChunk, length );
+            offset += length;
+            size += length;
+        }
+    }
+
+
+    /**
+     * Gets the number of search results.
+     *
+     * @return the number of search results
+     */
+    public synchronized int size()
+    {
+        return size;
+    }
+
+
+    /**
+     * Gets the search result at the given index.
+     *
+     * @param index the index
+     *
+     * @return the search result
+     */
+    public synchronized ISearchResult get( int index )
+    {
+        if ( index < 0 || index >= size )
+        {
+            throw new IndexOutOfBoundsException( index + " >= " + size ); //$NON-NLS-1$
+        }
+
+        return chunks.get( index / CHUNK_SIZE )[index % CHUNK_SIZE];
+    }
+
+
+    /**
+     * Gets a read-only view of the search results stored so far. The view
+     * shares the chunks of this store, so getting it does not copy the search
+     * results. Its size is fixed: search results appended later are not
+     * visible in the view, but in the next one.
+     *
+     * @return the search results
+     */
+    public synchronized List<ISearchResult> asList()
+    {
+        return new ChunkList( chunks.toArray( new ISearchResult[chunks.size()][] ), size );
+    }
+
+
+    /**
+     * Gets all search results as a new array. Prefer {@link #asList()}, this
+     * copies all search results.
+     *
+     * @return the search results
+     */
+    public synchronized ISearchResult[] toArray()
+    {
+        ISearchResult[] array = new ISearchResult[size];
+        int start = 0;
+        while ( start < size )
+        {
+            int indexInChunk = start % CHUNK_SIZE;
+            int length = Math.min( CHUNK_SIZE - indexInChunk, size - start );
+            System.arraycopy( chunks.get( start / CHUNK_SIZE ), indexInChunk, array, start, length );
+            start += length;
+        }
+
+        return array;
+    }
+
+
+    /**
+     * A read-only view of the first search results of a store. The chunks
+     * are only appended to, the slots below size are never written again.
+     */
+    private static final class ChunkList extends AbstractList<ISearchResult> implements RandomAccess
+    {
+        private final ISearchResult[][] chunks;
+
+        private final int size;
+
+
+        private ChunkList( ISearchResult[][] chunks, int size )
+        {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+
+        @Override
+        public ISearchResult get( int index )
+        {
+            if ( index < 0 || index >= size )
+            {
+                throw new IndexOutOfBoundsException( index + " >= " + size ); //$NON-NLS-1$
+            }
+
+            return chunks[index / CHUNK_SIZE][index % CHUNK_SIZE];
+        }
+
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+    }
+}
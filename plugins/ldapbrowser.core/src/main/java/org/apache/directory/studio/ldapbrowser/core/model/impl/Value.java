@@ -21,6 +21,8 @@
 package org.apache.directory.studio.ldapbrowser.core.model.impl;
 
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Iterator;
 
 import org.apache.directory.api.ldap.model.name.Ava;
@@ -49,9 +51,21 @@ public class Value implements IValue
     /** The attribute this value belongs to */
     private IAttribute attribute;
 
-    /** The raw value, either a String or a byte[] */
+    /** The raw value, either a String or a byte[], null until a lazy value is decoded */
     private Object rawValue;
 
+    /** The encoded values of the {@link ValueStore} this lazy value was taken from, null once decoded */
+    private byte[] encodedValues;
+
+    /** The offset of this lazy value within the encoded values */
+    private int offset;
+
+    /** The length of this lazy value within the encoded values */
+    private int length;
+
+    /** The flag indicating that the raw value of this lazy value is a byte[] */
+    private boolean binaryRawValue;
+
 
     /**
      * Creates a new instance of Value.
@@ -77,6 +91,27 @@ public class Value implements IValue
     }
 
 
+    /**
+     * Creates a new instance of Value that is backed by the encoded values of a 
+     * {@link ValueStore}. The raw value is decoded when it is needed first.
+     *
+     * @param attribute the attribute this value belongs to
+     * @param encodedValues the encoded values
+     * @param offset the offset of this value within the encoded values
+     * @param length the length of this value
+     * @param binaryRawValue true if the raw value is a byte[], false if it is a String
+     */
+    Value( IAttribute attribute, byte[] encodedValues, int offset, int length, boolean binaryRawValue )
+    {
+        assert attribute != null;
+        this.attribute = attribute;
+        this.encodedValues = encodedValues;
+        this.offset = offset;
+        this.length = length;
+        this.binaryRawValue = binaryRawValue;
+    }
+
+
     /**
      * Initializes this Value.
      *
@@ -121,15 +156,46 @@ public class Value implements IValue
      */
     public Object getRawValue()
     {
+        if ( rawValue == null )
+        {
+            if ( binaryRawValue )
+            {
+                rawValue = Arrays.copyOfRange( encodedValues, offset, offset + length );
+            }
+            else
+            {
+                rawValue = new String( encodedValues, offset, length, StandardCharsets.UTF_8 );
+            }
+            encodedValues = null;
+        }
+
         return rawValue;
     }
 
 
+    /**
+     * Moves this lazy value to another array of encoded values, after the
+     * {@link ValueStore} it was taken from reallocated its array.
+     *
+     * @param encodedValues the new encoded values
+     * @param offset the new offset of this value within the encoded values
+     */
+    void moveEncodedValue( byte[] encodedValues, int offset )
+    {
+        if ( rawValue == null )
+        {
+            this.encodedValues = encodedValues;
+            this.offset = offset;
+        }
+    }
+
+
     /**
      * {@inheritDoc}
      */
     public String getStringValue()
     {
+        Object rawValue = getRawValue();
 
         if ( rawValue == EMPTY_STRING_VALUE )
         {
@@ -159,6 +225,14 @@ public class Value implements IValue
      */
     public byte[] getBinaryValue()
     {
+        if ( rawValue == null && !binaryRawValue )
+        {
+            // the encoded string, no need to decode it
+            return Arrays.copyOfRange( encodedValues, offset, offset + length );
+        }
+
+        Object rawValue = getRawValue();
+
         if ( rawValue == EMPTY_STRING_VALUE )
         {
             return EMPTY_STRING_VALUE.getBinaryValue();
@@ -187,7 +261,7 @@ public class Value implements IValue
      */
     public boolean isString()
     {
-        return rawValue == EMPTY_STRING_VALUE || attribute.isString();
+        return getRawValue() == EMPTY_STRING_VALUE || attribute.isString();
     }
 
 
@@ -196,7 +270,7 @@ public class Value implements IValue
      */
     public boolean isBinary()
     {
-        return rawValue == EMPTY_BINARY_VALUE || attribute.isBinary();
+        return getRawValue() == EMPTY_BINARY_VALUE || attribute.isBinary();
     }
 
 
@@ -205,7 +279,7 @@ public class Value implements IValue
      */
     public boolean isEmpty()
     {
-        return rawValue == EMPTY_STRING_VALUE || rawValue == EMPTY_BINARY_VALUE;
+        return getRawValue() == EMPTY_STRING_VALUE || getRawValue() == EMPTY_BINARY_VALUE;
     }
 
 
@@ -252,7 +326,7 @@ public class Value implements IValue
      */
     public int hashCode()
     {
-        return rawValue.hashCode();
+        return getRawValue().hashCode();
     }
 
 
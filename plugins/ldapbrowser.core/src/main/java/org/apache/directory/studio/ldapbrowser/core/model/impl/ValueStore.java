@@ -0,0 +1,411 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.model.impl;
+
+
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
+import org.apache.directory.studio.ldapbrowser.core.model.IValue;
+
+
+/**
+ * The values of an {@link Attribute}, stored compactly for attributes with many values.
+ * <p>
+ * All values are stored UTF-8 encoded in a single byte array, an offset table
+ * holds the end of each value and a kind table tells if the raw value was a
+ * String, a byte[] or an empty value. The {@link IValue}s returned by this class
+ * are views that decode the bytes lazily. The views are only weakly referenced:
+ * as long as a view is in use the same value is represented by the same view,
+ * views that are no longer used are garbage collected together with their
+ * decoded values.
+ * <p>
+ * When the byte array is reallocated or compacted the views in use are moved.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class ValueStore implements Serializable
+{
+    private static final long serialVersionUID = 2209262183711954373L;
+
+    /** The kind of values whose raw value is a String. */
+    static final byte STRING = 0;
+
+    /** The kind of values whose raw value is a byte[]. */
+    static final byte BINARY = 1;
+
+    /** The kind of empty string values. */
+    static final byte EMPTY_STRING = 2;
+
+    /** The kind of empty binary values. */
+    static final byte EMPTY_BINARY = 3;
+
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private static final int[] NO_ENDS = new int[0];
+
+    /** The encoded values. */
+    private byte[] bytes = NO_BYTES;
+
+    /** The number of used bytes. */
+    private int length;
+
+    /** The end offset of each value in the byte array. */
+    private int[] ends = NO_ENDS;
+
+    /** The kind of each value. */
+    private byte[] kinds = NO_BYTES;
+
+    /** The number of values. */
+    private int size;
+
+    /** The weakly referenced views of the values, null until a view is requested. */
+    private transient WeakReference<IValue>[] views;
+
+
+    /**
+     * Gets the number of values.
+     *
+     * @return the number of values
+     */
+    int size()
+    {
+        return size;
+    }
+
+
+    /**
+     * Appends a value.
+     *
+     * @param value the value
+     */
+    void add( IValue value )
+    {
+        byte kind = getKind( value );
+        byte[] encoded = kind == STRING || kind == BINARY ? value.getBinaryValue() : NO_BYTES;
+
+        if ( size == ends.length )
+        {
+            int capacity = Math.max( 4, size + ( size >> 1 ) );
+            ends = Arrays.copyOf( ends, capacity );
+            kinds = Arrays.copyOf( kinds, capacity );
+            if ( views != null )
+            {
+                views = Arrays.copyOf( views, capacity );
+            }
+        }
+        if ( length + encoded.length > bytes.length )
+        {
+            int capacity = Math.max( length + encoded.length, bytes.length + ( bytes.length >> 1 ) );
+            bytes = Arrays.copyOf( bytes, capacity );
+            moveViews( 0 );
+        }
+
+        System.arraycopy( encoded, 0, bytes, length, encoded.length );
+        length += encoded.length;
+        ends[size] = length;
+        kinds[size] = kind;
+        size++;
+    }
+
+
+    /**
+     * Removes the first value that equals the given value.
+     *
+     * @param value the value
+     *
+     * @return true if a value was removed
+     */
+    boolean remove( IValue value )
+    {
+        int index = indexOf( value );
+        if ( index < 0 )
+        {
+            return false;
+        }
+
+        // compact in place, only the following values are moved
+        int start = getStart( index );
+        int removedLength = ends[index] - start;
+        System.arraycopy( bytes, ends[index], bytes, start, length - ends[index] );
+        length -= removedLength;
+
+        for ( int i = index + 1; i < size; i++ )
+        {
+            ends[i - 1] = ends[i] - removedLength;
+            kinds[i - 1] = kinds[i];
+        }
+        if ( views != null )
+        {
+            System.arraycopy( views, index + 1, views, index, size - index - 1 );
+            views[size - 1] = null;
+        }
+        size--;
+
+        moveViews( index );
+
+        return true;
+    }
+
+
+    /**
+     * Moves the views in use, starting at the given index, to the current
+     * byte array and their current offsets.
+     *
+     * @param fromIndex the index of the first view to move
+     */
+    private void moveViews( int fromIndex )
+    {
+        if ( views == null )
+        {
+            return;
+        }
+
+        for ( int i = fromIndex; i < size; i++ )
+        {
+            IValue view = views[i] == null ? null : views[i].get();
+            if ( view instanceof Value )
+            {
+                ( ( Value ) view ).moveEncodedValue( bytes, getStart( i ) );
+            }
+            else
+            {
+                views[i] = null;
+            }
+        }
+    }
+
+
+    /**
+     * Checks if an empty value exists.
+     *
+     * @return true, if an empty value exists
+     */
+    boolean containsEmptyValue()
+    {
+        for ( int i = 0; i < size; i++ )
+        {
+            if ( kinds[i] == EMPTY_STRING || kinds[i] == EMPTY_BINARY )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Removes the first empty value.
+     *
+     * @param attribute the attribute the values belong to
+     *
+     * @return the removed value, null if no empty value exists
+     */
+    IValue removeEmptyValue( IAttribute attribute )
+    {
+        for ( int i = 0; i < size; i++ )
+        {
+            if ( kinds[i] == EMPTY_STRING || kinds[i] == EMPTY_BINARY )
+            {
+                IValue value = get( attribute, i );
+                remove( value );
+                return value;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Gets the view of the value at the given index. The view is created when
+     * it is requested first, later calls return the same view as long as it is
+     * in use.
+     *
+     * @param attribute the attribute the values belong to
+     * @param index the index
+     *
+     * @return the value
+     */
+    IValue get( IAttribute attribute, int index )
+    {
+        if ( index < 0 || index >= size )
+        {
+            throw new IndexOutOfBoundsException( index + " >= " + size ); //$NON-NLS-1$
+        }
+
+        if ( views == null )
+        {
+            views = newViews( ends.length );
+        }
+        IValue view = views[index] == null ? null : views[index].get();
+        if ( view == null )
+        {
+            view = createView( attribute, index );
+            views[index] = new WeakReference<IValue>( view );
+        }
+
+        return view;
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private static WeakReference<IValue>[] newViews( int capacity )
+    {
+        return new WeakReference[capacity];
+    }
+
+
+    private IValue createView( IAttribute attribute, int index )
+    {
+        switch ( kinds[index] )
+        {
+            case EMPTY_STRING:
+                return new Value( attribute, IValue.EMPTY_STRING_VALUE );
+            case EMPTY_BINARY:
+                return new Value( attribute, IValue.EMPTY_BINARY_VALUE );
+            default:
+                int start = getStart( index );
+                return new Value( attribute, bytes, start, ends[index] - start, kinds[index] == BINARY );
+        }
+    }
+
+
+    /**
+     * Gets the string value at the given index.
+     *
+     * @param index the index
+     *
+     * @return the string value
+     */
+    String getStringValue( int index )
+    {
+        switch ( kinds[index] )
+        {
+            case EMPTY_STRING:
+                return IValue.EMPTY_STRING_VALUE.getStringValue();
+            case EMPTY_BINARY:
+                return IValue.EMPTY_BINARY_VALUE.getStringValue();
+            default:
+                int start = getStart( index );
+                return new String( bytes, start, ends[index] - start, StandardCharsets.UTF_8 );
+        }
+    }
+
+
+    /**
+     * Gets the binary value at the given index.
+     *
+     * @param index the index
+     *
+     * @return the binary value
+     */
+    byte[] getBinaryValue( int index )
+    {
+        switch ( kinds[index] )
+        {
+            case EMPTY_STRING:
+                return IValue.EMPTY_STRING_VALUE.getBinaryValue();
+            case EMPTY_BINARY:
+                return IValue.EMPTY_BINARY_VALUE.getBinaryValue();
+            default:
+                return Arrays.copyOfRange( bytes, getStart( index ), ends[index] );
+        }
+    }
+
+
+    /**
+     * Gets the index of the first value that equals the given value. Values of the
+     * same attribute are equal if both are empty or if their encoded values are equal.
+     *
+     * @param value the value
+     *
+     * @return the index, -1 if no value equals the given value
+     */
+    private int indexOf( IValue value )
+    {
+        boolean empty = value.isEmpty();
+        byte[] encoded = empty ? NO_BYTES : value.getBinaryValue();
+
+        for ( int i = 0; i < size; i++ )
+        {
+            boolean emptyKind = kinds[i] == EMPTY_STRING || kinds[i] == EMPTY_BINARY;
+            if ( empty || emptyKind )
+            {
+                if ( empty && emptyKind )
+                {
+                    return i;
+                }
+            }
+            else if ( regionEquals( encoded, getStart( i ), ends[i] ) )
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    private boolean regionEquals( byte[] encoded, int start, int end )
+    {
+        if ( end - start != encoded.length )
+        {
+            return false;
+        }
+        for ( int i = 0; i < encoded.length; i++ )
+        {
+            if ( bytes[start + i] != encoded[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private int getStart( int index )
+    {
+        return index == 0 ? 0 : ends[index - 1];
+    }
+
+
+    private static byte getKind( IValue value )
+    {
+        Object rawValue = value.getRawValue();
+        if ( rawValue == IValue.EMPTY_STRING_VALUE )
+        {
+            return EMPTY_STRING;
+        }
+        else if ( rawValue == IValue.EMPTY_BINARY_VALUE )
+        {
+            return EMPTY_BINARY;
+        }
+        else if ( rawValue instanceof byte[] )
+        {
+            return BINARY;
+        }
+        else
+        {
+            return STRING;
+        }
+    }
+}
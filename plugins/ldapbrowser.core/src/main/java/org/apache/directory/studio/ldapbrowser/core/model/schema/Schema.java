@@ -52,11 +52,12 @@ import org.apache.directory.api.util.Strings;
 import org.apache.directory.studio.connection.core.Utils;
 import org.apache.directory.studio.ldapbrowser.core.model.AttributeDescription;
 import org.apache.directory.studio.ldifparser.LdifFormatParameters;
-import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
-import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
+import org.apache.directory.studio.ldifparser.model.container.LdifRecord;
+import org.apache.directory.studio.ldifparser.model.lean.LeanLdifLine;
+import org.apache.directory.studio.ldifparser.model.lean.LeanLdifRecord;
 import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
-import org.apache.directory.studio.ldifparser.parser.LdifParser;
+import org.apache.directory.studio.ldifparser.parser.LdifRecordReader;
 
 
 /**
@@ -121,6 +122,9 @@ public class Schema
 
     private LdifContentRecord schemaRecord;
 
+    /** The schema record read from a LDIF, until the full schema record is requested */
+    private LeanLdifRecord leanSchemaRecord;
+
     private Dn dn;
 
     private String createTimestamp;
@@ -165,15 +169,13 @@ public class Schema
     {
         try
         {
-            LdifParser parser = new LdifParser();
-            LdifEnumeration enumeration = parser.parse( reader );
-            while ( enumeration.hasNext() )
+            LdifRecordReader recordReader = new LdifRecordReader( reader );
+            LeanLdifRecord record;
+            while ( ( record = recordReader.next() ) != null )
             {
-                LdifContainer container = enumeration.next();
-                if ( container instanceof LdifContentRecord )
+                if ( record.isContentRecord() )
                 {
-                    LdifContentRecord schemaRecord = ( LdifContentRecord ) container;
-                    parseSchemaRecord( schemaRecord );
+                    parseSchemaRecord( record );
                 }
             }
         }
@@ -233,7 +235,62 @@ public class Schema
     private void parseSchemaRecord( LdifContentRecord schemaRecord ) throws Exception
     {
         setSchemaRecord( schemaRecord );
-        setDn( new Dn( schemaRecord.getDnLine().getValueAsString() ) );
+
+        LdifAttrValLine[] lines = schemaRecord.getAttrVals();
+        String[] attributeNames = new String[lines.length];
+        String[] values = new String[lines.length];
+        for ( int i = 0; i < lines.length; i++ )
+        {
+            attributeNames[i] = lines[i].getUnfoldedAttributeDescription();
+            values[i] = lines[i].getValueAsString();
+        }
+
+        parseSchemaValues( schemaRecord.getDnLine().getValueAsString(), attributeNames, values );
+    }
+
+
+    /**
+     * Parses the lean schema record read from a LDIF. The full schema record
+     * is only created when requested.
+     * 
+     * @param schemaRecord the lean schema record
+     * 
+     * @throws Exception the exception
+     */
+    private void parseSchemaRecord( LeanLdifRecord schemaRecord ) throws Exception
+    {
+        this.schemaRecord = null;
+        this.leanSchemaRecord = schemaRecord;
+
+        List<String> attributeNames = new ArrayList<String>( schemaRecord.getLineCount() );
+        List<String> values = new ArrayList<String>( schemaRecord.getLineCount() );
+        for ( int i = 1; i < schemaRecord.getLineCount(); i++ )
+        {
+            LeanLdifLine line = schemaRecord.getLine( i );
+            if ( !line.isComment() )
+            {
+                attributeNames.add( line.getAttributeDescription() );
+                values.add( line.getValueAsString() );
+            }
+        }
+
+        parseSchemaValues( schemaRecord.getDn(), attributeNames.toArray( new String[attributeNames.size()] ),
+            values.toArray( new String[values.size()] ) );
+    }
+
+
+    /**
+     * Parses the attribute values of a schema record.
+     * 
+     * @param dn the Dn of the schema record
+     * @param attributeNames the attribute names
+     * @param values the values
+     * 
+     * @throws Exception the exception
+     */
+    private void parseSchemaValues( String dn, String[] attributeNames, String[] values ) throws Exception
+    {
+        setDn( new Dn( dn ) );
 
         ObjectClassDescriptionSchemaParser ocdPparser = new ObjectClassDescriptionSchemaParser();
         ocdPparser.setQuirksMode( true );
@@ -246,12 +303,10 @@ public class Schema
         MatchingRuleUseDescriptionSchemaParser mrudParser = new MatchingRuleUseDescriptionSchemaParser();
         mrudParser.setQuirksMode( true );
 
-        LdifAttrValLine[] lines = schemaRecord.getAttrVals();
-        for ( int i = 0; i < lines.length; i++ )
+        for ( int i = 0; i < attributeNames.length; i++ )
         {
-            LdifAttrValLine line = lines[i];
-            String attributeName = line.getUnfoldedAttributeDescription();
-            String value = line.getValueAsString();
+            String attributeName = attributeNames[i];
+            String value = values[i];
             List<String> ldifValues = new ArrayList<String>( 1 );
             ldifValues.add( value );
 
@@ -358,6 +413,16 @@ public class Schema
      */
     public LdifContentRecord getSchemaRecord()
     {
+        if ( schemaRecord == null && leanSchemaRecord != null )
+        {
+            LdifRecord record = leanSchemaRecord.toLdifRecord();
+            if ( record instanceof LdifContentRecord )
+            {
+                schemaRecord = ( LdifContentRecord ) record;
+            }
+            leanSchemaRecord = null;
+        }
+
         return schemaRecord;
     }
 
@@ -370,6 +435,7 @@ public class Schema
     public void setSchemaRecord( LdifContentRecord schemaRecord )
     {
         this.schemaRecord = schemaRecord;
+        this.leanSchemaRecord = null;
     }
 
 
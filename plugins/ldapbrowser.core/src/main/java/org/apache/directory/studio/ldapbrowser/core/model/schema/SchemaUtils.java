@@ -650,6 +650,23 @@ public class SchemaUtils
     }
 
 
+    /**
+     * Checks if the given attribute has an ordering matching rule, defined by its
+     * attribute type description or a superior one. Ordering filters on an
+     * attribute without ordering matching rule evaluate to Undefined.
+     * 
+     * @param attributeDescription the attribute description
+     * @param schema the schema
+     * 
+     * @return true if the attribute has an ordering matching rule
+     */
+    public static boolean hasOrderingMatchingRule( String attributeDescription, Schema schema )
+    {
+        AttributeType atd = schema.getAttributeTypeDescription( attributeDescription );
+        return getOrderingMatchingRuleNameOrNumericOidTransitive( atd, schema ) != null;
+    }
+
+
     /**
      * Gets the syntax description OID of the given or the
      * superior attribute type description.
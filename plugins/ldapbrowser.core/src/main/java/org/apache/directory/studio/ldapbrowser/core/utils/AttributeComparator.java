@@ -21,15 +21,28 @@
 package org.apache.directory.studio.ldapbrowser.core.utils;
 
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
 import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.IValue;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaUtils;
 
 
 public class AttributeComparator implements Comparator<Object>
@@ -256,4 +269,92 @@ public class AttributeComparator implements Comparator<Object>
             .collect( Collectors.toList() );
     }
 
+
+    /**
+     * Sorts the attributes of the given LDAP API entry in the default order of
+     * {@link #toSortedValues(IEntry)}: the object class attribute and the must
+     * attributes first, operational attributes last, otherwise by description.
+     *
+     * @param entry the LDAP API entry
+     * @param schema the schema
+     * @return the sorted attributes
+     */
+    public static List<Attribute> toSortedAttributes( Entry entry, Schema schema )
+    {
+        Set<AttributeType> mustAtds = new HashSet<AttributeType>();
+        Attribute ocAttribute = entry.get( SchemaConstants.OBJECT_CLASS_AT );
+        if ( ocAttribute != null )
+        {
+            for ( Value value : ocAttribute )
+            {
+                ObjectClass ocd = schema.getObjectClassDescription( value.getString() );
+                for ( String must : SchemaUtils.getMustAttributeTypeDescriptionNamesTransitive( ocd, schema ) )
+                {
+                    mustAtds.add( schema.getAttributeTypeDescription( must ) );
+                }
+            }
+        }
+
+        // 0: object class, 1: must, 2: may, 3: operational
+        Map<Attribute, Integer> ranks = new IdentityHashMap<Attribute, Integer>();
+        for ( Attribute attribute : entry )
+        {
+            AttributeType atd = schema.getAttributeTypeDescription( attribute.getUpId() );
+            if ( SchemaConstants.OBJECT_CLASS_AT.equalsIgnoreCase( attribute.getUpId() ) )
+            {
+                ranks.put( attribute, 0 );
+            }
+            else if ( mustAtds.contains( atd ) )
+            {
+                ranks.put( attribute, 1 );
+            }
+            else if ( atd == null || SchemaUtils.isOperational( atd ) )
+            {
+                ranks.put( attribute, 3 );
+            }
+            else
+            {
+                ranks.put( attribute, 2 );
+            }
+        }
+
+        List<Attribute> attributes = new ArrayList<Attribute>( ranks.keySet() );
+        attributes.sort( Comparator.comparing( ( Attribute a ) -> ranks.get( a ) ).thenComparing( Attribute::getUpId,
+            String.CASE_INSENSITIVE_ORDER ) );
+        return attributes;
+    }
+
+
+    /**
+     * Sorts the values of the given LDAP API attribute in the default order of
+     * {@link #toSortedValues(IEntry)}: empty values last, otherwise by their string
+     * value. Binary values are kept in their order, they are not decoded to sort them.
+     *
+     * @param attribute the LDAP API attribute
+     * @return the sorted values
+     */
+    public static List<Value> toSortedValues( Attribute attribute )
+    {
+        List<Value> values = new ArrayList<Value>( attribute.size() );
+        for ( Value value : attribute )
+        {
+            values.add( value );
+        }
+
+        if ( values.size() > 1 && attribute.isHumanReadable() )
+        {
+            values.sort( ( v1, v2 ) -> {
+                String s1 = v1.getString();
+                String s2 = v2.getString();
+                if ( s1.isEmpty() != s2.isEmpty() )
+                {
+                    return s1.isEmpty() ? 1 : -1;
+                }
+                return s1.compareToIgnoreCase( s2 );
+            } );
+        }
+
+        return values;
+    }
+
 }
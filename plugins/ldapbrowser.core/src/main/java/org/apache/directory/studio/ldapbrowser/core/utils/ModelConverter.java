@@ -351,6 +351,49 @@ public class ModelConverter
     }
 
 
+    /**
+     * Converts the given LDAP API entry to an {@link DummyEntry}. Human readable values
+     * become string values, all other values binary values.
+     *
+     * @param ldapApiEntry the LDAP API entry
+     * @param connection the connection
+     *
+     * @return the dummy entry
+     */
+    public static DummyEntry ldapApiEntryToEntry( Entry ldapApiEntry, IBrowserConnection connection )
+    {
+        EventRegistry.suspendEventFiringInCurrentThread();
+
+        try
+        {
+            DummyEntry entry = new DummyEntry( ldapApiEntry.getDn(), connection );
+
+            for ( org.apache.directory.api.ldap.model.entry.Attribute ldapApiAttribute : ldapApiEntry )
+            {
+                String attributeName = ldapApiAttribute.getUpId();
+                IAttribute attribute = entry.getAttribute( attributeName );
+                if ( attribute == null )
+                {
+                    attribute = new Attribute( entry, attributeName );
+                    entry.addAttribute( attribute );
+                }
+
+                for ( org.apache.directory.api.ldap.model.entry.Value value : ldapApiAttribute )
+                {
+                    Object rawValue = value.isHumanReadable() ? value.getString() : value.getBytes();
+                    attribute.addValue( new Value( attribute, rawValue ) );
+                }
+            }
+
+            return entry;
+        }
+        finally
+        {
+            EventRegistry.resumeEventFiringInCurrentThread();
+        }
+    }
+
+
     public static Collection<Modification> toReplaceModifications( Entry entry )
     {
         Collection<Modification> modifications = entry.getAttributes()
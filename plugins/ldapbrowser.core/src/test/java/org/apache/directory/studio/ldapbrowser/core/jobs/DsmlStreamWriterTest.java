@@ -0,0 +1,171 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.StringWriter;
+
+import org.apache.directory.api.dsmlv2.ParserUtils;
+import org.apache.directory.api.dsmlv2.request.AddRequestDsml;
+import org.apache.directory.api.dsmlv2.request.BatchRequestDsml;
+import org.apache.directory.api.dsmlv2.response.BatchResponseDsml;
+import org.apache.directory.api.dsmlv2.response.SearchResponseDsml;
+import org.apache.directory.api.dsmlv2.response.SearchResultDoneDsml;
+import org.apache.directory.api.dsmlv2.response.SearchResultEntryDsml;
+import org.apache.directory.api.ldap.codec.api.LdapApiService;
+import org.apache.directory.api.ldap.codec.api.LdapApiServiceFactory;
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.api.ldap.model.message.SearchResultDone;
+import org.apache.directory.api.ldap.model.message.SearchResultDoneImpl;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests that the {@link DsmlStreamWriter} produces the same documents as the DSML batch objects.
+ */
+public class DsmlStreamWriterTest
+{
+    private static LdapApiService codec = LdapApiServiceFactory.getSingleton();
+
+
+    @Test
+    public void testBatchResponse() throws Exception
+    {
+        BatchResponseDsml batchResponse = new BatchResponseDsml();
+        SearchResponseDsml searchResponse = new SearchResponseDsml( codec );
+        batchResponse.addResponse( searchResponse );
+
+        StringWriter out = new StringWriter();
+        try ( DsmlStreamWriter writer = new DsmlStreamWriter( out ) )
+        {
+            writer.startElement( "batchResponse", ParserUtils.DSML_NAMESPACE, ParserUtils.XSD_NAMESPACE, //$NON-NLS-1$
+                ParserUtils.XSI_NAMESPACE );
+            writer.startElement( "searchResponse" ); //$NON-NLS-1$
+
+            for ( int i = 0; i < 3; i++ )
+            {
+                SearchResultEntryDsml entry = new SearchResultEntryDsml( codec );
+                entry.setEntry( createEntry( i ) );
+                searchResponse.addResponse( entry );
+                writer.writeElement( entry );
+            }
+
+            SearchResultDone srd = new SearchResultDoneImpl();
+            srd.getLdapResult().setResultCode( ResultCodeEnum.SUCCESS );
+            SearchResultDoneDsml done = new SearchResultDoneDsml( codec, srd );
+            searchResponse.addResponse( done );
+            writer.writeElement( done );
+        }
+
+        assertEquals( normalize( batchResponse.toDsml() ), normalize( out.toString() ) );
+    }
+
+
+    @Test
+    public void testBatchRequest() throws Exception
+    {
+        BatchRequestDsml batchRequest = new BatchRequestDsml();
+
+        StringWriter out = new StringWriter();
+        try ( DsmlStreamWriter writer = new DsmlStreamWriter( out ) )
+        {
+            writer.startElement( "batchRequest", ParserUtils.XSD_NAMESPACE, ParserUtils.XSI_NAMESPACE ); //$NON-NLS-1$
+
+            for ( int i = 0; i < 3; i++ )
+            {
+                AddRequestDsml addRequest = new AddRequestDsml( codec );
+                addRequest.setEntry( createEntry( i ) );
+                batchRequest.addRequest( addRequest );
+                writer.writeElement( addRequest );
+            }
+        }
+
+        assertEquals( normalize( batchRequest.toDsml() ), normalize( out.toString() ) );
+    }
+
+
+    @Test
+    public void testEmptyBatchRequest() throws Exception
+    {
+        StringWriter out = new StringWriter();
+        try ( DsmlStreamWriter writer = new DsmlStreamWriter( out ) )
+        {
+            writer.startElement( "batchRequest" ); //$NON-NLS-1$
+        }
+
+        assertEquals( "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<batchRequest>\n</batchRequest>\n", //$NON-NLS-1$
+            out.toString() );
+    }
+
+
+    @Test
+    public void testFlushedOnceOnClose() throws Exception
+    {
+        FlushCountingWriter out = new FlushCountingWriter();
+        DsmlStreamWriter writer = new DsmlStreamWriter( out );
+        writer.startElement( "batchRequest", ParserUtils.XSD_NAMESPACE, ParserUtils.XSI_NAMESPACE ); //$NON-NLS-1$
+        for ( int i = 0; i < 3; i++ )
+        {
+            AddRequestDsml addRequest = new AddRequestDsml( codec );
+            addRequest.setEntry( createEntry( i ) );
+            writer.writeElement( addRequest );
+        }
+        assertEquals( 0, out.flushes );
+
+        writer.close();
+        assertEquals( 1, out.flushes );
+    }
+
+
+    private static Entry createEntry( int i ) throws Exception
+    {
+        return new DefaultEntry( "cn=test" + i + ",o=test", //$NON-NLS-1$ //$NON-NLS-2$
+            "objectClass: top", //$NON-NLS-1$
+            "objectClass: person", //$NON-NLS-1$
+            "cn: test" + i, //$NON-NLS-1$
+            "sn: <&> \"test\"" ); //$NON-NLS-1$
+    }
+
+
+    private static String normalize( String dsml )
+    {
+        return dsml.replace( "\r\n", "\n" ).trim(); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+
+    /**
+     * Counts the flushes.
+     */
+    private static class FlushCountingWriter extends StringWriter
+    {
+        private int flushes;
+
+
+        public void flush()
+        {
+            flushes++;
+            super.flush();
+        }
+    }
+}
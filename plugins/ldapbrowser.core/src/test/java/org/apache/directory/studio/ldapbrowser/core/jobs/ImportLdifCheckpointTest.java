@@ -0,0 +1,152 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
+import org.apache.directory.studio.ldifparser.parser.ParallelLdifParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Tests the {@link ImportLdifCheckpoint}.
+ */
+public class ImportLdifCheckpointTest
+{
+    private static final String LDIF = "version: 1\n\n# comment\ndn: cn=Björn,o=test\ncn: Björn €\n\n" //$NON-NLS-1$
+        + "dn: cn=😀,o=test\ncn: 😀\n\n"; //$NON-NLS-1$
+
+    @TempDir
+    Path tempDir;
+
+
+    @Test
+    public void testSaveAndLoad() throws Exception
+    {
+        File ldifFile = tempDir.resolve( "test.ldif" ).toFile(); //$NON-NLS-1$
+        File logFile = tempDir.resolve( "test.log" ).toFile(); //$NON-NLS-1$
+        Files.write( ldifFile.toPath(), LDIF.getBytes( StandardCharsets.UTF_8 ) );
+
+        ImportLdifCheckpoint checkpoint = new ImportLdifCheckpoint( ldifFile, logFile, StandardCharsets.UTF_8 );
+        assertFalse( checkpoint.load() );
+
+        ParallelLdifParser parser = new ParallelLdifParser();
+        LdifEnumeration enumeration = parser.parse( ldifFile, StandardCharsets.UTF_8 );
+        checkpoint.setParser( parser );
+        StringBuilder processed = new StringBuilder();
+        for ( int i = 0; i < 3; i++ )
+        {
+            LdifContainer container = enumeration.next();
+            processed.append( container.toRawString() );
+            checkpoint.advance( checkpoint.getReadPosition(), i, 0 );
+        }
+        checkpoint.finish();
+        assertFalse( checkpoint.isComplete() );
+        assertTrue( ImportLdifCheckpoint.getCheckpointFile( logFile ).exists() );
+
+        ImportLdifCheckpoint loaded = new ImportLdifCheckpoint( ldifFile, logFile, StandardCharsets.UTF_8 );
+        assertTrue( loaded.load() );
+        assertEquals( checkpoint.getOffset(), loaded.getOffset() );
+        assertEquals( 2, loaded.getImportedCount() );
+        assertEquals( 0, loaded.getErrorCount() );
+        assertEquals( processed.toString(), new String( Files.readAllBytes( ldifFile.toPath() ), 0,
+            ( int ) loaded.getOffset(), StandardCharsets.UTF_8 ) );
+
+        assertFalse( new ImportLdifCheckpoint( ldifFile, logFile, StandardCharsets.ISO_8859_1 ).load() );
+
+        loaded.setParser( parser );
+        while ( enumeration.hasNext() )
+        {
+            enumeration.next();
+            loaded.advance( loaded.getReadPosition(), 2, 0 );
+        }
+        assertEquals( ldifFile.length(), loaded.getOffset() );
+        loaded.setComplete();
+        loaded.finish();
+        assertFalse( ImportLdifCheckpoint.getCheckpointFile( logFile ).exists() );
+        parser.close();
+    }
+
+
+    @Test
+    public void testMalformedInput() throws Exception
+    {
+        // the malformed bytes are decoded to replacement characters that are encoded to more bytes
+        File ldifFile = tempDir.resolve( "test.ldif" ).toFile(); //$NON-NLS-1$
+        File logFile = tempDir.resolve( "test.log" ).toFile(); //$NON-NLS-1$
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write( new byte[]
+            { '#', ' ', ( byte ) 0xFF, ( byte ) 0xC3, '\n' } );
+        out.write( LDIF.getBytes( StandardCharsets.UTF_8 ) );
+        Files.write( ldifFile.toPath(), out.toByteArray() );
+
+        ImportLdifCheckpoint checkpoint = new ImportLdifCheckpoint( ldifFile, logFile, StandardCharsets.UTF_8 );
+        ParallelLdifParser parser = new ParallelLdifParser();
+        LdifEnumeration enumeration = parser.parse( ldifFile, StandardCharsets.UTF_8 );
+        checkpoint.setParser( parser );
+        List<String> rawStrings = new ArrayList<String>();
+        while ( enumeration.hasNext() )
+        {
+            rawStrings.add( enumeration.next().toRawString() );
+            if ( rawStrings.size() <= 2 )
+            {
+                checkpoint.advance( checkpoint.getReadPosition(), 0, 0 );
+            }
+        }
+        parser.close();
+
+        enumeration = parser.parse( ldifFile, StandardCharsets.UTF_8, checkpoint.getOffset() );
+        for ( String rawString : rawStrings.subList( 2, rawStrings.size() ) )
+        {
+            assertEquals( rawString, enumeration.next().toRawString() );
+        }
+        assertFalse( enumeration.hasNext() );
+        parser.close();
+    }
+
+
+    @Test
+    public void testModifiedLdifFile() throws Exception
+    {
+        File ldifFile = tempDir.resolve( "test.ldif" ).toFile(); //$NON-NLS-1$
+        File logFile = tempDir.resolve( "test.log" ).toFile(); //$NON-NLS-1$
+        Files.write( ldifFile.toPath(), LDIF.getBytes( StandardCharsets.UTF_8 ) );
+
+        new ImportLdifCheckpoint( ldifFile, logFile, StandardCharsets.UTF_8 ).save();
+        assertTrue( new ImportLdifCheckpoint( ldifFile, logFile, StandardCharsets.UTF_8 ).load() );
+
+        Files.write( ldifFile.toPath(), ( LDIF + "\n" ).getBytes( StandardCharsets.UTF_8 ) ); //$NON-NLS-1$
+        assertFalse( new ImportLdifCheckpoint( ldifFile, logFile, StandardCharsets.UTF_8 ).load() );
+    }
+}
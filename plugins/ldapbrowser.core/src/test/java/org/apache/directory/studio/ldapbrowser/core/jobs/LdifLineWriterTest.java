@@ -0,0 +1,139 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.apache.directory.studio.ldifparser.LdifFormatParameters;
+import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
+import org.apache.directory.studio.ldifparser.model.lines.LdifDnLine;
+import org.apache.directory.studio.ldifparser.model.lines.LdifSepLine;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests that the {@link LdifLineWriter} produces the same output as the formatted LDIF lines.
+ */
+public class LdifLineWriterTest
+{
+    private static final String[] STRINGS =
+        { "", "a", "cn=test,o=org", " leading space", "trailing space ", ":colon", "<less", "Björn", "€uro",
+            "line\nbreak", "nul\u0000", "😀", "unpaired \uD800 surrogate", "x:: y" };
+
+
+    @Test
+    public void testStringValues() throws Exception
+    {
+        for ( LdifFormatParameters parameters : createFormatParameters() )
+        {
+            for ( String value : STRINGS )
+            {
+                assertLine( LdifAttrValLine.create( "description", value ).toFormattedString( parameters ), //$NON-NLS-1$
+                    parameters, "description", value ); //$NON-NLS-1$
+            }
+        }
+    }
+
+
+    @Test
+    public void testLongStringValues() throws Exception
+    {
+        Random random = new Random( 17 );
+        for ( LdifFormatParameters parameters : createFormatParameters() )
+        {
+            for ( int length = 0; length < 300; length += 1 + random.nextInt( 7 ) )
+            {
+                StringBuilder sb = new StringBuilder();
+                for ( int i = 0; i < length; i++ )
+                {
+                    sb.append( random.nextInt( 10 ) == 0 ? 'ä' : ( char ) ( 'a' + random.nextInt( 26 ) ) );
+                }
+                String value = sb.toString();
+                assertLine( LdifAttrValLine.create( "cn", value ).toFormattedString( parameters ), parameters, //$NON-NLS-1$
+                    "cn", value ); //$NON-NLS-1$
+            }
+        }
+    }
+
+
+    @Test
+    public void testBinaryValues() throws Exception
+    {
+        Random random = new Random( 23 );
+        for ( LdifFormatParameters parameters : createFormatParameters() )
+        {
+            for ( int length = 0; length < 20000; length += 1 + random.nextInt( length + 10 ) )
+            {
+                byte[] value = new byte[length];
+                random.nextBytes( value );
+
+                StringWriter out = new StringWriter();
+                LdifLineWriter writer = new LdifLineWriter( out, parameters );
+                writer.writeAttrVal( "jpegPhoto", value ); //$NON-NLS-1$
+                writer.flush();
+
+                assertEquals( LdifAttrValLine.create( "jpegPhoto", value ).toFormattedString( parameters ), //$NON-NLS-1$
+                    out.toString() );
+            }
+        }
+    }
+
+
+    @Test
+    public void testRecord() throws Exception
+    {
+        LdifFormatParameters parameters = LdifFormatParameters.DEFAULT;
+        String dn = "cn=Björn Jensen,ou=people,dc=example,dc=com"; //$NON-NLS-1$
+        String expected = LdifDnLine.create( dn ).toFormattedString( parameters )
+            + LdifAttrValLine.create( "cn", "Björn Jensen" ).toFormattedString( parameters ) //$NON-NLS-1$ //$NON-NLS-2$
+            + LdifSepLine.create().toFormattedString( parameters );
+
+        StringWriter out = new StringWriter();
+        LdifLineWriter writer = new LdifLineWriter( out, parameters );
+        writer.writeDn( dn );
+        writer.writeAttrVal( "cn", "Björn Jensen" ); //$NON-NLS-1$ //$NON-NLS-2$
+        writer.writeSeparator();
+
+        assertEquals( expected, out.toString() );
+    }
+
+
+    private void assertLine( String expected, LdifFormatParameters parameters, String attributeDescription,
+        String value ) throws Exception
+    {
+        StringWriter out = new StringWriter();
+        LdifLineWriter writer = new LdifLineWriter( out, parameters );
+        writer.writeAttrVal( attributeDescription, value );
+        writer.flush();
+        assertEquals( expected, out.toString() );
+    }
+
+
+    private LdifFormatParameters[] createFormatParameters()
+    {
+        return new LdifFormatParameters[]
+            { LdifFormatParameters.DEFAULT, new LdifFormatParameters( false, 10, "\r\n" ), //$NON-NLS-1$
+                new LdifFormatParameters( true, 2, "\n" ), new LdifFormatParameters( true, 1000, "\n" ) }; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+}
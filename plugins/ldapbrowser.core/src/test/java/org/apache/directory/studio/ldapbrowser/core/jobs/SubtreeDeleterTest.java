@@ -0,0 +1,307 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.exception.LdapContextNotEmptyException;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.ldapbrowser.core.jobs.SubtreeDeleter.Levels;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the rounds and levels of the {@link SubtreeDeleter} against an in-memory tree.
+ * The tree returns its entries parents first, like servers that return them in
+ * insertion order.
+ */
+public class SubtreeDeleterTest
+{
+    @Test
+    public void testLevelsKeepAll() throws Exception
+    {
+        Levels levels = new Levels( 10 );
+        levels.add( new Dn( "ou=a,dc=com" ) ); //$NON-NLS-1$
+        levels.add( new Dn( "cn=b,ou=a,dc=com" ) ); //$NON-NLS-1$
+        levels.add( new Dn( "cn=c,ou=a,dc=com" ) ); //$NON-NLS-1$
+
+        assertEquals( 3, levels.size() );
+        assertEquals( Arrays.asList( 2, 3 ), new ArrayList<Integer>( levels.getLevels().keySet() ) );
+        assertEquals( 2, levels.getLevels().get( 3 ).size() );
+    }
+
+
+    @Test
+    public void testLevelsKeepDeepest() throws Exception
+    {
+        Levels levels = new Levels( 3 );
+        levels.add( new Dn( "ou=a,dc=com" ) ); //$NON-NLS-1$
+        levels.add( new Dn( "ou=b,dc=com" ) ); //$NON-NLS-1$
+        levels.add( new Dn( "ou=c,dc=com" ) ); //$NON-NLS-1$
+        levels.add( new Dn( "cn=d,ou=a,dc=com" ) ); //$NON-NLS-1$
+        levels.add( new Dn( "cn=e,ou=a,dc=com" ) ); //$NON-NLS-1$
+
+        // not deeper than the shallowest kept level
+        levels.add( new Dn( "ou=f,dc=com" ) ); //$NON-NLS-1$
+
+        levels.add( new Dn( "uid=g,cn=d,ou=a,dc=com" ) ); //$NON-NLS-1$
+
+        assertEquals( 3, levels.size() );
+        assertEquals( Arrays.asList( 3, 4 ), new ArrayList<Integer>( levels.getLevels().keySet() ) );
+        assertEquals( 2, levels.getLevels().get( 3 ).size() );
+        assertEquals( 1, levels.getLevels().get( 4 ).size() );
+
+        // only the deepest level is left, further Dns of it are dropped
+        levels.add( new Dn( "uid=h,cn=d,ou=a,dc=com" ) ); //$NON-NLS-1$
+        levels.add( new Dn( "uid=i,cn=d,ou=a,dc=com" ) ); //$NON-NLS-1$
+        levels.add( new Dn( "uid=j,cn=d,ou=a,dc=com" ) ); //$NON-NLS-1$
+        assertEquals( 3, levels.size() );
+        assertEquals( Arrays.asList( 4 ), new ArrayList<Integer>( levels.getLevels().keySet() ) );
+    }
+
+
+    @Test
+    public void testSmallTree() throws Exception
+    {
+        TestTree tree = new TestTree( 3, 3, 3 );
+        int total = tree.size();
+
+        TestSubtreeDeleter deleter = new TestSubtreeDeleter( tree, 1, 1000, Integer.MAX_VALUE );
+        StudioProgressMonitor dummyMonitor = createMonitor();
+
+        assertEquals( total, deleter.deleteChildren( tree.root, 0, dummyMonitor ) );
+        assertFalse( dummyMonitor.errorsReported() );
+        assertTrue( tree.isEmpty() );
+
+        // the second round finds no more entries
+        assertEquals( 2, deleter.rounds );
+    }
+
+
+    @Test
+    public void testMoreInnerEntriesThanRoundCapacity() throws Exception
+    {
+        // 20 + 20 * 10 = 220 inner entries, 220 * 2 = 440 leaves
+        TestTree tree = new TestTree( 20, 10, 2 );
+        int total = tree.size();
+
+        TestSubtreeDeleter deleter = new TestSubtreeDeleter( tree, 1, 100, Integer.MAX_VALUE );
+        StudioProgressMonitor dummyMonitor = createMonitor();
+
+        assertEquals( total, deleter.deleteChildren( tree.root, 0, dummyMonitor ) );
+        assertFalse( dummyMonitor.errorsReported() );
+        assertTrue( tree.isEmpty() );
+    }
+
+
+    @Test
+    public void testSearchLimitReturnsInnerEntriesOnly() throws Exception
+    {
+        // each search only returns the first 5 entries, all of them are inner entries
+        TestTree tree = new TestTree( 10, 10, 3 );
+        int total = tree.size();
+
+        TestSubtreeDeleter deleter = new TestSubtreeDeleter( tree, 1, 100, 5 );
+        StudioProgressMonitor dummyMonitor = createMonitor();
+
+        assertEquals( total, deleter.deleteChildren( tree.root, 0, dummyMonitor ) );
+        assertFalse( dummyMonitor.errorsReported() );
+        assertTrue( tree.isEmpty() );
+    }
+
+
+    @Test
+    public void testConcurrentWorkers() throws Exception
+    {
+        TestTree tree = new TestTree( 10, 10, 10 );
+        int total = tree.size();
+
+        TestSubtreeDeleter deleter = new TestSubtreeDeleter( tree, 4, 200, Integer.MAX_VALUE );
+        StudioProgressMonitor dummyMonitor = createMonitor();
+
+        assertEquals( total, deleter.deleteChildren( tree.root, 0, dummyMonitor ) );
+        assertFalse( dummyMonitor.errorsReported() );
+        assertTrue( tree.isEmpty() );
+    }
+
+
+    @Test
+    public void testUndeletableEntry() throws Exception
+    {
+        TestTree tree = new TestTree( 2, 2, 2 );
+        tree.undeletable = new Dn( "uid=0,cn=0,ou=0,dc=com" ); //$NON-NLS-1$
+
+        TestSubtreeDeleter deleter = new TestSubtreeDeleter( tree, 1, 100, Integer.MAX_VALUE );
+        StudioProgressMonitor dummyMonitor = createMonitor();
+
+        // the delete stops at the first error other than error 66
+        int total = tree.size();
+        assertEquals( 0, deleter.deleteChildren( tree.root, 0, dummyMonitor ) );
+        assertTrue( dummyMonitor.errorsReported() );
+        assertEquals( total, tree.size() );
+    }
+
+
+    private static StudioProgressMonitor createMonitor()
+    {
+        return new StudioProgressMonitor( new NullProgressMonitor() );
+    }
+
+
+    /**
+     * A tree below dc=com with ou, cn and uid levels, the entries are kept parents first.
+     */
+    private static class TestTree
+    {
+        private final Dn root;
+
+        private final List<Dn> entries = new ArrayList<Dn>();
+
+        private Dn undeletable;
+
+
+        TestTree( int ous, int cns, int uids ) throws LdapException
+        {
+            root = new Dn( "dc=com" ); //$NON-NLS-1$
+            for ( int i = 0; i < ous; i++ )
+            {
+                entries.add( new Dn( "ou=" + i + ",dc=com" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            for ( int i = 0; i < ous; i++ )
+            {
+                for ( int j = 0; j < cns; j++ )
+                {
+                    entries.add( new Dn( "cn=" + j + ",ou=" + i + ",dc=com" ) ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                }
+            }
+            for ( int i = 0; i < ous; i++ )
+            {
+                for ( int j = 0; j < cns; j++ )
+                {
+                    for ( int k = 0; k < uids; k++ )
+                    {
+                        entries.add( new Dn( "uid=" + k + ",cn=" + j + ",ou=" + i + ",dc=com" ) ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                    }
+                }
+            }
+        }
+
+
+        synchronized int size()
+        {
+            return entries.size();
+        }
+
+
+        synchronized boolean isEmpty()
+        {
+            return entries.isEmpty();
+        }
+
+
+        synchronized List<Dn> search( Dn base, int sizeLimit )
+        {
+            List<Dn> result = new ArrayList<Dn>();
+            for ( Dn entry : entries )
+            {
+                if ( result.size() >= sizeLimit )
+                {
+                    break;
+                }
+                if ( entry.isDescendantOf( base ) && !entry.equals( base ) )
+                {
+                    result.add( entry );
+                }
+            }
+            return result;
+        }
+
+
+        synchronized Exception delete( Dn dn )
+        {
+            if ( dn.equals( undeletable ) )
+            {
+                return new LdapException( "undeletable" ); //$NON-NLS-1$
+            }
+            for ( Dn entry : entries )
+            {
+                if ( entry.size() > dn.size() && entry.isDescendantOf( dn ) )
+                {
+                    return new LdapContextNotEmptyException( dn.getName() );
+                }
+            }
+            entries.remove( dn );
+            return null;
+        }
+    }
+
+
+    /**
+     * A {@link SubtreeDeleter} that searches and deletes in the {@link TestTree}.
+     */
+    private static class TestSubtreeDeleter extends SubtreeDeleter
+    {
+        private final TestTree tree;
+
+        private final int sizeLimit;
+
+        private int rounds;
+
+
+        TestSubtreeDeleter( TestTree tree, int numberOfWorkers, int maxEntriesPerRound, int sizeLimit )
+        {
+            super( null, createMonitor(), numberOfWorkers, maxEntriesPerRound );
+            this.tree = tree;
+            this.sizeLimit = sizeLimit;
+        }
+
+
+        @Override
+        void enumerateChildren( Dn dn, Levels levels, StudioProgressMonitor dummyMonitor )
+        {
+            rounds++;
+            for ( Dn entry : tree.search( dn, sizeLimit ) )
+            {
+                levels.add( entry );
+            }
+        }
+
+
+        @Override
+        void deleteEntry( Dn dn, StudioProgressMonitor workerMonitor )
+        {
+            Exception exception = tree.delete( dn );
+            if ( exception != null )
+            {
+                workerMonitor.reportError( exception );
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directory.studio.ldapbrowser.core.jobs.LdifSchemaValidator.Kind;
+import org.apache.directory.studio.ldapbrowser.core.jobs.LdifSchemaValidator.Violation;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.apache.directory.studio.ldifparser.model.container.LdifRecord;
+import org.apache.directory.studio.ldifparser.parser.LdifParser;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the {@link LdifSchemaValidator} and the {@link ValidateLdifRunnable}.
+ */
+public class ValidateLdifRunnableTest
+{
+    private static final String SCHEMA_LDIF = "dn: cn=schema\n" //$NON-NLS-1$
+        + "objectClass: subschema\n" //$NON-NLS-1$
+        + "attributeTypes: ( 2.5.4.0 NAME 'objectClass' SYNTAX 1.3.6.1.4.1.1466.115.121.1.38 )\n" //$NON-NLS-1$
+        + "attributeTypes: ( 2.5.4.41 NAME 'name' SYNTAX 1.3.6.1.4.1.1466.115.121.1.15 )\n" //$NON-NLS-1$
+        + "attributeTypes: ( 2.5.4.3 NAME 'cn' SUP name )\n" //$NON-NLS-1$
+        + "attributeTypes: ( 2.5.4.4 NAME 'sn' SUP name )\n" //$NON-NLS-1$
+        + "attributeTypes: ( 2.5.4.20 NAME 'telephoneNumber' SYNTAX 1.3.6.1.4.1.1466.115.121.1.50 )\n" //$NON-NLS-1$
+        + "attributeTypes: ( 1.3.6.1.1.1.1.0 NAME 'uidNumber' SYNTAX 1.3.6.1.4.1.1466.115.121.1.27 SINGLE-VALUE )\n" //$NON-NLS-1$
+        + "attributeTypes: ( 2.5.18.1 NAME 'createTimestamp' SYNTAX 1.3.6.1.4.1.1466.115.121.1.24 " //$NON-NLS-1$
+        + "SINGLE-VALUE NO-USER-MODIFICATION USAGE directoryOperation )\n" //$NON-NLS-1$
+        + "objectClasses: ( 2.5.6.0 NAME 'top' ABSTRACT MUST objectClass )\n" //$NON-NLS-1$
+        + "objectClasses: ( 2.5.6.6 NAME 'person' SUP top STRUCTURAL MUST ( sn $ cn ) MAY telephoneNumber )\n" //$NON-NLS-1$
+        + "objectClasses: ( 1.3.6.1.1.1.2.0 NAME 'posixAccount' SUP top AUXILIARY MUST uidNumber )\n" //$NON-NLS-1$
+        + "objectClasses: ( 1.3.6.1.4.1.1466.101.120.111 NAME 'extensibleObject' SUP top AUXILIARY )\n\n"; //$NON-NLS-1$
+
+    private static Schema schema;
+
+
+    @BeforeAll
+    public static void loadSchema()
+    {
+        schema = new Schema();
+        schema.loadFromLdif( new StringReader( SCHEMA_LDIF ) );
+    }
+
+
+    @Test
+    public void testValidEntry()
+    {
+        assertKinds( "dn: cn=a,o=test\nobjectClass: top\nobjectClass: person\ncn: a\nSN: b\n" //$NON-NLS-1$
+            + "telephoneNumber: 123\ncreateTimestamp: 20260101000000Z\n\n" ); //$NON-NLS-1$
+        assertKinds( "dn: cn=a,o=test\nchangetype: add\nobjectClass: person\nobjectClass: posixAccount\n" //$NON-NLS-1$
+            + "cn: a\nsn: b\nuidNumber: 42\n\n" ); //$NON-NLS-1$
+        assertKinds( "dn: cn=a,o=test\nchangetype: delete\n\n" ); //$NON-NLS-1$
+    }
+
+
+    @Test
+    public void testObjectClasses()
+    {
+        assertKinds( "dn: cn=a,o=test\ncn: a\n\n", Kind.NO_OBJECT_CLASS ); //$NON-NLS-1$
+        assertKinds( "dn: cn=a,o=test\nobjectClass: top\ncn: a\n\n", Kind.NO_STRUCTURAL_OBJECT_CLASS, //$NON-NLS-1$
+            Kind.ATTRIBUTE_NOT_ALLOWED );
+        assertKinds( "dn: cn=a,o=test\nobjectClass: person\nobjectClass: unknown\ncn: a\nsn: b\nfoo: c\n\n", //$NON-NLS-1$
+            Kind.UNKNOWN_OBJECT_CLASS, Kind.UNKNOWN_ATTRIBUTE );
+    }
+
+
+    @Test
+    public void testMustAndMay()
+    {
+        assertKinds( "dn: cn=a,o=test\nobjectClass: person\nobjectClass: posixAccount\ncn: a\n\n", //$NON-NLS-1$
+            Kind.MISSING_ATTRIBUTE, Kind.MISSING_ATTRIBUTE );
+        assertKinds( "dn: cn=a,o=test\nobjectClass: person\ncn: a\nsn: b\nuidNumber: 1\n\n", //$NON-NLS-1$
+            Kind.ATTRIBUTE_NOT_ALLOWED );
+        assertKinds( "dn: cn=a,o=test\nobjectClass: person\nobjectClass: extensibleObject\ncn: a\nsn: b\n" //$NON-NLS-1$
+            + "uidNumber: 1\n\n" ); //$NON-NLS-1$
+    }
+
+
+    @Test
+    public void testValues()
+    {
+        assertKinds( "dn: cn=a,o=test\nobjectClass: person\nobjectClass: posixAccount\ncn: a\nsn: b\n" //$NON-NLS-1$
+            + "uidNumber: 1\nuidNumber: 2\n\n", Kind.SINGLE_VALUE ); //$NON-NLS-1$
+        assertKinds( "dn: cn=a,o=test\nobjectClass: person\nobjectClass: posixAccount\ncn: a\nsn: b\n" //$NON-NLS-1$
+            + "uidNumber: x\n\n", Kind.INVALID_SYNTAX ); //$NON-NLS-1$
+        assertKinds( "dn: cn=a,o=test\nchangetype: modify\nreplace: uidNumber\nuidNumber: 1\nuidNumber: x\n-\n" //$NON-NLS-1$
+            + "add: foo\nfoo: bar\n-\ndelete: cn\n-\n\n", Kind.INVALID_SYNTAX, Kind.SINGLE_VALUE, //$NON-NLS-1$
+            Kind.UNKNOWN_ATTRIBUTE );
+    }
+
+
+    @Test
+    public void testValidateLdif() throws Exception
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < 3000; i++ )
+        {
+            sb.append( "dn: cn=" ).append( i ).append( ",o=test\nobjectClass: person\ncn: " ).append( i ); //$NON-NLS-1$ //$NON-NLS-2$
+            sb.append( i % 1000 == 7 ? "\n\n" : "\nsn: x\n\n" ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        ValidateLdifRunnable runnable = new ValidateLdifRunnable( null, null, null );
+        StringWriter errorWriter = new StringWriter();
+        runnable.validateLdif( new LdifParser().parse( new StringReader( sb.toString() ) ), schema, errorWriter,
+            new NullProgressMonitor() );
+
+        assertEquals( 3000, runnable.getRecordCount() );
+        assertEquals( 3, runnable.getInvalidCount() );
+        String errors = errorWriter.toString();
+        assertTrue( errors.indexOf( "dn: cn=7,o=test" ) < errors.indexOf( "dn: cn=1007,o=test" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue( errors.indexOf( "dn: cn=1007,o=test" ) < errors.indexOf( "dn: cn=2007,o=test" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue( errors.contains( "#!SUMMARY MISSING_ATTRIBUTE 3" ) ); //$NON-NLS-1$
+    }
+
+
+    private void assertKinds( String ldif, Kind... expected )
+    {
+        LdifRecord record = ( LdifRecord ) new LdifParser().parse( ldif ).getRecords()[0];
+        List<Kind> kinds = new ArrayList<Kind>();
+        for ( Violation violation : new LdifSchemaValidator( schema ).validate( record ) )
+        {
+            kinds.add( violation.getKind() );
+        }
+        List<Kind> expectedKinds = new ArrayList<Kind>();
+        for ( Kind kind : expected )
+        {
+            expectedKinds.add( kind );
+        }
+        assertEquals( expectedKinds, kinds, ldif );
+    }
+}
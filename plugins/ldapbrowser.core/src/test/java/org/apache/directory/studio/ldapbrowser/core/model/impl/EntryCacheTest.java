@@ -0,0 +1,224 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.model.impl;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.ldapbrowser.core.model.EntryCacheStatistics;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.junit.jupiter.api.Test;
+
+
+public class EntryCacheTest
+{
+    @Test
+    public void testEntryAndMetadata() throws Exception
+    {
+        EntryCache cache = new EntryCache( 0 );
+        IEntry entry = new DummyEntry( new Dn( "cn=foo" ), null );
+        ChildrenInfo ci = new ChildrenInfo();
+
+        cache.setEntry( "2.5.4.3=foo", entry );
+        cache.setChildrenInfo( "2.5.4.3=foo", ci );
+        cache.setChildrenFilter( "2.5.4.3=foo", "(objectClass=*)" );
+        cache.setAttributeInfo( "2.5.4.3=foo", loadedAttributeInfo(), true );
+
+        assertSame( entry, cache.getEntry( "2.5.4.3=foo" ) );
+        assertSame( ci, cache.getChildrenInfo( "2.5.4.3=foo" ) );
+        assertEquals( "(objectClass=*)", cache.getChildrenFilter( "2.5.4.3=foo" ) );
+        assertNotNull( cache.getAttributeInfo( "2.5.4.3=foo" ) );
+        assertEquals( 1, cache.getStatistics().getEntryCount() );
+        assertEquals( 1, cache.getStatistics().getLoadedEntryCount() );
+
+        cache.remove( "2.5.4.3=foo" );
+
+        assertNull( cache.getEntry( "2.5.4.3=foo" ) );
+        assertNull( cache.getChildrenInfo( "2.5.4.3=foo" ) );
+        assertNull( cache.getChildrenFilter( "2.5.4.3=foo" ) );
+        assertNull( cache.getAttributeInfo( "2.5.4.3=foo" ) );
+        assertEquals( 0, cache.getStatistics().getEntryCount() );
+        assertEquals( 0, cache.getStatistics().getLoadedEntryCount() );
+    }
+
+
+    @Test
+    public void testEvictsNotRecentlyUsed()
+    {
+        EntryCache cache = new EntryCache( 2 );
+        cache.setAttributeInfo( "a", loadedAttributeInfo(), true );
+        cache.setAttributeInfo( "b", loadedAttributeInfo(), true );
+        cache.getAttributeInfo( "a" );
+        cache.setAttributeInfo( "c", loadedAttributeInfo(), true );
+
+        assertNotNull( cache.getAttributeInfo( "a" ) );
+        assertNull( cache.getAttributeInfo( "b" ) );
+        assertNotNull( cache.getAttributeInfo( "c" ) );
+        EntryCacheStatistics statistics = cache.getStatistics();
+        assertEquals( 2, statistics.getLoadedEntryCount() );
+        assertEquals( 1, statistics.getEvictionCount() );
+        assertEquals( 3, statistics.getHitCount() );
+        assertEquals( 1, statistics.getMissCount() );
+    }
+
+
+    @Test
+    public void testPartialAttributesAreNotEvicted()
+    {
+        EntryCache cache = new EntryCache( 1 );
+        cache.setAttributeInfo( "partial", new AttributeInfo(), true );
+        cache.setAttributeInfo( "a", loadedAttributeInfo(), true );
+        cache.setAttributeInfo( "b", loadedAttributeInfo(), true );
+
+        assertNotNull( cache.getAttributeInfo( "partial" ) );
+        assertNull( cache.getAttributeInfo( "a" ) );
+        assertEquals( 1, cache.getStatistics().getLoadedEntryCount() );
+    }
+
+
+    @Test
+    public void testShrinkMaxLoadedEntries()
+    {
+        EntryCache cache = new EntryCache( 10 );
+        for ( int i = 0; i < 10; i++ )
+        {
+            cache.setAttributeInfo( "cn=" + i, loadedAttributeInfo(), true );
+        }
+        cache.setMaxLoadedEntries( 4 );
+
+        assertEquals( 4, cache.getStatistics().getLoadedEntryCount() );
+        assertEquals( 6, cache.getStatistics().getEvictionCount() );
+        assertNotNull( cache.getAttributeInfo( "cn=9" ) );
+        assertNull( cache.getAttributeInfo( "cn=5" ) );
+    }
+
+
+    @Test
+    public void testPinnedAttributesAreNotEvicted()
+    {
+        EntryCache cache = new EntryCache( 1 );
+        cache.setAttributeInfo( "pinned", loadedAttributeInfo(), false );
+        cache.setAttributeInfo( "a", loadedAttributeInfo(), true );
+        cache.setAttributeInfo( "b", loadedAttributeInfo(), true );
+
+        assertEquals( 1, cache.getStatistics().getLoadedEntryCount() );
+        assertEquals( 1, cache.getStatistics().getEvictionCount() );
+        assertNotNull( cache.getAttributeInfo( "pinned" ) );
+    }
+
+
+    @Test
+    public void testEvictionKeepsEntry() throws Exception
+    {
+        EntryCache cache = new EntryCache( 1 );
+        IEntry entry = new DummyEntry( new Dn( "cn=a" ), null );
+        cache.setEntry( "a", entry );
+        cache.setAttributeInfo( "a", loadedAttributeInfo(), true );
+        cache.setAttributeInfo( "b", loadedAttributeInfo(), true );
+
+        assertNull( cache.getAttributeInfo( "a" ) );
+        assertSame( entry, cache.getEntry( "a" ) );
+    }
+
+
+    /**
+     * Tests that concurrent writers neither lose entries nor exceed the
+     * maximum number of loaded entries by more than one entry per writer.
+     */
+    @Test
+    public void testConcurrentWriters() throws Exception
+    {
+        final int writers = 4;
+        final int entriesPerWriter = 1000;
+        final int maxLoadedEntries = 100;
+        final EntryCache cache = new EntryCache( maxLoadedEntries );
+        final IEntry entry = new DummyEntry( new Dn( "cn=foo" ), null );
+        final CountDownLatch start = new CountDownLatch( 1 );
+        final List<Throwable> errors = new ArrayList<Throwable>();
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for ( int w = 0; w < writers; w++ )
+        {
+            final int writer = w;
+            Thread thread = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                        for ( int i = 0; i < entriesPerWriter; i++ )
+                        {
+                            String key = "cn=" + i + ",ou=" + writer;
+                            String parentKey = "ou=" + writer;
+                            cache.setEntry( key, entry );
+                            cache.setAttributeInfo( key, loadedAttributeInfo(), true );
+                            cache.setChildrenInfo( parentKey, new ChildrenInfo() );
+                            cache.getAttributeInfo( "cn=" + ( i / 2 ) + ",ou=" + writer );
+                        }
+                    }
+                    catch ( Throwable t )
+                    {
+                        synchronized ( errors )
+                        {
+                            errors.add( t );
+                        }
+                    }
+                }
+            };
+            thread.start();
+            threads.add( thread );
+        }
+
+        start.countDown();
+        for ( Thread thread : threads )
+        {
+            thread.join();
+        }
+
+        assertTrue( errors.isEmpty(), errors.toString() );
+        EntryCacheStatistics statistics = cache.getStatistics();
+        assertEquals( writers * entriesPerWriter, statistics.getEntryCount() );
+        assertTrue( statistics.getLoadedEntryCount() <= maxLoadedEntries + writers );
+        assertEquals( writers * entriesPerWriter, statistics.getLoadedEntryCount() + statistics.getEvictionCount() );
+        for ( int w = 0; w < writers; w++ )
+        {
+            assertNotNull( cache.getChildrenInfo( "ou=" + w ) );
+            assertSame( entry, cache.getEntry( "cn=" + ( entriesPerWriter - 1 ) + ",ou=" + w ) );
+        }
+    }
+
+
+    private static AttributeInfo loadedAttributeInfo()
+    {
+        AttributeInfo ai = new AttributeInfo();
+        ai.attributesInitialized = true;
+        return ai;
+    }
+}
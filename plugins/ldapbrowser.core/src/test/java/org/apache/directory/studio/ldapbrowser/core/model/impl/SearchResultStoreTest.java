@@ -0,0 +1,120 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.model.impl;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
+import org.junit.jupiter.api.Test;
+
+
+public class SearchResultStoreTest
+{
+    @Test
+    public void testEmpty()
+    {
+        SearchResultStore store = new SearchResultStore();
+
+        assertEquals( 0, store.size() );
+        assertEquals( 0, store.toArray().length );
+        assertThrows( IndexOutOfBoundsException.class, () -> store.get( 0 ) );
+    }
+
+
+    @Test
+    public void testAddAcrossChunks()
+    {
+        SearchResultStore store = new SearchResultStore();
+        ISearchResult[] all = createSearchResults( SearchResultStore.CHUNK_SIZE * 2 + 10 );
+
+        ISearchResult[] first = new ISearchResult[SearchResultStore.CHUNK_SIZE - 1];
+        System.arraycopy( all, 0, first, 0, first.length );
+        ISearchResult[] second = new ISearchResult[all.length - first.length];
+        System.arraycopy( all, first.length, second, 0, second.length );
+
+        store.add( first );
+        assertArrayEquals( first, store.toArray() );
+        store.add( second );
+
+        assertEquals( all.length, store.size() );
+        assertArrayEquals( all, store.toArray() );
+        for ( int i = 0; i < all.length; i++ )
+        {
+            assertSame( all[i], store.get( i ) );
+        }
+    }
+
+
+    @Test
+    public void testAsList()
+    {
+        ISearchResult[] searchResults = createSearchResults( SearchResultStore.CHUNK_SIZE + 1 );
+        SearchResultStore store = new SearchResultStore( searchResults );
+
+        List<ISearchResult> list = store.asList();
+        assertEquals( Arrays.asList( searchResults ), list );
+        assertSame( searchResults[SearchResultStore.CHUNK_SIZE], list.get( SearchResultStore.CHUNK_SIZE ) );
+        assertThrows( UnsupportedOperationException.class, () -> list.add( searchResults[0] ) );
+        assertThrows( IndexOutOfBoundsException.class, () -> list.get( searchResults.length ) );
+
+        // The view keeps its size, results appended later are in the next view
+        ISearchResult[] more = createSearchResults( SearchResultStore.CHUNK_SIZE );
+        store.add( more );
+        assertEquals( searchResults.length, list.size() );
+        List<ISearchResult> next = store.asList();
+        assertEquals( searchResults.length + more.length, next.size() );
+        assertSame( more[more.length - 1], next.get( next.size() - 1 ) );
+    }
+
+
+    @Test
+    public void testToArrayIsACopy()
+    {
+        ISearchResult[] searchResults = createSearchResults( 3 );
+        SearchResultStore store = new SearchResultStore( searchResults );
+
+        ISearchResult[] array = store.toArray();
+        assertArrayEquals( searchResults, array );
+        assertNotSame( searchResults, array );
+        assertNotSame( array, store.toArray() );
+
+        array[0] = null;
+        assertSame( searchResults[0], store.get( 0 ) );
+    }
+
+
+    private static ISearchResult[] createSearchResults( int count )
+    {
+        ISearchResult[] searchResults = new ISearchResult[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            searchResults[i] = new SearchResult( null, null );
+        }
+        return searchResults;
+    }
+}
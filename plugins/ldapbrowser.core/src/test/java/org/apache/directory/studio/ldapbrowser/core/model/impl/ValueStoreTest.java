@@ -0,0 +1,173 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.model.impl;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
+import org.apache.directory.studio.ldapbrowser.core.model.IValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+public class ValueStoreTest
+{
+    private IAttribute attribute;
+
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        attribute = new Attribute( new DummyEntry( new Dn( "cn=group" ), null ), "member" );
+    }
+
+
+    @Test
+    public void testAddAndGet()
+    {
+        ValueStore store = new ValueStore();
+        store.add( new Value( attribute, "cn=Jürgen" ) );
+        store.add( new Value( attribute, new byte[]
+            { 1, 2, 3 } ) );
+        store.add( new Value( attribute, IValue.EMPTY_STRING_VALUE ) );
+
+        assertEquals( 3, store.size() );
+        assertEquals( "cn=Jürgen", store.getStringValue( 0 ) );
+        assertEquals( "cn=Jürgen", store.get( attribute, 0 ).getRawValue() );
+        assertArrayEquals( new byte[]
+            { 1, 2, 3 }, store.getBinaryValue( 1 ) );
+        assertArrayEquals( new byte[]
+            { 1, 2, 3 }, ( byte[] ) store.get( attribute, 1 ).getRawValue() );
+        assertTrue( store.get( attribute, 2 ).isEmpty() );
+        assertTrue( store.containsEmptyValue() );
+    }
+
+
+    @Test
+    public void testRemove()
+    {
+        ValueStore store = new ValueStore();
+        store.add( new Value( attribute, "a" ) );
+        store.add( new Value( attribute, "bb" ) );
+        store.add( new Value( attribute, "ccc" ) );
+        store.add( new Value( attribute, "dddd" ) );
+        IValue a = store.get( attribute, 0 );
+        IValue ccc = store.get( attribute, 2 );
+        IValue dddd = store.get( attribute, 3 );
+        assertEquals( "dddd", dddd.getStringValue() );
+
+        // the values are compacted in place, the views after the removed value are moved
+        assertTrue( store.remove( new Value( attribute, "bb" ) ) );
+        assertFalse( store.remove( new Value( attribute, "bb" ) ) );
+
+        assertEquals( 3, store.size() );
+        assertEquals( "a", store.getStringValue( 0 ) );
+        assertEquals( "ccc", store.getStringValue( 1 ) );
+        assertEquals( "dddd", store.getStringValue( 2 ) );
+        assertEquals( "a", a.getStringValue() );
+        assertEquals( "ccc", ccc.getStringValue() );
+        assertEquals( "dddd", dddd.getStringValue() );
+
+        store.add( new Value( attribute, "e" ) );
+        assertEquals( "e", store.getStringValue( 3 ) );
+    }
+
+
+    @Test
+    public void testViewsAreKept()
+    {
+        ValueStore store = new ValueStore();
+        store.add( new Value( attribute, "a" ) );
+        store.add( new Value( attribute, "bb" ) );
+        IValue a = store.get( attribute, 0 );
+        IValue bb = store.get( attribute, 1 );
+        assertSame( a, store.get( attribute, 0 ) );
+
+        // the byte array is reallocated, the views are moved
+        for ( int i = 0; i < 100; i++ )
+        {
+            store.add( new Value( attribute, "value" + i ) );
+        }
+        assertSame( bb, store.get( attribute, 1 ) );
+        assertEquals( "bb", bb.getStringValue() );
+
+        assertTrue( store.remove( a ) );
+        assertSame( bb, store.get( attribute, 0 ) );
+        assertEquals( "bb", bb.getStringValue() );
+        assertEquals( "value99", store.get( attribute, store.size() - 1 ).getStringValue() );
+
+        Attribute member = new Attribute( attribute.getEntry(), "member" );
+        member.addValue( new Value( member, "cn=a" ) );
+        assertSame( member.getValues()[0], member.getValues()[0] );
+    }
+
+
+    @Test
+    public void testRemoveEmptyValue()
+    {
+        ValueStore store = new ValueStore();
+        store.add( new Value( attribute, "a" ) );
+        assertNull( store.removeEmptyValue( attribute ) );
+
+        store.add( new Value( attribute, IValue.EMPTY_STRING_VALUE ) );
+        assertNotNull( store.removeEmptyValue( attribute ) );
+        assertFalse( store.containsEmptyValue() );
+        assertEquals( 1, store.size() );
+    }
+
+
+    @Test
+    public void testManyValues()
+    {
+        int count = 10000;
+
+        ValueStore store = new ValueStore();
+        for ( int i = 0; i < count; i++ )
+        {
+            store.add( new Value( attribute, getMemberDn( i ) ) );
+        }
+
+        assertEquals( count, store.size() );
+        for ( int i = 0; i < count; i++ )
+        {
+            assertEquals( getMemberDn( i ), store.getStringValue( i ) );
+        }
+
+        assertTrue( store.remove( new Value( attribute, getMemberDn( count / 2 ) ) ) );
+        assertEquals( count - 1, store.size() );
+        assertEquals( getMemberDn( count / 2 - 1 ), store.getStringValue( count / 2 - 1 ) );
+        assertEquals( getMemberDn( count / 2 + 1 ), store.getStringValue( count / 2 ) );
+        assertEquals( getMemberDn( count - 1 ), store.get( attribute, count - 2 ).getStringValue() );
+    }
+
+
+    private static String getMemberDn( int i )
+    {
+        return "uid=user" + i + ",ou=users,dc=example,dc=com";
+    }
+}
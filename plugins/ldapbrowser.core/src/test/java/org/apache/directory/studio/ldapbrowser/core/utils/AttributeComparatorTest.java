@@ -25,6 +25,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.List;
 
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
 import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
@@ -198,4 +200,34 @@ public class AttributeComparatorTest
         assertEquals( "9", sortedValues.get( 31 ).getStringValue() );
     }
 
+
+    @Test
+    public void testToSortedAttributesOfLdapApiEntry() throws Exception
+    {
+        Entry ldapApiEntry = new DefaultEntry( "cn=foo",
+            "uid: 2",
+            "createTimestamp: 20200101000000Z",
+            "description: b",
+            "sn: foo",
+            "objectClass: top",
+            "description: A",
+            "objectClass: person",
+            "cn: foo" );
+
+        List<org.apache.directory.api.ldap.model.entry.Attribute> attributes = AttributeComparator
+            .toSortedAttributes( ldapApiEntry, Schema.DEFAULT_SCHEMA );
+        assertEquals( 6, attributes.size() );
+        assertEquals( "objectClass", attributes.get( 0 ).getUpId() );
+        assertEquals( "cn", attributes.get( 1 ).getUpId() );
+        assertEquals( "sn", attributes.get( 2 ).getUpId() );
+        assertEquals( "description", attributes.get( 3 ).getUpId() );
+        assertEquals( "uid", attributes.get( 4 ).getUpId() );
+        assertEquals( "createTimestamp", attributes.get( 5 ).getUpId() );
+
+        List<org.apache.directory.api.ldap.model.entry.Value> values = AttributeComparator
+            .toSortedValues( ldapApiEntry.get( "description" ) );
+        assertEquals( "A", values.get( 0 ).getString() );
+        assertEquals( "b", values.get( 1 ).getString() );
+    }
+
 }
@@ -123,10 +123,10 @@ public abstract class CopyEntryAsAction extends BrowserAction
             return text;
         }
         else if ( getSelectedEntries().length + getSelectedSearchResults().length + getSelectedBookmarks().length == 0
-            && getSelectedSearches().length == 1 && getSelectedSearches()[0].getSearchResults() != null
-            && getSelectedSearches()[0].getSearchResults().length > 0 )
+            && getSelectedSearches().length == 1 && getSelectedSearches()[0].getSearchResultList() != null
+            && getSelectedSearches()[0].getSearchResultCount() > 0 )
         {
-            String text = ( getSelectedSearches()[0].getSearchResults().length > 1 ? NLS.bind( Messages
+            String text = ( getSelectedSearches()[0].getSearchResultCount() > 1 ? NLS.bind( Messages
                 .getString( "CopyEntryAsAction.CopyResults" ), new String[] { type } )//$NON-NLS-1$
                 : NLS.bind( Messages.getString( "CopyEntryAsAction.CopyResult" ), new String[] { type } ) ) //$NON-NLS-1$
                 + appendix;
@@ -243,8 +243,8 @@ public abstract class CopyEntryAsAction extends BrowserAction
             return ( this.mode == MODE_NORMAL || this.mode == MODE_DN_ONLY || this.mode == MODE_INCLUDE_OPERATIONAL_ATTRIBUTES );
         }
         if ( getSelectedEntries().length + getSelectedSearchResults().length + getSelectedBookmarks().length == 0
-            && getSelectedSearches().length == 1 && getSelectedSearches()[0].getSearchResults() != null
-            && getSelectedSearches()[0].getSearchResults().length > 0 )
+            && getSelectedSearches().length == 1 && getSelectedSearches()[0].getSearchResultList() != null
+            && getSelectedSearches()[0].getSearchResultCount() > 0 )
         {
             return true;
         }
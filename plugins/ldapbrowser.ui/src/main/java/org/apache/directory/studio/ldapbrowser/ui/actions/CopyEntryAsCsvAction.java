@@ -122,8 +122,8 @@ public class CopyEntryAsCsvAction extends CopyEntryAsAction
         if ( this.mode == MODE_TABLE )
         {
             return getInput() instanceof ISearch
-                && ( ( ISearch ) getInput() ).getSearchResults() != null
-                && ( ( ISearch ) getInput() ).getSearchResults().length > 0;
+                && ( ( ISearch ) getInput() ).getSearchResultList() != null
+                && ( ( ISearch ) getInput() ).getSearchResultCount() > 0;
         }
 
         return super.isEnabled();
@@ -139,8 +139,8 @@ public class CopyEntryAsCsvAction extends CopyEntryAsAction
         if ( this.mode == MODE_TABLE )
         {
             if ( getInput() instanceof ISearch
-                && ( ( ISearch ) getInput() ).getSearchResults() != null
-                && ( ( ISearch ) getInput() ).getSearchResults().length > 0 )
+                && ( ( ISearch ) getInput() ).getSearchResultList() != null
+                && ( ( ISearch ) getInput() ).getSearchResultCount() > 0 )
             {
                 List<IEntry> entryList = new ArrayList<IEntry>();
                 ISearchResult[] results = ( ( ISearch ) getInput() ).getSearchResults();
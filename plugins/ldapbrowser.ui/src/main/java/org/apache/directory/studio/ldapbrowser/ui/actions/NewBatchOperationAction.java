@@ -78,7 +78,7 @@ public class NewBatchOperationAction extends BrowserAction
     public boolean isEnabled()
     {
         return getSelectedSearches().length == 1
-            && getSelectedSearches()[0].getSearchResults() != null
+            && getSelectedSearches()[0].getSearchResultList() != null
             || getSelectedEntries().length + getSelectedSearchResults().length + getSelectedBookmarks().length
                 + getSelectedAttributes().length + getSelectedValues().length > 0;
     }
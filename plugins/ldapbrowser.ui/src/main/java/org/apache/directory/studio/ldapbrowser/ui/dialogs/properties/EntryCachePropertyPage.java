@@ -0,0 +1,148 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.ui.dialogs.properties;
+
+
+import org.apache.directory.studio.common.ui.widgets.BaseWidgetUtils;
+import org.apache.directory.studio.ldapbrowser.core.model.EntryCacheStatistics;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Group;
+import org.eclipse.swt.widgets.Text;
+import org.eclipse.ui.IWorkbenchPropertyPage;
+import org.eclipse.ui.dialogs.PropertyPage;
+
+
+/**
+ * Property page to show the statistics of the entry cache of a connection.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class EntryCachePropertyPage extends PropertyPage implements IWorkbenchPropertyPage
+{
+
+    /** Text field containing the number of cached entries. */
+    private Text entriesText;
+
+    /** Text field containing the number of entries with fully loaded attributes. */
+    private Text loadedEntriesText;
+
+    /** Text field containing the number of cache hits. */
+    private Text hitsText;
+
+    /** Text field containing the number of cache misses. */
+    private Text missesText;
+
+    /** Text field containing the number of evictions. */
+    private Text evictionsText;
+
+
+    /**
+     * Creates a new instance of EntryCachePropertyPage.
+     */
+    public EntryCachePropertyPage()
+    {
+        super();
+        super.noDefaultAndApplyButton();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    protected Control createContents( Composite parent )
+    {
+        Composite composite = BaseWidgetUtils.createColumnContainer( parent, 1, 1 );
+
+        Group cacheGroup = BaseWidgetUtils.createGroup( BaseWidgetUtils.createColumnContainer( composite, 1, 1 ),
+            Messages.getString( "EntryCachePropertyPage.EntryCache" ), 1 ); //$NON-NLS-1$
+        Composite cacheComposite = BaseWidgetUtils.createColumnContainer( cacheGroup, 2, 1 );
+        Composite cacheGroupLeft = BaseWidgetUtils.createColumnContainer( cacheComposite, 2, 1 );
+
+        BaseWidgetUtils.createLabel( cacheGroupLeft, Messages.getString( "EntryCachePropertyPage.Entries" ), 1 ); //$NON-NLS-1$
+        entriesText = BaseWidgetUtils.createLabeledText( cacheGroupLeft, "-", 1 ); //$NON-NLS-1$
+
+        BaseWidgetUtils.createLabel( cacheGroupLeft, Messages.getString( "EntryCachePropertyPage.LoadedEntries" ), 1 ); //$NON-NLS-1$
+        loadedEntriesText = BaseWidgetUtils.createLabeledText( cacheGroupLeft, "-", 1 ); //$NON-NLS-1$
+
+        BaseWidgetUtils.createLabel( cacheGroupLeft, Messages.getString( "EntryCachePropertyPage.Hits" ), 1 ); //$NON-NLS-1$
+        hitsText = BaseWidgetUtils.createLabeledText( cacheGroupLeft, "-", 1 ); //$NON-NLS-1$
+
+        BaseWidgetUtils.createLabel( cacheGroupLeft, Messages.getString( "EntryCachePropertyPage.Misses" ), 1 ); //$NON-NLS-1$
+        missesText = BaseWidgetUtils.createLabeledText( cacheGroupLeft, "-", 1 ); //$NON-NLS-1$
+
+        BaseWidgetUtils.createLabel( cacheGroupLeft, Messages.getString( "EntryCachePropertyPage.Evictions" ), 1 ); //$NON-NLS-1$
+        evictionsText = BaseWidgetUtils.createLabeledText( cacheGroupLeft, "-", 1 ); //$NON-NLS-1$
+
+        Button refreshButton = BaseWidgetUtils.createButton( cacheComposite, Messages
+            .getString( "EntryCachePropertyPage.Refresh" ), 1 ); //$NON-NLS-1$
+        GridData gd = new GridData();
+        gd.verticalAlignment = SWT.BOTTOM;
+        refreshButton.setLayoutData( gd );
+        refreshButton.addSelectionListener( new SelectionAdapter()
+        {
+            public void widgetSelected( SelectionEvent e )
+            {
+                update( RootDSEPropertyPage.getConnection( getElement() ) );
+            }
+        } );
+
+        update( RootDSEPropertyPage.getConnection( getElement() ) );
+
+        return composite;
+    }
+
+
+    /**
+     * Updates the text fields.
+     * 
+     * @param browserConnection the connection
+     */
+    private void update( IBrowserConnection browserConnection )
+    {
+        if ( entriesText.isDisposed() || browserConnection == null )
+        {
+            return;
+        }
+
+        EntryCacheStatistics statistics = browserConnection.getEntryCacheStatistics();
+
+        entriesText.setText( Integer.toString( statistics.getEntryCount() ) );
+
+        String maxLoadedEntryCount = statistics.getMaxLoadedEntryCount() > 0 ? Integer.toString( statistics
+            .getMaxLoadedEntryCount() ) : Messages.getString( "EntryCachePropertyPage.Unlimited" ); //$NON-NLS-1$
+        loadedEntriesText.setText( NLS.bind( Messages.getString( "EntryCachePropertyPage.LoadedEntriesOfMax" ), //$NON-NLS-1$
+            statistics.getLoadedEntryCount(), maxLoadedEntryCount ) );
+
+        long lookups = statistics.getHitCount() + statistics.getMissCount();
+        long hitRatio = lookups > 0 ? statistics.getHitCount() * 100 / lookups : 0;
+        hitsText.setText( NLS.bind( Messages.getString( "EntryCachePropertyPage.HitRatio" ), //$NON-NLS-1$
+            statistics.getHitCount(), hitRatio ) );
+        missesText.setText( Long.toString( statistics.getMissCount() ) );
+        evictionsText.setText( Long.toString( statistics.getEvictionCount() ) );
+    }
+}
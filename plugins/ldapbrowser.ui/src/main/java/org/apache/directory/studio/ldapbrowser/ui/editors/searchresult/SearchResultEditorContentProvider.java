@@ -21,6 +21,10 @@
 package org.apache.directory.studio.ldapbrowser.ui.editors.searchresult;
 
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
 import org.apache.directory.studio.ldapbrowser.ui.BrowserUIConstants;
@@ -48,11 +52,11 @@ public class SearchResultEditorContentProvider implements ILazyContentProvider
     /** The input. */
     private Object input;
 
-    /** The elements. */
-    private Object[] elements;
+    /** The elements, a view of the search results. */
+    private List<?> elements;
 
     /** The filtered and sorted elements. */
-    private Object[] filteredAndSortedElements;
+    private List<?> filteredAndSortedElements;
 
 
     /**
@@ -104,7 +108,7 @@ public class SearchResultEditorContentProvider implements ILazyContentProvider
         // filter and sort, use Job if too much elements
         if ( configuration.getFilter().isFiltered() || configuration.getSorter().isSorted() )
         {
-            if ( elements.length > BrowserUIPlugin.getDefault().getPreferenceStore()
+            if ( elements.size() > BrowserUIPlugin.getDefault().getPreferenceStore()
                 .getInt( BrowserUIConstants.PREFERENCE_SEARCHRESULTEDITOR_SORT_FILTER_LIMIT )
                 && mainWidget.getViewer() != null && !mainWidget.getViewer().getTable().isDisposed() )
             {
@@ -113,16 +117,17 @@ public class SearchResultEditorContentProvider implements ILazyContentProvider
                 // RunnableContextRunner.execute( runnable, null, true );
                 // filteredAndSortedElements = runnable.getFilteredAndSortedElements();
             }
-            else if ( elements.length > 0 && mainWidget.getViewer() != null
+            else if ( !elements.isEmpty() && mainWidget.getViewer() != null
                 && !mainWidget.getViewer().getTable().isDisposed() )
             {
-                filteredAndSortedElements = configuration.getFilter().filter( mainWidget.getViewer(), "", elements ); //$NON-NLS-1$
-                configuration.getSorter().sort( mainWidget.getViewer(), filteredAndSortedElements );
+                Object[] filtered = configuration.getFilter().filter( mainWidget.getViewer(), "", elements.toArray() ); //$NON-NLS-1$
+                configuration.getSorter().sort( mainWidget.getViewer(), filtered );
+                filteredAndSortedElements = Arrays.asList( filtered );
             }
         }
 
         // update virtual table
-        mainWidget.getViewer().setItemCount( filteredAndSortedElements.length );
+        mainWidget.getViewer().setItemCount( filteredAndSortedElements.size() );
 
         // update state
         String url = ""; //$NON-NLS-1$
@@ -132,24 +137,24 @@ public class SearchResultEditorContentProvider implements ILazyContentProvider
         {
             ISearch search = ( ISearch ) input;
 
-            if ( filteredAndSortedElements.length < elements.length )
+            if ( filteredAndSortedElements.size() < elements.size() )
             {
-                url += filteredAndSortedElements.length + Messages.getString( "SearchResultEditorContentProvider.Of" ); //$NON-NLS-1$
+                url += filteredAndSortedElements.size() + Messages.getString( "SearchResultEditorContentProvider.Of" ); //$NON-NLS-1$
             }
 
-            if ( search.getSearchResults() == null )
+            if ( search.getSearchResultList() == null )
             {
                 url += Messages.getString( "SearchResultEditorContentProvider.SearchNotPerformed" ); //$NON-NLS-1$
                 enabled = false;
             }
-            else if ( search.getSearchResults().length == 1 )
+            else if ( search.getSearchResultCount() == 1 )
             {
-                url += search.getSearchResults().length
+                url += search.getSearchResultCount()
                     + Messages.getString( "SearchResultEditorContentProvider.Result" ); //$NON-NLS-1$
             }
             else
             {
-                url += search.getSearchResults().length
+                url += search.getSearchResultCount()
                     + Messages.getString( "SearchResultEditorContentProvider.Results" ); //$NON-NLS-1$
             }
 
@@ -191,7 +196,7 @@ public class SearchResultEditorContentProvider implements ILazyContentProvider
     public void inputChanged( Viewer viewer, Object oldInput, Object newInput )
     {
         this.input = newInput;
-        this.elements = getElements( newInput );
+        this.elements = getElementList( newInput );
     }
 
 
@@ -203,20 +208,33 @@ public class SearchResultEditorContentProvider implements ILazyContentProvider
      * @return the elements
      */
     public Object[] getElements( Object inputElement )
+    {
+        return getElementList( inputElement ).toArray();
+    }
+
+
+    /**
+     * Gets the elements as a view of the search results, without copying them.
+     * 
+     * @param inputElement the input element
+     * 
+     * @return the elements
+     */
+    private List<?> getElementList( Object inputElement )
     {
         if ( inputElement instanceof ISearch )
         {
             ISearch search = ( ISearch ) inputElement;
-            
-            ISearchResult[] results = search.getSearchResults();
-            
+
+            List<ISearchResult> results = search.getSearchResultList();
+
             if ( results != null )
             {
                 return results;
             }
         }
 
-        return new Object[0];
+        return Collections.emptyList();
     }
 
 
@@ -236,10 +254,9 @@ public class SearchResultEditorContentProvider implements ILazyContentProvider
      */
     public void updateElement( int index )
     {
-        if ( filteredAndSortedElements != null && filteredAndSortedElements.length > 0
-            && index < filteredAndSortedElements.length )
+        if ( filteredAndSortedElements != null && index < filteredAndSortedElements.size() )
         {
-            mainWidget.getViewer().replace( filteredAndSortedElements[index], index );
+            mainWidget.getViewer().replace( filteredAndSortedElements.get( index ), index );
         }
     }
 
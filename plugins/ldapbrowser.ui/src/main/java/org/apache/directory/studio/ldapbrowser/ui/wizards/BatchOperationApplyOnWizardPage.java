@@ -280,20 +280,19 @@ public class BatchOperationApplyOnWizardPage extends WizardPage
                             Messages.getString( "BatchOperationApplyOnWizardPage.DNsOfSelectedAttributes" ), new Object[] { internalDnSet.size() } ) ); //$NON-NLS-1$
             }
         }
-        if ( searches.length == 1 && searches[0].getSearchResults() != null )
+        if ( searches.length == 1 && searches[0].getSearchResultList() != null )
         {
             Set<Dn> internalDnSet = new LinkedHashSet<Dn>();
-            ISearchResult[] srs = searches[0].getSearchResults();
-            for ( int i = 0; i < srs.length; i++ )
+            for ( ISearchResult sr : searches[0].getSearchResultList() )
             {
-                internalDnSet.add( srs[i].getDn() );
+                internalDnSet.add( sr.getDn() );
             }
 
             dnsList.add( internalDnSet.toArray( new Dn[internalDnSet.size()] ) );
             textList
                 .add( NLS
                     .bind(
-                        Messages.getString( "BatchOperationApplyOnWizardPage.SearchResultOf" ), new Object[] { searches[0].getName(), searches[0].getSearchResults().length } ) ); //$NON-NLS-1$
+                        Messages.getString( "BatchOperationApplyOnWizardPage.SearchResultOf" ), new Object[] { searches[0].getName(), searches[0].getSearchResultCount() } ) ); //$NON-NLS-1$
         }
         if ( entries.length + searchResults.length + bookmarks.length > 0 )
         {
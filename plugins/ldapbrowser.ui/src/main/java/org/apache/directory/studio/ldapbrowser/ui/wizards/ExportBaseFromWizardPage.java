@@ -21,12 +21,21 @@
 package org.apache.directory.studio.ldapbrowser.ui.wizards;
 
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
 import org.apache.directory.studio.common.ui.widgets.BaseWidgetUtils;
 import org.apache.directory.studio.common.ui.widgets.WidgetModifyEvent;
 import org.apache.directory.studio.common.ui.widgets.WidgetModifyListener;
 import org.apache.directory.studio.ldapbrowser.common.widgets.search.SearchPageWrapper;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaUtils;
 import org.eclipse.jface.wizard.WizardPage;
+import org.eclipse.osgi.util.NLS;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Group;
+import org.eclipse.swt.widgets.Text;
 
 
 /**
@@ -43,6 +52,15 @@ public abstract class ExportBaseFromWizardPage extends WizardPage implements Wid
     /** The search page wrapper. */
     protected SearchPageWrapper spw;
 
+    /** The flag indicating if the partitioning of the export can be defined. */
+    private boolean partitionVisible;
+
+    /** The text with the attribute used to split the export into ranges, null if not visible. */
+    private Text partitionAttributeText;
+
+    /** The text with the lower bounds of the ranges, null if not visible. */
+    private Text partitionBoundsText;
+
 
     /**
      * Creates a new instance of ExportBaseFromWizardPage.
@@ -52,6 +70,21 @@ public abstract class ExportBaseFromWizardPage extends WizardPage implements Wid
      * @param wizard the wizard
      */
     public ExportBaseFromWizardPage( String pageName, ExportBaseWizard wizard, SearchPageWrapper spw )
+    {
+        this( pageName, wizard, spw, false );
+    }
+
+
+    /**
+     * Creates a new instance of ExportBaseFromWizardPage.
+     * 
+     * @param spw the search page wrapper
+     * @param pageName the page name
+     * @param wizard the wizard
+     * @param partitionVisible true to show the inputs to split the export into attribute ranges
+     */
+    public ExportBaseFromWizardPage( String pageName, ExportBaseWizard wizard, SearchPageWrapper spw,
+        boolean partitionVisible )
     {
         super( pageName );
         setTitle( Messages.getString( "ExportBaseFromWizardPage.DataToExport" ) ); //$NON-NLS-1$
@@ -60,6 +93,7 @@ public abstract class ExportBaseFromWizardPage extends WizardPage implements Wid
 
         this.wizard = wizard;
         this.spw = spw;
+        this.partitionVisible = partitionVisible;
     }
 
 
@@ -74,18 +108,126 @@ public abstract class ExportBaseFromWizardPage extends WizardPage implements Wid
         spw.loadFromSearch( wizard.getSearch() );
         spw.addWidgetModifyListener( this );
 
+        if ( partitionVisible )
+        {
+            createPartitionContents( composite );
+        }
+
         setControl( composite );
     }
 
 
+    /**
+     * Creates the inputs to split the export into ranges of the values of an attribute.
+     *
+     * @param parent the parent
+     */
+    private void createPartitionContents( Composite parent )
+    {
+        Group partitionGroup = BaseWidgetUtils.createGroup( parent,
+            Messages.getString( "ExportBaseFromWizardPage.Partitioning" ), 3 ); //$NON-NLS-1$
+        Composite partitionComposite = BaseWidgetUtils.createColumnContainer( partitionGroup, 2, 1 );
+
+        BaseWidgetUtils.createWrappedLabel( partitionComposite,
+            Messages.getString( "ExportBaseFromWizardPage.PartitioningDescription" ), 2 ); //$NON-NLS-1$
+
+        BaseWidgetUtils.createLabel( partitionComposite,
+            Messages.getString( "ExportBaseFromWizardPage.PartitionAttribute" ), 1 ); //$NON-NLS-1$
+        partitionAttributeText = BaseWidgetUtils.createText( partitionComposite, "", 1 ); //$NON-NLS-1$
+        partitionAttributeText.addModifyListener( event -> validate() );
+
+        BaseWidgetUtils.createLabel( partitionComposite,
+            Messages.getString( "ExportBaseFromWizardPage.PartitionBounds" ), 1 ); //$NON-NLS-1$
+        partitionBoundsText = BaseWidgetUtils.createText( partitionComposite, "", 1 ); //$NON-NLS-1$
+        partitionBoundsText.addModifyListener( event -> validate() );
+    }
+
+
     /**
      * Validates this page and sets the error message
      * if this page is not valid.
      */
     protected void validate()
     {
-        setPageComplete( spw.isValid() );
-        setErrorMessage( spw.getErrorMessage() );
+        if ( !spw.isValid() )
+        {
+            setPageComplete( false );
+            setErrorMessage( spw.getErrorMessage() );
+        }
+        else if ( getPartitionAttribute() != null && getPartitionBounds().length == 0 )
+        {
+            setPageComplete( false );
+            setErrorMessage( Messages.getString( "ExportBaseFromWizardPage.PleaseEnterPartitionBounds" ) ); //$NON-NLS-1$
+        }
+        else if ( getPartitionAttribute() != null && !hasOrderingMatchingRule( getPartitionAttribute() ) )
+        {
+            setPageComplete( false );
+            setErrorMessage( NLS.bind(
+                Messages.getString( "ExportBaseFromWizardPage.PartitionAttributeWithoutOrdering" ), //$NON-NLS-1$
+                getPartitionAttribute() ) );
+        }
+        else
+        {
+            setPageComplete( true );
+            setErrorMessage( null );
+        }
+    }
+
+
+    /**
+     * Checks if the given attribute has an ordering matching rule in the schema
+     * of the selected connection. The ranges of an attribute without ordering
+     * matching rule would miss all entries with the attribute.
+     *
+     * @param attribute the attribute
+     *
+     * @return true if the attribute has an ordering matching rule
+     */
+    private boolean hasOrderingMatchingRule( String attribute )
+    {
+        IBrowserConnection browserConnection = spw.getBrowserConnection();
+        return browserConnection != null
+            && SchemaUtils.hasOrderingMatchingRule( attribute, browserConnection.getSchema() );
+    }
+
+
+    /**
+     * Gets the attribute used to split the export into ranges.
+     *
+     * @return the attribute, null if the export isn't split into attribute ranges
+     */
+    public String getPartitionAttribute()
+    {
+        if ( partitionAttributeText == null || StringUtils.isBlank( partitionAttributeText.getText() ) )
+        {
+            return null;
+        }
+
+        return partitionAttributeText.getText().trim();
+    }
+
+
+    /**
+     * Gets the lower bounds of the attribute ranges, entered comma-separated.
+     *
+     * @return the lower bounds, an empty array if none are entered
+     */
+    public String[] getPartitionBounds()
+    {
+        List<String> bounds = new ArrayList<String>();
+
+        if ( partitionBoundsText != null )
+        {
+            for ( String bound : partitionBoundsText.getText().split( "," ) ) //$NON-NLS-1$
+            {
+                if ( StringUtils.isNotBlank( bound ) )
+                {
+                    bounds.add( bound.trim() );
+                }
+            }
+        }
+
+        return bounds.toArray( new String[bounds.size()] );
     }
 
 
@@ -43,6 +43,7 @@ public class ExportCsvFromWizardPage extends ExportBaseFromWizardPage
      * <li>invisible all attributes checkbox
      * <li>invisible operational attributes checkbox
      * </ul> 
+     * and the inputs to split the export into attribute ranges.
      * 
      * @param pageName the page name
      * @param wizard the wizard
@@ -51,7 +52,7 @@ public class ExportCsvFromWizardPage extends ExportBaseFromWizardPage
     {
         super( pageName, wizard, new SearchPageWrapper( SearchPageWrapper.NAME_INVISIBLE
             | SearchPageWrapper.REFERRALOPTIONS_FOLLOW_MANUAL_INVISIBLE | SearchPageWrapper.RETURN_DN_VISIBLE
-            | SearchPageWrapper.RETURN_DN_CHECKED ) );
+            | SearchPageWrapper.RETURN_DN_CHECKED ), true );
         super.setImageDescriptor( BrowserUIPlugin.getDefault().getImageDescriptor(
             BrowserUIConstants.IMG_EXPORT_CSV_WIZARD ) );
     }
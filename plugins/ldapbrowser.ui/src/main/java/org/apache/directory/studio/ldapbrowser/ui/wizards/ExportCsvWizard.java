@@ -99,8 +99,10 @@ public class ExportCsvWizard extends ExportBaseWizard
         toPage.saveDialogSettings();
         boolean exportDn = this.fromPage.isExportDn();
 
-        new StudioBrowserJob( new ExportCsvRunnable( exportFilename, search.getBrowserConnection(),
-            search.getSearchParameter(), exportDn ) ).execute();
+        ExportCsvRunnable runnable = new ExportCsvRunnable( exportFilename, search.getBrowserConnection(),
+            search.getSearchParameter(), exportDn );
+        runnable.setPartitionAttribute( fromPage.getPartitionAttribute(), fromPage.getPartitionBounds() );
+        new StudioBrowserJob( runnable ).execute();
 
         return true;
     }
@@ -42,6 +42,7 @@ public class ExportLdifFromWizardPage extends ExportBaseFromWizardPage
      * <li>visible all attributes checkbox
      * <li>visible operational attributes checkbox
      * </ul> 
+     * and the inputs to split the export into attribute ranges.
      * 
      * @param pageName the page name
      * @param wizard the wizard
@@ -55,7 +56,7 @@ public class ExportLdifFromWizardPage extends ExportBaseFromWizardPage
                 | SearchPageWrapper.RETURN_OPERATIONALATTRIBUTES_VISIBLE
                 | ( ( wizard.getSearch().getReturningAttributes() == null || wizard.getSearch()
                     .getReturningAttributes().length == 0 ) ? SearchPageWrapper.RETURN_ALLATTRIBUTES_CHECKED
-                    : SearchPageWrapper.NONE ) ) );
+                    : SearchPageWrapper.NONE ) ), true );
         super.setImageDescriptor( BrowserUIPlugin.getDefault().getImageDescriptor(
             BrowserUIConstants.IMG_EXPORT_LDIF_WIZARD ) );
     }
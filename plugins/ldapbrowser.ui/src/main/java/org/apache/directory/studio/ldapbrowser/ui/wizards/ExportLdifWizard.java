@@ -98,8 +98,10 @@ public class ExportLdifWizard extends ExportBaseWizard
         fromPage.saveDialogSettings();
         toPage.saveDialogSettings();
 
-        new StudioBrowserJob( new ExportLdifRunnable( exportFilename, search.getBrowserConnection(),
-            search.getSearchParameter() ) ).execute();
+        ExportLdifRunnable runnable = new ExportLdifRunnable( exportFilename, search.getBrowserConnection(),
+            search.getSearchParameter() );
+        runnable.setPartitionAttribute( fromPage.getPartitionAttribute(), fromPage.getPartitionBounds() );
+        new StudioBrowserJob( runnable ).execute();
 
         return true;
     }
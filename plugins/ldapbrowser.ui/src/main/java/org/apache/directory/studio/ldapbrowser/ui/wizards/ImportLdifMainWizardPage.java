@@ -26,6 +26,7 @@ import java.io.File;
 import org.apache.directory.studio.common.ui.widgets.BaseWidgetUtils;
 import org.apache.directory.studio.common.ui.widgets.WidgetModifyEvent;
 import org.apache.directory.studio.common.ui.widgets.WidgetModifyListener;
+import org.apache.directory.studio.ldapbrowser.core.jobs.ImportLdifRunnable;
 import org.apache.directory.studio.ldapbrowser.common.widgets.FileBrowserWidget;
 import org.apache.directory.studio.ldapbrowser.common.widgets.search.BrowserConnectionWidget;
 import org.apache.directory.studio.ldapbrowser.ui.BrowserUIConstants;
@@ -56,7 +57,7 @@ public class ImportLdifMainWizardPage extends WizardPage
 
     /** The valid extension. */
     private static final String[] EXTENSIONS = new String[]
-        { "*.ldif", "*" }; //$NON-NLS-1$ //$NON-NLS-2$
+        { "*.ldif", "*.ldif.gz", "*" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 
     /** The valid log extension. */
     private static final String[] LOG_EXTENSIONS = new String[]
@@ -95,6 +96,12 @@ public class ImportLdifMainWizardPage extends WizardPage
     /** The continue on error button. */
     private Button continueOnErrorButton;
 
+    /** The resume button. */
+    private Button resumeButton;
+
+    /** The validate only button. */
+    private Button validateOnlyButton;
+
 
     /**
      * Creates a new instance of ImportLdifMainWizardPage.
@@ -123,6 +130,9 @@ public class ImportLdifMainWizardPage extends WizardPage
         boolean ok = true;
 
         File ldifFile = new File( ldifFileBrowserWidget.getFilename() );
+        updateResumeButton( ldifFile, enableLoggingButton.getSelection() ? new File( logFileBrowserWidget
+            .getFilename() ) : null );
+
         if ( "".equals( ldifFileBrowserWidget.getFilename() ) ) //$NON-NLS-1$
         {
             setErrorMessage( null );
@@ -153,7 +163,8 @@ public class ImportLdifMainWizardPage extends WizardPage
                 setErrorMessage( Messages.getString( "ImportLdifMainWizardPage.ErrorSelectedLogFileNotFile" ) ); //$NON-NLS-1$
                 ok = false;
             }
-            else if ( logFile.exists() && !overwriteLogfileButton.getSelection() )
+            else if ( logFile.exists() && !overwriteLogfileButton.getSelection()
+                && ( resumeButton == null || !resumeButton.getSelection() ) )
             {
                 setErrorMessage( Messages.getString( "ImportLdifMainWizardPage.ErrorSelectedLogFileExist" ) ); //$NON-NLS-1$
                 ok = false;
@@ -193,6 +204,30 @@ public class ImportLdifMainWizardPage extends WizardPage
     }
 
 
+    /**
+     * Enables the resume button if a checkpoint of an interrupted import
+     * of the LDIF file exists next to the log file.
+     *
+     * @param ldifFile the LDIF file
+     * @param logFile the log file, null if logging is disabled
+     */
+    private void updateResumeButton( File ldifFile, File logFile )
+    {
+        if ( resumeButton == null )
+        {
+            return;
+        }
+
+        boolean canResume = logFile != null && ImportLdifRunnable.canResume( ldifFile, logFile );
+        resumeButton.setEnabled( canResume );
+        if ( !canResume )
+        {
+            resumeButton.setSelection( false );
+        }
+        wizard.setResume( resumeButton.getSelection() );
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -356,6 +391,31 @@ public class ImportLdifMainWizardPage extends WizardPage
             }
         } );
 
+        resumeButton = BaseWidgetUtils.createCheckbox( optionsContainer, Messages
+            .getString( "ImportLdifMainWizardPage.ResumeImport" ), 3 ); //$NON-NLS-1$
+        resumeButton.setToolTipText( Messages.getString( "ImportLdifMainWizardPage.ResumeImportTooltip" ) ); //$NON-NLS-1$
+        resumeButton.setEnabled( false );
+        resumeButton.addSelectionListener( new SelectionAdapter()
+        {
+            public void widgetSelected( SelectionEvent event )
+            {
+                wizard.setResume( resumeButton.getSelection() );
+                validate();
+            }
+        } );
+
+        validateOnlyButton = BaseWidgetUtils.createCheckbox( optionsContainer, Messages
+            .getString( "ImportLdifMainWizardPage.ValidateOnly" ), 3 ); //$NON-NLS-1$
+        validateOnlyButton.setToolTipText( Messages.getString( "ImportLdifMainWizardPage.ValidateOnlyTooltip" ) ); //$NON-NLS-1$
+        validateOnlyButton.addSelectionListener( new SelectionAdapter()
+        {
+            public void widgetSelected( SelectionEvent event )
+            {
+                wizard.setValidateOnly( validateOnlyButton.getSelection() );
+                validate();
+            }
+        } );
+
         setControl( composite );
     }
 
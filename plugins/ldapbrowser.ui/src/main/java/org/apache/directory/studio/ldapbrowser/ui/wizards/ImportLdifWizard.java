@@ -28,6 +28,7 @@ import org.apache.directory.studio.ldapbrowser.common.widgets.browser.BrowserCat
 import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
 import org.apache.directory.studio.ldapbrowser.core.jobs.ImportLdifRunnable;
 import org.apache.directory.studio.ldapbrowser.core.jobs.StudioBrowserJob;
+import org.apache.directory.studio.ldapbrowser.core.jobs.ValidateLdifRunnable;
 import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
 import org.apache.directory.studio.ldapbrowser.core.model.IBookmark;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
@@ -72,6 +73,12 @@ public class ImportLdifWizard extends Wizard implements IImportWizard
     /** The continue on error flag. */
     private boolean continueOnError;
 
+    /** The resume flag. */
+    private boolean resume;
+
+    /** The validate only flag. */
+    private boolean validateOnly;
+
 
     /**
      * Creates a new instance of ImportLdifWizard.
@@ -185,11 +192,18 @@ public class ImportLdifWizard extends Wizard implements IImportWizard
         {
             File ldifFile = new File( ldifFilename );
 
-            if ( enableLogging )
+            if ( validateOnly )
+            {
+                new StudioBrowserJob( new ValidateLdifRunnable( importConnection, ldifFile,
+                    enableLogging ? new File( logFilename ) : null ) ).execute();
+            }
+            else if ( enableLogging )
             {
                 File logFile = new File( logFilename );
-                new StudioBrowserJob( new ImportLdifRunnable( importConnection, ldifFile, logFile, updateIfEntryExists,
-                    continueOnError ) ).execute();
+                ImportLdifRunnable runnable = new ImportLdifRunnable( importConnection, ldifFile, logFile,
+                    updateIfEntryExists, continueOnError );
+                runnable.setResume( resume );
+                new StudioBrowserJob( runnable ).execute();
             }
             else
             {
@@ -258,6 +272,29 @@ public class ImportLdifWizard extends Wizard implements IImportWizard
     }
 
 
+    /**
+     * Sets the resume flag.
+     * 
+     * @param resume the resume flag
+     */
+    public void setResume( boolean resume )
+    {
+        this.resume = resume;
+    }
+
+
+    /**
+     * Sets the validate only flag. If set the LDIF file is only validated
+     * against the schema and the log file receives the invalid records.
+     * 
+     * @param validateOnly the validate only flag
+     */
+    public void setValidateOnly( boolean validateOnly )
+    {
+        this.validateOnly = validateOnly;
+    }
+
+
     /**
      * Sets the log filename.
      * 
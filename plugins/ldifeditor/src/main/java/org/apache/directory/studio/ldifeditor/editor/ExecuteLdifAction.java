@@ -27,8 +27,10 @@ import org.apache.directory.studio.ldapbrowser.core.jobs.StudioBrowserJob;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldifeditor.LdifEditorActivator;
 import org.apache.directory.studio.ldifeditor.LdifEditorConstants;
+import org.apache.directory.studio.ldifparser.parser.MappedLdifFile;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.ui.texteditor.IDocumentProvider;
 
 
 /**
@@ -87,16 +89,26 @@ public class ExecuteLdifAction extends Action
             }
         }
 
-        String ldif = editor.getLdifModel().toRawString();
-
         IPreferenceStore preferenceStore = LdifEditorActivator.getDefault().getPreferenceStore();
         boolean updateIfEntryExistsButton = preferenceStore
             .getBoolean( LdifEditorConstants.PREFERENCE_LDIFEDITOR_OPTIONS_UPDATEIFENTRYEXISTS );
         boolean continueOnErrorButton = preferenceStore
             .getBoolean( LdifEditorConstants.PREFERENCE_LDIFEDITOR_OPTIONS_CONTINUEONERROR );
 
-        ExecuteLdifRunnable runnable = new ExecuteLdifRunnable( connection, ldif, updateIfEntryExistsButton,
-            continueOnErrorButton );
+        ExecuteLdifRunnable runnable;
+        IDocumentProvider provider = editor.getDocumentProvider();
+        if ( provider instanceof LdifDocumentProvider && ( ( LdifDocumentProvider ) provider ).isLargeFile() )
+        {
+            // execute the whole large file, streamed from disk
+            MappedLdifFile mappedFile = ( ( LdifDocumentProvider ) provider ).getMappedFile();
+            runnable = new ExecuteLdifRunnable( connection, mappedFile.getFile(), mappedFile.getCharset(),
+                updateIfEntryExistsButton, continueOnErrorButton );
+        }
+        else
+        {
+            String ldif = editor.getLdifModel().toRawString();
+            runnable = new ExecuteLdifRunnable( connection, ldif, updateIfEntryExistsButton, continueOnErrorButton );
+        }
         StudioBrowserJob job = new StudioBrowserJob( runnable );
         job.execute();
     }
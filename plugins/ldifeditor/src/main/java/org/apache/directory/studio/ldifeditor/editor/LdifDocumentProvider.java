@@ -31,6 +31,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -41,17 +42,20 @@ import org.apache.directory.studio.ldifparser.model.LdifFile;
 import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 import org.apache.directory.studio.ldifparser.model.container.LdifRecord;
 import org.apache.directory.studio.ldifparser.parser.LdifParser;
+import org.apache.directory.studio.ldifparser.parser.MappedLdifFile;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.operation.IRunnableContext;
 import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.Region;
 import org.eclipse.jface.text.TextUtilities;
 import org.eclipse.jface.text.source.IAnnotationModel;
@@ -69,6 +73,11 @@ import org.eclipse.ui.texteditor.AbstractDocumentProvider;
  */
 public class LdifDocumentProvider extends AbstractDocumentProvider implements IDocumentListener
 {
+    /** The file size from which a file is opened in large file mode, paged and read-only */
+    public static final long LARGE_FILE_SIZE = 1024 * 1024;
+
+    /** The number of records indexed at once by the background index job */
+    private static final int INDEX_BATCH_SIZE = 10000;
 
     private final LdifParser ldifParser;
 
@@ -76,6 +85,21 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
 
     private LdifFile ldifModel;
 
+    /** The start of the document range re-parsed since the dirty region was last taken, or -1 */
+    private int dirtyOffset = -1;
+
+    /** The end of the document range re-parsed since the dirty region was last taken, or -1 */
+    private int dirtyEnd = -1;
+
+    /** The memory-mapped file in large file mode, or null */
+    private MappedLdifFile mappedFile;
+
+    /** The job indexing the pages of the mapped file */
+    private Job indexJob;
+
+    /** The page shown in large file mode */
+    private int page;
+
 
     /**
      * Creates a new instance of LdifDocumentProvider.
@@ -110,6 +134,240 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
     }
 
 
+    /**
+     * Tells if the document shows a page of a large file. The document is read-only
+     * then, and the LDIF model only contains the records of the page.
+     *
+     * @return
+     *      true if the file is opened in large file mode
+     */
+    public boolean isLargeFile()
+    {
+        return mappedFile != null;
+    }
+
+
+    /**
+     * Gets the memory-mapped file in large file mode.
+     *
+     * @return
+     *      the mapped file, or null if not in large file mode
+     */
+    public MappedLdifFile getMappedFile()
+    {
+        return mappedFile;
+    }
+
+
+    /**
+     * Gets the page shown in large file mode.
+     *
+     * @return
+     *      the page number
+     */
+    public int getPage()
+    {
+        return page;
+    }
+
+
+    /**
+     * Shows the given page of the large file in the document of the given element.
+     * Pages behind the indexed part of the file are indexed first. Replacing the
+     * page doesn't make the document dirty.
+     *
+     * @param element the element
+     * @param newPage the page number
+     * @return true if the page was shown, false if it doesn't exist
+     * @throws CoreException if reading the file fails
+     */
+    public boolean showPage( Object element, int newPage ) throws CoreException
+    {
+        if ( mappedFile == null || newPage < 0 )
+        {
+            return false;
+        }
+
+        try
+        {
+            mappedFile.indexPages( newPage + 1 );
+
+            if ( newPage >= mappedFile.getPageCount() )
+            {
+                return false;
+            }
+
+            String text = mappedFile.getPageText( newPage );
+            getDocument( element ).set( text );
+            page = newPage;
+        }
+        catch ( IOException e )
+        {
+            throw new CoreException( new Status( IStatus.ERROR, LdifEditorConstants.PLUGIN_ID, IStatus.OK,
+                "error reading file", e ) ); //$NON-NLS-1$
+        }
+
+        // a page change is no modification of the file
+        ElementInfo info = getElementInfo( element );
+        if ( info != null && info.fCanBeSaved )
+        {
+            info.fCanBeSaved = false;
+            addUnchangedElementListeners( element, info );
+            fireElementDirtyStateChanged( element, false );
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Opens the given file in large file mode. The file is memory-mapped, the first page
+     * is indexed and shown right away, the rest of the file is indexed in the background.
+     *
+     * @param document the document to fill with the first page
+     * @param file the large file
+     * @throws IOException if reading the file fails
+     */
+    private void openLargeFile( IDocument document, File file ) throws IOException
+    {
+        final MappedLdifFile mapped = new MappedLdifFile( file, Charset.defaultCharset(),
+            MappedLdifFile.DEFAULT_PAGE_SIZE );
+        mapped.indexPages( 1 );
+        document.set( mapped.getPageCount() > 0 ? mapped.getPageText( 0 ) : "" ); //$NON-NLS-1$
+
+        mappedFile = mapped;
+        page = 0;
+
+        indexJob = new Job( Messages.getString( "LdifDocumentProvider.IndexingLDIFFile" ) ) //$NON-NLS-1$
+        {
+            protected IStatus run( IProgressMonitor monitor )
+            {
+                try
+                {
+                    while ( !monitor.isCanceled() && !mapped.index( INDEX_BATCH_SIZE ) )
+                    {
+                        // continue with the next batch
+                    }
+                }
+                catch ( IOException e )
+                {
+                    return new Status( IStatus.ERROR, LdifEditorConstants.PLUGIN_ID, IStatus.OK,
+                        "error reading file", e ); //$NON-NLS-1$
+                }
+
+                return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+            }
+        };
+        indexJob.setPriority( Job.LONG );
+        indexJob.schedule();
+    }
+
+
+    /**
+     * Closes the mapped file of the large file mode.
+     */
+    private void closeLargeFile()
+    {
+        if ( indexJob != null )
+        {
+            indexJob.cancel();
+            indexJob = null;
+        }
+
+        if ( mappedFile != null )
+        {
+            try
+            {
+                mappedFile.close();
+            }
+            catch ( IOException e )
+            {
+                // ignore
+            }
+            mappedFile = null;
+        }
+    }
+
+
+    /**
+     * Gets the range of the document whose containers were re-parsed
+     * since the last call, and resets it. The range starts at the first
+     * and ends at the last re-parsed container, the offsets are adjusted
+     * to all document changes made in the meantime.
+     *
+     * @return
+     *      the dirty region, or null if no container was re-parsed
+     */
+    public synchronized IRegion takeDirtyRegion()
+    {
+        if ( dirtyOffset == -1 )
+        {
+            return null;
+        }
+
+        IRegion dirtyRegion = new Region( dirtyOffset, dirtyEnd - dirtyOffset );
+        dirtyOffset = -1;
+        dirtyEnd = -1;
+
+        return dirtyRegion;
+    }
+
+
+    /**
+     * Adds the given range to the dirty region.
+     *
+     * @param offset the start of the range
+     * @param end the end of the range
+     */
+    private synchronized void addDirtyRange( int offset, int end )
+    {
+        if ( dirtyOffset == -1 )
+        {
+            dirtyOffset = offset;
+            dirtyEnd = end;
+        }
+        else
+        {
+            dirtyOffset = Math.min( dirtyOffset, offset );
+            dirtyEnd = Math.max( dirtyEnd, end );
+        }
+    }
+
+
+    /**
+     * Moves the dirty region according to a document change.
+     *
+     * @param changeOffset the offset of the change
+     * @param replacedTextLength the length of the replaced text
+     * @param insertedTextLength the length of the inserted text
+     */
+    private synchronized void shiftDirtyRange( int changeOffset, int replacedTextLength, int insertedTextLength )
+    {
+        if ( dirtyOffset != -1 )
+        {
+            dirtyOffset = shift( dirtyOffset, changeOffset, replacedTextLength, insertedTextLength );
+            dirtyEnd = shift( dirtyEnd, changeOffset, replacedTextLength, insertedTextLength );
+        }
+    }
+
+
+    private static int shift( int position, int changeOffset, int replacedTextLength, int insertedTextLength )
+    {
+        if ( position <= changeOffset )
+        {
+            return position;
+        }
+        else if ( position >= changeOffset + replacedTextLength )
+        {
+            return position - replacedTextLength + insertedTextLength;
+        }
+        else
+        {
+            return changeOffset + insertedTextLength;
+        }
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -129,6 +387,7 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
             int replacedTextLength = event.getLength();
             int insertedTextLength = event.getText() != null ? event.getText().length() : 0;
             IDocument document = event.getDocument();
+            shiftDirtyRange( changeOffset, replacedTextLength, insertedTextLength );
             // Region changeRegion = new Region(changeOffset,
             // replacedTextLength);
             Region changeRegion = new Region( changeOffset - BrowserCoreConstants.LINE_SEPARATOR.length(),
@@ -138,8 +397,12 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
             // changeOffset+replacedTextLength, check end of record)
             List<LdifContainer> oldContainerList = new ArrayList<LdifContainer>();
             List<LdifContainer> containers = ldifModel.getContainers();
-            
-            for ( int i = 0; i < containers.size(); i++ )
+
+            // start at the container in front of the change region, the model lookup is O(log n)
+            int startIndex = ldifModel.getContainerIndex( Math.max( changeRegion.getOffset(), 0 ) );
+            startIndex = startIndex >= 0 ? Math.max( startIndex - 1, 0 ) : Math.max( containers.size() - 1, 0 );
+
+            for ( int i = startIndex; i < containers.size(); i++ )
             {
                 LdifContainer ldifContainer = containers.get( i );
 
@@ -201,6 +464,12 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
                             break;
                         }
                     }
+
+                    break;
+                }
+                else if ( containerRegion.getOffset() > changeRegion.getOffset() + changeRegion.getLength() )
+                {
+                    break;
                 }
             }
             
@@ -224,10 +493,16 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
             // must adjust offsets of all following containers in model
             ldifModel.replace( oldContainers, newContainers );
 
+            // remember the re-parsed range for the reconciler
+            addDirtyRange( newOffset, newOffset + newLength );
         }
         catch ( Exception e )
         {
             e.printStackTrace();
+
+            // the model may be inconsistent, parse the whole document
+            ldifModel = ldifParser.parse( event.getDocument().get() );
+            addDirtyRange( 0, event.getDocument().getLength() );
         }
 
     }
@@ -242,6 +517,29 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
     }
 
 
+    /**
+     * Gets the file of the given input.
+     *
+     * @param input the editor input
+     * @return the file, or null if the input has no local file
+     */
+    private File getFile( IEditorInput input )
+    {
+        String inputClassName = input.getClass().getName();
+        if ( input instanceof IPathEditorInput )
+        {
+            return ( ( IPathEditorInput ) input ).getPath().toFile();
+        }
+        else if ( inputClassName.equals( "org.eclipse.ui.internal.editors.text.JavaFileEditorInput" ) //$NON-NLS-1$
+            || inputClassName.equals( "org.eclipse.ui.ide.FileStoreEditorInput" ) ) //$NON-NLS-1$
+        {
+            return new File( input.getToolTipText() );
+        }
+
+        return null;
+    }
+
+
     /**
      * Tries to read the file pointed at by <code>input</code> if it is an
      * <code>IPathEditorInput</code>. If the file does not exist, <code>true</code>
@@ -340,6 +638,7 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
 
         // initial parsing of whole document
         this.ldifModel = this.ldifParser.parse( document.get() );
+        takeDirtyRegion();
 
         // add listener for incremental parsing
         document.addDocumentListener( this );
@@ -354,6 +653,7 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
     {
         IDocument document = info.fDocument;
         document.removeDocumentListener( this );
+        closeLargeFile();
 
         super.disposeElementInfo( element, info );
     }
@@ -367,7 +667,22 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
         if ( element instanceof IEditorInput )
         {
             IDocument document = new Document();
-            if ( setDocumentContent( document, ( IEditorInput ) element ) )
+            File file = getFile( ( IEditorInput ) element );
+
+            if ( file != null && file.length() > LARGE_FILE_SIZE )
+            {
+                try
+                {
+                    openLargeFile( document, file );
+                }
+                catch ( IOException e )
+                {
+                    throw new CoreException( new Status( IStatus.ERROR, LdifEditorConstants.PLUGIN_ID, IStatus.OK,
+                        "error reading file", e ) ); //$NON-NLS-1$
+                }
+                setupDocument( document );
+            }
+            else if ( setDocumentContent( document, ( IEditorInput ) element ) )
             {
                 setupDocument( document );
             }
@@ -384,6 +699,12 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
     protected void doSaveDocument( IProgressMonitor monitor, Object element, IDocument document, boolean overwrite )
         throws CoreException
     {
+        if ( mappedFile != null )
+        {
+            // the document only holds a page, never overwrite the large file with it
+            return;
+        }
+
         File file = null;
         String elementClassName = element.getClass().getName();
         if ( element instanceof FileEditorInput )
@@ -498,6 +819,11 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
      */
     public boolean isModifiable( Object element )
     {
+        if ( mappedFile != null )
+        {
+            return false;
+        }
+
         String elementClassName = element.getClass().getName();
         if ( element instanceof IPathEditorInput )
         {
@@ -22,6 +22,7 @@ package org.apache.directory.studio.ldifeditor.editor;
 
 
 import java.io.File;
+import java.text.MessageFormat;
 import java.util.ResourceBundle;
 
 import org.apache.directory.studio.common.ui.CommonUIUtils;
@@ -49,6 +50,7 @@ import org.apache.directory.studio.ldifeditor.editor.actions.OpenDefaultValueEdi
 import org.apache.directory.studio.ldifeditor.editor.actions.OpenValueEditorAction;
 import org.apache.directory.studio.ldifeditor.editor.text.LdifPartitionScanner;
 import org.apache.directory.studio.ldifparser.model.LdifFile;
+import org.apache.directory.studio.ldifparser.parser.MappedLdifFile;
 import org.apache.directory.studio.utils.ActionUtils;
 import org.apache.directory.studio.valueeditors.AbstractDialogValueEditor;
 import org.apache.directory.studio.valueeditors.IValueEditor;
@@ -91,7 +93,6 @@ import org.eclipse.ui.IEditorInput;
 import org.eclipse.ui.IEditorSite;
 import org.eclipse.ui.IPageLayout;
 import org.eclipse.ui.IPartListener2;
-import org.eclipse.ui.IPathEditorInput;
 import org.eclipse.ui.ISharedImages;
 import org.eclipse.ui.IWorkbenchPartReference;
 import org.eclipse.ui.PartInitException;
@@ -221,34 +222,6 @@ public class LdifEditor extends TextEditor implements ILdifEditor, ConnectionUpd
      */
     public void init( IEditorSite site, IEditorInput input ) throws PartInitException
     {
-        String className = input.getClass().getName();
-        File file = null;
-        if ( input instanceof IPathEditorInput )
-        {
-            IPathEditorInput pei = ( IPathEditorInput ) input;
-            IPath path = pei.getPath();
-            file = path.toFile();
-        }
-        else if ( className.equals( "org.eclipse.ui.internal.editors.text.JavaFileEditorInput" ) //$NON-NLS-1$
-            || className.equals( "org.eclipse.ui.ide.FileStoreEditorInput" ) ) //$NON-NLS-1$
-        // The class 'org.eclipse.ui.internal.editors.text.JavaFileEditorInput'
-        // is used when opening a file from the menu File > Open... in Eclipse 3.2.x
-        // The class 'org.eclipse.ui.ide.FileStoreEditorInput' is used when
-        // opening a file from the menu File > Open... in Eclipse 3.3.x
-        {
-            file = new File( input.getToolTipText() );
-        }
-        if ( file != null )
-        {
-            long fileLength = file.length();
-            if ( fileLength > ( 1 * 1024 * 1024 ) )
-            {
-                MessageDialog.openError( site.getShell(), Messages.getString( "LdifEditor.LDIFFileIsTooBig" ), //$NON-NLS-1$
-                    Messages.getString( "LdifEditor.LDIFFileIsTooBigDescription" ) ); //$NON-NLS-1$
-                input = new NonExistingLdifEditorInput();
-            }
-        }
-
         super.init( site, input );
 
         ConnectionEventRegistry.addConnectionUpdateListener( this, ConnectionUIPlugin.getDefault().getEventRunner() );
@@ -302,6 +275,11 @@ public class LdifEditor extends TextEditor implements ILdifEditor, ConnectionUpd
         {
             return getSourceViewer();
         }
+        if ( LdifDocumentProvider.class.equals( required ) )
+        {
+            if ( getDocumentProvider() instanceof LdifDocumentProvider )
+                return getDocumentProvider();
+        }
         if ( IAnnotationHover.class.equals( required ) )
         {
             if ( getSourceViewerConfiguration() != null && getSourceViewer() != null )
@@ -407,6 +385,15 @@ public class LdifEditor extends TextEditor implements ILdifEditor, ConnectionUpd
             ExecuteLdifAction executeLdifAction = new ExecuteLdifAction( this );
             actionToolBarManager.add( executeLdifAction );
             setAction( LdifEditorConstants.ACTION_ID_EXECUTE_LDIF, executeLdifAction );
+
+            // add page actions for large files
+            if ( isLargeFile() )
+            {
+                actionToolBarManager.add( new Separator() );
+                actionToolBarManager.add( new ShowLdifPageAction( this, false ) );
+                actionToolBarManager.add( new ShowLdifPageAction( this, true ) );
+            }
+
             actionToolBarManager.update( true );
         }
 
@@ -565,6 +552,81 @@ public class LdifEditor extends TextEditor implements ILdifEditor, ConnectionUpd
     }
 
 
+    /**
+     * Tells if the file is opened in large file mode. Then the editor is read-only
+     * and only shows one page of records of the file at a time.
+     *
+     * @return
+     *      true if the file is opened in large file mode
+     */
+    public boolean isLargeFile()
+    {
+        IDocumentProvider provider = getDocumentProvider();
+        return provider instanceof LdifDocumentProvider && ( ( LdifDocumentProvider ) provider ).isLargeFile();
+    }
+
+
+    /**
+     * Gets the page shown in large file mode.
+     *
+     * @return
+     *      the page number, 0 if not in large file mode
+     */
+    public int getPage()
+    {
+        return isLargeFile() ? ( ( LdifDocumentProvider ) getDocumentProvider() ).getPage() : 0;
+    }
+
+
+    /**
+     * Shows the given page of a file opened in large file mode. Only the records
+     * of the page are loaded and parsed.
+     *
+     * @param page
+     *      the page number
+     */
+    public void showPage( int page )
+    {
+        if ( !isLargeFile() )
+        {
+            return;
+        }
+
+        LdifDocumentProvider provider = ( LdifDocumentProvider ) getDocumentProvider();
+        try
+        {
+            if ( provider.showPage( getEditorInput(), page ) )
+            {
+                selectAndReveal( 0, 0 );
+            }
+        }
+        catch ( CoreException e )
+        {
+            LdifEditorActivator.getDefault().getLog().log( e.getStatus() );
+        }
+
+        // show the position in the file
+        MappedLdifFile mappedFile = provider.getMappedFile();
+        String message = MessageFormat.format( Messages.getString( mappedFile.isIndexed() ? "LdifEditor.PageOfPages" //$NON-NLS-1$
+            : "LdifEditor.PageOfAtLeastPages" ), provider.getPage() + 1, mappedFile.getPageCount() ); //$NON-NLS-1$
+        getEditorSite().getActionBars().getStatusLineManager().setMessage( message );
+
+        if ( actionToolBarManager != null )
+        {
+            actionToolBarManager.update( true );
+        }
+    }
+
+
+    /**
+     * Save As is not possible in large file mode, the document only holds one page.
+     */
+    public boolean isSaveAsAllowed()
+    {
+        return !isLargeFile() && super.isSaveAsAllowed();
+    }
+
+
     /**
      * This method is used to notify the LDIF Editor that the Outline Page has been closed.
      */
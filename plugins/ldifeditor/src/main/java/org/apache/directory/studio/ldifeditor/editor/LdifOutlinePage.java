@@ -39,6 +39,7 @@ import org.apache.directory.studio.ldifparser.model.container.LdifChangeAddRecor
 import org.apache.directory.studio.ldifparser.model.container.LdifChangeDeleteRecord;
 import org.apache.directory.studio.ldifparser.model.container.LdifChangeModDnRecord;
 import org.apache.directory.studio.ldifparser.model.container.LdifChangeModifyRecord;
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
 import org.apache.directory.studio.ldifparser.model.container.LdifModSpec;
 import org.apache.directory.studio.ldifparser.model.container.LdifRecord;
@@ -55,6 +56,8 @@ import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.ui.ISharedImages;
+import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.views.contentoutline.ContentOutlinePage;
 
 
@@ -66,6 +69,9 @@ import org.eclipse.ui.views.contentoutline.ContentOutlinePage;
  */
 public class LdifOutlinePage extends ContentOutlinePage
 {
+    /** The maximum number of children of a node, larger files are folded into pages */
+    private static final int PAGE_SIZE = 1000;
+
     /** The editor it is attached to */
     private LdifEditor ldifEditor;
 
@@ -239,6 +245,120 @@ public class LdifOutlinePage extends ContentOutlinePage
         }
     }
 
+    /**
+     * A LdifRecordPage is a range of containers of a large LDIF file, or nested pages.
+     * Its records are only fetched when the page is expanded, so the outline of large
+     * files is populated lazily.
+     */
+    private static class LdifRecordPage
+    {
+        /** The LDIF file */
+        private LdifFile ldifFile;
+
+        /** The index of the first container in this page */
+        private int first;
+
+        /** The index of the last container in this page */
+        private int last;
+
+
+        /**
+         * Creates a new instance of LdifRecordPage.
+         *
+         * @param ldifFile the LDIF file
+         * @param first the index of the first container in this page
+         * @param last the index of the last container in this page
+         */
+        public LdifRecordPage( LdifFile ldifFile, int first, int last )
+        {
+            this.ldifFile = ldifFile;
+            this.first = first;
+            this.last = last;
+        }
+
+
+        /**
+         * Gets the children, either the sub pages or the records contained in this page.
+         *
+         * @return the children
+         */
+        public Object[] getChildren()
+        {
+            List<LdifContainer> containers = ldifFile.getContainers();
+            int end = Math.min( last, containers.size() - 1 );
+
+            if ( end - first + 1 > PAGE_SIZE )
+            {
+                return getPages( ldifFile, first, end );
+            }
+
+            List<LdifRecord> records = new ArrayList<LdifRecord>();
+
+            for ( LdifContainer container : containers.subList( Math.min( first, end + 1 ), end + 1 ) )
+            {
+                if ( container instanceof LdifRecord )
+                {
+                    records.add( ( LdifRecord ) container );
+                }
+            }
+
+            return records.toArray();
+        }
+
+
+        /**
+         * Folds the given range of containers into at most PAGE_SIZE pages.
+         *
+         * @param ldifFile the LDIF file
+         * @param first the index of the first container
+         * @param last the index of the last container
+         * @return the pages
+         */
+        public static LdifRecordPage[] getPages( LdifFile ldifFile, int first, int last )
+        {
+            long step = PAGE_SIZE;
+
+            while ( ( last - first + 1 ) > step * PAGE_SIZE )
+            {
+                step *= PAGE_SIZE;
+            }
+
+            List<LdifRecordPage> pages = new ArrayList<LdifRecordPage>();
+
+            for ( long start = first; start <= last; start += step )
+            {
+                pages.add( new LdifRecordPage( ldifFile, ( int ) start, ( int ) Math.min( start + step - 1, last ) ) );
+            }
+
+            return pages.toArray( new LdifRecordPage[pages.size()] );
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean equals( Object obj )
+        {
+            if ( !( obj instanceof LdifRecordPage ) )
+            {
+                return false;
+            }
+
+            LdifRecordPage other = ( LdifRecordPage ) obj;
+
+            return ldifFile == other.ldifFile && first == other.first && last == other.last;
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public int hashCode()
+        {
+            return 31 * first + last;
+        }
+    }
+
     /**
      * This class implements the ContentProvider used for the LDIF Outline View
      *
@@ -251,13 +371,26 @@ public class LdifOutlinePage extends ContentOutlinePage
          */
         public Object[] getChildren( Object element )
         {
-            // file --> records
+            // file --> records, or pages of records for large files
             if ( element instanceof LdifFile )
             {
                 LdifFile ldifFile = ( LdifFile ) element;
+                int size = ldifFile.getContainers().size();
+
+                if ( size > PAGE_SIZE )
+                {
+                    return LdifRecordPage.getPages( ldifFile, 0, size - 1 );
+                }
+
                 return ldifFile.getRecords();
             }
 
+            // page --> records or sub pages
+            else if ( element instanceof LdifRecordPage )
+            {
+                return ( ( LdifRecordPage ) element ).getChildren();
+            }
+
             // record --> Array of List of AttrValLine
             else if ( element instanceof LdifContentRecord )
             {
@@ -344,7 +477,26 @@ public class LdifOutlinePage extends ContentOutlinePage
          */
         public boolean hasChildren( Object element )
         {
-            return getChildren( element ) != null && getChildren( element ).length > 0;
+            // avoid computing the children of pages and records, they are fetched when expanded
+            if ( element instanceof LdifRecordPage )
+            {
+                return true;
+            }
+            else if ( element instanceof LdifContentRecord )
+            {
+                return ( ( LdifContentRecord ) element ).getAttrVals().length > 0;
+            }
+            else if ( element instanceof LdifChangeAddRecord )
+            {
+                return ( ( LdifChangeAddRecord ) element ).getAttrVals().length > 0;
+            }
+            else if ( element instanceof LdifChangeModifyRecord )
+            {
+                return ( ( LdifChangeModifyRecord ) element ).getModSpecs().length > 0;
+            }
+
+            Object[] children = getChildren( element );
+            return children != null && children.length > 0;
         }
 
 
@@ -407,6 +559,13 @@ public class LdifOutlinePage extends ContentOutlinePage
                 return ldifRecord.getDnLine().getValueAsString();
             }
 
+            // Page
+            else if ( element instanceof LdifRecordPage )
+            {
+                LdifRecordPage page = ( LdifRecordPage ) element;
+                return "[" + ( page.first + 1 ) + "..." + ( page.last + 1 ) + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            }
+
             // List of AttrValLine
             else if ( element instanceof List && ( ( List<?> ) element ).get( 0 ) instanceof LdifAttrValLine )
             {
@@ -441,8 +600,14 @@ public class LdifOutlinePage extends ContentOutlinePage
         public Image getImage( Object element )
         {
             
+            // Page
+            if ( element instanceof LdifRecordPage )
+            {
+                return PlatformUI.getWorkbench().getSharedImages().getImage( ISharedImages.IMG_OBJ_FOLDER );
+            }
+
             // Record
-            if ( element instanceof LdifContentRecord )
+            else if ( element instanceof LdifContentRecord )
             {
                 if ( isLinkedToLdapBrowser )
                 {
@@ -0,0 +1,78 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldifeditor.editor;
+
+
+import org.eclipse.jface.action.Action;
+import org.eclipse.ui.ISharedImages;
+import org.eclipse.ui.PlatformUI;
+
+
+/**
+ * This Action shows the previous or next page of a LDIF file opened in large file mode.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ShowLdifPageAction extends Action
+{
+    /** The LDIF Editor */
+    private LdifEditor editor;
+
+    /** The page offset, -1 for the previous and 1 for the next page */
+    private int direction;
+
+
+    /**
+     * Creates a new instance of ShowLdifPageAction.
+     *
+     * @param editor
+     *      the attached editor
+     * @param next
+     *      true to show the next page, false to show the previous page
+     */
+    public ShowLdifPageAction( LdifEditor editor, boolean next )
+    {
+        super( next ? Messages.getString( "ShowLdifPageAction.NextPage" ) //$NON-NLS-1$
+            : Messages.getString( "ShowLdifPageAction.PreviousPage" ), PlatformUI.getWorkbench().getSharedImages() //$NON-NLS-1$
+            .getImageDescriptor( next ? ISharedImages.IMG_TOOL_FORWARD : ISharedImages.IMG_TOOL_BACK ) );
+        super.setToolTipText( getText() );
+        this.editor = editor;
+        this.direction = next ? 1 : -1;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run()
+    {
+        editor.showPage( editor.getPage() + direction );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isEnabled()
+    {
+        return editor != null && editor.getPage() + direction >= 0;
+    }
+}
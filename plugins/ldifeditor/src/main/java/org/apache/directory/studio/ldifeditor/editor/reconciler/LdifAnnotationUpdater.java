@@ -22,17 +22,22 @@ package org.apache.directory.studio.ldifeditor.editor.reconciler;
 
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.directory.studio.ldifeditor.editor.ILdifEditor;
 import org.apache.directory.studio.ldifparser.model.LdifFile;
 import org.apache.directory.studio.ldifparser.model.LdifPart;
 import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.source.Annotation;
 import org.eclipse.jface.text.source.IAnnotationModel;
 import org.eclipse.jface.text.source.IAnnotationModelExtension;
+import org.eclipse.jface.text.source.IAnnotationModelExtension2;
 import org.eclipse.jface.text.source.ISourceViewer;
 
 
@@ -55,12 +60,86 @@ class LdifAnnotationUpdater
     }
 
 
-    public void updateAnnotations( LdifContainer[] containers )
+    /**
+     * Updates the error annotations of the containers in the given region of the document.
+     * Only the annotations of these containers are replaced.
+     *
+     * @param dirtyRegion the region of the re-parsed containers
+     */
+    public void updateAnnotations( IRegion dirtyRegion )
     {
+        LdifFile model = editor.getLdifModel();
+        ISourceViewer viewer = ( ISourceViewer ) editor.getAdapter( ISourceViewer.class );
+
+        if ( viewer == null )
+        {
+            return;
+        }
+
+        IDocument document = viewer.getDocument();
+        IAnnotationModel annotationModel = viewer.getAnnotationModel();
+
+        if ( document == null || model == null )
+        {
+            return;
+        }
 
+        if ( !( annotationModel instanceof IAnnotationModelExtension )
+            || !( annotationModel instanceof IAnnotationModelExtension2 ) )
+        {
+            updateAnnotations();
+            return;
+        }
+
+        // the affected containers, the region is extended to their bounds
+        int offset = Math.min( dirtyRegion.getOffset(), document.getLength() );
+        int end = Math.min( dirtyRegion.getOffset() + dirtyRegion.getLength(), document.getLength() );
+        LdifContainer[] containers = LdifFile.getContainers( model, offset, Math.max( end - offset, 1 ) );
+
+        if ( containers == null )
+        {
+            containers = new LdifContainer[0];
+        }
+
+        if ( containers.length > 0 )
+        {
+            LdifContainer last = containers[containers.length - 1];
+            offset = Math.min( offset, containers[0].getOffset() );
+            end = Math.max( end, last.getOffset() + last.getLength() );
+        }
+
+        // the old annotations in the region
+        List<Annotation> annotationsToRemove = new ArrayList<Annotation>();
+
+        for ( Iterator<?> it = ( ( IAnnotationModelExtension2 ) annotationModel ).getAnnotationIterator( offset,
+            Math.max( end - offset, 1 ), true, true ); it.hasNext(); )
+        {
+            Annotation annotation = ( Annotation ) it.next();
+
+            if ( ERROR_ANNOTATION_TYPE.equals( annotation.getType() ) )
+            {
+                annotationsToRemove.add( annotation );
+            }
+        }
+
+        Map<Annotation, Position> annotationsToAdd = new HashMap<Annotation, Position>();
+
+        for ( LdifContainer ldifContainer : containers )
+        {
+            addErrorAnnotation( ldifContainer, annotationsToAdd );
+        }
+
+        if ( !annotationsToRemove.isEmpty() || !annotationsToAdd.isEmpty() )
+        {
+            ( ( IAnnotationModelExtension ) annotationModel ).replaceAnnotations( annotationsToRemove
+                .toArray( new Annotation[annotationsToRemove.size()] ), annotationsToAdd );
+        }
     }
 
 
+    /**
+     * Updates the error annotations of the whole document.
+     */
     public void updateAnnotations()
     {
         LdifFile model = editor.getLdifModel();
@@ -81,58 +160,80 @@ class LdifAnnotationUpdater
 
         if ( annotationModel instanceof IAnnotationModelExtension )
         {
-            ( ( IAnnotationModelExtension ) annotationModel ).removeAllAnnotations();
-
-            List<Position> positionList = new ArrayList<Position>();
+            List<Annotation> annotationsToRemove = new ArrayList<Annotation>();
 
-            List<LdifContainer> containers = model.getContainers();
-            
-            for ( LdifContainer ldifContainer : containers )
+            for ( Iterator<?> it = annotationModel.getAnnotationIterator(); it.hasNext(); )
             {
-                // LdifPart errorPart = null;
-                int errorOffset = -1;
-                int errorLength = -1;
-                StringBuilder errorText = null;
-
-                LdifPart[] parts = ldifContainer.getParts();
-                
-                for ( LdifPart ldifPart : parts )
+                Annotation annotation = ( Annotation ) it.next();
+
+                if ( ERROR_ANNOTATION_TYPE.equals( annotation.getType() ) )
                 {
-                    if ( !ldifPart.isValid() )
-                    {
-                        if ( errorOffset == -1 )
-                        {
-                            // errorPart = part;
-                            errorOffset = ldifPart.getOffset();
-                            errorLength = ldifPart.getLength();
-                            errorText = new StringBuilder();
-                            errorText.append( ldifPart.toRawString() );
-                        }
-                        else
-                        {
-                            errorLength += ldifPart.getLength();
-                            errorText.append( ldifPart.toRawString() );
-                        }
-                    }
+                    annotationsToRemove.add( annotation );
                 }
+            }
+
+            Map<Annotation, Position> annotationsToAdd = new HashMap<Annotation, Position>();
+
+            for ( LdifContainer ldifContainer : model.getContainers() )
+            {
+                addErrorAnnotation( ldifContainer, annotationsToAdd );
+            }
+
+            ( ( IAnnotationModelExtension ) annotationModel ).replaceAnnotations( annotationsToRemove
+                .toArray( new Annotation[annotationsToRemove.size()] ), annotationsToAdd );
+        }
+    }
+
+
+    /**
+     * Creates the error annotation of the given container, if it or one of its parts is invalid.
+     *
+     * @param ldifContainer the container
+     * @param annotations the map to add the annotation and its position to
+     */
+    private void addErrorAnnotation( LdifContainer ldifContainer, Map<Annotation, Position> annotations )
+    {
+        // LdifPart errorPart = null;
+        int errorOffset = -1;
+        int errorLength = -1;
+        StringBuilder errorText = null;
+
+        LdifPart[] parts = ldifContainer.getParts();
 
-                if ( errorOffset == -1 && !ldifContainer.isValid() )
+        for ( LdifPart ldifPart : parts )
+        {
+            if ( !ldifPart.isValid() )
+            {
+                if ( errorOffset == -1 )
                 {
-                    errorOffset = ldifContainer.getOffset();
-                    errorLength = ldifContainer.getLength();
+                    // errorPart = part;
+                    errorOffset = ldifPart.getOffset();
+                    errorLength = ldifPart.getLength();
                     errorText = new StringBuilder();
-                    errorText.append( ldifContainer.toRawString() );
+                    errorText.append( ldifPart.toRawString() );
                 }
-
-                if ( errorOffset > -1 )
+                else
                 {
-                    Annotation annotation = new Annotation( ERROR_ANNOTATION_TYPE, true, errorText.toString() );
-                    Position position = new Position( errorOffset, errorLength );
-                    positionList.add( position );
-                    viewer.getAnnotationModel().addAnnotation( annotation, position );
+                    errorLength += ldifPart.getLength();
+                    errorText.append( ldifPart.toRawString() );
                 }
             }
         }
+
+        if ( errorOffset == -1 && !ldifContainer.isValid() )
+        {
+            errorOffset = ldifContainer.getOffset();
+            errorLength = ldifContainer.getLength();
+            errorText = new StringBuilder();
+            errorText.append( ldifContainer.toRawString() );
+        }
+
+        if ( errorOffset > -1 )
+        {
+            Annotation annotation = new Annotation( ERROR_ANNOTATION_TYPE, true, errorText.toString() );
+            Position position = new Position( errorOffset, errorLength );
+            annotations.put( annotation, position );
+        }
     }
 
 }
\ No newline at end of file
@@ -22,6 +22,7 @@ package org.apache.directory.studio.ldifeditor.editor.reconciler;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -39,6 +40,7 @@ import org.apache.directory.studio.ldifparser.model.lines.LdifSepLine;
 
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.source.Annotation;
 import org.eclipse.jface.text.source.ISourceViewer;
@@ -81,6 +83,63 @@ public class LdifFoldingRegionUpdater implements IPropertyChangeListener
 
 
     public void updateFoldingRegions()
+    {
+        LdifFile model = editor.getLdifModel();
+        ProjectionAnnotationModel projectionAnnotationModel = ( ProjectionAnnotationModel ) editor
+            .getAdapter( ProjectionAnnotationModel.class );
+        if ( model == null || projectionAnnotationModel == null )
+            return;
+
+        updateFoldingRegions( model.getContainers(), projectionAnnotationModel.getAnnotationIterator() );
+    }
+
+
+    /**
+     * Updates the folding regions of the containers in the given region of the document.
+     * Only the folding regions of these containers are compared and replaced.
+     *
+     * @param dirtyRegion the region of the re-parsed containers
+     */
+    public void updateFoldingRegions( IRegion dirtyRegion )
+    {
+        ISourceViewer viewer = ( ISourceViewer ) editor.getAdapter( ISourceViewer.class );
+        if ( viewer == null || viewer.getDocument() == null )
+            return;
+
+        LdifFile model = editor.getLdifModel();
+        ProjectionAnnotationModel projectionAnnotationModel = ( ProjectionAnnotationModel ) editor
+            .getAdapter( ProjectionAnnotationModel.class );
+        if ( model == null || projectionAnnotationModel == null )
+            return;
+
+        // the affected containers, the region is extended to their bounds
+        int documentLength = viewer.getDocument().getLength();
+        int offset = Math.min( dirtyRegion.getOffset(), documentLength );
+        int end = Math.min( dirtyRegion.getOffset() + dirtyRegion.getLength(), documentLength );
+        LdifContainer[] containers = LdifFile.getContainers( model, offset, Math.max( end - offset, 1 ) );
+        if ( containers == null )
+            containers = new LdifContainer[0];
+
+        if ( containers.length > 0 )
+        {
+            LdifContainer last = containers[containers.length - 1];
+            offset = Math.min( offset, containers[0].getOffset() );
+            end = Math.max( end, last.getOffset() + last.getLength() );
+        }
+
+        updateFoldingRegions( Arrays.asList( containers ), projectionAnnotationModel.getAnnotationIterator( offset,
+            Math.max( end - offset, 1 ), true, true ) );
+    }
+
+
+    /**
+     * Compares the folding regions of the given containers with the given existing
+     * annotations and applies the differences to the projection annotation model.
+     *
+     * @param containers the containers
+     * @param existingAnnotations the projection annotations currently covering the containers
+     */
+    private void updateFoldingRegions( List<LdifContainer> containers, Iterator<?> existingAnnotations )
     {
 
         ISourceViewer viewer = ( ISourceViewer ) editor.getAdapter( ISourceViewer.class );
@@ -99,13 +158,13 @@ public class LdifFoldingRegionUpdater implements IPropertyChangeListener
             // create folding regions of current LDIF model; mark comments
             // and
             // folded lines as collapsed
-            Map<Position, ProjectionAnnotation> positionToAnnotationMap = createFoldingRegions( editor.getLdifModel(), document );
+            Map<Position, ProjectionAnnotation> positionToAnnotationMap = createFoldingRegions( containers, document );
 
             // compare with current annotation model (--> toAdd, toDelete)
             List<Annotation> annotationsToDeleteList = new ArrayList<Annotation>();
             Map<ProjectionAnnotation, Position> annotationsToAddMap = new HashMap<ProjectionAnnotation, Position>();
-            this.computeDifferences( projectionAnnotationModel, positionToAnnotationMap, annotationsToDeleteList,
-                annotationsToAddMap );
+            this.computeDifferences( projectionAnnotationModel, existingAnnotations, positionToAnnotationMap,
+                annotationsToDeleteList, annotationsToAddMap );
             Annotation[] annotationsToDelete = ( Annotation[] ) annotationsToDeleteList
                 .toArray( new Annotation[annotationsToDeleteList.size()] );
 
@@ -124,12 +183,13 @@ public class LdifFoldingRegionUpdater implements IPropertyChangeListener
     }
 
 
-    private void computeDifferences( ProjectionAnnotationModel model, Map<Position, ProjectionAnnotation> positionToAnnotationMap,
-        List<Annotation> annotationsToDeleteList, Map<ProjectionAnnotation, Position> annotationsToAddMap )
+    private void computeDifferences( ProjectionAnnotationModel model, Iterator<?> existingAnnotations,
+        Map<Position, ProjectionAnnotation> positionToAnnotationMap, List<Annotation> annotationsToDeleteList,
+        Map<ProjectionAnnotation, Position> annotationsToAddMap )
     {
-        for ( Iterator<Annotation> iter = model.getAnnotationIterator(); iter.hasNext(); )
+        for ( Iterator<?> iter = existingAnnotations; iter.hasNext(); )
         {
-            Annotation annotation = iter.next();
+            Annotation annotation = ( Annotation ) iter.next();
             
             if ( annotation instanceof ProjectionAnnotation )
             {
@@ -154,18 +214,17 @@ public class LdifFoldingRegionUpdater implements IPropertyChangeListener
 
 
     /**
-     * Creates all folding region of the given LDIF model.
+     * Creates all folding region of the given LDIF containers.
      * LdifCommentContainers and wrapped lines are marked as collapsed.
      * 
-     * @param model
+     * @param containers
      * @param document
      * @return a map with positions as keys to annotations as values
      * @throws BadLocationException
      */
-    private Map<Position, ProjectionAnnotation> createFoldingRegions( LdifFile model, IDocument document ) throws BadLocationException
+    private Map<Position, ProjectionAnnotation> createFoldingRegions( List<LdifContainer> containers, IDocument document ) throws BadLocationException
     {
         Map<Position, ProjectionAnnotation> positionToAnnotationMap = new HashMap<Position, ProjectionAnnotation>();
-        List<LdifContainer> containers = model.getContainers();
 
         boolean ENABLE_FOLDING = LdifEditorActivator.getDefault().getPreferenceStore().getBoolean(
             LdifEditorConstants.PREFERENCE_LDIFEDITOR_FOLDING_ENABLE );
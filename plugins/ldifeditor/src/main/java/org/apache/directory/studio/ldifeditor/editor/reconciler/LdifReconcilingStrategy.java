@@ -22,6 +22,7 @@ package org.apache.directory.studio.ldifeditor.editor.reconciler;
 
 
 import org.apache.directory.studio.ldifeditor.editor.ILdifEditor;
+import org.apache.directory.studio.ldifeditor.editor.LdifDocumentProvider;
 import org.apache.directory.studio.ldifeditor.editor.LdifOutlinePage;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.text.IDocument;
@@ -77,35 +78,52 @@ public class LdifReconcilingStrategy implements IReconcilingStrategy, IReconcili
 
     public void reconcile( DirtyRegion dirtyRegion, IRegion subRegion )
     {
-        reconcile();
+        notifyEnvironment( false );
     }
 
 
     public void reconcile( IRegion partition )
     {
-        reconcile();
+        notifyEnvironment( false );
     }
 
 
     public void initialReconcile()
     {
-        reconcile();
+        notifyEnvironment( true );
     }
 
 
-    private void reconcile()
-    {
-        notifyEnvironment();
-    }
-
-
-    private void notifyEnvironment()
+    /**
+     * Updates the outline, the annotations and the folding regions. Unless a full
+     * update is requested only the containers re-parsed by the document provider
+     * since the last update are considered.
+     *
+     * @param fullUpdate true to update everything
+     */
+    private void notifyEnvironment( final boolean fullUpdate )
     {
 
         Display.getDefault().asyncExec( new Runnable()
         {
             public void run()
             {
+                // get the dirty range, it is taken in the UI thread where the document is modified
+                IRegion dirtyRegion = null;
+                LdifDocumentProvider provider = ( LdifDocumentProvider ) editor.getAdapter( LdifDocumentProvider.class );
+                if ( provider != null )
+                {
+                    dirtyRegion = provider.takeDirtyRegion();
+                    if ( dirtyRegion == null && !fullUpdate )
+                    {
+                        // already handled by a previous update
+                        return;
+                    }
+                }
+                if ( fullUpdate )
+                {
+                    dirtyRegion = null;
+                }
 
                 // notify outline
                 IContentOutlinePage outline = ( IContentOutlinePage ) editor.getAdapter( IContentOutlinePage.class );
@@ -115,10 +133,24 @@ public class LdifReconcilingStrategy implements IReconcilingStrategy, IReconcili
                 }
 
                 // notify annotation updater
-                annotationUpdater.updateAnnotations();
+                if ( dirtyRegion != null )
+                {
+                    annotationUpdater.updateAnnotations( dirtyRegion );
+                }
+                else
+                {
+                    annotationUpdater.updateAnnotations();
+                }
 
                 // notify folding updater
-                foldingUpdater.updateFoldingRegions();
+                if ( dirtyRegion != null )
+                {
+                    foldingUpdater.updateFoldingRegions( dirtyRegion );
+                }
+                else
+                {
+                    foldingUpdater.updateFoldingRegions();
+                }
 
             }
         } );
@@ -100,14 +100,23 @@ public class LdifDamagerRepairer implements IPresentationDamager, IPresentationR
         List<LdifContainer> allContainers = ldifModel.getContainers();
         List<LdifContainer> containerList = new ArrayList<LdifContainer>();
 
-        for ( LdifContainer ldifContainer : allContainers )
+        // start at the container in front of the damaged region, the model lookup is O(log n)
+        int startIndex = ldifModel.getContainerIndex( damage.getOffset() );
+        startIndex = startIndex >= 0 ? Math.max( startIndex - 1, 0 ) : Math.max( allContainers.size() - 1, 0 );
+
+        for ( int i = startIndex; i < allContainers.size(); i++ )
         {
+            LdifContainer ldifContainer = allContainers.get( i );
             Region containerRegion = new Region( ldifContainer.getOffset(), ldifContainer.getLength() );
 
             if ( TextUtilities.overlaps( containerRegion, damage ) )
             {
                 containerList.add( ldifContainer );
             }
+            else if ( ldifContainer.getOffset() > damage.getOffset() + damage.getLength() )
+            {
+                break;
+            }
         }
 
         LdifContainer[] containers = ( LdifContainer[] ) containerList
@@ -21,8 +21,17 @@
 package org.apache.directory.studio.ldifparser;
 
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.codec.binary.Hex;
@@ -35,6 +44,80 @@ import org.apache.commons.codec.binary.Hex;
  */
 public class LdifUtils
 {
+    /** The file name suffix of gzip compressed LDIF files. */
+    public static final String GZIP_SUFFIX = ".gz"; //$NON-NLS-1$
+
+    /** The buffer size used to read and write LDIF files sequentially. */
+    public static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+
+    /**
+     * Checks if the given file is gzip compressed, based on its name.
+     *
+     * @param file the file
+     * @return true if the file name ends with {@link #GZIP_SUFFIX}
+     */
+    public static boolean isGzipFile( File file )
+    {
+        return file.getName().toLowerCase( Locale.ENGLISH ).endsWith( GZIP_SUFFIX );
+    }
+
+
+    /**
+     * Opens the given LDIF file for reading. A gzip compressed file is decompressed
+     * while it is read.
+     *
+     * @param file the file
+     * @return the input stream
+     * @throws IOException if the file can't be opened or is not in gzip format
+     */
+    public static InputStream openInputStream( File file ) throws IOException
+    {
+        InputStream in = new FileInputStream( file );
+        if ( !isGzipFile( file ) )
+        {
+            return in;
+        }
+
+        try
+        {
+            return new GZIPInputStream( in, STREAM_BUFFER_SIZE );
+        }
+        catch ( IOException e )
+        {
+            in.close();
+            throw e;
+        }
+    }
+
+
+    /**
+     * Opens the given LDIF file for writing. If the file name ends with {@link #GZIP_SUFFIX}
+     * the written data is compressed. The returned stream is not buffered.
+     *
+     * @param file the file
+     * @return the output stream
+     * @throws IOException if the file can't be opened
+     */
+    public static OutputStream openOutputStream( File file ) throws IOException
+    {
+        OutputStream out = new FileOutputStream( file );
+        if ( !isGzipFile( file ) )
+        {
+            return out;
+        }
+
+        try
+        {
+            return new GZIPOutputStream( out, STREAM_BUFFER_SIZE );
+        }
+        catch ( IOException e )
+        {
+            out.close();
+            throw e;
+        }
+    }
+
 
     /**
      * Encodes the given string to UTF-8
@@ -0,0 +1,470 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldifparser.model;
+
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
+
+
+/**
+ * The list of containers of a {@link LdifFile}, ordered by offset. The list is backed by
+ * a balanced tree (a treap with implicit keys), so a container is looked up by index or
+ * by offset, and a range of containers is replaced, in O(log n).
+ * <p>
+ * When containers are replaced the offsets of all following containers change. Instead of
+ * adjusting every following container the offset delta is stored in the root of the subtree
+ * and only applied to the containers on the path of a lookup. Containers obtained from this
+ * list have the correct offsets until the list is modified.
+ * <p>
+ * The list is read-only, except for appending containers and {@link #replace(int, int, List, int)}.
+ * As lookups apply pending deltas, all accesses are synchronized.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class LdifContainerList extends AbstractList<LdifContainer> implements Serializable
+{
+    /** The serialVersionUID */
+    private static final long serialVersionUID = -2373413407417394718L;
+
+    /** The source of the node priorities */
+    private static final Random RANDOM = new Random();
+
+    /** The root of the tree, null if the list is empty */
+    private Node root;
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized int size()
+    {
+        return size( root );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized LdifContainer get( int index )
+    {
+        if ( index < 0 || index >= size() )
+        {
+            throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size() ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        Node node = root;
+        while ( true )
+        {
+            push( node );
+            int leftSize = size( node.left );
+            if ( index < leftSize )
+            {
+                node = node.left;
+            }
+            else if ( index == leftSize )
+            {
+                return node.container;
+            }
+            else
+            {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+
+    /**
+     * Appends the given container, its offset must follow the offset of the last container.
+     * 
+     * @param container the container
+     * @return true
+     */
+    public synchronized boolean add( LdifContainer container )
+    {
+        root = merge( root, new Node( container ) );
+        modCount++;
+        return true;
+    }
+
+
+    /**
+     * Gets the index of the given container. The containers at the offset of the given
+     * container are compared by identity.
+     * 
+     * @param o the container
+     * @return the index, or -1 if the container isn't contained
+     */
+    public synchronized int indexOf( Object o )
+    {
+        if ( !( o instanceof LdifContainer ) )
+        {
+            return -1;
+        }
+
+        LdifContainer container = ( LdifContainer ) o;
+        int offset = container.getOffset();
+        for ( int i = lowerBound( offset ); i < size(); i++ )
+        {
+            LdifContainer candidate = get( i );
+            if ( candidate == container )
+            {
+                return i;
+            }
+            if ( candidate.getOffset() > offset )
+            {
+                break;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean contains( Object o )
+    {
+        return indexOf( o ) >= 0;
+    }
+
+
+    /**
+     * Gets the index of the container that contains the given offset.
+     * Empty containers don't contain any offset.
+     * 
+     * @param offset the offset
+     * @return the index, or -1 if no container contains the offset
+     */
+    synchronized int indexOfOffset( int offset )
+    {
+        Node node = root;
+        int base = 0;
+        while ( node != null )
+        {
+            push( node );
+            int containerOffset = node.container.getOffset();
+            if ( offset < containerOffset )
+            {
+                node = node.left;
+            }
+            else if ( offset >= containerOffset + node.container.getLength() )
+            {
+                base += size( node.left ) + 1;
+                node = node.right;
+            }
+            else
+            {
+                return base + size( node.left );
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Gets the index of the first container whose offset is greater than or equal to
+     * the given offset.
+     * 
+     * @param offset the offset
+     * @return the index, or the size of the list if there is no such container
+     */
+    private int lowerBound( int offset )
+    {
+        Node node = root;
+        int base = 0;
+        int result = size();
+        while ( node != null )
+        {
+            push( node );
+            if ( node.container.getOffset() >= offset )
+            {
+                result = base + size( node.left );
+                node = node.left;
+            }
+            else
+            {
+                base += size( node.left ) + 1;
+                node = node.right;
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Replaces the containers from the index fromIndex, inclusive, to the index toIndex,
+     * exclusive, with the given containers. The offsets of the following containers are
+     * adjusted by the given delta.
+     * 
+     * @param fromIndex the index of the first replaced container
+     * @param toIndex the index after the last replaced container
+     * @param containers the new containers, with their final offsets
+     * @param adjust the offset delta of the following containers
+     */
+    synchronized void replace( int fromIndex, int toIndex, List<LdifContainer> containers, int adjust )
+    {
+        Node[] head = split( root, fromIndex );
+        Node[] tail = split( head[1], toIndex - fromIndex );
+
+        Node middle = null;
+        for ( LdifContainer container : containers )
+        {
+            middle = merge( middle, new Node( container ) );
+        }
+
+        Node following = tail[1];
+        if ( following != null )
+        {
+            following.delta += adjust;
+        }
+
+        root = merge( merge( head[0], middle ), following );
+        modCount++;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * 
+     * The iterator traverses the tree in order, so iterating over all containers is O(n).
+     */
+    public Iterator<LdifContainer> iterator()
+    {
+        return new Iterator<LdifContainer>()
+        {
+            private final Deque<Node> stack = new ArrayDeque<Node>();
+
+            private final int expectedModCount = modCount;
+
+            {
+                synchronized ( LdifContainerList.this )
+                {
+                    descend( root );
+                }
+            }
+
+
+            private void descend( Node node )
+            {
+                while ( node != null )
+                {
+                    push( node );
+                    stack.push( node );
+                    node = node.left;
+                }
+            }
+
+
+            public boolean hasNext()
+            {
+                return !stack.isEmpty();
+            }
+
+
+            public LdifContainer next()
+            {
+                synchronized ( LdifContainerList.this )
+                {
+                    if ( modCount != expectedModCount )
+                    {
+                        throw new ConcurrentModificationException();
+                    }
+                    if ( stack.isEmpty() )
+                    {
+                        throw new NoSuchElementException();
+                    }
+
+                    Node node = stack.pop();
+                    descend( node.right );
+                    return node.container;
+                }
+            }
+
+
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+
+    /**
+     * Applies the pending offset delta of the given node to its container
+     * and passes it on to its children.
+     * 
+     * @param node the node
+     */
+    private static void push( Node node )
+    {
+        if ( node.delta != 0 )
+        {
+            node.container.adjustOffset( node.delta );
+            if ( node.left != null )
+            {
+                node.left.delta += node.delta;
+            }
+            if ( node.right != null )
+            {
+                node.right.delta += node.delta;
+            }
+            node.delta = 0;
+        }
+    }
+
+
+    /**
+     * Splits the given tree into the first count nodes and the remaining nodes.
+     * 
+     * @param node the root of the tree, may be null
+     * @param count the number of nodes of the first tree
+     * @return the roots of the two trees
+     */
+    private static Node[] split( Node node, int count )
+    {
+        if ( node == null )
+        {
+            return new Node[2];
+        }
+
+        push( node );
+        Node[] result;
+        if ( size( node.left ) >= count )
+        {
+            result = split( node.left, count );
+            node.left = result[1];
+            result[1] = node;
+        }
+        else
+        {
+            result = split( node.right, count - size( node.left ) - 1 );
+            node.right = result[0];
+            result[0] = node;
+        }
+        node.update();
+        return result;
+    }
+
+
+    /**
+     * Merges the two trees, all nodes of the left tree precede the nodes of the right tree.
+     * 
+     * @param left the root of the left tree, may be null
+     * @param right the root of the right tree, may be null
+     * @return the root of the merged tree
+     */
+    private static Node merge( Node left, Node right )
+    {
+        if ( left == null )
+        {
+            return right;
+        }
+        if ( right == null )
+        {
+            return left;
+        }
+
+        if ( left.priority > right.priority )
+        {
+            push( left );
+            left.right = merge( left.right, right );
+            left.update();
+            return left;
+        }
+        else
+        {
+            push( right );
+            right.left = merge( left, right.left );
+            right.update();
+            return right;
+        }
+    }
+
+
+    /**
+     * Gets the size of the given tree.
+     * 
+     * @param node the root of the tree, may be null
+     * @return the number of nodes
+     */
+    private static int size( Node node )
+    {
+        return node != null ? node.size : 0;
+    }
+
+    /**
+     * A node of the tree.
+     */
+    private static class Node implements Serializable
+    {
+        /** The serialVersionUID */
+        private static final long serialVersionUID = 5718146429213960375L;
+
+        /** The container */
+        private LdifContainer container;
+
+        /** The random priority, a parent has a higher priority than its children */
+        private int priority = RANDOM.nextInt();
+
+        /** The number of nodes of this subtree */
+        private int size = 1;
+
+        /** The offset delta that is not yet applied to the containers of this subtree */
+        private int delta;
+
+        /** The left child */
+        private Node left;
+
+        /** The right child */
+        private Node right;
+
+
+        /**
+         * Creates a new instance of Node.
+         *
+         * @param container the container
+         */
+        Node( LdifContainer container )
+        {
+            this.container = container;
+        }
+
+
+        /**
+         * Updates the size after the children have changed.
+         */
+        void update()
+        {
+            size = 1 + size( left ) + size( right );
+        }
+    }
+}
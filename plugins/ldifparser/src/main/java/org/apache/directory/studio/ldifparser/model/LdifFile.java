@@ -44,7 +44,7 @@ public class LdifFile implements Serializable
     private static final long serialVersionUID = 846864138240517008L;
 
     /** The list of container constituting this LDIF file */
-    private List<LdifContainer> containerList = new ArrayList<LdifContainer>();
+    private LdifContainerList containerList = new LdifContainerList();
     
     /** A flag which is set if a LdifChange is added into the LdifFile */
     private boolean hasChanges = false;
@@ -97,7 +97,11 @@ public class LdifFile implements Serializable
 
 
     /**
-     * @return A list of LdifContainers, including version, comments, records and unknown
+     * The offsets of the containers are adjusted lazily when containers are replaced. The
+     * offset of a container is only valid after the container was looked up through this
+     * list, and only until the file is modified.
+     *
+     * @return A read-only list of LdifContainers, including version, comments, records and unknown
      */
     public List<LdifContainer> getContainers()
     {
@@ -105,6 +109,18 @@ public class LdifFile implements Serializable
     }
 
 
+    /**
+     * Gets the index of the container that contains the given offset, in O(log n).
+     *
+     * @param offset The position in the file
+     * @return The index in the list of containers, or -1 if no container contains the offset
+     */
+    public int getContainerIndex( int offset )
+    {
+        return containerList.indexOfOffset( offset );
+    }
+
+
     /**
      * @return An array of LdifRecords (even invalid), no LdifVersion, LdifComments, or LdifUnknown
      */
@@ -193,21 +209,9 @@ public class LdifFile implements Serializable
             return null;
         }
 
-        List<LdifContainer> containers = model.getContainers();
+        int index = model.getContainerIndex( offset );
 
-        if ( containers.size() > 0 )
-        {
-            for ( LdifContainer ldifContainer : containers )
-            {
-                if ( ( ldifContainer.getOffset() <= offset ) &&
-                    ( offset < ldifContainer.getOffset() + ldifContainer.getLength() ) )
-                {
-                    return ldifContainer;
-                }
-            }
-        }
-
-        return null;
+        return index >= 0 ? model.getContainers().get( index ) : null;
     }
 
 
@@ -250,19 +254,15 @@ public class LdifFile implements Serializable
         }
 
         List<LdifContainer> containerList = new ArrayList<LdifContainer>();
-        List<LdifContainer> containers = model.getContainers();
 
-        if ( containers.size() > 0 )
+        for ( LdifContainer container : getFollowingContainers( model, offset, length ) )
         {
-            for ( LdifContainer container : containers )
-            {
-                int containerOffset = container.getOffset();
+            int containerOffset = container.getOffset();
 
-                if ( ( offset < containerOffset + container.getLength() ) &&
-                    ( offset + length > containerOffset ) )
-                {
-                    containerList.add( container );
-                }
+            if ( ( offset < containerOffset + container.getLength() ) &&
+                ( offset + length > containerOffset ) )
+            {
+                containerList.add( container );
             }
         }
 
@@ -270,6 +270,37 @@ public class LdifFile implements Serializable
     }
 
 
+    /**
+     * Gets the containers from the container at the given offset up to the
+     * container at the end of the given range, inclusive. The first container
+     * is looked up in O(log n).
+     *
+     * @param model The Ldif file containing the containers
+     * @param offset The start of the range
+     * @param length The length of the range
+     * @return The containers, may be empty
+     */
+    private static List<LdifContainer> getFollowingContainers( LdifFile model, int offset, int length )
+    {
+        List<LdifContainer> containers = model.getContainers();
+        int from = model.getContainerIndex( offset );
+
+        if ( from < 0 )
+        {
+            return new ArrayList<LdifContainer>();
+        }
+
+        int to = from;
+
+        while ( ( to < containers.size() ) && ( containers.get( to ).getOffset() <= offset + length ) )
+        {
+            to++;
+        }
+
+        return containers.subList( from, to );
+    }
+
+
     public static LdifPart[] getParts( LdifFile model, int offset, int length )
     {
         if ( ( model == null ) || ( offset < 0 ) )
@@ -277,9 +308,7 @@ public class LdifFile implements Serializable
             return null;
         }
 
-        List<LdifContainer> containers = model.getContainers();
-
-        return getParts( containers, offset, length );
+        return getParts( getFollowingContainers( model, offset, length ), offset, length );
 
     }
 
@@ -374,6 +403,15 @@ public class LdifFile implements Serializable
     }
 
 
+    /**
+     * Replaces the given consecutive containers with the new containers, in O(log n).
+     * The offsets of the new containers must be relative to the offset of the first
+     * old container, the offsets of the following containers are adjusted.
+     *
+     * @param oldContainers The consecutive containers to replace, looked up after the last modification
+     * @param newContainers The new containers
+     * @throws IllegalArgumentException if the first old container isn't found
+     */
     public void replace( LdifContainer[] oldContainers, List<LdifContainer> newContainers )
     {
         // find index
@@ -382,9 +420,14 @@ public class LdifFile implements Serializable
         if ( oldContainers.length > 0 )
         {
             index = containerList.indexOf( oldContainers[0] );
+
+            if ( index < 0 )
+            {
+                throw new IllegalArgumentException( "container not found" ); //$NON-NLS-1$
+            }
         }
 
-        // remove old containers
+        // measure old containers
         int removeLength = 0;
         int removeOffset = 0;
 
@@ -394,30 +437,20 @@ public class LdifFile implements Serializable
 
             for ( int i = 0; i < oldContainers.length; i++ )
             {
-                containerList.remove( index );
                 removeLength += oldContainers[i].getLength();
             }
         }
 
-        // add new containers
+        // move new containers
         int insertLength = 0;
-        int pos = 0;
 
         for ( LdifContainer ldifContainer : newContainers )
         {
             ldifContainer.adjustOffset( removeOffset );
             insertLength += ldifContainer.getLength();
-            containerList.add( index + pos, ldifContainer );
-            pos++;
         }
 
-        // adjust offset of following containers
-        int adjust = insertLength - removeLength;
-
-        for ( int i = index + newContainers.size(); i < containerList.size(); i++ )
-        {
-            LdifContainer container = containerList.get( i );
-            container.adjustOffset( adjust );
-        }
+        // replace, the offsets of the following containers are adjusted lazily
+        containerList.replace( index, index + oldContainers.length, newContainers, insertLength - removeLength );
     }
 }
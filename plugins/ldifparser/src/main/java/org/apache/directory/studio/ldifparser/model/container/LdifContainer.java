@@ -53,6 +53,13 @@ public abstract class LdifContainer implements LdifPart
     }
 
 
+    /**
+     * Gets the offset of the first part. When the container belongs to a LDIF file the offset
+     * is adjusted lazily, it is only valid after the container was looked up through
+     * {@link org.apache.directory.studio.ldifparser.model.LdifFile#getContainers()}.
+     *
+     * @return the offset
+     */
     public final int getOffset()
     {
         return ldifParts.get( 0 ).getOffset();
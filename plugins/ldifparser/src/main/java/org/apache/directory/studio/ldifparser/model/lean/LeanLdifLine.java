@@ -0,0 +1,232 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldifparser.model.lean;
+
+
+import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
+
+
+/**
+ * A view of one unfolded line of a {@link LeanLdifRecord}. Views are created on
+ * demand and don't copy the text of the record until a part of the line is requested.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LeanLdifLine
+{
+    /** The record */
+    private LeanLdifRecord record;
+
+    /** The start index of the line within the record */
+    private int start;
+
+    /** The end index of the line within the record, without line separator */
+    private int end;
+
+    /** The unfolded line, computed on demand */
+    private String unfolded;
+
+
+    LeanLdifLine( LeanLdifRecord record, int start, int end )
+    {
+        this.record = record;
+        this.start = start;
+        this.end = end;
+    }
+
+
+    /**
+     * @return The position of this line in the LDIF
+     */
+    public long getOffset()
+    {
+        return record.getOffset() + start;
+    }
+
+
+    /**
+     * @return The raw line, without line separator
+     */
+    public String toRawString()
+    {
+        return record.getRaw().substring( start, end );
+    }
+
+
+    /**
+     * @return true if this line is a comment line
+     */
+    public boolean isComment()
+    {
+        return end > start && record.getRaw().charAt( start ) == '#';
+    }
+
+
+    /**
+     * Gets the attribute description, that is the text before the first colon.
+     *
+     * @return the unfolded attribute description
+     */
+    public String getAttributeDescription()
+    {
+        String line = getUnfolded();
+        int colon = line.indexOf( ':' );
+
+        return colon > -1 ? line.substring( 0, colon ) : line;
+    }
+
+
+    /**
+     * Gets the value type, one of ":", "::" or ":&lt;", followed by the fill spaces.
+     *
+     * @return the unfolded value type, null if the line has no colon
+     */
+    public String getValueType()
+    {
+        String line = getUnfolded();
+        int colon = line.indexOf( ':' );
+        if ( colon < 0 )
+        {
+            return null;
+        }
+
+        return line.substring( colon, getValueStart( line, colon ) );
+    }
+
+
+    /**
+     * @return the unfolded value, still base64 encoded, or null if the line has no colon
+     */
+    public String getValue()
+    {
+        String line = getUnfolded();
+        int colon = line.indexOf( ':' );
+        if ( colon < 0 )
+        {
+            return null;
+        }
+
+        return line.substring( getValueStart( line, colon ) );
+    }
+
+
+    /**
+     * @return the real value, see {@link LdifAttrValLine#getValueAsObject()}
+     */
+    public Object getValueAsObject()
+    {
+        return toLdifAttrValLine().getValueAsObject();
+    }
+
+
+    /**
+     * @return the string representation of the value, non-base64, unfolded
+     */
+    public String getValueAsString()
+    {
+        return toLdifAttrValLine().getValueAsString();
+    }
+
+
+    /**
+     * @return the binary representation of the value, non-base64, unfolded
+     */
+    public byte[] getValueAsBinary()
+    {
+        return toLdifAttrValLine().getValueAsBinary();
+    }
+
+
+    /**
+     * Creates an attribute value line of the full model with the unfolded parts of this line.
+     *
+     * @return the attribute value line, its offset is 0
+     */
+    public LdifAttrValLine toLdifAttrValLine()
+    {
+        return new LdifAttrValLine( 0, getAttributeDescription(), getValueType(), getValue(), "" ); //$NON-NLS-1$
+    }
+
+
+    private static int getValueStart( String line, int colon )
+    {
+        int i = colon + 1;
+        if ( i < line.length() && ( line.charAt( i ) == ':' || line.charAt( i ) == '<' ) )
+        {
+            i++;
+        }
+        while ( i < line.length() && line.charAt( i ) == ' ' )
+        {
+            i++;
+        }
+
+        return i;
+    }
+
+
+    private String getUnfolded()
+    {
+        if ( unfolded == null )
+        {
+            String raw = record.getRaw();
+            StringBuilder sb = null;
+            int copied = start;
+            for ( int i = start; i < end; i++ )
+            {
+                // within a line each line separator starts a folding sequence
+                boolean crlf = raw.charAt( i ) == '\r' && i + 1 < end && raw.charAt( i + 1 ) == '\n';
+                if ( crlf || raw.charAt( i ) == '\n' )
+                {
+                    if ( sb == null )
+                    {
+                        sb = new StringBuilder( end - start );
+                    }
+                    sb.append( raw, copied, i );
+
+                    if ( crlf )
+                    {
+                        i++;
+                    }
+                    // skip the space
+                    i++;
+                    copied = i + 1;
+                }
+            }
+
+            if ( sb == null )
+            {
+                unfolded = raw.substring( start, end );
+            }
+            else
+            {
+                sb.append( raw, Math.min( copied, end ), end );
+                unfolded = sb.toString();
+            }
+        }
+
+        return unfolded;
+    }
+
+
+    public String toString()
+    {
+        return getClass().getName() + " (" + getOffset() + "," + ( end - start ) + "): '" + toRawString() + "'"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldifparser.model.lean;
+
+
+import org.apache.directory.studio.ldifparser.model.LdifFile;
+import org.apache.directory.studio.ldifparser.model.container.LdifRecord;
+import org.apache.directory.studio.ldifparser.parser.LdifParser;
+
+
+/**
+ * A lean LDIF record for bulk processing. The record keeps its raw text in a single
+ * String and a 64-bit offset, the lines are derived on demand as {@link LeanLdifLine}
+ * views. Use {@link #toLdifRecord()} to get the full model, e.g. for the LDIF editor.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LeanLdifRecord
+{
+    /** The position of the record in the LDIF */
+    private long offset;
+
+    /** The raw text of the record, including the line separators */
+    private String raw;
+
+    /** The start indices of the unfolded lines, computed on demand */
+    private int[] lineStarts;
+
+
+    /**
+     * Creates a new instance of LeanLdifRecord.
+     *
+     * @param offset the position of the record in the LDIF
+     * @param raw the raw text of the record, starting with the dn line
+     */
+    public LeanLdifRecord( long offset, String raw )
+    {
+        this.offset = offset;
+        this.raw = raw;
+    }
+
+
+    /**
+     * @return The position of this record in the LDIF
+     */
+    public long getOffset()
+    {
+        return offset;
+    }
+
+
+    /**
+     * @return The length of this record
+     */
+    public int getLength()
+    {
+        return raw.length();
+    }
+
+
+    public String toRawString()
+    {
+        return raw;
+    }
+
+
+    /**
+     * Gets the number of lines, folded lines count as one line.
+     *
+     * @return the number of lines
+     */
+    public int getLineCount()
+    {
+        return getLineStarts().length;
+    }
+
+
+    /**
+     * Gets a view of the line with the given index, the dn line has index 0.
+     *
+     * @param index the index
+     * @return the line
+     */
+    public LeanLdifLine getLine( int index )
+    {
+        int[] starts = getLineStarts();
+        int start = starts[index];
+        int end = index + 1 < starts.length ? starts[index + 1] : raw.length();
+
+        // strip the line separator
+        if ( end > start && raw.charAt( end - 1 ) == '\n' )
+        {
+            end--;
+            if ( end > start && raw.charAt( end - 1 ) == '\r' )
+            {
+                end--;
+            }
+        }
+
+        return new LeanLdifLine( this, start, end );
+    }
+
+
+    /**
+     * Gets the Dn of this record.
+     *
+     * @return the Dn, non-base64, unfolded
+     */
+    public String getDn()
+    {
+        return getLine( 0 ).getValueAsString();
+    }
+
+
+    /**
+     * Gets the change type of this record.
+     *
+     * @return the change type, null if this is a content record
+     */
+    public String getChangeType()
+    {
+        for ( int i = 1; i < getLineCount(); i++ )
+        {
+            LeanLdifLine line = getLine( i );
+            if ( line.isComment() )
+            {
+                continue;
+            }
+
+            String attributeDescription = line.getAttributeDescription();
+            if ( "changetype".equalsIgnoreCase( attributeDescription ) ) //$NON-NLS-1$
+            {
+                return line.getValueAsString();
+            }
+            else if ( !"control".equalsIgnoreCase( attributeDescription ) ) //$NON-NLS-1$
+            {
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Tells if this is a content record.
+     *
+     * @return true if this record has no change type
+     */
+    public boolean isContentRecord()
+    {
+        return getChangeType() == null;
+    }
+
+
+    /**
+     * Parses this record into the full model. The offsets of the returned record
+     * are relative to the start of this record.
+     *
+     * @return the LDIF record, null if the text doesn't form a record
+     */
+    public LdifRecord toLdifRecord()
+    {
+        LdifFile model = new LdifParser().parse( raw );
+        LdifRecord[] records = model.getRecords();
+
+        return records.length > 0 ? records[0] : null;
+    }
+
+
+    String getRaw()
+    {
+        return raw;
+    }
+
+
+    private int[] getLineStarts()
+    {
+        if ( lineStarts == null )
+        {
+            int count = 1;
+            for ( int i = 0; i < raw.length() - 1; i++ )
+            {
+                if ( raw.charAt( i ) == '\n' && raw.charAt( i + 1 ) != ' ' )
+                {
+                    count++;
+                }
+            }
+
+            int[] starts = new int[count];
+            int n = 1;
+            for ( int i = 0; i < raw.length() - 1; i++ )
+            {
+                if ( raw.charAt( i ) == '\n' && raw.charAt( i + 1 ) != ' ' )
+                {
+                    starts[n++] = i + 1;
+                }
+            }
+
+            lineStarts = starts;
+        }
+
+        return lineStarts;
+    }
+
+
+    public String toString()
+    {
+        return getClass().getName() + " (" + offset + "," + raw.length() + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldifparser.parser;
+
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.apache.directory.studio.ldifparser.model.lean.LeanLdifRecord;
+
+
+/**
+ * The LdifRecordReader reads {@link LeanLdifRecord}s from a LDIF stream. It is meant for
+ * bulk processing of large files: records are split at empty lines without building the
+ * full model, and the offsets are 64-bit.
+ * <p>
+ * Comments and the version line before the dn line of a record are skipped, as are
+ * blocks without dn line.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LdifRecordReader
+{
+    /** The reader */
+    private Reader reader;
+
+    /** The read buffer */
+    private char[] buffer = new char[8192];
+
+    /** The position of the next character in the buffer */
+    private int bufferPos;
+
+    /** The number of valid characters in the buffer */
+    private int bufferLength;
+
+    /** The position of the next character in the LDIF */
+    private long position;
+
+    /** The lines of the current block */
+    private StringBuilder block = new StringBuilder();
+
+
+    /**
+     * Creates a new instance of LdifRecordReader.
+     *
+     * @param reader the reader
+     */
+    public LdifRecordReader( Reader reader )
+    {
+        this.reader = reader;
+    }
+
+
+    /**
+     * Reads the next record.
+     *
+     * @return the next record, null at the end of the LDIF
+     * @throws IOException if reading fails
+     */
+    public LeanLdifRecord next() throws IOException
+    {
+        while ( true )
+        {
+            block.setLength( 0 );
+            long blockOffset = position;
+
+            // read lines until an empty line or the end of the LDIF
+            int lineLength;
+            while ( ( lineLength = readLine() ) > 0 )
+            {
+                int last = block.length() - 1;
+                boolean empty = block.charAt( last ) == '\n'
+                    && ( lineLength == 1 || lineLength == 2 && block.charAt( last - 1 ) == '\r' );
+                if ( empty )
+                {
+                    block.setLength( block.length() - lineLength );
+                    if ( block.length() > 0 )
+                    {
+                        break;
+                    }
+                    blockOffset = position;
+                }
+            }
+
+            if ( block.length() == 0 )
+            {
+                return null;
+            }
+
+            int dnLineStart = findDnLine();
+            if ( dnLineStart > -1 )
+            {
+                return new LeanLdifRecord( blockOffset + dnLineStart, block.substring( dnLineStart ) );
+            }
+        }
+    }
+
+
+    /**
+     * Finds the first line of the block that starts with "dn:".
+     *
+     * @return the index of the dn line, -1 if there is none
+     */
+    private int findDnLine()
+    {
+        int lineStart = 0;
+        while ( lineStart + 2 < block.length() )
+        {
+            if ( ( block.charAt( lineStart ) | 0x20 ) == 'd' && ( block.charAt( lineStart + 1 ) | 0x20 ) == 'n'
+                && block.charAt( lineStart + 2 ) == ':' )
+            {
+                return lineStart;
+            }
+
+            // next unfolded line
+            int i = lineStart;
+            do
+            {
+                i = block.indexOf( "\n", i ) + 1; //$NON-NLS-1$
+            }
+            while ( i > 0 && i < block.length() && block.charAt( i ) == ' ' );
+
+            if ( i <= 0 )
+            {
+                break;
+            }
+            lineStart = i;
+        }
+
+        return -1;
+    }
+
+
+    /**
+     * Appends the next physical line including its line separator to the block.
+     *
+     * @return the length of the line, 0 at the end of the LDIF
+     */
+    private int readLine() throws IOException
+    {
+        int length = 0;
+        while ( true )
+        {
+            if ( bufferPos == bufferLength )
+            {
+                bufferLength = reader.read( buffer, 0, buffer.length );
+                bufferPos = 0;
+                if ( bufferLength < 0 )
+                {
+                    bufferLength = 0;
+                    return length;
+                }
+            }
+
+            int start = bufferPos;
+            while ( bufferPos < bufferLength && buffer[bufferPos] != '\n' )
+            {
+                bufferPos++;
+            }
+            boolean eol = bufferPos < bufferLength;
+            if ( eol )
+            {
+                bufferPos++;
+            }
+
+            block.append( buffer, start, bufferPos - start );
+            length += bufferPos - start;
+            position += bufferPos - start;
+
+            if ( eol )
+            {
+                return length;
+            }
+        }
+    }
+}
@@ -24,6 +24,7 @@ package org.apache.directory.studio.ldifparser.parser;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.Arrays;
 
 
 // RFC 2849
@@ -128,17 +129,40 @@ import java.io.Reader;
 // ; as specified in [5]
 // BASE64-STRING = [*(BASE64-CHAR)]
 
+/**
+ * The scanner splits an LDIF into tokens. The parser calls the match methods to
+ * get the next token of the expected type, if the LDIF doesn't continue with such
+ * a token the scanner is left unchanged and null is returned.
+ * <p>
+ * The read characters are kept in a sliding character window, characters before the
+ * current token are discarded when the window is refilled. Tokens are matched by
+ * moving the position within the window, the value of a token is the slice of the
+ * window between its start and the current position, including folding sequences.
+ */
 public class LdifScanner
 {
+    /** The initial size of the character window */
+    private static final int INITIAL_WINDOW_SIZE = 16 * 1024;
 
+    /** The reader */
     private Reader ldifReader;
 
-    private char[] buffer = new char[256];
+    /** The character window */
+    private char[] window = new char[INITIAL_WINDOW_SIZE];
+
+    /** The position of the first character of the window */
+    private int windowOffset;
+
+    /** The number of valid characters in the window */
+    private int windowLength;
 
-    private StringBuffer ldifBuffer;
+    /** The position before which characters are not needed anymore */
+    private int flushPos;
 
-    private int ldifBufferOffset;
+    /** Set if the end of the reader was reached */
+    private boolean eof;
 
+    /** The position of the last read character, -1 before the first character */
     private int pos;
 
 
@@ -150,124 +174,145 @@ public class LdifScanner
 
     public void setLdif( Reader ldifReader )
     {
-        // this.ldif = ldif;
         this.ldifReader = ldifReader;
         this.pos = -1;
 
-        this.ldifBuffer = new StringBuffer();
-        this.ldifBufferOffset = 0;
+        this.windowOffset = 0;
+        this.windowLength = 0;
+        this.flushPos = 0;
+        this.eof = false;
     }
 
 
-    char currentChar() throws EOFException
+    /**
+     * Gets the character at the given position, reads from the reader if necessary.
+     *
+     * @param p the position
+     * @return the character, -1 if the position is outside the LDIF or was discarded
+     */
+    private int charAt( int p )
     {
+        int i = p - windowOffset;
+        if ( i >= 0 && i < windowLength )
+        {
+            return window[i];
+        }
+        if ( i < 0 )
+        {
+            return -1;
+        }
+
+        while ( !eof && p - windowOffset >= windowLength )
+        {
+            fill();
+        }
+
+        i = p - windowOffset;
+        return i < windowLength ? window[i] : -1;
+    }
+
+
+    /**
+     * Reads more characters into the window. If the window is full the characters
+     * before the flush position are discarded, if that frees less than half of
+     * the window it is enlarged.
+     */
+    private void fill()
+    {
+        if ( windowLength == window.length )
+        {
+            int discard = Math.min( flushPos - windowOffset, windowLength );
+            if ( discard > 0 )
+            {
+                System.arraycopy( window, discard, window, 0, windowLength - discard );
+                windowOffset += discard;
+                windowLength -= discard;
+            }
+            if ( discard < window.length / 2 )
+            {
+                window = Arrays.copyOf( window, window.length * 2 );
+            }
+        }
 
-        // check and fill buffer
         try
         {
-            int num = 0;
-            while ( ldifBufferOffset + ldifBuffer.length() <= pos && num > -1 )
+            int num = ldifReader.read( window, windowLength, window.length - windowLength );
+            if ( num > -1 )
             {
-                num = this.ldifReader.read( buffer );
-                if ( num > -1 )
-                {
-                    ldifBuffer.append( buffer, 0, num );
-                }
+                windowLength += num;
+            }
+            else
+            {
+                eof = true;
             }
         }
         catch ( IOException e )
         {
+            eof = true;
+        }
+    }
+
+
+    /**
+     * Reads the next character. If the character is followed by a folding
+     * sequence SEP + SPACE the folding sequence is read too.
+     *
+     * @return the read character, -1 at the end of the LDIF
+     */
+    private int read()
+    {
+        int c = charAt( pos + 1 );
+        if ( c < 0 )
+        {
+            return -1;
         }
+        pos++;
 
-        if ( 0 <= pos && pos < ldifBufferOffset + ldifBuffer.length() )
+        // folding
+        int n = charAt( pos + 1 );
+        if ( n == '\n' || n == '\r' )
         {
-            try
+            int p = pos + 1;
+            int s = charAt( p + 1 );
+            if ( ( n == '\r' && s == '\n' ) || ( n == '\n' && s == '\r' ) )
             {
-                return ldifBuffer.charAt( pos - ldifBufferOffset );
+                p++;
+                s = charAt( p + 1 );
             }
-            catch ( RuntimeException e )
+            if ( s == ' ' )
             {
-                e.printStackTrace();
-                throw e;
+                // space after newline, continue
+                pos = p + 1;
             }
         }
-        else
-        {
-            throw new EOFException();
-        }
 
-        // return 0<=pos&&pos<ldif.length() ? ldif.charAt(pos) : '\u0000';
+        return c;
     }
 
 
-    void addFolding( StringBuffer sb )
+    /**
+     * Inverses the previous read(), including the folding sequence.
+     */
+    private void unread()
     {
-
-        int oldPos = pos;
-
-        try
+        // folding
+        if ( charAt( pos ) == ' ' )
         {
-            pos++;
-            char c = currentChar();
-            if ( c == '\n' || c == '\r' )
+            int n = charAt( pos - 1 );
+            if ( n == '\n' || n == '\r' )
             {
-                StringBuffer temp = new StringBuffer( 3 );
-                temp.append( c );
-                if ( c == '\r' )
+                int p = charAt( pos - 2 );
+                if ( p > -1 )
                 {
-                    pos++;
-                    c = currentChar();
-                    if ( c == '\n' )
-                    {
-                        temp.append( c );
-                    }
-                    else
-                    {
-                        pos--;
-                    }
+                    pos -= ( n == '\r' && p == '\n' ) || ( n == '\n' && p == '\r' ) ? 3 : 2;
                 }
-                else if ( c == '\n' )
-                {
-                    pos++;
-                    c = currentChar();
-                    if ( c == '\r' )
-                    {
-                        temp.append( c );
-                    }
-                    else
-                    {
-                        pos--;
-                    }
-                }
-
-                pos++;
-                c = currentChar();
-                if ( c == ' ' )
-                {
-                    // space after newline, continue
-                    temp.append( c );
-                    sb.append( temp );
-                }
-                else
-                {
-                    for ( int i = 0; i < temp.length(); i++ )
-                    {
-                        pos--;
-                    }
-                    pos--;
-                }
-            }
-            else
-            {
-                pos--;
             }
         }
-        catch ( EOFException e )
+
+        if ( pos > -1 )
         {
-            // reset position
-            pos = oldPos;
+            pos--;
         }
-
     }
 
 
@@ -286,253 +331,166 @@ public class LdifScanner
      */
     public char read( StringBuffer sb ) throws EOFException
     {
-        try
+        int start = pos + 1;
+        int c = read();
+        if ( c < 0 )
         {
-
-            // check EOF
-            // if(pos > -1) {
-            // currentChar();
-            // }
-
-            // get next char
-            pos++;
-            char c = currentChar();
-            sb.append( c );
-
-            // folding
-            addFolding( sb );
-
-            return c;
-        }
-        catch ( EOFException e )
-        {
-            pos--;
-            throw e;
+            throw new EOFException();
         }
+        sb.append( window, start - windowOffset, pos - start + 1 );
+        return ( char ) c;
     }
 
 
-    void removeFolding( StringBuffer sb )
+    /**
+     * Inverses the previous read().
+     * 
+     * @param sb
+     */
+    public void unread( StringBuffer sb )
     {
-
         int oldPos = pos;
+        unread();
+        sb.setLength( Math.max( 0, sb.length() - ( oldPos - pos ) ) );
+    }
 
-        try
-        {
-            char c = currentChar();
-            pos--;
-            if ( c == ' ' )
-            {
-                StringBuffer temp = new StringBuffer();
-                temp.insert( 0, c );
-                c = currentChar();
-                pos--;
 
-                if ( c == '\n' || c == '\r' )
-                {
-                    if ( c == '\r' )
-                    {
-                        temp.insert( 0, c );
-                        c = currentChar();
-                        pos--;
-                        if ( c == '\n' )
-                        {
-                            temp.insert( 0, c );
-                        }
-                        else
-                        {
-                            pos++;
-                        }
-                    }
-                    else if ( c == '\n' )
-                    {
-                        temp.insert( 0, c );
-                        c = currentChar();
-                        pos--;
-                        if ( c == '\r' )
-                        {
-                            temp.insert( 0, c );
-                        }
-                        else
-                        {
-                            pos++;
-                        }
-                    }
-
-                    sb.delete( sb.length() - temp.length(), sb.length() );
-                }
-                else
-                {
-                    pos++;
-                    pos++;
-                }
-            }
-            else
-            {
-                pos++;
-            }
-        }
-        catch ( EOFException e )
+    /**
+     * Creates a token whose value is the slice from the given start to the current position.
+     *
+     * @param type the token type
+     * @param start the start position
+     * @return the token
+     */
+    private LdifToken token( int type, int start )
+    {
+        if ( pos < start )
         {
-            // reset position
-            pos = oldPos;
+            // an unread removed a folding sequence that started before the token
+            return new LdifToken( type, "", pos + 1 ); //$NON-NLS-1$
         }
+
+        return new LdifToken( type, new String( window, start - windowOffset, pos - start + 1 ), start );
     }
 
 
     /**
-     * Inverses the previous read().
-     * 
-     * @param sb
-     * @throws EOFException
+     * Unreads all characters read since the given start position.
+     *
+     * @param start the start position
      */
-    public void unread( StringBuffer sb )
+    private void reset( int start )
     {
-        removeFolding( sb );
-
-        if ( pos > -1 )
+        while ( pos >= start )
         {
-            pos--;
-
-            if ( sb.length() > 0 )
-            {
-                sb.deleteCharAt( sb.length() - 1 );
-            }
+            unread();
         }
     }
 
 
-    private String getFullLine( String start )
+    /**
+     * Reads until the end of the line, folded lines are continued.
+     *
+     * @return true if at least one character was read
+     */
+    private boolean readContent()
     {
-        String s1 = this.getWord( start );
-        if ( s1 != null )
+        int start = pos + 1;
+
+        int c = read();
+        while ( c > -1 && c != '\n' && c != '\r' )
         {
-            String s2 = getContent( false );
-            return s2 != null ? s1 + s2 : s1;
+            c = read();
         }
-        else
+        if ( c > -1 )
         {
-            return null;
+            unread();
         }
+
+        return pos >= start;
     }
 
 
-    private String getContent( boolean allowEmptyContent )
+    private boolean matchWord( String word )
     {
+        int start = pos + 1;
 
-        StringBuffer sb = new StringBuffer( 256 );
-
-        try
+        for ( int i = 0; i < word.length(); i++ )
         {
-            char c = '\u0000';
-            while ( c != '\n' && c != '\r' )
+            int c = read();
+            if ( c < 0 || Character.toUpperCase( ( char ) c ) != Character.toUpperCase( word.charAt( i ) ) )
             {
-                c = read( sb );
+                reset( start );
+                return false;
             }
-            unread( sb );
-
-        }
-        catch ( EOFException e )
-        {
         }
 
-        return sb.length() > 0 || allowEmptyContent ? sb.toString() : null;
+        return true;
     }
 
 
-    private String getWord( String word )
+    private boolean matchWordTillColon( String word )
     {
-        StringBuffer sb = new StringBuffer();
+        int start = pos + 1;
 
-        // read
-        try
+        if ( matchWord( word ) )
         {
-            boolean matches = true;
-            for ( int i = 0; i < word.length(); i++ )
+            int c = read();
+            if ( c == ':' )
             {
-
-                char c = read( sb );
-                //if ( c != word.charAt( i ) )
-                if ( Character.toUpperCase( c ) != Character.toUpperCase( word.charAt( i ) ) )
-                {
-                    matches = false;
-                    unread( sb );
-                    break;
-                }
+                unread();
+                return true;
             }
-
-            if ( matches )
+            if ( c < 0 )
             {
-                return sb.toString();
+                // allow eof
+                return true;
+            }
+            unread();
+            if ( c == '\r' || c == '\n' )
+            {
+                // allow sep
+                return true;
             }
-        }
-        catch ( EOFException e )
-        {
-        }
 
-        // unread
-        while ( sb.length() > 0 )
-        {
-            unread( sb );
+            reset( start );
         }
-        // prevChar(sb);
-        return null;
+
+        return false;
     }
 
 
-    private String getWordTillColon( String word )
+    private void flushBuffer()
     {
-
-        String wordWithColon = word + ":"; //$NON-NLS-1$
-        String line = getWord( wordWithColon );
-        if ( line != null )
+        if ( flushPos < pos - 1 )
         {
-            StringBuffer sb = new StringBuffer( line );
-            unread( sb );
-            return sb.toString();
+            flushPos = pos - 1;
         }
+    }
 
-        // allow eof and sep
-        line = getWord( word );
-        if ( line != null )
+
+    private LdifToken sep()
+    {
+        int start = pos + 1;
+
+        int c = read();
+        if ( c == '\n' || c == '\r' )
         {
-            StringBuffer sb = new StringBuffer( line );
-            try
-            {
-                char c = read( sb );
-                unread( sb );
-                if ( c == '\r' || c == '\n' )
-                {
-                    return sb.toString();
-                }
-                else
-                {
-                    while ( sb.length() > 0 )
-                    {
-                        unread( sb );
-                    }
-                    return null;
-                }
-            }
-            catch ( EOFException e )
+            // check for two-char-linebreak
+            int c2 = read();
+            if ( c2 > -1 && ( ( c == '\r' && c2 != '\n' ) || ( c == '\n' && c2 != '\r' ) ) )
             {
-                return sb.toString();
+                unread();
             }
-        }
 
-        return null;
-    }
-
-
-    private void flushBuffer()
-    {
-        if ( this.ldifBufferOffset < this.pos && this.ldifBuffer.length() > 0 )
+            return token( LdifToken.SEP, start );
+        }
+        else if ( c > -1 )
         {
-            int delta = Math.min( pos - this.ldifBufferOffset, this.ldifBuffer.length() );
-            delta--;
-            this.ldifBuffer.delete( 0, delta );
-            this.ldifBufferOffset += delta;
+            unread();
         }
+
+        return null;
     }
 
 
@@ -540,18 +498,14 @@ public class LdifScanner
     {
         this.flushBuffer();
 
-        String line = getContent( false );
-        LdifToken sep = matchSep();
+        int start = pos + 1;
+        boolean line = readContent();
+        int lineEnd = pos;
+        LdifToken sep = sep();
 
-        if ( line != null || sep != null )
+        if ( line || sep != null )
         {
-            if ( line == null )
-                line = ""; //$NON-NLS-1$
-
-            if ( sep != null )
-                line += sep.getValue();
-
-            return new LdifToken( LdifToken.UNKNOWN, line, pos - line.length() + 1 );
+            return lineToken( start, lineEnd, sep );
         }
 
         return null;
@@ -562,35 +516,50 @@ public class LdifScanner
     {
         this.flushBuffer();
 
-        String line = getContent( false );
-        if ( line != null )
+        int start = pos + 1;
+        if ( readContent() )
         {
-            LdifToken sep = matchSep();
-            if ( sep != null )
-                line += sep.getValue();
-            return new LdifToken( LdifToken.UNKNOWN, line, pos - line.length() + 1 );
+            int lineEnd = pos;
+            LdifToken sep = sep();
+            return lineToken( start, lineEnd, sep );
         }
 
         return null;
     }
 
 
+    /**
+     * Creates a token of a line and its separator.
+     *
+     * @param start the start position of the line
+     * @param lineEnd the end position of the line, without separator
+     * @param sep the separator, may be null
+     * @return the token
+     */
+    private LdifToken lineToken( int start, int lineEnd, LdifToken sep )
+    {
+        if ( sep == null || sep.getOffset() == lineEnd + 1 && pos == lineEnd + sep.getLength() )
+        {
+            return token( LdifToken.UNKNOWN, start );
+        }
+
+        // the separator removed a folding sequence of the line
+        String line = lineEnd >= start ? new String( window, start - windowOffset, lineEnd - start + 1 ) : ""; //$NON-NLS-1$
+        line += sep.getValue();
+        return new LdifToken( LdifToken.UNKNOWN, line, pos - line.length() + 1 );
+    }
+
+
     public LdifToken matchEOF()
     {
         this.flushBuffer();
 
-        StringBuffer sb = new StringBuffer( 1 );
-        try
-        {
-            read( sb );
-            unread( sb );
-            return null;
-        }
-        catch ( EOFException e )
+        if ( charAt( pos + 1 ) < 0 )
         {
             return new LdifToken( LdifToken.EOF, "", pos + 1 ); //$NON-NLS-1$
         }
 
+        return null;
     }
 
 
@@ -598,49 +567,7 @@ public class LdifScanner
     {
         this.flushBuffer();
 
-        try
-        {
-            StringBuffer sb = new StringBuffer();
-            char c = read( sb );
-            if ( c == '\n' || c == '\r' )
-            {
-
-                // check for two-char-linebreak
-                try
-                {
-                    if ( c == '\r' )
-                    {
-                        c = read( sb );
-                        if ( c != '\n' )
-                        {
-                            unread( sb );
-                        }
-                    }
-                    else if ( c == '\n' )
-                    {
-                        c = read( sb );
-                        if ( c != '\r' )
-                        {
-                            unread( sb );
-                        }
-                    }
-                }
-                catch ( EOFException e )
-                {
-                }
-
-                return new LdifToken( LdifToken.SEP, sb.toString(), pos - sb.length() + 1 );
-            }
-            else
-            {
-                unread( sb );
-            }
-        }
-        catch ( EOFException e )
-        {
-        }
-
-        return null;
+        return sep();
     }
 
 
@@ -648,66 +575,66 @@ public class LdifScanner
     {
         this.flushBuffer();
 
-        String line = getFullLine( "#" ); //$NON-NLS-1$
-        if ( line != null )
+        int start = pos + 1;
+        if ( matchWord( "#" ) ) //$NON-NLS-1$
         {
-            return new LdifToken( LdifToken.COMMENT, line, pos - line.length() + 1 );
+            readContent();
+            return token( LdifToken.COMMENT, start );
         }
 
         return null;
     }
 
 
-    public LdifToken matchVersionSpec()
+    private LdifToken matchSpec( String word, int type )
     {
         this.flushBuffer();
 
-        String line = getWordTillColon( "version" ); //$NON-NLS-1$
-        if ( line != null )
+        int start = pos + 1;
+        if ( matchWordTillColon( word ) )
         {
-            return new LdifToken( LdifToken.VERSION_SPEC, line, pos - line.length() + 1 );
+            return token( type, start );
         }
 
         return null;
     }
 
 
-    public LdifToken matchDnSpec()
+    public LdifToken matchVersionSpec()
     {
-        this.flushBuffer();
+        return matchSpec( "version", LdifToken.VERSION_SPEC ); //$NON-NLS-1$
+    }
 
-        String line = getWordTillColon( "dn" ); //$NON-NLS-1$
-        if ( line != null )
-        {
-            return new LdifToken( LdifToken.DN_SPEC, line, pos - line.length() + 1 );
-        }
 
-        return null;
+    public LdifToken matchDnSpec()
+    {
+        return matchSpec( "dn", LdifToken.DN_SPEC ); //$NON-NLS-1$
     }
 
 
     public LdifToken matchControlSpec()
     {
-        this.flushBuffer();
+        return matchSpec( "control", LdifToken.CONTROL_SPEC ); //$NON-NLS-1$
+    }
 
-        String line = getWordTillColon( "control" ); //$NON-NLS-1$
-        if ( line != null )
-        {
-            return new LdifToken( LdifToken.CONTROL_SPEC, line, pos - line.length() + 1 );
-        }
 
-        return null;
+    public LdifToken matchChangeTypeSpec()
+    {
+        return matchSpec( "changetype", LdifToken.CHANGETYPE_SPEC ); //$NON-NLS-1$
     }
 
 
-    public LdifToken matchChangeTypeSpec()
+    private LdifToken matchWords( String[] words, int[] types )
     {
         this.flushBuffer();
 
-        String line = getWordTillColon( "changetype" ); //$NON-NLS-1$
-        if ( line != null )
+        int start = pos + 1;
+        for ( int i = 0; i < words.length; i++ )
         {
-            return new LdifToken( LdifToken.CHANGETYPE_SPEC, line, pos - line.length() + 1 );
+            if ( matchWord( words[i] ) )
+            {
+                return token( types[i], start );
+            }
         }
 
         return null;
@@ -716,35 +643,10 @@ public class LdifScanner
 
     public LdifToken matchChangeType()
     {
-        this.flushBuffer();
-
-        String line = getWord( "add" ); //$NON-NLS-1$
-        if ( line != null )
-        {
-            return new LdifToken( LdifToken.CHANGETYPE_ADD, line, pos - line.length() + 1 );
-        }
-        line = getWord( "modify" ); //$NON-NLS-1$
-        if ( line != null )
-        {
-            return new LdifToken( LdifToken.CHANGETYPE_MODIFY, line, pos - line.length() + 1 );
-        }
-        line = getWord( "delete" ); //$NON-NLS-1$
-        if ( line != null )
-        {
-            return new LdifToken( LdifToken.CHANGETYPE_DELETE, line, pos - line.length() + 1 );
-        }
-        line = getWord( "moddn" ); //$NON-NLS-1$
-        if ( line != null )
-        {
-            return new LdifToken( LdifToken.CHANGETYPE_MODDN, line, pos - line.length() + 1 );
-        }
-        line = getWord( "modrdn" ); //$NON-NLS-1$
-        if ( line != null )
-        {
-            return new LdifToken( LdifToken.CHANGETYPE_MODDN, line, pos - line.length() + 1 );
-        }
-
-        return null;
+        return matchWords( new String[]
+            { "add", "modify", "delete", "moddn", "modrdn" }, new int[] //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+            { LdifToken.CHANGETYPE_ADD, LdifToken.CHANGETYPE_MODIFY, LdifToken.CHANGETYPE_DELETE,
+                LdifToken.CHANGETYPE_MODDN, LdifToken.CHANGETYPE_MODDN } );
     }
 
 
@@ -752,36 +654,23 @@ public class LdifScanner
     {
         this.flushBuffer();
 
-        StringBuffer sb = new StringBuffer();
+        int start = pos + 1;
 
-        String s = getWord( " " ); //$NON-NLS-1$
-        while ( s != null )
+        while ( matchWord( " " ) ) //$NON-NLS-1$
         {
-            sb.append( s );
-            s = getWord( " " ); //$NON-NLS-1$
+            // skip spaces
         }
 
-        String t = getWord( "true" ); //$NON-NLS-1$
-        if ( t != null )
+        if ( matchWord( "true" ) ) //$NON-NLS-1$
         {
-            sb.append( t );
-            return new LdifToken( LdifToken.CONTROL_CRITICALITY_TRUE, sb.toString(), pos - sb.length() + 1 );
+            return token( LdifToken.CONTROL_CRITICALITY_TRUE, start );
         }
-        String f = getWord( "false" ); //$NON-NLS-1$
-        if ( f != null )
+        if ( matchWord( "false" ) ) //$NON-NLS-1$
         {
-            sb.append( f );
-            return new LdifToken( LdifToken.CONTROL_CRITICALITY_FALSE, sb.toString(), pos - sb.length() + 1 );
+            return token( LdifToken.CONTROL_CRITICALITY_FALSE, start );
         }
 
-        while ( sb.length() > 0 )
-        {
-            unread( sb );
-        }
-
-        // for(int i=0; i<sb.length(); i++) {
-        // unread(sb);
-        // }
+        reset( start );
 
         return null;
     }
@@ -791,34 +680,26 @@ public class LdifScanner
     {
         this.flushBuffer();
 
-        try
+        int start = pos + 1;
+        int c = read();
+        if ( '0' <= c && c <= '9' )
         {
-            StringBuffer sb = new StringBuffer();
-            char c = read( sb );
-            if ( '0' <= c && c <= '9' )
+            do
             {
-
-                try
-                {
-                    while ( '0' <= c && c <= '9' )
-                    {
-                        c = read( sb );
-                    }
-                    unread( sb );
-                }
-                catch ( EOFException e )
-                {
-                }
-
-                return new LdifToken( LdifToken.NUMBER, sb.toString(), pos - sb.length() + 1 );
+                c = read();
             }
-            else
+            while ( '0' <= c && c <= '9' );
+
+            if ( c > -1 )
             {
-                unread( sb );
+                unread();
             }
+
+            return token( LdifToken.NUMBER, start );
         }
-        catch ( EOFException e )
+        else if ( c > -1 )
         {
+            unread();
         }
 
         return null;
@@ -829,34 +710,26 @@ public class LdifScanner
     {
         this.flushBuffer();
 
-        try
+        int start = pos + 1;
+        int c = read();
+        if ( '0' <= c && c <= '9' )
         {
-            StringBuffer sb = new StringBuffer();
-            char c = read( sb );
-            if ( '0' <= c && c <= '9' )
+            do
             {
-
-                try
-                {
-                    while ( '0' <= c && c <= '9' || c == '.' )
-                    {
-                        c = read( sb );
-                    }
-                    unread( sb );
-                }
-                catch ( EOFException e )
-                {
-                }
-
-                return new LdifToken( LdifToken.OID, sb.toString(), pos - sb.length() + 1 );
+                c = read();
             }
-            else
+            while ( '0' <= c && c <= '9' || c == '.' );
+
+            if ( c > -1 )
             {
-                unread( sb );
+                unread();
             }
+
+            return token( LdifToken.OID, start );
         }
-        catch ( EOFException e )
+        else if ( c > -1 )
         {
+            unread();
         }
 
         return null;
@@ -867,55 +740,29 @@ public class LdifScanner
     {
         this.flushBuffer();
 
-        try
+        int start = pos + 1;
+        int c = read();
+        if ( 'a' <= c && c <= 'z' || 'A' <= c && c <= 'Z' || '0' <= c && c <= '9' )
         {
-            StringBuffer sb = new StringBuffer();
-            char c = read( sb );
-            if ( 'a' <= c && c <= 'z' || 'A' <= c && c <= 'Z' || '0' <= c && c <= '9' )
+            do
             {
-
-                try
-                {
-                    while ( 'a' <= c && c <= 'z' || 'A' <= c && c <= 'Z' || '0' <= c && c <= '9' || c == '.'
-                        || c == ';' || c == '-' || c == '_' )
-                    {
-                        c = read( sb );
-                    }
-                    unread( sb );
-                }
-                catch ( EOFException e )
-                {
-                }
-
-                return new LdifToken( LdifToken.ATTRIBUTE, sb.toString(), pos - sb.length() + 1 );
+                c = read();
             }
-            else
+            while ( 'a' <= c && c <= 'z' || 'A' <= c && c <= 'Z' || '0' <= c && c <= '9' || c == '.' || c == ';'
+                || c == '-' || c == '_' );
+
+            if ( c > -1 )
             {
-                unread( sb );
+                unread();
             }
+
+            return token( LdifToken.ATTRIBUTE, start );
         }
-        catch ( EOFException e )
+        else if ( c > -1 )
         {
+            unread();
         }
 
-        // // a-z,A-Z,0-9,.,-,;
-        // StringBuffer sb = new StringBuffer();
-        // char c = nextChar(sb);
-        // if('a'<=c&&c<='z' || 'A'<=c&&c<='Z' || '0'<=c&&c<='9') {
-        // while('a'<=c&&c<='z' || 'A'<=c&&c<='Z' || '0'<=c&&c<='9' || c=='.' ||
-        // c==';' || c=='-') {
-        // sb.append(c);
-        // c = nextChar(sb);
-        // }
-        // unread(sb);
-        //
-        // return new LdifToken(LdifToken.ATTRIBUTE, sb.toString(),
-        // pos-sb.length()+1);
-        // }
-        // else {
-        // unread(sb);
-        // }
-
         return null;
     }
 
@@ -927,39 +774,17 @@ public class LdifScanner
      */
     public LdifToken matchModTypeSpec()
     {
-        this.flushBuffer();
-
-        String line = getWord( "add" ); //$NON-NLS-1$
-        if ( line != null )
-        {
-            return new LdifToken( LdifToken.MODTYPE_ADD_SPEC, line, pos - line.length() + 1 );
-        }
-        line = getWord( "replace" ); //$NON-NLS-1$
-        if ( line != null )
-        {
-            return new LdifToken( LdifToken.MODTYPE_REPLACE_SPEC, line, pos - line.length() + 1 );
-        }
-        line = getWord( "delete" ); //$NON-NLS-1$
-        if ( line != null )
-        {
-            return new LdifToken( LdifToken.MODTYPE_DELETE_SPEC, line, pos - line.length() + 1 );
-        }
-
-        return null;
+        return matchWords( new String[]
+            { "add", "replace", "delete" }, new int[] //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            { LdifToken.MODTYPE_ADD_SPEC, LdifToken.MODTYPE_REPLACE_SPEC, LdifToken.MODTYPE_DELETE_SPEC } );
     }
 
 
     public LdifToken matchModSep()
     {
-        this.flushBuffer();
-
-        String line = getWord( "-" ); //$NON-NLS-1$
-        if ( line != null )
-        {
-            return new LdifToken( LdifToken.MODTYPE_SEP, line, pos - line.length() + 1 );
-        }
-
-        return null;
+        return matchWords( new String[]
+            { "-" }, new int[] //$NON-NLS-1$
+            { LdifToken.MODTYPE_SEP } );
     }
 
 
@@ -967,52 +792,46 @@ public class LdifScanner
     {
         this.flushBuffer();
 
-        try
+        int start = pos + 1;
+        int c = read();
+        if ( c == ':' )
         {
-            StringBuffer sb = new StringBuffer();
-            char c = read( sb );
+            int tokenType = LdifToken.VALUE_TYPE_SAFE;
+
+            c = read();
             if ( c == ':' )
             {
+                tokenType = LdifToken.VALUE_TYPE_BASE64;
+            }
+            else if ( c == '<' )
+            {
+                tokenType = LdifToken.VALUE_TYPE_URL;
+            }
+            else if ( c > -1 )
+            {
+                unread();
+            }
 
-                int tokenType = LdifToken.VALUE_TYPE_SAFE;
-                try
+            if ( c > -1 )
+            {
+                // FILL
+                do
                 {
-                    c = read( sb );
-                    if ( c == ':' )
-                    {
-                        tokenType = LdifToken.VALUE_TYPE_BASE64;
-                    }
-                    else if ( c == '<' )
-                    {
-                        tokenType = LdifToken.VALUE_TYPE_URL;
-                    }
-                    else
-                    {
-                        tokenType = LdifToken.VALUE_TYPE_SAFE;
-                        unread( sb );
-                    }
-
-                    c = read( sb );
-                    while ( c == ' ' )
-                    {
-                        c = read( sb );
-                    }
-                    unread( sb );
-
+                    c = read();
                 }
-                catch ( EOFException e )
+                while ( c == ' ' );
+
+                if ( c > -1 )
                 {
+                    unread();
                 }
-
-                return new LdifToken( tokenType, sb.toString(), pos - sb.length() + 1 );
-            }
-            else
-            {
-                unread( sb );
             }
+
+            return token( tokenType, start );
         }
-        catch ( EOFException e )
+        else if ( c > -1 )
         {
+            unread();
         }
 
         return null;
@@ -1023,55 +842,27 @@ public class LdifScanner
     {
         this.flushBuffer();
 
-        String line = getContent( true );
-        if ( line != null )
-        {
-            return new LdifToken( LdifToken.VALUE, line, pos - line.length() + 1 );
-        }
-
-        return null;
+        int start = pos + 1;
+        readContent();
+        return token( LdifToken.VALUE, start );
     }
 
 
     public LdifToken matchNewrdnSpec()
     {
-        this.flushBuffer();
-
-        String line = getWordTillColon( "newrdn" ); //$NON-NLS-1$
-        if ( line != null )
-        {
-            return new LdifToken( LdifToken.MODDN_NEWRDN_SPEC, line, pos - line.length() + 1 );
-        }
-
-        return null;
+        return matchSpec( "newrdn", LdifToken.MODDN_NEWRDN_SPEC ); //$NON-NLS-1$
     }
 
 
     public LdifToken matchDeleteoldrdnSpec()
     {
-        this.flushBuffer();
-
-        String line = getWordTillColon( "deleteoldrdn" ); //$NON-NLS-1$
-        if ( line != null )
-        {
-            return new LdifToken( LdifToken.MODDN_DELOLDRDN_SPEC, line, pos - line.length() + 1 );
-        }
-
-        return null;
+        return matchSpec( "deleteoldrdn", LdifToken.MODDN_DELOLDRDN_SPEC ); //$NON-NLS-1$
     }
 
 
     public LdifToken matchNewsuperiorSpec()
     {
-        this.flushBuffer();
-
-        String line = getWordTillColon( "newsuperior" ); //$NON-NLS-1$
-        if ( line != null )
-        {
-            return new LdifToken( LdifToken.MODDN_NEWSUPERIOR_SPEC, line, pos - line.length() + 1 );
-        }
-
-        return null;
+        return matchSpec( "newsuperior", LdifToken.MODDN_NEWSUPERIOR_SPEC ); //$NON-NLS-1$
     }
 
 }
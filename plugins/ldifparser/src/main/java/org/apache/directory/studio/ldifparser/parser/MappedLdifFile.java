@@ -0,0 +1,339 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldifparser.parser;
+
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+
+/**
+ * A MappedLdifFile gives paged access to a large LDIF file without reading it into
+ * the heap. The file is memory-mapped and its record boundaries, a "dn:" line that
+ * follows an empty line like in {@link ParallelLdifParser}, are indexed by
+ * {@link #index(int)}. Only the byte offset of every page start is kept, a page
+ * holds a fixed number of records. The text of a page is decoded on demand.
+ * <p>
+ * The first record of a page starts at its offset, the first page also contains the
+ * version line and comments in front of the first record. Indexing may run on a
+ * background thread while pages are read, all methods are synchronized.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class MappedLdifFile implements Closeable
+{
+    /** The default number of records per page */
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    /** The number of bytes that are mapped at once while indexing */
+    private static final int INDEX_WINDOW_SIZE = 16 * 1024 * 1024;
+
+    /** The LDIF file */
+    private File file;
+
+    /** The charset of the file */
+    private Charset charset;
+
+    /** The number of records per page */
+    private int pageSize;
+
+    /** The file input stream */
+    private FileInputStream in;
+
+    /** The file channel */
+    private FileChannel channel;
+
+    /** The file size */
+    private long size;
+
+    /** The byte offsets of the page starts */
+    private long[] pageOffsets = new long[16];
+
+    /** The number of page starts */
+    private int pageOffsetCount;
+
+    /** The number of records found so far */
+    private long recordCount;
+
+    /** The position of the indexer */
+    private long position;
+
+    /** The length of the current line */
+    private int lineLength;
+
+    /** Whether the last byte of the current line is a CR */
+    private boolean lastByteCR;
+
+    /** The start of the current line */
+    private long lineStart;
+
+    /** The number of matched bytes of "dn:" at the start of the current line, or -1 */
+    private int match = -1;
+
+
+    /**
+     * Creates a new instance of MappedLdifFile and opens the file.
+     *
+     * @param file the LDIF file
+     * @param charset the charset of the file, must encode "dn:" and the line separators like ASCII
+     * @param pageSize the number of records per page
+     * @throws IOException if the file can't be opened
+     */
+    public MappedLdifFile( File file, Charset charset, int pageSize ) throws IOException
+    {
+        this.file = file;
+        this.charset = charset;
+        this.pageSize = pageSize;
+        this.in = new FileInputStream( file );
+        this.channel = in.getChannel();
+        this.size = channel.size();
+
+        if ( size > 0 )
+        {
+            // the first page starts at the beginning of the file
+            addPageOffset( 0 );
+            recordCount = 1;
+        }
+    }
+
+
+    /**
+     * Indexes the next records of the file.
+     *
+     * @param count the number of records to index at most
+     * @return true if the whole file is indexed
+     * @throws IOException if mapping the file fails
+     */
+    public synchronized boolean index( int count ) throws IOException
+    {
+        long maxRecordCount = recordCount + count;
+
+        while ( position < size && recordCount < maxRecordCount )
+        {
+            long windowLength = Math.min( INDEX_WINDOW_SIZE, size - position );
+            ByteBuffer window = channel.map( FileChannel.MapMode.READ_ONLY, position, windowLength );
+            int i = 0;
+
+            for ( ; i < windowLength && recordCount < maxRecordCount; i++ )
+            {
+                scan( window.get( i ), position + i );
+            }
+
+            position += i;
+        }
+
+        return position >= size;
+    }
+
+
+    /**
+     * Indexes the file until the given number of pages is complete.
+     *
+     * @param count the number of pages
+     * @throws IOException if mapping the file fails
+     */
+    public synchronized void indexPages( int count ) throws IOException
+    {
+        while ( !isIndexed() && pageOffsetCount <= count )
+        {
+            index( pageSize );
+        }
+    }
+
+
+    /**
+     * Scans one byte of the file and records the start of a record.
+     *
+     * @param b the byte
+     * @param pos the position of the byte
+     */
+    private void scan( byte b, long pos )
+    {
+        if ( b == '\n' )
+        {
+            boolean emptyLine = lineLength == 0 || ( lineLength == 1 && lastByteCR );
+            match = emptyLine ? 0 : -1;
+            lineLength = 0;
+            lastByteCR = false;
+            lineStart = pos + 1;
+            return;
+        }
+
+        if ( match >= 0 )
+        {
+            boolean matches = match == 0 ? ( b | 0x20 ) == 'd' : match == 1 ? ( b | 0x20 ) == 'n' : b == ':';
+
+            if ( !matches )
+            {
+                match = -1;
+            }
+            else if ( ++match == 3 )
+            {
+                match = -1;
+
+                if ( recordCount % pageSize == 0 )
+                {
+                    addPageOffset( lineStart );
+                }
+
+                recordCount++;
+            }
+        }
+
+        lineLength++;
+        lastByteCR = b == '\r';
+    }
+
+
+    private void addPageOffset( long offset )
+    {
+        if ( pageOffsetCount == pageOffsets.length )
+        {
+            pageOffsets = Arrays.copyOf( pageOffsets, pageOffsets.length * 2 );
+        }
+
+        pageOffsets[pageOffsetCount++] = offset;
+    }
+
+
+    /**
+     * @return true if the whole file is indexed
+     */
+    public synchronized boolean isIndexed()
+    {
+        return position >= size;
+    }
+
+
+    /**
+     * @return the number of records indexed so far, the part in front of the first
+     *      record counts as one record
+     */
+    public synchronized long getRecordCount()
+    {
+        return recordCount;
+    }
+
+
+    /**
+     * @return the number of pages whose end is known
+     */
+    public synchronized int getPageCount()
+    {
+        return isIndexed() ? pageOffsetCount : Math.max( pageOffsetCount - 1, 0 );
+    }
+
+
+    /**
+     * Gets the byte offset of the given page.
+     *
+     * @param page the page number
+     * @return the byte offset of the first record of the page
+     */
+    public synchronized long getPageOffset( int page )
+    {
+        checkPage( page );
+        return pageOffsets[page];
+    }
+
+
+    /**
+     * Gets the text of the given page. The text is decoded from the mapped file.
+     *
+     * @param page the page number, less than {@link #getPageCount()}
+     * @return the text of the page
+     * @throws IOException if mapping the file fails or the page is larger than 2 GB
+     */
+    public synchronized String getPageText( int page ) throws IOException
+    {
+        checkPage( page );
+        long start = pageOffsets[page];
+        long end = page + 1 < pageOffsetCount ? pageOffsets[page + 1] : size;
+
+        if ( end - start > Integer.MAX_VALUE )
+        {
+            throw new IOException( "Page " + page + " is too large" ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        ByteBuffer buffer = channel.map( FileChannel.MapMode.READ_ONLY, start, end - start );
+        return charset.decode( buffer ).toString();
+    }
+
+
+    private void checkPage( int page )
+    {
+        if ( page < 0 || page >= getPageCount() )
+        {
+            throw new IndexOutOfBoundsException( "Page " + page + ", page count " + getPageCount() ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+
+    /**
+     * @return the LDIF file
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+
+    /**
+     * @return the charset of the file
+     */
+    public Charset getCharset()
+    {
+        return charset;
+    }
+
+
+    /**
+     * @return the number of records per page
+     */
+    public int getPageSize()
+    {
+        return pageSize;
+    }
+
+
+    /**
+     * @return the file size in bytes
+     */
+    public long getSize()
+    {
+        return size;
+    }
+
+
+    /**
+     * Closes the file.
+     */
+    public synchronized void close() throws IOException
+    {
+        in.close();
+    }
+}
@@ -0,0 +1,766 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldifparser.parser;
+
+
+import java.io.BufferedReader;
+import java.io.CharArrayReader;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.studio.ldifparser.LdifUtils;
+import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
+import org.apache.directory.studio.ldifparser.model.container.LdifEOFContainer;
+
+
+/**
+ * The ParallelLdifParser parses a LDIF file on multiple threads. The file is memory-mapped
+ * and split into chunks at record boundaries, that is at a "dn:" line that follows an empty
+ * line. The chunks are parsed by independent {@link LdifParser}s on a fork/join pool, the
+ * returned enumeration delivers the containers in file order with the same offsets as a
+ * sequential parse.
+ * <p>
+ * All file positions and the character offset of the chunks are 64-bit. The containers
+ * of the LDIF model have int offsets, so containers behind the first
+ * {@link Integer#MAX_VALUE} characters keep their offsets relative to their chunk.
+ * <p>
+ * Only a limited number of chunks is parsed ahead of the consumer. If the pool has no
+ * parallelism the chunks are parsed in the calling thread. Gzip compressed files are
+ * decompressed sequentially and split into chunks while they are read. The parser tracks
+ * the byte position behind each returned container, see {@link #getPosition()}. Files in
+ * a charset that isn't ASCII compatible are parsed sequentially without positions.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ParallelLdifParser
+{
+    /** The default chunk size in bytes */
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+    /** The number of bytes that are mapped at once to search a record boundary */
+    private static final int BOUNDARY_SEARCH_SIZE = 64 * 1024;
+
+    /** The number of characters that are decoded at once to find the byte positions of the containers */
+    private static final int DECODE_BUFFER_SIZE = 8 * 1024;
+
+    /** The pool the chunks are parsed on */
+    private ForkJoinPool pool;
+
+    /** The chunk size in bytes */
+    private int chunkSize;
+
+    /** The file of the current parse */
+    private Closeable file;
+
+    /** The enumeration of the current parse, null if the positions are not tracked */
+    private ChunkEnumeration enumeration;
+
+
+    /**
+     * Creates a new instance of ParallelLdifParser using the common fork/join pool.
+     */
+    public ParallelLdifParser()
+    {
+        this( ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE );
+    }
+
+
+    /**
+     * Creates a new instance of ParallelLdifParser.
+     *
+     * @param pool the pool the chunks are parsed on
+     * @param chunkSize the approximate chunk size in bytes
+     */
+    public ParallelLdifParser( ForkJoinPool pool, int chunkSize )
+    {
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+
+    /**
+     * Parses the given LDIF file. The file is kept open until the enumeration is
+     * finished or {@link #close()} is called.
+     *
+     * @param ldifFile the LDIF file
+     * @param charset the charset of the file
+     * @return the LDIF enumeration
+     * @throws IOException if the file can't be opened
+     */
+    public LdifEnumeration parse( File ldifFile, Charset charset ) throws IOException
+    {
+        return parse( ldifFile, charset, 0L );
+    }
+
+
+    /**
+     * Parses the given LDIF file starting at the given byte position. The earlier part
+     * of the file is not read at all. The position must be the start of a container,
+     * e.g. a position returned by {@link #getPosition()}. The offsets of the returned
+     * containers are relative to the start position. For gzip compressed files the
+     * position refers to the uncompressed data, the data in front of it is decompressed
+     * and skipped.
+     *
+     * @param ldifFile the LDIF file
+     * @param charset the charset of the file
+     * @param position the byte position to start at
+     * @return the LDIF enumeration
+     * @throws IOException if the file can't be opened
+     */
+    public LdifEnumeration parse( File ldifFile, Charset charset, long position ) throws IOException
+    {
+        close();
+        enumeration = null;
+
+        if ( !isAsciiCompatible( charset ) )
+        {
+            InputStream in = LdifUtils.openInputStream( ldifFile );
+            file = in;
+            skipFully( in, position );
+            Reader reader = new BufferedReader( new InputStreamReader( in, charset ), LdifUtils.STREAM_BUFFER_SIZE );
+            return new LdifParser().parse( reader );
+        }
+
+        if ( LdifUtils.isGzipFile( ldifFile ) )
+        {
+            InputStream in = LdifUtils.openInputStream( ldifFile );
+            file = in;
+            skipFully( in, position );
+            enumeration = new StreamChunkEnumeration( in, charset, position );
+        }
+        else
+        {
+            FileInputStream in = new FileInputStream( ldifFile );
+            file = in;
+            enumeration = new MappedChunkEnumeration( in.getChannel(), charset, position );
+        }
+
+        return enumeration;
+    }
+
+
+    /**
+     * Gets the byte position behind the container that was returned last by the
+     * enumeration of the current parse, before the first container it is the start
+     * position. A parse can be resumed at this position. For gzip compressed files
+     * the position refers to the uncompressed data.
+     *
+     * @return the byte position, or -1 if the positions are not tracked for the
+     *         charset of the current parse
+     * @see #isPositionTracked(Charset)
+     */
+    public long getPosition()
+    {
+        return enumeration != null ? enumeration.position : -1L;
+    }
+
+
+    /**
+     * Checks if the byte positions of the containers are tracked for files in the
+     * given charset, see {@link #getPosition()}.
+     *
+     * @param charset the charset
+     * @return true if the positions are tracked
+     */
+    public static boolean isPositionTracked( Charset charset )
+    {
+        return isAsciiCompatible( charset );
+    }
+
+
+    /**
+     * Skips the given number of bytes of the input stream.
+     *
+     * @param in the input stream
+     * @param n the number of bytes to skip
+     * @throws IOException if the stream ends before
+     */
+    private static void skipFully( InputStream in, long n ) throws IOException
+    {
+        while ( n > 0 )
+        {
+            long skipped = in.skip( n );
+            if ( skipped <= 0 )
+            {
+                if ( in.read() < 0 )
+                {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            n -= skipped;
+        }
+    }
+
+
+    /**
+     * Closes the file of the current parse.
+     */
+    public void close()
+    {
+        if ( file != null )
+        {
+            closeQuietly( file );
+            file = null;
+        }
+    }
+
+
+    /**
+     * Checks if the line separators, spaces and the "dn:" spec are encoded as one byte
+     * per character like in ASCII. Only then it is possible to split the bytes at
+     * record boundaries without decoding.
+     *
+     * @param charset the charset
+     * @return true if the charset is ASCII compatible
+     */
+    private static boolean isAsciiCompatible( Charset charset )
+    {
+        if ( !charset.canEncode() )
+        {
+            return false;
+        }
+
+        String s = "\r\n dDnN:"; //$NON-NLS-1$
+        return Arrays.equals( s.getBytes( charset ), s.getBytes( StandardCharsets.US_ASCII ) )
+            && ( StandardCharsets.UTF_8.equals( charset ) || charset.newEncoder().maxBytesPerChar() == 1.0f );
+    }
+
+
+    /**
+     * Finds the next record boundary at or after the given position.
+     *
+     * @param channel the file channel
+     * @param from the position to start the search
+     * @return the position of the "dn:" that starts the next record, or the file size
+     * @throws IOException if mapping the file fails
+     */
+    static long findRecordBoundary( FileChannel channel, long from ) throws IOException
+    {
+        long size = channel.size();
+
+        // the three bytes before a boundary need to be inspected too
+        long regionStart = Math.max( 0, from - 3 );
+        while ( regionStart < size )
+        {
+            long regionLength = Math.min( BOUNDARY_SEARCH_SIZE, size - regionStart );
+            ByteBuffer region = channel.map( FileChannel.MapMode.READ_ONLY, regionStart, regionLength );
+
+            int first = ( int ) Math.max( 0, from - regionStart );
+            for ( int i = Math.max( first, 1 ); i + 2 < regionLength; i++ )
+            {
+                if ( isRecordStart( region, i ) )
+                {
+                    return regionStart + i;
+                }
+            }
+
+            if ( regionStart + regionLength >= size )
+            {
+                break;
+            }
+
+            // overlap the regions so a boundary at the border is found
+            regionStart += regionLength - 3;
+        }
+
+        return size;
+    }
+
+
+    /**
+     * Checks if the given position starts a "dn:" line that follows an empty line.
+     */
+    private static boolean isRecordStart( ByteBuffer buffer, int i )
+    {
+        if ( ( buffer.get( i ) | 0x20 ) != 'd' || ( buffer.get( i + 1 ) | 0x20 ) != 'n' || buffer.get( i + 2 ) != ':' )
+        {
+            return false;
+        }
+
+        if ( i < 2 || buffer.get( i - 1 ) != '\n' )
+        {
+            return false;
+        }
+
+        byte b = buffer.get( i - 2 );
+        return b == '\n' || ( b == '\r' && i >= 3 && buffer.get( i - 3 ) == '\n' );
+    }
+
+    /**
+     * The result of a parsed chunk.
+     */
+    private static class ParsedChunk
+    {
+        /** The containers of the chunk */
+        private List<LdifContainer> containers = new ArrayList<LdifContainer>();
+
+        /** The byte positions behind the containers */
+        private long[] ends;
+
+        /** The number of characters of the chunk */
+        private int length;
+    }
+
+    /**
+     * A task that decodes and parses one chunk of the file.
+     */
+    private static class ChunkTask extends RecursiveTask<ParsedChunk>
+    {
+        private static final long serialVersionUID = 1L;
+
+        /** The bytes of the chunk */
+        private transient ByteBuffer bytes;
+
+        /** The byte position of the chunk */
+        private long start;
+
+        /** The charset */
+        private transient Charset charset;
+
+        /** Set if this is the last chunk of the file */
+        private boolean last;
+
+
+        private ChunkTask( ByteBuffer bytes, long start, Charset charset, boolean last )
+        {
+            this.bytes = bytes;
+            this.start = start;
+            this.charset = charset;
+            this.last = last;
+        }
+
+
+        protected ParsedChunk compute()
+        {
+            ParsedChunk chunk = new ParsedChunk();
+
+            CharBuffer chars = charset.decode( bytes.duplicate() );
+            chunk.length = chars.remaining();
+
+            Reader reader = new CharArrayReader( chars.array(), chars.arrayOffset() + chars.position(),
+                chars.remaining() );
+            LdifEnumeration enumeration = new LdifParser().parse( reader );
+            try
+            {
+                while ( enumeration.hasNext() )
+                {
+                    LdifContainer container = enumeration.next();
+
+                    // only the end of the last chunk is the end of the LDIF
+                    if ( last || !( container instanceof LdifEOFContainer ) )
+                    {
+                        chunk.containers.add( container );
+                    }
+                }
+            }
+            catch ( LdapException e )
+            {
+                throw new IllegalStateException( e );
+            }
+
+            chunk.ends = getEnds( chunk.containers, chunk.length );
+            return chunk;
+        }
+
+
+        /**
+         * Gets the byte positions behind the given containers of the chunk. The bytes
+         * are decoded again up to the end of each container, so the positions are exact
+         * even if malformed input was replaced while decoding.
+         *
+         * @param containers the containers, with offsets relative to the chunk
+         * @param length the number of characters of the chunk
+         * @return the byte positions behind the containers
+         */
+        private long[] getEnds( List<LdifContainer> containers, int length )
+        {
+            CharsetDecoder decoder = charset.newDecoder().onMalformedInput( CodingErrorAction.REPLACE )
+                .onUnmappableCharacter( CodingErrorAction.REPLACE );
+            ByteBuffer in = bytes.duplicate();
+            CharBuffer out = CharBuffer.allocate( DECODE_BUFFER_SIZE );
+            int decoded = 0;
+
+            long[] ends = new long[containers.size()];
+            for ( int i = 0; i < ends.length; i++ )
+            {
+                LdifContainer container = containers.get( i );
+                int end = container.getOffset() + container.getLength();
+                if ( end >= length )
+                {
+                    ends[i] = start + bytes.remaining();
+                    continue;
+                }
+
+                while ( decoded < end )
+                {
+                    out.clear();
+                    out.limit( Math.min( out.capacity(), end - decoded ) );
+                    decoder.decode( in, out, true );
+                    if ( out.position() == 0 )
+                    {
+                        // the end splits a surrogate pair
+                        break;
+                    }
+                    decoded += out.position();
+                }
+                ends[i] = start + in.position() - bytes.position();
+            }
+
+            return ends;
+        }
+    }
+
+    /**
+     * The enumeration that submits the chunk tasks and delivers their containers in order.
+     */
+    private abstract class ChunkEnumeration implements LdifEnumeration
+    {
+        /** The charset */
+        private Charset charset;
+
+        /** The byte position of the next chunk to submit */
+        protected long nextChunkStart;
+
+        /** Set after the last chunk was submitted */
+        private boolean submitted;
+
+        /** The submitted chunk tasks in file order */
+        private Deque<ForkJoinTask<ParsedChunk>> tasks = new ArrayDeque<ForkJoinTask<ParsedChunk>>();
+
+        /** The current chunk */
+        private ParsedChunk chunk;
+
+        /** The index of the next container of the current chunk */
+        private int index;
+
+        /** The character offset of the next chunk */
+        private long offset;
+
+        /** The byte position behind the container returned last */
+        private long position;
+
+
+        private ChunkEnumeration( Charset charset, long position )
+        {
+            this.charset = charset;
+            this.nextChunkStart = position;
+            this.position = position;
+        }
+
+
+        public boolean hasNext() throws LdapException
+        {
+            while ( ( chunk == null || index == chunk.containers.size() ) && ( !submitted || !tasks.isEmpty() ) )
+            {
+                try
+                {
+                    submitChunks();
+                    chunk = tasks.removeFirst().join();
+                }
+                catch ( IOException | RuntimeException e )
+                {
+                    close();
+                    throw new LdapException( e.getMessage(), e );
+                }
+                index = 0;
+
+                if ( offset + chunk.length <= Integer.MAX_VALUE )
+                {
+                    for ( LdifContainer container : chunk.containers )
+                    {
+                        container.adjustOffset( ( int ) offset );
+                    }
+                }
+                offset += chunk.length;
+            }
+
+            return chunk != null && index < chunk.containers.size();
+        }
+
+
+        public LdifContainer next() throws LdapException
+        {
+            if ( hasNext() )
+            {
+                position = chunk.ends[index];
+                return chunk.containers.get( index++ );
+            }
+            else
+            {
+                return null;
+            }
+        }
+
+
+        /**
+         * Submits chunk tasks until twice the parallelism of the pool is in flight. The
+         * source can be closed as soon as the last chunk was submitted. If the pool has
+         * no parallelism the chunks are parsed one by one in the calling thread.
+         */
+        private void submitChunks() throws IOException
+        {
+            boolean parallel = pool.getParallelism() > 1;
+            int maxTasks = parallel ? 2 * pool.getParallelism() : 1;
+            while ( !submitted && tasks.size() < maxTasks )
+            {
+                long start = nextChunkStart;
+                ByteBuffer bytes = nextChunk();
+                nextChunkStart = start + bytes.remaining();
+                submitted = !hasMoreChunks();
+
+                ChunkTask task = new ChunkTask( bytes, start, charset, submitted );
+                if ( parallel )
+                {
+                    pool.submit( task );
+                }
+                else
+                {
+                    task.invoke();
+                }
+                tasks.addLast( task );
+
+                if ( submitted )
+                {
+                    closeSource();
+                }
+            }
+        }
+
+
+        private void close()
+        {
+            for ( ForkJoinTask<ParsedChunk> task : tasks )
+            {
+                task.cancel( false );
+            }
+            tasks.clear();
+
+            if ( !submitted )
+            {
+                closeSource();
+                submitted = true;
+            }
+        }
+
+
+        /**
+         * Gets the bytes of the next chunk, starting at {@link #nextChunkStart} and ending
+         * at a record boundary or the end of the file.
+         *
+         * @return the bytes of the next chunk
+         * @throws IOException if the source can't be read
+         */
+        protected abstract ByteBuffer nextChunk() throws IOException;
+
+
+        /**
+         * Checks if there are more bytes behind {@link #nextChunkStart}.
+         *
+         * @return true if there are more chunks
+         * @throws IOException if the source can't be read
+         */
+        protected abstract boolean hasMoreChunks() throws IOException;
+
+
+        /**
+         * Closes the source of the chunks.
+         */
+        protected abstract void closeSource();
+    }
+
+    /**
+     * The chunk enumeration of a file that maps its chunks.
+     */
+    private class MappedChunkEnumeration extends ChunkEnumeration
+    {
+        /** The file channel */
+        private FileChannel channel;
+
+
+        private MappedChunkEnumeration( FileChannel channel, Charset charset, long position )
+        {
+            super( charset, position );
+            this.channel = channel;
+        }
+
+
+        protected ByteBuffer nextChunk() throws IOException
+        {
+            long size = channel.size();
+            long start = nextChunkStart;
+            long end = start + chunkSize < size ? findRecordBoundary( channel, start + chunkSize ) : size;
+            return channel.map( FileChannel.MapMode.READ_ONLY, start, end - start );
+        }
+
+
+        protected boolean hasMoreChunks() throws IOException
+        {
+            return nextChunkStart < channel.size();
+        }
+
+
+        protected void closeSource()
+        {
+            closeQuietly( channel );
+        }
+    }
+
+    /**
+     * The chunk enumeration of an input stream, e.g. of a gzip compressed file. The
+     * stream is read sequentially and split at record boundaries in the read buffer.
+     */
+    private class StreamChunkEnumeration extends ChunkEnumeration
+    {
+        /** The input stream */
+        private InputStream in;
+
+        /** The read buffer, it starts with the bytes of the next chunk */
+        private byte[] buffer;
+
+        /** The number of bytes in the read buffer */
+        private int length;
+
+        /** Set if the end of the stream was reached */
+        private boolean eof;
+
+
+        private StreamChunkEnumeration( InputStream in, Charset charset, long position )
+        {
+            super( charset, position );
+            this.in = in;
+            this.buffer = new byte[chunkSize + BOUNDARY_SEARCH_SIZE];
+        }
+
+
+        protected ByteBuffer nextChunk() throws IOException
+        {
+            // the three bytes before a boundary need to be inspected too
+            int from = chunkSize;
+            fill( from + 3 );
+
+            int end = -1;
+            while ( end < 0 )
+            {
+                ByteBuffer region = ByteBuffer.wrap( buffer, 0, length );
+                for ( int i = Math.max( from, 1 ); i + 2 < length; i++ )
+                {
+                    if ( isRecordStart( region, i ) )
+                    {
+                        end = i;
+                        break;
+                    }
+                }
+
+                if ( end < 0 )
+                {
+                    if ( eof )
+                    {
+                        end = length;
+                    }
+                    else
+                    {
+                        from = Math.max( from, length - 2 );
+                        fill( length + BOUNDARY_SEARCH_SIZE );
+                    }
+                }
+            }
+
+            byte[] chunk = Arrays.copyOf( buffer, end );
+            System.arraycopy( buffer, end, buffer, 0, length - end );
+            length -= end;
+            return ByteBuffer.wrap( chunk );
+        }
+
+
+        /**
+         * Reads the stream until the buffer holds at least the given number of bytes
+         * or the end of the stream is reached.
+         */
+        private void fill( int n ) throws IOException
+        {
+            if ( n > buffer.length )
+            {
+                buffer = Arrays.copyOf( buffer, Math.max( n, 2 * buffer.length ) );
+            }
+
+            while ( length < n && !eof )
+            {
+                int read = in.read( buffer, length, buffer.length - length );
+                if ( read < 0 )
+                {
+                    eof = true;
+                }
+                else
+                {
+                    length += read;
+                }
+            }
+        }
+
+
+        protected boolean hasMoreChunks()
+        {
+            return length > 0 || !eof;
+        }
+
+
+        protected void closeSource()
+        {
+            closeQuietly( in );
+        }
+    }
+
+
+    private static void closeQuietly( Closeable closeable )
+    {
+        try
+        {
+            closeable.close();
+        }
+        catch ( IOException e )
+        {
+            // ignore
+        }
+    }
+}
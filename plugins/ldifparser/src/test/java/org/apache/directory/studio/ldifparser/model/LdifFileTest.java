@@ -0,0 +1,147 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldifparser.model;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
+import org.apache.directory.studio.ldifparser.parser.LdifParser;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the container lookups and replacements of the {@link LdifFile}.
+ */
+public class LdifFileTest
+{
+    @Test
+    public void testGetContainer()
+    {
+        LdifFile model = new LdifParser().parse( createLdif( 0, 100 ) );
+        List<LdifContainer> containers = model.getContainers();
+
+        for ( int i = 0; i < containers.size(); i++ )
+        {
+            LdifContainer container = containers.get( i );
+            assertSame( container, LdifFile.getContainer( model, container.getOffset() ) );
+            assertSame( container, LdifFile.getContainer( model, container.getOffset() + container.getLength() - 1 ) );
+            assertEquals( i, model.getContainerIndex( container.getOffset() ) );
+            assertEquals( i, containers.indexOf( container ) );
+        }
+
+        assertNull( LdifFile.getContainer( model, model.toRawString().length() ) );
+        assertEquals( 3, LdifFile.getContainers( model, containers.get( 10 ).getOffset(),
+            containers.get( 12 ).getOffset() - containers.get( 10 ).getOffset() + 1 ).length );
+    }
+
+
+    @Test
+    public void testReplace()
+    {
+        Random random = new Random( 42 );
+        StringBuilder ldif = new StringBuilder( createLdif( 0, 200 ) );
+        LdifFile model = new LdifParser().parse( ldif.toString() );
+
+        for ( int n = 0; n < 500; n++ )
+        {
+            List<LdifContainer> containers = model.getContainers();
+            int from = random.nextInt( containers.size() );
+            int to = Math.min( containers.size(), from + 1 + random.nextInt( 3 ) );
+            LdifContainer[] oldContainers = containers.subList( from, to ).toArray( new LdifContainer[0] );
+
+            int offset = containers.get( from ).getOffset();
+            int length = 0;
+            for ( LdifContainer container : oldContainers )
+            {
+                length += container.getLength();
+            }
+
+            String text = createLdif( n * 10, random.nextInt( 4 ) );
+            ldif.replace( offset, offset + length, text );
+            model.replace( oldContainers, new LdifParser().parse( text ).getContainers() );
+
+            if ( n % 50 == 0 )
+            {
+                assertOffsets( model, ldif.toString() );
+            }
+        }
+
+        assertOffsets( model, ldif.toString() );
+    }
+
+
+    @Test
+    public void testReplaceUnknownContainer()
+    {
+        String ldif = createLdif( 0, 10 );
+        LdifFile model = new LdifParser().parse( ldif );
+        LdifContainer[] oldContainers = new LdifParser().parse( createLdif( 0, 1 ) ).getContainers()
+            .toArray( new LdifContainer[0] );
+        List<LdifContainer> newContainers = new LdifParser().parse( createLdif( 20, 1 ) ).getContainers();
+
+        assertThrows( IllegalArgumentException.class, () -> model.replace( oldContainers, newContainers ) );
+        assertOffsets( model, ldif );
+    }
+
+
+    private static void assertOffsets( LdifFile model, String ldif )
+    {
+        assertEquals( ldif, model.toRawString() );
+
+        int offset = 0;
+        List<LdifContainer> containers = new ArrayList<LdifContainer>( model.getContainers() );
+        for ( int i = 0; i < containers.size(); i++ )
+        {
+            LdifContainer container = containers.get( i );
+            assertEquals( offset, container.getOffset() );
+            assertEquals( container.toRawString(), ldif.substring( offset, offset + container.getLength() ) );
+            if ( container.getLength() > 0 )
+            {
+                assertSame( container, LdifFile.getContainer( model, offset ) );
+            }
+            offset += container.getLength();
+        }
+        assertEquals( ldif.length(), offset );
+    }
+
+
+    private static String createLdif( int start, int count )
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = start; i < start + count; i++ )
+        {
+            if ( i % 7 == 3 )
+            {
+                sb.append( "# comment " ).append( i ).append( '\n' ); //$NON-NLS-1$
+            }
+            sb.append( "dn: cn=" ).append( i ).append( ",o=test\ncn: " ).append( i ).append( "\n\n" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+        return sb.toString();
+    }
+}
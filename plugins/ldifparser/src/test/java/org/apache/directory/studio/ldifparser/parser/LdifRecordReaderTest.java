@@ -0,0 +1,140 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldifparser.parser;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directory.studio.ldifparser.model.LdifFile;
+import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
+import org.apache.directory.studio.ldifparser.model.container.LdifRecord;
+import org.apache.directory.studio.ldifparser.model.lean.LeanLdifLine;
+import org.apache.directory.studio.ldifparser.model.lean.LeanLdifRecord;
+import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the {@link LdifRecordReader} and the lean record model against the {@link LdifParser}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LdifRecordReaderTest
+{
+    @Test
+    public void testRecords() throws Exception
+    {
+        String ldif = ""
+            + "# header\n"
+            + "version: 1\n"
+            + "dn: cn=foo,ou=users,ou=system\n"
+            + "cn: foo\n"
+            + "# comment within the record\n"
+            + "description: 12345678901234567890123456789012345678901234567890123456789012345\n"
+            + " 678901234567890\n"
+            + "\n"
+            + "\n"
+            + "# comment before the record\n"
+            + "DN:: Y249QmrDtnJuLG91PXVzZXJzLG91PXN5c3RlbQ==\r\n"
+            + "description:: MTIzNDU2Nzg5MDEyMzQ1Njc4OTAxMjM0NTY3ODkwMTIzNDU2Nzg5MDEyMzQ1Njc4\r\n"
+            + " OTAxMjM0NTY3ODkwMTIzNDU2Nzg5MDEyMzQ1Njc4OTAK\r\n"
+            + "cn:bar\r\n"
+            + "\r\n"
+            + "# comment only\n"
+            + "\n"
+            + "dn: cn=baz,ou=users,ou=system\n"
+            + "changetype: modify\n"
+            + "replace: cn\n"
+            + "cn: baz\n"
+            + "-";
+
+        LdifFile model = new LdifParser().parse( ldif );
+        LdifRecord[] records = model.getRecords();
+
+        LdifRecordReader reader = new LdifRecordReader( new StringReader( ldif ) );
+        for ( LdifRecord record : records )
+        {
+            LeanLdifRecord leanRecord = reader.next();
+
+            assertEquals( record.getOffset(), leanRecord.getOffset() );
+            assertEquals( record.getDnLine().getValueAsString(), leanRecord.getDn() );
+            assertEquals( record instanceof LdifContentRecord, leanRecord.isContentRecord() );
+            assertTrue( record.toRawString().startsWith( leanRecord.toRawString() ) );
+            assertEquals( record.getClass(), leanRecord.toLdifRecord().getClass() );
+
+            if ( record instanceof LdifContentRecord )
+            {
+                LdifAttrValLine[] attrVals = ( ( LdifContentRecord ) record ).getAttrVals();
+                List<LeanLdifLine> leanAttrVals = new ArrayList<LeanLdifLine>();
+                for ( int i = 1; i < leanRecord.getLineCount(); i++ )
+                {
+                    if ( !leanRecord.getLine( i ).isComment() )
+                    {
+                        leanAttrVals.add( leanRecord.getLine( i ) );
+                    }
+                }
+
+                assertEquals( attrVals.length, leanAttrVals.size() );
+                for ( int i = 0; i < attrVals.length; i++ )
+                {
+                    LeanLdifLine leanLine = leanAttrVals.get( i );
+                    assertEquals( attrVals[i].getOffset(), leanLine.getOffset() );
+                    assertEquals( attrVals[i].getUnfoldedAttributeDescription(), leanLine.getAttributeDescription() );
+                    assertEquals( attrVals[i].getUnfoldedValueType(), leanLine.getValueType() );
+                    assertArrayEquals( attrVals[i].getValueAsBinary(), leanLine.getValueAsBinary() );
+                }
+            }
+        }
+
+        assertNull( reader.next() );
+    }
+
+
+    @Test
+    public void testChangeType() throws Exception
+    {
+        String ldif = ""
+            + "dn: cn=foo\n"
+            + "control: 1.2.840.113556.1.4.805 true\n"
+            + "changetype: delete\n";
+
+        LeanLdifRecord record = new LdifRecordReader( new StringReader( ldif ) ).next();
+
+        assertEquals( 3, record.getLineCount() );
+        assertEquals( "delete", record.getChangeType() );
+        assertEquals( ldif, record.toRawString() );
+    }
+
+
+    @Test
+    public void testEmpty() throws Exception
+    {
+        assertNull( new LdifRecordReader( new StringReader( "" ) ).next() );
+        assertNull( new LdifRecordReader( new StringReader( "\n\r\n\n# comment\nversion: 1\n\n" ) ).next() );
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldifparser.parser;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directory.studio.ldifparser.model.LdifFile;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the {@link LdifScanner} against golden token streams.
+ * <p>
+ * A token stream file contains one line per match call: the name of the match
+ * method and the returned token, or null. In scanner_random.tokens each case
+ * starts with a line containing the scanned LDIF. Line breaks, tabs and
+ * backslashes are escaped. The token streams were recorded with the scanner
+ * that preceded the character window.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LdifScannerTest
+{
+    private static final String LDIF_PREFIX = "ldif "; //$NON-NLS-1$
+
+
+    /**
+     * Tests content records with comments, folded lines, base64 and URL values.
+     */
+    @Test
+    public void testContentRecords() throws Exception
+    {
+        assertTokenStream( "scanner_content" ); //$NON-NLS-1$
+    }
+
+
+    /**
+     * Tests change records with controls and all change types.
+     */
+    @Test
+    public void testChangeRecords() throws Exception
+    {
+        assertTokenStream( "scanner_changes" ); //$NON-NLS-1$
+    }
+
+
+    /**
+     * Tests invalid lines and a missing final line break.
+     */
+    @Test
+    public void testInvalidLines() throws Exception
+    {
+        assertTokenStream( "scanner_errors" ); //$NON-NLS-1$
+    }
+
+
+    /**
+     * Tests random sequences of match calls on random LDIF fragments.
+     */
+    @Test
+    public void testRandomMatchSequences() throws Exception
+    {
+        List<String> lines = readLines( "scanner_random.tokens" ); //$NON-NLS-1$
+        LdifScanner scanner = null;
+        String ldif = null;
+        int cases = 0;
+
+        for ( String line : lines )
+        {
+            if ( line.startsWith( LDIF_PREFIX ) )
+            {
+                ldif = unescape( line.substring( LDIF_PREFIX.length() ) );
+                scanner = new LdifScanner();
+                scanner.setLdif( new StringReader( ldif ) );
+                cases++;
+            }
+            else
+            {
+                assertNotNull( scanner, line );
+                assertMatch( scanner, line, ldif );
+            }
+        }
+
+        assertEquals( 100, cases );
+    }
+
+
+    /**
+     * Scans a large LDIF with values larger than the character window, the
+     * tokens must cover the LDIF without gaps.
+     */
+    @Test
+    public void testLargeLdif()
+    {
+        String ldif = createLdif( 2000 );
+
+        LdifScanner scanner = new LdifScanner();
+        scanner.setLdif( new StringReader( ldif ) );
+
+        StringBuilder scanned = new StringBuilder();
+        int largeValues = 0;
+        for ( LdifToken token : scan( scanner ) )
+        {
+            assertEquals( scanned.length(), token.getOffset() );
+            scanned.append( token.getValue() );
+            if ( token.getType() == LdifToken.VALUE && token.getLength() > 16 * 1024 )
+            {
+                largeValues++;
+            }
+        }
+
+        assertEquals( ldif, scanned.toString() );
+        assertEquals( 4, largeValues );
+
+        LdifFile model = new LdifParser().parse( ldif );
+        assertEquals( ldif, model.toRawString() );
+    }
+
+
+    private void assertTokenStream( String name ) throws Exception
+    {
+        String ldif = new String( readBytes( name + ".ldif" ), StandardCharsets.UTF_8 ); //$NON-NLS-1$
+        List<String> lines = readLines( name + ".tokens" ); //$NON-NLS-1$
+
+        LdifScanner scanner = new LdifScanner();
+        scanner.setLdif( new StringReader( ldif ) );
+        for ( String line : lines )
+        {
+            assertMatch( scanner, line, name );
+        }
+
+        assertTrue( lines.get( lines.size() - 1 ).startsWith( "matchEOF (" ), name ); //$NON-NLS-1$
+    }
+
+
+    private static void assertMatch( LdifScanner scanner, String line, String context ) throws Exception
+    {
+        int space = line.indexOf( ' ' );
+        String methodName = line.substring( 0, space );
+        String expected = unescape( line.substring( space + 1 ) );
+
+        Method method = LdifScanner.class.getMethod( methodName );
+        LdifToken token = ( LdifToken ) method.invoke( scanner );
+
+        assertEquals( expected, String.valueOf( token ), methodName + " in '" + context + "'" ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+
+    private List<String> readLines( String name ) throws IOException
+    {
+        List<String> lines = new ArrayList<String>();
+        try ( BufferedReader reader = new BufferedReader( new InputStreamReader( getStream( name ),
+            StandardCharsets.UTF_8 ) ) )
+        {
+            String line;
+            while ( ( line = reader.readLine() ) != null )
+            {
+                lines.add( line );
+            }
+        }
+        return lines;
+    }
+
+
+    private byte[] readBytes( String name ) throws IOException
+    {
+        try ( InputStream in = getStream( name ) )
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int length;
+            while ( ( length = in.read( buffer ) ) != -1 )
+            {
+                out.write( buffer, 0, length );
+            }
+            return out.toByteArray();
+        }
+    }
+
+
+    private InputStream getStream( String name )
+    {
+        InputStream in = getClass().getResourceAsStream( name );
+        assertNotNull( in, name );
+        return in;
+    }
+
+
+    private static String unescape( String s )
+    {
+        StringBuilder sb = new StringBuilder( s.length() );
+        for ( int i = 0; i < s.length(); i++ )
+        {
+            char c = s.charAt( i );
+            if ( c == '\\' && i + 1 < s.length() )
+            {
+                i++;
+                switch ( s.charAt( i ) )
+                {
+                    case 'n':
+                        sb.append( '\n' );
+                        break;
+                    case 'r':
+                        sb.append( '\r' );
+                        break;
+                    case 't':
+                        sb.append( '\t' );
+                        break;
+                    default:
+                        sb.append( s.charAt( i ) );
+                }
+            }
+            else
+            {
+                sb.append( c );
+            }
+        }
+        return sb.toString();
+    }
+
+
+    private static List<LdifToken> scan( LdifScanner scanner )
+    {
+        List<LdifToken> tokens = new ArrayList<LdifToken>();
+        while ( scanner.matchEOF() == null )
+        {
+            LdifToken token = scanner.matchComment();
+            if ( token == null )
+            {
+                token = scanner.matchDnSpec();
+            }
+            if ( token == null )
+            {
+                token = scanner.matchAttributeDescription();
+            }
+            if ( token != null )
+            {
+                tokens.add( token );
+                if ( token.getType() != LdifToken.COMMENT )
+                {
+                    tokens.add( scanner.matchValueType() );
+                    tokens.add( scanner.matchValue() );
+                }
+            }
+            token = scanner.matchSep();
+            if ( token == null )
+            {
+                token = scanner.matchOther();
+            }
+            tokens.add( token );
+        }
+        return tokens;
+    }
+
+
+    private static String createLdif( int count )
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append( "version: 1\n" );
+        for ( int i = 0; i < count; i++ )
+        {
+            String lineBreak = i % 2 == 0 ? "\n" : "\r\n";
+            sb.append( "# entry " ).append( i ).append( lineBreak );
+            sb.append( "dn: cn=user" ).append( i ).append( ",ou=users,dc=example,dc=com" ).append( lineBreak );
+            sb.append( "objectClass: top" ).append( lineBreak );
+            sb.append( "objectClass: person" ).append( lineBreak );
+            sb.append( "objectClass: inetOrgPerson" ).append( lineBreak );
+            sb.append( "cn: user" ).append( i ).append( lineBreak );
+            sb.append( "sn: User " ).append( i ).append( lineBreak );
+            sb.append( "description: 1234567890123456789012345678901234567890123456789012345678901234" )
+                .append( lineBreak ).append( " 5678901234567890" ).append( lineBreak );
+            sb.append( "userPassword:: e1NTSEF9dGVzdHRlc3R0ZXN0dGVzdHRlc3R0ZXN0dGVzdHRlc3R0ZXN0dGVzdA==" )
+                .append( lineBreak );
+            if ( i % 500 == 0 )
+            {
+                sb.append( "jpegPhoto:: " );
+                for ( int j = 0; j < 1000; j++ )
+                {
+                    sb.append( "QUJDREVGR0hJSktMTU5PUFFSU1RVVldYWVphYmNkZWZnaGlqa2xtbm9wcXJzdHV2d3h5ejAx" )
+                        .append( lineBreak ).append( ' ' );
+                }
+                sb.append( "AA==" ).append( lineBreak );
+            }
+            sb.append( lineBreak );
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldifparser.parser;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.directory.studio.ldifparser.model.LdifFile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Tests the {@link MappedLdifFile}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class MappedLdifFileTest
+{
+    @TempDir
+    Path tempDir;
+
+
+    @Test
+    public void testEmptyFile() throws Exception
+    {
+        try ( MappedLdifFile mappedFile = new MappedLdifFile( write( "" ), StandardCharsets.UTF_8, 10 ) )
+        {
+            assertTrue( mappedFile.index( 100 ) );
+            assertEquals( 0, mappedFile.getPageCount() );
+            assertEquals( 0, mappedFile.getRecordCount() );
+        }
+    }
+
+
+    @Test
+    public void testPagesJoinToFile() throws Exception
+    {
+        String ldif = createLdif( 2503 );
+
+        try ( MappedLdifFile mappedFile = new MappedLdifFile( write( ldif ), StandardCharsets.UTF_8, 1000 ) )
+        {
+            while ( !mappedFile.index( 7 ) )
+            {
+            }
+
+            // the version line counts as the first record
+            assertEquals( 2504, mappedFile.getRecordCount() );
+            assertEquals( 3, mappedFile.getPageCount() );
+
+            StringBuilder sb = new StringBuilder();
+            for ( int i = 0; i < mappedFile.getPageCount(); i++ )
+            {
+                sb.append( mappedFile.getPageText( i ) );
+            }
+            assertEquals( ldif, sb.toString() );
+        }
+    }
+
+
+    @Test
+    public void testIndexPagesStopsEarly() throws Exception
+    {
+        try ( MappedLdifFile mappedFile = new MappedLdifFile( write( createLdif( 5000 ) ), StandardCharsets.UTF_8,
+            100 ) )
+        {
+            mappedFile.indexPages( 2 );
+
+            assertFalse( mappedFile.isIndexed() );
+            assertEquals( 2, mappedFile.getPageCount() );
+            assertTrue( mappedFile.getPageText( 1 ).startsWith( "DN: cn=99," ) );
+        }
+    }
+
+
+    @Test
+    public void testPageIsParsedAlone() throws Exception
+    {
+        try ( MappedLdifFile mappedFile = new MappedLdifFile( write( createLdif( 250 ) ), StandardCharsets.UTF_8,
+            100 ) )
+        {
+            mappedFile.indexPages( 3 );
+
+            LdifFile page = new LdifParser().parse( mappedFile.getPageText( 1 ) );
+            assertEquals( 100, page.getRecords().length );
+            assertEquals( "cn=99,o=example", page.getRecords()[0].getDnLine().getValueAsString() );
+            assertTrue( page.getRecords()[0].isValid() );
+        }
+    }
+
+
+    private File write( String ldif ) throws Exception
+    {
+        Path path = tempDir.resolve( "test.ldif" );
+        Files.write( path, ldif.getBytes( StandardCharsets.UTF_8 ) );
+        return path.toFile();
+    }
+
+
+    /**
+     * Creates a LDIF with a version line and the given number of records,
+     * with mixed case "dn:" specs and mixed line separators.
+     */
+    private static String createLdif( int count )
+    {
+        StringBuilder sb = new StringBuilder( "version: 1\n\n" ); //$NON-NLS-1$
+
+        for ( int i = 0; i < count; i++ )
+        {
+            String separator = i % 3 == 0 ? "\r\n" : "\n"; //$NON-NLS-1$ //$NON-NLS-2$
+            sb.append( i % 2 == 0 ? "dn: cn=" : "DN: cn=" ).append( i ).append( ",o=example" ).append( separator ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            sb.append( "objectClass: person" ).append( separator ); //$NON-NLS-1$
+            sb.append( "cn: " ).append( i ).append( separator ); //$NON-NLS-1$
+            sb.append( separator );
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldifparser.parser;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.directory.studio.ldifparser.LdifUtils;
+import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Tests the {@link ParallelLdifParser} against the sequential {@link LdifParser}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ParallelLdifParserTest
+{
+    private static final String[] SEPARATORS =
+        { "\n", "\n\n", "\r\n\r\n", "\n\n\n", "\n#comment\n\n", "\n\n#comment\n", "\n\ngarbage\n\n", "\n\n \n" };
+
+    private static ForkJoinPool pool;
+
+    @TempDir
+    Path tempDir;
+
+
+    @BeforeAll
+    public static void setUp()
+    {
+        pool = new ForkJoinPool( 4 );
+    }
+
+
+    @AfterAll
+    public static void tearDown()
+    {
+        pool.shutdown();
+    }
+
+
+    @Test
+    public void testEmptyFile() throws Exception
+    {
+        assertSameContainers( "", 100, StandardCharsets.UTF_8 );
+    }
+
+
+    @Test
+    public void testRecordsWithSmallChunks() throws Exception
+    {
+        String ldif = createLdif( new Random( 42 ), 500 );
+
+        assertSameContainers( ldif, 1, StandardCharsets.UTF_8 );
+        assertSameContainers( ldif, 100, StandardCharsets.UTF_8 );
+        assertSameContainers( ldif, 10000, StandardCharsets.UTF_8 );
+        assertSameContainers( ldif, 10000, StandardCharsets.ISO_8859_1 );
+        assertSameContainers( ldif, 10000, StandardCharsets.UTF_16 );
+    }
+
+
+    @Test
+    public void testRandomSeparators() throws Exception
+    {
+        Random random = new Random( 7 );
+        for ( int i = 0; i < 50; i++ )
+        {
+            assertSameContainers( createLdif( random, 20 ), 1 + random.nextInt( 200 ), StandardCharsets.UTF_8 );
+        }
+    }
+
+
+    @Test
+    public void testParseFromPosition() throws Exception
+    {
+        String ldif = createLdif( new Random( 11 ), 200 );
+        File file = Files.createTempFile( tempDir, "test", ".ldif" ).toFile();
+        Files.write( file.toPath(), ldif.getBytes( StandardCharsets.UTF_8 ) );
+
+        List<String> all = new ArrayList<String>();
+        LdifEnumeration enumeration = new LdifParser().parse( new StringReader( ldif ) );
+        while ( enumeration.hasNext() )
+        {
+            all.add( enumeration.next().toRawString() );
+        }
+
+        ForkJoinPool sequentialPool = new ForkJoinPool( 1 );
+        try
+        {
+            for ( int skip : new int[]
+                { 0, 1, 2, 57, all.size() - 1 } )
+            {
+                long position = 0;
+                for ( String raw : all.subList( 0, skip ) )
+                {
+                    position += raw.getBytes( StandardCharsets.UTF_8 ).length;
+                }
+
+                List<String> expected = all.subList( skip, all.size() );
+                assertEquals( expected, toRawStrings(
+                    new ParallelLdifParser( pool, 500 ).parse( file, StandardCharsets.UTF_8, position ) ) );
+                assertEquals( expected, toRawStrings(
+                    new ParallelLdifParser( sequentialPool, 500 ).parse( file, StandardCharsets.UTF_8, position ) ) );
+            }
+        }
+        finally
+        {
+            sequentialPool.shutdown();
+        }
+    }
+
+
+    @Test
+    public void testGzipFile() throws Exception
+    {
+        String ldif = createLdif( new Random( 3 ), 100 );
+        File file = tempDir.resolve( "test.ldif.gz" ).toFile();
+        try ( OutputStream out = LdifUtils.openOutputStream( file ) )
+        {
+            out.write( ldif.getBytes( StandardCharsets.UTF_8 ) );
+        }
+
+        List<String> expected = toStrings( new LdifParser().parse( new StringReader( ldif ) ) );
+        assertEquals( expected, toStrings( new ParallelLdifParser( pool, 500 ).parse( file, StandardCharsets.UTF_8 ) ) );
+
+        List<String> all = toRawStrings( new LdifParser().parse( new StringReader( ldif ) ) );
+        long position = all.get( 0 ).getBytes( StandardCharsets.UTF_8 ).length
+            + all.get( 1 ).getBytes( StandardCharsets.UTF_8 ).length;
+        assertEquals( all.subList( 2, all.size() ), toRawStrings(
+            new ParallelLdifParser( pool, 500 ).parse( file, StandardCharsets.UTF_8, position ) ) );
+    }
+
+
+    @Test
+    public void testParseFromPositionAboveIntRange() throws Exception
+    {
+        // a sparse file, only the LDIF behind the 2 GB hole is written
+        String ldif = createLdif( new Random( 5 ), 50 );
+        long position = Integer.MAX_VALUE + 1000L;
+        File file = tempDir.resolve( "sparse.ldif" ).toFile();
+        try ( RandomAccessFile raf = new RandomAccessFile( file, "rw" ) )
+        {
+            raf.seek( position );
+            raf.write( ldif.getBytes( StandardCharsets.UTF_8 ) );
+        }
+
+        List<String> expected = toStrings( new LdifParser().parse( new StringReader( ldif ) ) );
+        ParallelLdifParser parser = new ParallelLdifParser( pool, 500 );
+        assertEquals( expected, toStrings( parser.parse( file, StandardCharsets.UTF_8, position ) ) );
+        assertEquals( file.length(), parser.getPosition() );
+
+        try ( RandomAccessFile raf = new RandomAccessFile( file, "r" ) )
+        {
+            FileChannel channel = raf.getChannel();
+            long boundary = ParallelLdifParser.findRecordBoundary( channel, position + 1 );
+            assertTrue( boundary > position );
+
+            ByteBuffer dn = channel.map( FileChannel.MapMode.READ_ONLY, boundary, 3 );
+            assertEquals( 'd', dn.get( 0 ) | 0x20 );
+            assertEquals( 'n', dn.get( 1 ) | 0x20 );
+            assertEquals( ':', dn.get( 2 ) );
+        }
+    }
+
+
+    @Test
+    public void testPositions() throws Exception
+    {
+        // a BOM and malformed bytes that are decoded to replacement characters
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write( new byte[]
+            { ( byte ) 0xEF, ( byte ) 0xBB, ( byte ) 0xBF } );
+        out.write( "# malformed ".getBytes( StandardCharsets.US_ASCII ) );
+        out.write( new byte[]
+            { ( byte ) 0xFF, ( byte ) 0xC3, '\n' } );
+        out.write( createLdif( new Random( 13 ), 60 ).getBytes( StandardCharsets.UTF_8 ) );
+        out.write( "\ndn: cn=x,o=test\ndescription: \u00e4".getBytes( StandardCharsets.UTF_8 ) );
+        out.write( new byte[]
+            { ( byte ) 0xE2, ( byte ) 0x82, '\n' } );
+        byte[] bytes = out.toByteArray();
+
+        File file = tempDir.resolve( "test.ldif" ).toFile();
+        Files.write( file.toPath(), bytes );
+        File gzipFile = tempDir.resolve( "test.ldif.gz" ).toFile();
+        try ( OutputStream gzipOut = LdifUtils.openOutputStream( gzipFile ) )
+        {
+            gzipOut.write( bytes );
+        }
+
+        ForkJoinPool sequentialPool = new ForkJoinPool( 1 );
+        try
+        {
+            for ( int chunkSize : new int[]
+                { 1, 100, 100000 } )
+            {
+                assertPositions( new ParallelLdifParser( pool, chunkSize ), file, bytes.length );
+                assertPositions( new ParallelLdifParser( sequentialPool, chunkSize ), file, bytes.length );
+                assertPositions( new ParallelLdifParser( pool, chunkSize ), gzipFile, bytes.length );
+            }
+        }
+        finally
+        {
+            sequentialPool.shutdown();
+        }
+    }
+
+
+    @Test
+    public void testPositionsNotTracked() throws Exception
+    {
+        File file = tempDir.resolve( "test.ldif" ).toFile();
+        Files.write( file.toPath(), createLdif( new Random( 17 ), 10 ).getBytes( StandardCharsets.UTF_16 ) );
+
+        assertFalse( ParallelLdifParser.isPositionTracked( StandardCharsets.UTF_16 ) );
+        ParallelLdifParser parser = new ParallelLdifParser( pool, 100 );
+        LdifEnumeration enumeration = parser.parse( file, StandardCharsets.UTF_16 );
+        enumeration.next();
+        assertEquals( -1L, parser.getPosition() );
+        parser.close();
+    }
+
+
+    /**
+     * Checks that the position behind the last container is the file length and that
+     * a parse resumed behind each container returns the remaining containers.
+     */
+    private void assertPositions( ParallelLdifParser parser, File file, long length ) throws Exception
+    {
+        List<String> all = new ArrayList<String>();
+        List<Long> positions = new ArrayList<Long>();
+        LdifEnumeration enumeration = parser.parse( file, StandardCharsets.UTF_8 );
+        assertEquals( 0L, parser.getPosition() );
+        while ( enumeration.hasNext() )
+        {
+            all.add( enumeration.next().toRawString() );
+            positions.add( parser.getPosition() );
+        }
+        assertEquals( length, ( long ) positions.get( positions.size() - 1 ) );
+
+        for ( int i = 0; i < positions.size(); i++ )
+        {
+            assertEquals( all.subList( i + 1, all.size() ), toRawStrings( parser.parse( file, StandardCharsets.UTF_8,
+                positions.get( i ) ) ) );
+        }
+        parser.close();
+    }
+
+
+    private String createLdif( Random random, int numberOfRecords )
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append( "# header\nversion: 1\n" );
+        for ( int i = 0; i < numberOfRecords; i++ )
+        {
+            sb.append( SEPARATORS[random.nextInt( SEPARATORS.length )] );
+            sb.append( random.nextBoolean() ? "dn: " : "DN: " ).append( "cn=Björn " ).append( i ).append( ",o=test\n" );
+            switch ( random.nextInt( 3 ) )
+            {
+                case 0:
+                    sb.append( "objectClass: person\ncn: Björn\n" );
+                    sb.append( "description: a folded\n  line with €\n" );
+                    sb.append( "jpegPhoto:: /9j/4AAQSkZJRgABAQEASABIAAD/2wBDAAMCAgMCAgMDAwMEAwMEBQgFBQQEBQoHBwYIDAoM\n" );
+                    sb.append( " DAsKCwsNDhIQDQ4RDgsLEBYQERMUFRUVDA8XGBYUGBIUFRT/\n" );
+                    break;
+                case 1:
+                    sb.append( "changetype: modify\nreplace: cn\ncn: x\n-\n" );
+                    break;
+                default:
+                    sb.append( "changetype: modrdn\nnewrdn: cn=y\ndeleteoldrdn: 1\n" );
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+
+
+    private void assertSameContainers( String ldif, int chunkSize, Charset charset ) throws Exception
+    {
+        File file = Files.createTempFile( tempDir, "test", ".ldif" ).toFile();
+        byte[] bytes = ldif.getBytes( charset );
+        Files.write( file.toPath(), bytes );
+
+        String decoded = new String( bytes, charset );
+        List<String> expected = toStrings( new LdifParser().parse( new StringReader( decoded ) ) );
+        List<String> actual = toStrings( new ParallelLdifParser( pool, chunkSize ).parse( file, charset ) );
+
+        assertEquals( expected, actual );
+    }
+
+
+    private List<String> toRawStrings( LdifEnumeration enumeration ) throws Exception
+    {
+        List<String> strings = new ArrayList<String>();
+        while ( enumeration.hasNext() )
+        {
+            strings.add( enumeration.next().toRawString() );
+        }
+        return strings;
+    }
+
+
+    private List<String> toStrings( LdifEnumeration enumeration ) throws Exception
+    {
+        List<String> strings = new ArrayList<String>();
+        while ( enumeration.hasNext() )
+        {
+            LdifContainer container = enumeration.next();
+            strings.add( container.getClass().getSimpleName() + "@" + container.getOffset() + ":"
+                + container.toRawString() );
+        }
+        return strings;
+    }
+}
@@ -30,6 +30,7 @@ import org.apache.directory.studio.schemaeditor.controller.actions.OpenSearchVie
 import org.apache.directory.studio.schemaeditor.controller.actions.RunCurrentSearchAgainAction;
 import org.apache.directory.studio.schemaeditor.controller.actions.ShowSearchFieldAction;
 import org.apache.directory.studio.schemaeditor.controller.actions.ShowSearchHistoryAction;
+import org.apache.directory.studio.schemaeditor.model.Project;
 import org.apache.directory.studio.schemaeditor.view.views.SearchView;
 import org.eclipse.jface.action.IMenuManager;
 import org.eclipse.jface.action.IToolBarManager;
@@ -51,6 +52,23 @@ public class SearchViewController
     /** The authorized Preferences keys*/
     private List<String> authorizedPrefs;
 
+    /** The ProjectsHandlerListener */
+    private ProjectsHandlerListener projectsHandlerListener = new ProjectsHandlerAdapter()
+    {
+        public void openProjectChanged( Project oldProject, Project newProject )
+        {
+            // The search index follows the schema handler of the open project
+            if ( newProject != null )
+            {
+                view.getSearchIndex().setSchemaHandler( newProject.getSchemaHandler() );
+            }
+            else
+            {
+                view.getSearchIndex().setSchemaHandler( null );
+            }
+        }
+    };
+
     // The Actions
     private ShowSearchFieldAction showSearchField;
     private RunCurrentSearchAgainAction runCurrentSearchAgain;
@@ -74,6 +92,7 @@ public class SearchViewController
         initMenu();
         initAuthorizedPrefs();
         initPreferencesListener();
+        initProjectsHandlerListener();
     }
 
 
@@ -154,4 +173,22 @@ public class SearchViewController
             }
         } );
     }
+
+
+    /**
+     * Initializes the ProjectsHandlerListener.
+     */
+    private void initProjectsHandlerListener()
+    {
+        Activator.getDefault().getProjectsHandler().addListener( projectsHandlerListener );
+    }
+
+
+    /**
+     * This method is called when the view is disposed.
+     */
+    public void dispose()
+    {
+        Activator.getDefault().getProjectsHandler().removeListener( projectsHandlerListener );
+    }
 }
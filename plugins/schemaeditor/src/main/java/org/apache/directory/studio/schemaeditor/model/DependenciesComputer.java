@@ -339,6 +339,73 @@ public class DependenciesComputer
     }
 
 
+    /**
+     * Gets the names or OIDs the given attribute type refers to: its superior,
+     * its syntax and its matching rules. They are the attribute type dependencies
+     * computed by this class, unresolved.
+     *
+     * @param attributeType
+     *      the attribute type
+     * @return
+     *      the referenced names or OIDs
+     */
+    public static List<String> getReferencedIds( AttributeType attributeType )
+    {
+        List<String> ids = new ArrayList<String>();
+
+        addReferencedId( ids, attributeType.getSuperiorOid() );
+        addReferencedId( ids, attributeType.getSyntaxOid() );
+        addReferencedId( ids, attributeType.getEqualityOid() );
+        addReferencedId( ids, attributeType.getOrderingOid() );
+        addReferencedId( ids, attributeType.getSubstringOid() );
+
+        return ids;
+    }
+
+
+    /**
+     * Gets the names or OIDs the given object class refers to: its superiors,
+     * its optional and its mandatory attribute types. They are the object class
+     * dependencies computed by this class, unresolved.
+     *
+     * @param objectClass
+     *      the object class
+     * @return
+     *      the referenced names or OIDs
+     */
+    public static List<String> getReferencedIds( ObjectClass objectClass )
+    {
+        List<String> ids = new ArrayList<String>();
+
+        addReferencedIds( ids, objectClass.getSuperiorOids() );
+        addReferencedIds( ids, objectClass.getMayAttributeTypeOids() );
+        addReferencedIds( ids, objectClass.getMustAttributeTypeOids() );
+
+        return ids;
+    }
+
+
+    private static void addReferencedIds( List<String> ids, List<String> references )
+    {
+        if ( references != null )
+        {
+            for ( String reference : references )
+            {
+                addReferencedId( ids, reference );
+            }
+        }
+    }
+
+
+    private static void addReferencedId( List<String> ids, String reference )
+    {
+        if ( reference != null )
+        {
+            ids.add( reference );
+        }
+    }
+
+
     /**
      * Orders the schemas based on their dependencies.
      */
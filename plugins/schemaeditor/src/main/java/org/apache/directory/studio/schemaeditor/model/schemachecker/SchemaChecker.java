@@ -20,11 +20,16 @@
 package org.apache.directory.studio.schemaeditor.model.schemachecker;
 
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-import org.apache.commons.collections4.MultiValuedMap;
-import org.apache.commons.collections4.multimap.ArrayListValuedHashMap;
 import org.apache.directory.api.ldap.model.exception.LdapSchemaException;
 import org.apache.directory.api.ldap.model.schema.AttributeType;
 import org.apache.directory.api.ldap.model.schema.LdapSyntax;
@@ -50,26 +55,67 @@ import org.eclipse.core.runtime.jobs.Job;
 /**
  * This class represents the SchemaChecker.
  * <p>
- * It is used to check the schema integrity.
+ * It is used to check the schema integrity. The whole schema is checked by a schema
+ * manager when the checker is enabled or reloaded and when a schema is added or
+ * removed. When attribute types or object classes are added, modified or removed,
+ * only these objects and the objects depending on them are checked again, using a
+ * {@link SchemaDependencyIndex} and a {@link SchemaObjectValidator}. Changes are
+ * coalesced and checked by a single job.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
 public class SchemaChecker
 {
+    /** The delay, in milliseconds, used to coalesce the changes into one check */
+    private static final long CHECK_DELAY = 250;
+
     /** The SchemaChecker instance */
     private static SchemaChecker instance;
 
     /** The schema manager */
     private SchemaManager schemaManager;
 
-    /** The errors map */
-    private MultiValuedMap<Object, Object> errorsMap = new ArrayListValuedHashMap<>();
+    /** The errors list */
+    private List<Throwable> errorsList = new ArrayList<Throwable>();
+
+    /** The errors of the last whole schema check that are not attached to a schema object */
+    private List<Throwable> unattachedErrors = new ArrayList<Throwable>();
+
+    /** The errors map, schema objects are modified in place so they are compared by identity */
+    private Map<Object, List<Object>> errorsMap = new IdentityHashMap<Object, List<Object>>();
 
     /** The warnings list */
     private List<SchemaWarning> warningsList = new ArrayList<SchemaWarning>();
 
     /** The warnings map */
-    private MultiValuedMap<Object, Object> warningsMap = new ArrayListValuedHashMap<>();
+    private Map<Object, List<Object>> warningsMap = new IdentityHashMap<Object, List<Object>>();
+
+    /** The dependency index of the checked attribute types and object classes */
+    private SchemaDependencyIndex dependencyIndex = new SchemaDependencyIndex();
+
+    /** The attribute types and object classes added or modified since the last check */
+    private Set<SchemaObject> changedObjects = Collections
+        .newSetFromMap( new IdentityHashMap<SchemaObject, Boolean>() );
+
+    /** The attribute types and object classes removed since the last check */
+    private Set<SchemaObject> removedObjects = Collections
+        .newSetFromMap( new IdentityHashMap<SchemaObject, Boolean>() );
+
+    /** The flag indicating that the whole schema needs to be checked */
+    private boolean wholeSchemaCheckPending = false;
+
+    /** The job checking the pending changes */
+    private Job checkJob = new Job( "Checking Schema" ) //$NON-NLS-1$
+    {
+        protected IStatus run( IProgressMonitor monitor )
+        {
+            check();
+
+            monitor.done();
+
+            return Status.OK_STATUS;
+        }
+    };
 
     /** The lock object used to synchronize accesses to the errors and warnings maps*/
     private static Object lock = new Object();
@@ -85,73 +131,49 @@ public class SchemaChecker
     {
         public void attributeTypeAdded( AttributeType at )
         {
-            synchronized ( this )
-            {
-                recheckWholeSchema();
-            }
+            recheckSchemaObject( at, false );
         }
 
 
         public void attributeTypeModified( AttributeType at )
         {
-            synchronized ( this )
-            {
-                recheckWholeSchema();
-            }
+            recheckSchemaObject( at, false );
         }
 
 
         public void attributeTypeRemoved( AttributeType at )
         {
-            synchronized ( this )
-            {
-                recheckWholeSchema();
-            }
+            recheckSchemaObject( at, true );
         }
 
 
         public void objectClassAdded( ObjectClass oc )
         {
-            synchronized ( this )
-            {
-                recheckWholeSchema();
-            }
+            recheckSchemaObject( oc, false );
         }
 
 
         public void objectClassModified( ObjectClass oc )
         {
-            synchronized ( this )
-            {
-                recheckWholeSchema();
-            }
+            recheckSchemaObject( oc, false );
         }
 
 
         public void objectClassRemoved( ObjectClass oc )
         {
-            synchronized ( this )
-            {
-                recheckWholeSchema();
-            }
+            recheckSchemaObject( oc, true );
         }
 
 
         public void schemaAdded( Schema schema )
         {
-            synchronized ( this )
-            {
-                recheckWholeSchema();
-            }
+            recheckWholeSchema();
         }
 
 
         public void schemaRemoved( Schema schema )
         {
-            synchronized ( this )
-            {
-                recheckWholeSchema();
-            }
+            recheckWholeSchema();
         }
 
 
@@ -180,6 +202,11 @@ public class SchemaChecker
                 {
                     newProject.getSchemaHandler().addListener( schemaHandlerListener );
                 }
+
+                if ( listeningToModifications )
+                {
+                    recheckWholeSchema();
+                }
             }
         } );
     }
@@ -262,38 +289,104 @@ public class SchemaChecker
 
 
     /**
-     * Checks the whole schema.
+     * Schedules a check of the whole schema.
      */
     private void recheckWholeSchema()
     {
-        Job job = new Job( "Checking Schema" )
+        synchronized ( changedObjects )
         {
-            protected IStatus run( IProgressMonitor monitor )
+            wholeSchemaCheckPending = true;
+        }
+
+        checkJob.schedule( CHECK_DELAY );
+    }
+
+
+    /**
+     * Schedules a check of the given attribute type or object class and of the
+     * objects depending on it.
+     *
+     * @param schemaObject
+     *      the added, modified or removed attribute type or object class
+     * @param removed
+     *      true if the schema object has been removed
+     */
+    private void recheckSchemaObject( SchemaObject schemaObject, boolean removed )
+    {
+        synchronized ( changedObjects )
+        {
+            if ( removed )
             {
-                // Checks the whole schema via the schema manager
-                try
-                {
-                    schemaManager = new DefaultSchemaManager( new SchemaEditorSchemaLoader() );
-                    schemaManager.loadAllEnabled();
-                }
-                catch ( Exception e )
-                {
-                    // TODO Auto-generated catch block
-                    e.printStackTrace();
-                }
+                changedObjects.remove( schemaObject );
+                removedObjects.add( schemaObject );
+            }
+            else
+            {
+                removedObjects.remove( schemaObject );
+                changedObjects.add( schemaObject );
+            }
+        }
 
-                // Updates errors and warnings
-                updateErrorsAndWarnings();
+        checkJob.schedule( CHECK_DELAY );
+    }
 
-                // Notify listeners
-                notifyListeners();
 
-                monitor.done();
+    /**
+     * Checks the pending changes. Called by the check job.
+     */
+    private void check()
+    {
+        boolean wholeSchema;
+        List<SchemaObject> changed;
+        List<SchemaObject> removed;
 
-                return Status.OK_STATUS;
-            }
-        };
-        job.schedule();
+        synchronized ( changedObjects )
+        {
+            wholeSchema = wholeSchemaCheckPending;
+            changed = new ArrayList<SchemaObject>( changedObjects );
+            removed = new ArrayList<SchemaObject>( removedObjects );
+            wholeSchemaCheckPending = false;
+            changedObjects.clear();
+            removedObjects.clear();
+        }
+
+        if ( wholeSchema )
+        {
+            checkWholeSchema();
+        }
+        else if ( !changed.isEmpty() || !removed.isEmpty() )
+        {
+            checkSchemaObjects( changed, removed );
+        }
+        else
+        {
+            return;
+        }
+
+        // Notify listeners
+        notifyListeners();
+    }
+
+
+    /**
+     * Checks the whole schema.
+     */
+    private void checkWholeSchema()
+    {
+        // Checks the whole schema via the schema manager
+        try
+        {
+            schemaManager = new DefaultSchemaManager( new SchemaEditorSchemaLoader() );
+            schemaManager.loadAllEnabled();
+        }
+        catch ( Exception e )
+        {
+            // TODO Auto-generated catch block
+            e.printStackTrace();
+        }
+
+        // Updates errors and warnings
+        updateErrorsAndWarnings();
     }
 
 
@@ -304,14 +397,43 @@ public class SchemaChecker
     {
         synchronized ( lock )
         {
+            // Dependencies
+            indexDependencies();
+
             // Errors
             errorsMap.clear();
+            unattachedErrors.clear();
             indexErrors();
 
             // Warnings
-            createWarnings();
             warningsMap.clear();
-            indexWarnings();
+            createWarnings();
+
+            updateLists();
+        }
+    }
+
+
+    /**
+     * Indexes the dependencies of all attribute types and object classes.
+     */
+    private void indexDependencies()
+    {
+        dependencyIndex.clear();
+
+        SchemaHandler schemaHandler = Activator.getDefault().getSchemaHandler();
+
+        if ( schemaHandler != null )
+        {
+            for ( AttributeType attributeType : schemaHandler.getAttributeTypes() )
+            {
+                dependencyIndex.put( attributeType );
+            }
+
+            for ( ObjectClass objectClass : schemaHandler.getObjectClasses() )
+            {
+                dependencyIndex.put( objectClass );
+            }
         }
     }
 
@@ -321,12 +443,18 @@ public class SchemaChecker
      */
     private void indexErrors()
     {
+        if ( schemaManager == null )
+        {
+            return;
+        }
+
         for ( Throwable error : schemaManager.getErrors() )
         {
+            SchemaObject source = null;
+
             if ( error instanceof LdapSchemaException )
             {
-                LdapSchemaException ldapSchemaException = ( LdapSchemaException ) error;
-                SchemaObject source = ldapSchemaException.getSourceObject();
+                source = ( ( LdapSchemaException ) error ).getSourceObject();
                 if ( source != null )
                 {
                     SchemaHandler schemaHandler = Activator.getDefault().getSchemaHandler();
@@ -347,10 +475,106 @@ public class SchemaChecker
                     {
                         source = schemaHandler.getObjectClass( source.getOid() );
                     }
+                }
+            }
+
+            if ( source != null )
+            {
+                put( errorsMap, source, error );
+            }
+            else
+            {
+                unattachedErrors.add( error );
+            }
+        }
+    }
 
-                    errorsMap.put( source, ldapSchemaException );
+
+    /**
+     * Checks the given attribute types and object classes and the objects depending
+     * on them, and updates their errors and warnings.
+     *
+     * @param changed
+     *      the added or modified attribute types and object classes
+     * @param removed
+     *      the removed attribute types and object classes
+     */
+    private void checkSchemaObjects( List<SchemaObject> changed, List<SchemaObject> removed )
+    {
+        SchemaHandler schemaHandler = Activator.getDefault().getSchemaHandler();
+
+        if ( schemaHandler == null )
+        {
+            return;
+        }
+
+        synchronized ( lock )
+        {
+            Set<SchemaObject> objectsToCheck = Collections
+                .newSetFromMap( new IdentityHashMap<SchemaObject, Boolean>() );
+
+            // The names and OIDs the changed objects had before and have now
+            Set<String> affectedIds = new HashSet<String>();
+
+            for ( SchemaObject schemaObject : removed )
+            {
+                affectedIds.addAll( dependencyIndex.getIndexedIds( schemaObject ) );
+                dependencyIndex.remove( schemaObject );
+                errorsMap.remove( schemaObject );
+                warningsMap.remove( schemaObject );
+            }
+
+            for ( SchemaObject schemaObject : changed )
+            {
+                affectedIds.addAll( dependencyIndex.getIndexedIds( schemaObject ) );
+                dependencyIndex.put( schemaObject );
+                affectedIds.addAll( dependencyIndex.getIndexedIds( schemaObject ) );
+                objectsToCheck.add( schemaObject );
+            }
+
+            // The objects referring to the changed objects and the objects sharing a name or OID with them
+            objectsToCheck.addAll( dependencyIndex.getDependents( affectedIds ) );
+
+            for ( String id : affectedIds )
+            {
+                addSchemaObjects( objectsToCheck, schemaHandler.getAttributeTypeList( id ) );
+                addSchemaObjects( objectsToCheck, schemaHandler.getObjectClassList( id ) );
+            }
+
+            // The sub types and sub classes, as a hierarchy cycle or a collective superior is reported on them too
+            Deque<SchemaObject> superiors = new ArrayDeque<SchemaObject>( objectsToCheck );
+
+            while ( !superiors.isEmpty() )
+            {
+                SchemaObject superior = superiors.poll();
+
+                for ( SchemaObject dependent : dependencyIndex.getDependents( dependencyIndex
+                    .getIndexedIds( superior ) ) )
+                {
+                    if ( isSameKind( dependent, superior ) && objectsToCheck.add( dependent ) )
+                    {
+                        superiors.add( dependent );
+                    }
                 }
             }
+
+            objectsToCheck.removeAll( removed );
+
+            SchemaObjectValidator validator = new SchemaObjectValidator( schemaHandler );
+
+            for ( SchemaObject schemaObject : objectsToCheck )
+            {
+                errorsMap.remove( schemaObject );
+                for ( LdapSchemaException error : validator.validate( schemaObject ) )
+                {
+                    put( errorsMap, schemaObject, error );
+                }
+
+                warningsMap.remove( schemaObject );
+                checkSchemaObjectNames( schemaObject );
+            }
+
+            updateLists();
         }
     }
 
@@ -360,9 +584,6 @@ public class SchemaChecker
      */
     private void createWarnings()
     {
-        // Clearing previous warnings
-        warningsList.clear();
-
         // Getting the schema handler to check for schema objects without names (aliases)
         SchemaHandler schemaHandler = Activator.getDefault().getSchemaHandler();
 
@@ -392,20 +613,67 @@ public class SchemaChecker
     {
         if ( ( schemaObject.getNames() == null ) || ( schemaObject.getNames().size() == 0 ) )
         {
-            warningsList.add( new NoAliasWarning( schemaObject ) );
+            put( warningsMap, schemaObject, new NoAliasWarning( schemaObject ) );
         }
     }
 
 
     /**
-     * Indexes the warnings.
+     * Rebuilds the errors and warnings lists from the maps. The lists are replaced,
+     * not modified, as they are read outside of the check job.
      */
-    private void indexWarnings()
+    private void updateLists()
     {
-        for ( SchemaWarning warning : warningsList )
+        List<Throwable> errors = new ArrayList<Throwable>( unattachedErrors );
+        for ( List<Object> sourceErrors : errorsMap.values() )
+        {
+            for ( Object error : sourceErrors )
+            {
+                errors.add( ( Throwable ) error );
+            }
+        }
+        errorsList = errors;
+
+        List<SchemaWarning> warnings = new ArrayList<SchemaWarning>();
+        for ( List<Object> sourceWarnings : warningsMap.values() )
         {
-            warningsMap.put( warning.getSource(), warning );
+            for ( Object warning : sourceWarnings )
+            {
+                warnings.add( ( SchemaWarning ) warning );
+            }
         }
+        warningsList = warnings;
+    }
+
+
+    private static boolean isSameKind( SchemaObject schemaObject1, SchemaObject schemaObject2 )
+    {
+        return ( ( schemaObject1 instanceof AttributeType ) && ( schemaObject2 instanceof AttributeType ) )
+            || ( ( schemaObject1 instanceof ObjectClass ) && ( schemaObject2 instanceof ObjectClass ) );
+    }
+
+
+    private static void addSchemaObjects( Set<SchemaObject> set, List<?> schemaObjects )
+    {
+        if ( schemaObjects != null )
+        {
+            for ( Object schemaObject : schemaObjects )
+            {
+                set.add( ( SchemaObject ) schemaObject );
+            }
+        }
+    }
+
+
+    private static void put( Map<Object, List<Object>> map, Object key, Object value )
+    {
+        List<Object> values = map.get( key );
+        if ( values == null )
+        {
+            values = new ArrayList<Object>();
+            map.put( key, values );
+        }
+        values.add( value );
     }
 
 
@@ -417,13 +685,9 @@ public class SchemaChecker
      */
     public List<Throwable> getErrors()
     {
-        if ( schemaManager != null )
-        {
-            return schemaManager.getErrors();
-        }
-        else
+        synchronized ( lock )
         {
-            return new ArrayList<Throwable>();
+            return errorsList;
         }
     }
 
@@ -494,7 +758,7 @@ public class SchemaChecker
     {
         synchronized ( lock )
         {
-            return ( List<?> ) errorsMap.get( so );
+            return errorsMap.get( so );
         }
     }
 
@@ -530,10 +794,12 @@ public class SchemaChecker
      * @return
      *      the associated warnings
      */
-    @SuppressWarnings("unchecked")
     public List<Object> getWarnings( SchemaObject so )
     {
-        return ( List<Object> ) warningsMap.get( so );
+        synchronized ( lock )
+        {
+            return warningsMap.get( so );
+        }
     }
 
 
@@ -0,0 +1,223 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.studio.schemaeditor.model.schemachecker;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.ldap.model.schema.SchemaObject;
+import org.apache.directory.api.util.Strings;
+import org.apache.directory.studio.schemaeditor.model.DependenciesComputer;
+
+
+/**
+ * This class indexes the attribute types and object classes by the names and OIDs
+ * they refer to, so the objects depending on a changed object can be found without
+ * walking the whole schema.
+ * <p>
+ * The references are the ones computed by {@link DependenciesComputer}, but they are
+ * kept unresolved: an object referring to a name that does not exist yet is found
+ * when an object with that name is added. The names and OID of every indexed object
+ * are remembered too, as schema objects are modified in place and their old names
+ * are needed to find the objects that referred to them.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class SchemaDependencyIndex
+{
+    /** The lowercased names and OID of every indexed object */
+    private Map<SchemaObject, Set<String>> ids = new IdentityHashMap<SchemaObject, Set<String>>();
+
+    /** The lowercased names and OIDs referred to by every indexed object */
+    private Map<SchemaObject, Set<String>> references = new IdentityHashMap<SchemaObject, Set<String>>();
+
+    /** The objects referring to a lowercased name or OID */
+    private Map<String, Set<SchemaObject>> dependents = new HashMap<String, Set<SchemaObject>>();
+
+
+    /**
+     * Adds the given object to the index, or updates it if it is already indexed.
+     *
+     * @param schemaObject
+     *      the attribute type or object class
+     */
+    public void put( SchemaObject schemaObject )
+    {
+        remove( schemaObject );
+
+        ids.put( schemaObject, getIds( schemaObject ) );
+
+        Set<String> objectReferences = new HashSet<String>();
+        if ( schemaObject instanceof AttributeType )
+        {
+            addIds( objectReferences, DependenciesComputer.getReferencedIds( ( AttributeType ) schemaObject ) );
+        }
+        else if ( schemaObject instanceof ObjectClass )
+        {
+            addIds( objectReferences, DependenciesComputer.getReferencedIds( ( ObjectClass ) schemaObject ) );
+        }
+        references.put( schemaObject, objectReferences );
+
+        for ( String reference : objectReferences )
+        {
+            Set<SchemaObject> referenceDependents = dependents.get( reference );
+            if ( referenceDependents == null )
+            {
+                referenceDependents = Collections.newSetFromMap( new IdentityHashMap<SchemaObject, Boolean>() );
+                dependents.put( reference, referenceDependents );
+            }
+            referenceDependents.add( schemaObject );
+        }
+    }
+
+
+    /**
+     * Removes the given object from the index.
+     *
+     * @param schemaObject
+     *      the attribute type or object class
+     */
+    public void remove( SchemaObject schemaObject )
+    {
+        ids.remove( schemaObject );
+        Set<String> objectReferences = references.remove( schemaObject );
+
+        if ( objectReferences != null )
+        {
+            for ( String reference : objectReferences )
+            {
+                Set<SchemaObject> referenceDependents = dependents.get( reference );
+                if ( referenceDependents != null )
+                {
+                    referenceDependents.remove( schemaObject );
+                    if ( referenceDependents.isEmpty() )
+                    {
+                        dependents.remove( reference );
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Gets the lowercased names and OID the given object had when it was indexed.
+     *
+     * @param schemaObject
+     *      the attribute type or object class
+     * @return
+     *      the indexed names and OID, an empty set if the object is not indexed
+     */
+    public Set<String> getIndexedIds( SchemaObject schemaObject )
+    {
+        Set<String> objectIds = ids.get( schemaObject );
+
+        if ( objectIds == null )
+        {
+            return Collections.emptySet();
+        }
+
+        return objectIds;
+    }
+
+
+    /**
+     * Gets the objects referring to one of the given names or OIDs.
+     *
+     * @param referencedIds
+     *      the lowercased names and OIDs
+     * @return
+     *      the objects referring to them
+     */
+    public List<SchemaObject> getDependents( Collection<String> referencedIds )
+    {
+        List<SchemaObject> result = new ArrayList<SchemaObject>();
+
+        for ( String referencedId : referencedIds )
+        {
+            Set<SchemaObject> referenceDependents = dependents.get( referencedId );
+            if ( referenceDependents != null )
+            {
+                result.addAll( referenceDependents );
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Clears the index.
+     */
+    public void clear()
+    {
+        ids.clear();
+        references.clear();
+        dependents.clear();
+    }
+
+
+    /**
+     * Gets the current lowercased names and OID of the given object.
+     *
+     * @param schemaObject
+     *      the schema object
+     * @return
+     *      the names and OID
+     */
+    public static Set<String> getIds( SchemaObject schemaObject )
+    {
+        Set<String> objectIds = new HashSet<String>();
+
+        if ( schemaObject.getOid() != null )
+        {
+            objectIds.add( Strings.toLowerCase( schemaObject.getOid() ) );
+        }
+
+        if ( schemaObject.getNames() != null )
+        {
+            addIds( objectIds, schemaObject.getNames() );
+        }
+
+        return objectIds;
+    }
+
+
+    private static void addIds( Set<String> set, List<String> values )
+    {
+        for ( String value : values )
+        {
+            if ( value != null )
+            {
+                set.add( Strings.toLowerCase( value ) );
+            }
+        }
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.studio.schemaeditor.model.schemachecker;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.directory.api.ldap.model.exception.LdapSchemaException;
+import org.apache.directory.api.ldap.model.exception.LdapSchemaExceptionCodes;
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.ldap.model.schema.SchemaObject;
+import org.apache.directory.api.ldap.model.schema.UsageEnum;
+import org.apache.directory.api.util.Strings;
+import org.apache.directory.studio.schemaeditor.controller.SchemaHandler;
+
+
+/**
+ * This class validates a single attribute type or object class against the other
+ * schema objects of a SchemaHandler.
+ * <p>
+ * It reports the errors of the schema manager that only depend on the object and the
+ * objects it refers to: unknown references, cycles in the hierarchy, conflicting
+ * names or OIDs and invalid combinations of flags. The errors have the same codes,
+ * source objects and related ids as the errors of the schema manager, so they are
+ * displayed the same way.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SchemaObjectValidator
+{
+    /** The SchemaHandler holding the objects to validate against */
+    private SchemaHandler schemaHandler;
+
+
+    /**
+     * Creates a new instance of SchemaObjectValidator.
+     *
+     * @param schemaHandler
+     *      the SchemaHandler holding the objects to validate against
+     */
+    public SchemaObjectValidator( SchemaHandler schemaHandler )
+    {
+        this.schemaHandler = schemaHandler;
+    }
+
+
+    /**
+     * Validates the given schema object.
+     *
+     * @param schemaObject
+     *      the attribute type or object class
+     * @return
+     *      the errors, an empty list if the object is valid
+     */
+    public List<LdapSchemaException> validate( SchemaObject schemaObject )
+    {
+        List<LdapSchemaException> errors = new ArrayList<LdapSchemaException>();
+
+        if ( schemaObject instanceof AttributeType )
+        {
+            validateAttributeType( ( AttributeType ) schemaObject, errors );
+        }
+        else if ( schemaObject instanceof ObjectClass )
+        {
+            validateObjectClass( ( ObjectClass ) schemaObject, errors );
+        }
+
+        return errors;
+    }
+
+
+    /**
+     * Validates an attribute type.
+     */
+    private void validateAttributeType( AttributeType attributeType, List<LdapSchemaException> errors )
+    {
+        checkDuplicates( attributeType, errors );
+
+        // Superior
+        String superiorOid = attributeType.getSuperiorOid();
+        if ( superiorOid != null )
+        {
+            AttributeType superior = schemaHandler.getAttributeType( superiorOid );
+            if ( superior == null )
+            {
+                errors.add( createError( LdapSchemaExceptionCodes.AT_NONEXISTENT_SUPERIOR, attributeType,
+                    superiorOid, "Nonexistent superior" ) ); //$NON-NLS-1$
+            }
+            else
+            {
+                if ( superior.isCollective() )
+                {
+                    errors.add( createError( LdapSchemaExceptionCodes.AT_CANNOT_SUBTYPE_COLLECTIVE_AT,
+                        attributeType, superiorOid, "Cannot subtype a collective attribute type" ) ); //$NON-NLS-1$
+                }
+
+                if ( hasSuperiorCycle( attributeType ) )
+                {
+                    errors.add( createError( LdapSchemaExceptionCodes.AT_CYCLE_TYPE_HIERARCHY, attributeType,
+                        superiorOid, "Cycle in the type hierarchy" ) ); //$NON-NLS-1$
+                }
+
+                if ( superior.getUsage() != attributeType.getUsage() )
+                {
+                    errors.add( createError( LdapSchemaExceptionCodes.AT_MUST_HAVE_SAME_USAGE_THAN_SUPERIOR,
+                        attributeType, superiorOid, "Usage differs from the superior" ) ); //$NON-NLS-1$
+                }
+            }
+        }
+
+        // Syntax
+        String syntaxOid = attributeType.getSyntaxOid();
+        if ( syntaxOid != null )
+        {
+            if ( schemaHandler.getSyntax( syntaxOid ) == null )
+            {
+                errors.add( createError( LdapSchemaExceptionCodes.AT_NONEXISTENT_SYNTAX, attributeType, syntaxOid,
+                    "Nonexistent syntax" ) ); //$NON-NLS-1$
+            }
+        }
+        else if ( superiorOid == null )
+        {
+            errors.add( createError( LdapSchemaExceptionCodes.AT_SYNTAX_OR_SUPERIOR_REQUIRED, attributeType, null,
+                "A syntax or a superior is required" ) ); //$NON-NLS-1$
+        }
+
+        // Matching rules
+        checkMatchingRule( attributeType, attributeType.getEqualityOid(),
+            LdapSchemaExceptionCodes.AT_NONEXISTENT_EQUALITY_MATCHING_RULE, errors );
+        checkMatchingRule( attributeType, attributeType.getOrderingOid(),
+            LdapSchemaExceptionCodes.AT_NONEXISTENT_ORDERING_MATCHING_RULE, errors );
+        checkMatchingRule( attributeType, attributeType.getSubstringOid(),
+            LdapSchemaExceptionCodes.AT_NONEXISTENT_SUBSTRING_MATCHING_RULE, errors );
+
+        // Flags
+        if ( attributeType.getUsage() == UsageEnum.USER_APPLICATIONS && !attributeType.isUserModifiable() )
+        {
+            errors.add( createError( LdapSchemaExceptionCodes.AT_USER_APPLICATIONS_USAGE_MUST_BE_USER_MODIFIABLE,
+                attributeType, null, "User applications attribute types must be user modifiable" ) ); //$NON-NLS-1$
+        }
+
+        if ( attributeType.isCollective() )
+        {
+            if ( attributeType.getUsage() != UsageEnum.USER_APPLICATIONS )
+            {
+                errors.add( createError( LdapSchemaExceptionCodes.AT_COLLECTIVE_MUST_HAVE_USER_APPLICATIONS_USAGE,
+                    attributeType, null, "Collective attribute types must have the user applications usage" ) ); //$NON-NLS-1$
+            }
+
+            if ( attributeType.isSingleValued() )
+            {
+                errors.add( createError( LdapSchemaExceptionCodes.AT_COLLECTIVE_CANNOT_BE_SINGLE_VALUED,
+                    attributeType, null, "Collective attribute types cannot be single valued" ) ); //$NON-NLS-1$
+            }
+        }
+    }
+
+
+    private void checkMatchingRule( AttributeType attributeType, String matchingRuleOid,
+        LdapSchemaExceptionCodes code, List<LdapSchemaException> errors )
+    {
+        if ( ( matchingRuleOid != null ) && ( schemaHandler.getMatchingRule( matchingRuleOid ) == null ) )
+        {
+            errors.add( createError( code, attributeType, matchingRuleOid, "Nonexistent matching rule" ) ); //$NON-NLS-1$
+        }
+    }
+
+
+    /**
+     * Checks if following the superiors of the given attribute type leads back to it.
+     */
+    private boolean hasSuperiorCycle( AttributeType attributeType )
+    {
+        Set<AttributeType> visited = Collections.newSetFromMap( new IdentityHashMap<AttributeType, Boolean>() );
+        AttributeType current = attributeType;
+
+        while ( ( current != null ) && ( current.getSuperiorOid() != null ) && visited.add( current ) )
+        {
+            current = schemaHandler.getAttributeType( current.getSuperiorOid() );
+
+            if ( current == attributeType )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Validates an object class.
+     */
+    private void validateObjectClass( ObjectClass objectClass, List<LdapSchemaException> errors )
+    {
+        checkDuplicates( objectClass, errors );
+
+        // Superiors
+        List<String> superiorOids = objectClass.getSuperiorOids();
+        if ( superiorOids != null )
+        {
+            for ( String superiorOid : superiorOids )
+            {
+                ObjectClass superior = schemaHandler.getObjectClass( superiorOid );
+                if ( superior == null )
+                {
+                    errors.add( createError( LdapSchemaExceptionCodes.OC_NONEXISTENT_SUPERIOR, objectClass,
+                        superiorOid, "Nonexistent superior" ) ); //$NON-NLS-1$
+                }
+                else if ( objectClass.isAbstract() && !superior.isAbstract() )
+                {
+                    errors.add( createError( LdapSchemaExceptionCodes.OC_ABSTRACT_MUST_INHERIT_FROM_ABSTRACT_OC,
+                        objectClass, superiorOid, "An abstract object class must inherit from abstract ones" ) ); //$NON-NLS-1$
+                }
+                else if ( objectClass.isAuxiliary() && superior.isStructural() )
+                {
+                    errors.add( createError(
+                        LdapSchemaExceptionCodes.OC_AUXILIARY_CANNOT_INHERIT_FROM_STRUCTURAL_OC, objectClass,
+                        superiorOid, "An auxiliary object class cannot inherit from a structural one" ) ); //$NON-NLS-1$
+                }
+                else if ( objectClass.isStructural() && superior.isAuxiliary() )
+                {
+                    errors.add( createError(
+                        LdapSchemaExceptionCodes.OC_STRUCTURAL_CANNOT_INHERIT_FROM_AUXILIARY_OC, objectClass,
+                        superiorOid, "A structural object class cannot inherit from an auxiliary one" ) ); //$NON-NLS-1$
+                }
+            }
+
+            if ( hasSuperiorCycle( objectClass ) )
+            {
+                errors.add( createError( LdapSchemaExceptionCodes.OC_CYCLE_CLASS_HIERARCHY, objectClass, null,
+                    "Cycle in the class hierarchy" ) ); //$NON-NLS-1$
+            }
+        }
+
+        // Mandatory and optional attribute types
+        Set<AttributeType> mustAttributeTypes = checkAttributeTypes( objectClass,
+            objectClass.getMustAttributeTypeOids(), LdapSchemaExceptionCodes.OC_NONEXISTENT_MUST_AT,
+            LdapSchemaExceptionCodes.OC_DUPLICATE_AT_IN_MUST, LdapSchemaExceptionCodes.OC_COLLECTIVE_NOT_ALLOWED_IN_MUST,
+            errors );
+        Set<AttributeType> mayAttributeTypes = checkAttributeTypes( objectClass,
+            objectClass.getMayAttributeTypeOids(), LdapSchemaExceptionCodes.OC_NONEXISTENT_MAY_AT,
+            LdapSchemaExceptionCodes.OC_DUPLICATE_AT_IN_MAY, LdapSchemaExceptionCodes.OC_COLLECTIVE_NOT_ALLOWED_IN_MAY,
+            errors );
+
+        for ( AttributeType mayAttributeType : mayAttributeTypes )
+        {
+            if ( mustAttributeTypes.contains( mayAttributeType ) )
+            {
+                errors.add( createError( LdapSchemaExceptionCodes.OC_DUPLICATE_AT_IN_MAY_AND_MUST, objectClass,
+                    mayAttributeType.getOid(), "Attribute type in both MAY and MUST" ) ); //$NON-NLS-1$
+            }
+        }
+    }
+
+
+    /**
+     * Checks the mandatory or optional attribute types of an object class.
+     *
+     * @return the resolved attribute types
+     */
+    private Set<AttributeType> checkAttributeTypes( ObjectClass objectClass, List<String> attributeTypeOids,
+        LdapSchemaExceptionCodes nonExistentCode, LdapSchemaExceptionCodes duplicateCode,
+        LdapSchemaExceptionCodes collectiveCode, List<LdapSchemaException> errors )
+    {
+        Set<AttributeType> attributeTypes = Collections
+            .newSetFromMap( new IdentityHashMap<AttributeType, Boolean>() );
+
+        if ( attributeTypeOids != null )
+        {
+            for ( String attributeTypeOid : attributeTypeOids )
+            {
+                AttributeType attributeType = schemaHandler.getAttributeType( attributeTypeOid );
+                if ( attributeType == null )
+                {
+                    errors.add( createError( nonExistentCode, objectClass, attributeTypeOid,
+                        "Nonexistent attribute type" ) ); //$NON-NLS-1$
+                }
+                else if ( !attributeTypes.add( attributeType ) )
+                {
+                    errors.add( createError( duplicateCode, objectClass, attributeTypeOid,
+                        "Duplicate attribute type" ) ); //$NON-NLS-1$
+                }
+                else if ( attributeType.isCollective() )
+                {
+                    errors.add( createError( collectiveCode, objectClass, attributeTypeOid,
+                        "Collective attribute types are not allowed" ) ); //$NON-NLS-1$
+                }
+            }
+        }
+
+        return attributeTypes;
+    }
+
+
+    /**
+     * Checks if following the superiors of the given object class leads back to it.
+     */
+    private boolean hasSuperiorCycle( ObjectClass objectClass )
+    {
+        Set<ObjectClass> visited = Collections.newSetFromMap( new IdentityHashMap<ObjectClass, Boolean>() );
+        List<ObjectClass> toVisit = new ArrayList<ObjectClass>();
+        toVisit.add( objectClass );
+
+        while ( !toVisit.isEmpty() )
+        {
+            ObjectClass current = toVisit.remove( toVisit.size() - 1 );
+
+            if ( !visited.add( current ) || ( current.getSuperiorOids() == null ) )
+            {
+                continue;
+            }
+
+            for ( String superiorOid : current.getSuperiorOids() )
+            {
+                ObjectClass superior = schemaHandler.getObjectClass( superiorOid );
+
+                if ( superior == objectClass )
+                {
+                    return true;
+                }
+                else if ( superior != null )
+                {
+                    toVisit.add( superior );
+                }
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Checks if the OID or a name of the given object is also used by another
+     * object of the same kind.
+     */
+    private void checkDuplicates( SchemaObject schemaObject, List<LdapSchemaException> errors )
+    {
+        String oid = schemaObject.getOid();
+        if ( oid != null )
+        {
+            SchemaObject other = getOther( schemaObject, oid );
+            if ( other != null )
+            {
+                errors.add( createError( LdapSchemaExceptionCodes.OID_ALREADY_REGISTERED, schemaObject, oid, other,
+                    "OID already registered" ) ); //$NON-NLS-1$
+            }
+        }
+
+        List<String> names = schemaObject.getNames();
+        if ( names != null )
+        {
+            Set<String> checkedNames = new HashSet<String>();
+
+            for ( String name : names )
+            {
+                if ( checkedNames.add( Strings.toLowerCase( name ) ) )
+                {
+                    SchemaObject other = getOther( schemaObject, name );
+                    if ( other != null )
+                    {
+                        errors.add( createError( LdapSchemaExceptionCodes.NAME_ALREADY_REGISTERED, schemaObject,
+                            name, other, "Name already registered" ) ); //$NON-NLS-1$
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Gets another object of the same kind with the given name or OID.
+     */
+    private SchemaObject getOther( SchemaObject schemaObject, String id )
+    {
+        List<?> objects = null;
+
+        if ( schemaObject instanceof AttributeType )
+        {
+            objects = schemaHandler.getAttributeTypeList( Strings.toLowerCase( id ) );
+        }
+        else if ( schemaObject instanceof ObjectClass )
+        {
+            objects = schemaHandler.getObjectClassList( Strings.toLowerCase( id ) );
+        }
+
+        if ( objects != null )
+        {
+            for ( Object object : objects )
+            {
+                if ( object != schemaObject )
+                {
+                    return ( SchemaObject ) object;
+                }
+            }
+        }
+
+        return null;
+    }
+
+
+    private static LdapSchemaException createError( LdapSchemaExceptionCodes code, SchemaObject source,
+        String relatedId, String message )
+    {
+        return createError( code, source, relatedId, null, message );
+    }
+
+
+    private static LdapSchemaException createError( LdapSchemaExceptionCodes code, SchemaObject source,
+        String relatedId, SchemaObject other, String message )
+    {
+        LdapSchemaException error = new LdapSchemaException( code, message );
+        error.setSourceObject( source );
+        error.setRelatedId( relatedId );
+        error.setOtherObject( other );
+
+        return error;
+    }
+}
@@ -0,0 +1,643 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.schemaeditor.view.search;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.ldap.model.schema.SchemaObject;
+import org.apache.directory.studio.schemaeditor.PluginConstants;
+import org.apache.directory.studio.schemaeditor.controller.SchemaHandler;
+import org.apache.directory.studio.schemaeditor.controller.SchemaHandlerAdapter;
+import org.apache.directory.studio.schemaeditor.controller.SchemaHandlerListener;
+import org.apache.directory.studio.schemaeditor.model.Schema;
+import org.apache.directory.studio.schemaeditor.view.search.SearchPage.SearchInEnum;
+
+
+/**
+ * This class implements the index used by the Search View.
+ * <p>
+ * For every search in field, the lowercased values of the attribute types and object
+ * classes are kept in a sorted map, and every value is indexed by its trigrams. A
+ * search string without wildcard is looked up directly, a search string with wildcards
+ * only checks the values containing its rarest trigram, or starting with its prefix.
+ * The dot of OIDs is a wildcard too, as it matches any character.
+ * Search strings using other regular expression constructs check all the distinct
+ * values of the field. The candidates are always matched against the same pattern as
+ * before, so the results do not change.
+ * <p>
+ * The index is built on the first search and then kept up to date by listening to
+ * the SchemaHandler.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SchemaSearchIndex
+{
+    /** The length of the indexed n-grams */
+    private static final int GRAM_LENGTH = 3;
+
+    /** The characters, besides the wildcards and the dot, that make a search string a regular expression */
+    private static final String REGEX_CHARACTERS = "\\[]{}()|+^$"; //$NON-NLS-1$
+
+    /** The indexed SchemaHandler */
+    private SchemaHandler schemaHandler;
+
+    /** The flag indicating that the index has been built */
+    private boolean built = false;
+
+    /** The index of every search in field */
+    private Map<SearchInEnum, FieldIndex> fields = new EnumMap<SearchInEnum, FieldIndex>( SearchInEnum.class );
+
+    /** The indexed values of every schema object, schema objects are modified in place so they are compared by identity */
+    private Map<SchemaObject, Map<SearchInEnum, List<String>>> indexedValues =
+        new IdentityHashMap<SchemaObject, Map<SearchInEnum, List<String>>>();
+
+    /** The SchemaHandlerListener */
+    private SchemaHandlerListener schemaHandlerListener = new SchemaHandlerAdapter()
+    {
+        public void attributeTypeAdded( AttributeType at )
+        {
+            update( at );
+        }
+
+
+        public void attributeTypeModified( AttributeType at )
+        {
+            update( at );
+        }
+
+
+        public void attributeTypeRemoved( AttributeType at )
+        {
+            remove( at );
+        }
+
+
+        public void objectClassAdded( ObjectClass oc )
+        {
+            update( oc );
+        }
+
+
+        public void objectClassModified( ObjectClass oc )
+        {
+            update( oc );
+        }
+
+
+        public void objectClassRemoved( ObjectClass oc )
+        {
+            remove( oc );
+        }
+
+
+        public void schemaAdded( Schema schema )
+        {
+            for ( AttributeType at : schema.getAttributeTypes() )
+            {
+                update( at );
+            }
+
+            for ( ObjectClass oc : schema.getObjectClasses() )
+            {
+                update( oc );
+            }
+        }
+
+
+        public void schemaRemoved( Schema schema )
+        {
+            for ( AttributeType at : schema.getAttributeTypes() )
+            {
+                remove( at );
+            }
+
+            for ( ObjectClass oc : schema.getObjectClasses() )
+            {
+                remove( oc );
+            }
+        }
+    };
+
+
+    /**
+     * Sets the SchemaHandler to index. The index is rebuilt on the next search.
+     *
+     * @param schemaHandler
+     *      the SchemaHandler, or null
+     */
+    public synchronized void setSchemaHandler( SchemaHandler schemaHandler )
+    {
+        if ( this.schemaHandler == schemaHandler )
+        {
+            return;
+        }
+
+        if ( this.schemaHandler != null )
+        {
+            this.schemaHandler.removeListener( schemaHandlerListener );
+        }
+
+        this.schemaHandler = schemaHandler;
+        clear();
+
+        if ( schemaHandler != null )
+        {
+            schemaHandler.addListener( schemaHandlerListener );
+        }
+    }
+
+
+    /**
+     * Searches the objects corresponding to the search parameters.
+     *
+     * @param searchString
+     *      the search String
+     * @param searchIn
+     *      the search In
+     * @param scope
+     *      the scope
+     * @return
+     *      the matching attribute types and object classes
+     */
+    public synchronized List<SchemaObject> search( String searchString, SearchInEnum[] searchIn, int scope )
+    {
+        List<SchemaObject> searchResults = new ArrayList<SchemaObject>();
+
+        if ( ( searchString == null ) || ( schemaHandler == null ) )
+        {
+            return searchResults;
+        }
+
+        if ( !built )
+        {
+            build();
+        }
+
+        String computedSearchString = searchString.replaceAll( "\\*", "[\\\\S]*" ); //$NON-NLS-1$ //$NON-NLS-2$
+        computedSearchString = computedSearchString.replaceAll( "\\?", "[\\\\S]" ); //$NON-NLS-1$ //$NON-NLS-2$
+
+        Pattern pattern = Pattern.compile( computedSearchString, Pattern.CASE_INSENSITIVE );
+
+        boolean searchAttributeTypes = ( scope == PluginConstants.PREFS_SEARCH_PAGE_SCOPE_AT_AND_OC )
+            || ( scope == PluginConstants.PREFS_SEARCH_PAGE_SCOPE_AT_ONLY );
+        boolean searchObjectClasses = ( scope == PluginConstants.PREFS_SEARCH_PAGE_SCOPE_AT_AND_OC )
+            || ( scope == PluginConstants.PREFS_SEARCH_PAGE_SCOPE_OC_ONLY );
+
+        Set<SchemaObject> foundObjects = Collections.newSetFromMap( new IdentityHashMap<SchemaObject, Boolean>() );
+
+        for ( SearchInEnum field : searchIn )
+        {
+            FieldIndex fieldIndex = fields.get( field );
+
+            if ( fieldIndex == null )
+            {
+                continue;
+            }
+
+            for ( String value : fieldIndex.getCandidates( searchString ) )
+            {
+                if ( pattern.matcher( value ).matches() )
+                {
+                    for ( SchemaObject schemaObject : fieldIndex.getSchemaObjects( value ) )
+                    {
+                        boolean inScope = ( searchAttributeTypes && ( schemaObject instanceof AttributeType ) )
+                            || ( searchObjectClasses && ( schemaObject instanceof ObjectClass ) );
+
+                        if ( inScope && foundObjects.add( schemaObject ) )
+                        {
+                            searchResults.add( schemaObject );
+                        }
+                    }
+                }
+            }
+        }
+
+        return searchResults;
+    }
+
+
+    /**
+     * Stops listening to the SchemaHandler and clears the index.
+     */
+    public void dispose()
+    {
+        setSchemaHandler( null );
+    }
+
+
+    /**
+     * Indexes all the attribute types and object classes of the SchemaHandler.
+     */
+    private void build()
+    {
+        clear();
+
+        for ( AttributeType at : schemaHandler.getAttributeTypes() )
+        {
+            add( at );
+        }
+
+        for ( ObjectClass oc : schemaHandler.getObjectClasses() )
+        {
+            add( oc );
+        }
+
+        built = true;
+    }
+
+
+    /**
+     * Clears the index.
+     */
+    private void clear()
+    {
+        fields.clear();
+        indexedValues.clear();
+        built = false;
+    }
+
+
+    /**
+     * Indexes the given schema object again, if the index is built.
+     *
+     * @param schemaObject
+     *      the added or modified schema object
+     */
+    private synchronized void update( SchemaObject schemaObject )
+    {
+        if ( built )
+        {
+            remove( schemaObject );
+            add( schemaObject );
+        }
+    }
+
+
+    /**
+     * Adds the given schema object to the index.
+     *
+     * @param schemaObject
+     *      the schema object
+     */
+    private void add( SchemaObject schemaObject )
+    {
+        Map<SearchInEnum, List<String>> values = getValues( schemaObject );
+        indexedValues.put( schemaObject, values );
+
+        for ( Map.Entry<SearchInEnum, List<String>> entry : values.entrySet() )
+        {
+            FieldIndex fieldIndex = fields.get( entry.getKey() );
+
+            if ( fieldIndex == null )
+            {
+                fieldIndex = new FieldIndex();
+                fields.put( entry.getKey(), fieldIndex );
+            }
+
+            for ( String value : entry.getValue() )
+            {
+                fieldIndex.add( value, schemaObject );
+            }
+        }
+    }
+
+
+    /**
+     * Removes the given schema object from the index, using the values it had
+     * when it was indexed.
+     *
+     * @param schemaObject
+     *      the schema object
+     */
+    private synchronized void remove( SchemaObject schemaObject )
+    {
+        Map<SearchInEnum, List<String>> values = indexedValues.remove( schemaObject );
+
+        if ( values != null )
+        {
+            for ( Map.Entry<SearchInEnum, List<String>> entry : values.entrySet() )
+            {
+                FieldIndex fieldIndex = fields.get( entry.getKey() );
+
+                for ( String value : entry.getValue() )
+                {
+                    fieldIndex.remove( value, schemaObject );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Gets the lowercased values of the given schema object, for every search in field.
+     *
+     * @param schemaObject
+     *      the schema object
+     * @return
+     *      the values
+     */
+    private static Map<SearchInEnum, List<String>> getValues( SchemaObject schemaObject )
+    {
+        Map<SearchInEnum, List<String>> values = new EnumMap<SearchInEnum, List<String>>( SearchInEnum.class );
+
+        addValues( values, SearchInEnum.ALIASES, schemaObject.getNames() );
+        addValue( values, SearchInEnum.OID, schemaObject.getOid() );
+        addValue( values, SearchInEnum.DESCRIPTION, schemaObject.getDescription() );
+
+        if ( schemaObject instanceof AttributeType )
+        {
+            AttributeType at = ( AttributeType ) schemaObject;
+
+            addValue( values, SearchInEnum.SUPERIOR, at.getSuperiorOid() );
+            addValue( values, SearchInEnum.SYNTAX, at.getSyntaxOid() );
+            addValue( values, SearchInEnum.MATCHING_RULES, at.getEqualityOid() );
+            addValue( values, SearchInEnum.MATCHING_RULES, at.getOrderingOid() );
+            addValue( values, SearchInEnum.MATCHING_RULES, at.getSubstringOid() );
+        }
+        else if ( schemaObject instanceof ObjectClass )
+        {
+            ObjectClass oc = ( ObjectClass ) schemaObject;
+
+            addValues( values, SearchInEnum.SUPERIORS, oc.getSuperiorOids() );
+            addValues( values, SearchInEnum.MANDATORY_ATTRIBUTES, oc.getMustAttributeTypeOids() );
+            addValues( values, SearchInEnum.OPTIONAL_ATTRIBUTES, oc.getMayAttributeTypeOids() );
+        }
+
+        return values;
+    }
+
+
+    private static void addValues( Map<SearchInEnum, List<String>> values, SearchInEnum field, List<String> list )
+    {
+        if ( list != null )
+        {
+            for ( String value : list )
+            {
+                addValue( values, field, value );
+            }
+        }
+    }
+
+
+    private static void addValue( Map<SearchInEnum, List<String>> values, SearchInEnum field, String value )
+    {
+        if ( value != null )
+        {
+            List<String> fieldValues = values.get( field );
+
+            if ( fieldValues == null )
+            {
+                fieldValues = new ArrayList<String>();
+                values.put( field, fieldValues );
+            }
+
+            fieldValues.add( toLowerCase( value ) );
+        }
+    }
+
+
+    /**
+     * Lowercases the ASCII characters of the given string, the way a case insensitive
+     * pattern compares them.
+     *
+     * @param value
+     *      the string
+     * @return
+     *      the lowercased string
+     */
+    private static String toLowerCase( String value )
+    {
+        char[] chars = null;
+
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+
+            if ( ( c >= 'A' ) && ( c <= 'Z' ) )
+            {
+                if ( chars == null )
+                {
+                    chars = value.toCharArray();
+                }
+
+                chars[i] = ( char ) ( c + ( 'a' - 'A' ) );
+            }
+        }
+
+        return chars == null ? value : new String( chars );
+    }
+
+
+    /**
+     * This class indexes the values of one search in field.
+     */
+    private static class FieldIndex
+    {
+        /** The schema objects of every lowercased value */
+        private NavigableMap<String, Set<SchemaObject>> values = new TreeMap<String, Set<SchemaObject>>();
+
+        /** The lowercased values containing every n-gram */
+        private Map<String, Set<String>> grams = new HashMap<String, Set<String>>();
+
+
+        /**
+         * Adds a value of the given schema object.
+         */
+        private void add( String value, SchemaObject schemaObject )
+        {
+            Set<SchemaObject> schemaObjects = values.get( value );
+
+            if ( schemaObjects == null )
+            {
+                schemaObjects = Collections.newSetFromMap( new IdentityHashMap<SchemaObject, Boolean>() );
+                values.put( value, schemaObjects );
+
+                for ( int i = 0; i + GRAM_LENGTH <= value.length(); i++ )
+                {
+                    String gram = value.substring( i, i + GRAM_LENGTH );
+                    Set<String> gramValues = grams.get( gram );
+
+                    if ( gramValues == null )
+                    {
+                        gramValues = new HashSet<String>();
+                        grams.put( gram, gramValues );
+                    }
+
+                    gramValues.add( value );
+                }
+            }
+
+            schemaObjects.add( schemaObject );
+        }
+
+
+        /**
+         * Removes a value of the given schema object.
+         */
+        private void remove( String value, SchemaObject schemaObject )
+        {
+            Set<SchemaObject> schemaObjects = values.get( value );
+
+            if ( schemaObjects == null )
+            {
+                return;
+            }
+
+            schemaObjects.remove( schemaObject );
+
+            if ( schemaObjects.isEmpty() )
+            {
+                values.remove( value );
+
+                for ( int i = 0; i + GRAM_LENGTH <= value.length(); i++ )
+                {
+                    String gram = value.substring( i, i + GRAM_LENGTH );
+                    Set<String> gramValues = grams.get( gram );
+
+                    if ( gramValues != null )
+                    {
+                        gramValues.remove( value );
+
+                        if ( gramValues.isEmpty() )
+                        {
+                            grams.remove( gram );
+                        }
+                    }
+                }
+            }
+        }
+
+
+        /**
+         * Gets the schema objects having the given lowercased value.
+         */
+        private Set<SchemaObject> getSchemaObjects( String value )
+        {
+            return values.get( value );
+        }
+
+
+        /**
+         * Gets the values that may match the given search string. The returned
+         * values still need to be matched against the search pattern.
+         */
+        private Collection<String> getCandidates( String searchString )
+        {
+            for ( int i = 0; i < searchString.length(); i++ )
+            {
+                if ( REGEX_CHARACTERS.indexOf( searchString.charAt( i ) ) != -1 )
+                {
+                    return values.keySet();
+                }
+            }
+
+            String lowerCaseSearchString = toLowerCase( searchString );
+
+            // No wildcard, at most one value matches
+            int firstWildcard = indexOfWildcard( lowerCaseSearchString, 0 );
+            if ( firstWildcard == -1 )
+            {
+                if ( values.containsKey( lowerCaseSearchString ) )
+                {
+                    return Collections.singleton( lowerCaseSearchString );
+                }
+
+                return Collections.emptySet();
+            }
+
+            // The values containing the rarest n-gram of the literal parts
+            Collection<String> candidates = null;
+            int start = 0;
+
+            while ( start <= lowerCaseSearchString.length() )
+            {
+                int end = indexOfWildcard( lowerCaseSearchString, start );
+                if ( end == -1 )
+                {
+                    end = lowerCaseSearchString.length();
+                }
+
+                for ( int i = start; i + GRAM_LENGTH <= end; i++ )
+                {
+                    Set<String> gramValues = grams.get( lowerCaseSearchString.substring( i, i + GRAM_LENGTH ) );
+
+                    if ( gramValues == null )
+                    {
+                        return Collections.emptySet();
+                    }
+
+                    if ( ( candidates == null ) || ( gramValues.size() < candidates.size() ) )
+                    {
+                        candidates = gramValues;
+                    }
+                }
+
+                start = end + 1;
+            }
+
+            if ( candidates != null )
+            {
+                return candidates;
+            }
+
+            // The values starting with the literal prefix
+            if ( firstWildcard > 0 )
+            {
+                String prefix = lowerCaseSearchString.substring( 0, firstWildcard );
+
+                return values.subMap( prefix, true, prefix + Character.MAX_VALUE, true ).keySet();
+            }
+
+            return values.keySet();
+        }
+
+
+        private static int indexOfWildcard( String searchString, int fromIndex )
+        {
+            for ( int i = fromIndex; i < searchString.length(); i++ )
+            {
+                char c = searchString.charAt( i );
+
+                if ( ( c == '*' ) || ( c == '?' ) || ( c == '.' ) )
+                {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+    }
+}
@@ -21,10 +21,8 @@
 package org.apache.directory.studio.schemaeditor.view.views;
 
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Pattern;
 
 import org.apache.directory.api.ldap.model.schema.AttributeType;
 import org.apache.directory.api.ldap.model.schema.ObjectClass;
@@ -32,13 +30,13 @@ import org.apache.directory.api.ldap.model.schema.SchemaObject;
 import org.apache.directory.studio.schemaeditor.Activator;
 import org.apache.directory.studio.schemaeditor.PluginConstants;
 import org.apache.directory.studio.schemaeditor.PluginUtils;
-import org.apache.directory.studio.schemaeditor.controller.SchemaHandler;
 import org.apache.directory.studio.schemaeditor.controller.SearchViewController;
 import org.apache.directory.studio.schemaeditor.view.ViewUtils;
 import org.apache.directory.studio.schemaeditor.view.editors.attributetype.AttributeTypeEditor;
 import org.apache.directory.studio.schemaeditor.view.editors.attributetype.AttributeTypeEditorInput;
 import org.apache.directory.studio.schemaeditor.view.editors.objectclass.ObjectClassEditor;
 import org.apache.directory.studio.schemaeditor.view.editors.objectclass.ObjectClassEditorInput;
+import org.apache.directory.studio.schemaeditor.view.search.SchemaSearchIndex;
 import org.apache.directory.studio.schemaeditor.view.search.SearchPage;
 import org.apache.directory.studio.schemaeditor.view.search.SearchPage.SearchInEnum;
 import org.eclipse.jface.action.Action;
@@ -84,9 +82,15 @@ public class SearchView extends ViewPart
     /** The view's ID */
     public static final String ID = PluginConstants.VIEW_SEARCH_VIEW_ID;
 
+    /** The associated controller */
+    private SearchViewController controller;
+
     /** The current Search String */
     private String searchString;
 
+    /** The search index */
+    private SchemaSearchIndex searchIndex = new SchemaSearchIndex();
+
     // UI fields
     private Text searchField;
     private Button searchButton;
@@ -155,7 +159,9 @@ public class SearchView extends ViewPart
 
         setSearchResultsLabel( null, 0 );
 
-        new SearchViewController( this );
+        searchIndex.setSchemaHandler( Activator.getDefault().getSchemaHandler() );
+
+        controller = new SearchViewController( this );
     }
 
 
@@ -679,214 +685,7 @@ public class SearchView extends ViewPart
      */
     private List<SchemaObject> search( String searchString, SearchInEnum[] searchIn, int scope )
     {
-        List<SchemaObject> searchResults = new ArrayList<SchemaObject>();
-
-        if ( searchString != null )
-        {
-            String computedSearchString = searchString.replaceAll( "\\*", "[\\\\S]*" ); //$NON-NLS-1$ //$NON-NLS-2$
-            computedSearchString = computedSearchString.replaceAll( "\\?", "[\\\\S]" ); //$NON-NLS-1$ //$NON-NLS-2$
-
-            Pattern pattern = Pattern.compile( computedSearchString, Pattern.CASE_INSENSITIVE );
-
-            SchemaHandler schemaHandler = Activator.getDefault().getSchemaHandler();
-            if ( schemaHandler != null )
-            {
-                List<SearchInEnum> searchScope = new ArrayList<SearchInEnum>( Arrays.asList( searchIn ) );
-
-                if ( ( scope == PluginConstants.PREFS_SEARCH_PAGE_SCOPE_AT_AND_OC )
-                    || ( scope == PluginConstants.PREFS_SEARCH_PAGE_SCOPE_AT_ONLY ) )
-                {
-                    // Looping on attribute types
-                    List<AttributeType> attributeTypes = schemaHandler.getAttributeTypes();
-                    for ( AttributeType at : attributeTypes )
-                    {
-                        // Aliases
-                        if ( searchScope.contains( SearchInEnum.ALIASES ) )
-                        {
-                            if ( checkList( pattern, at.getNames() ) )
-                            {
-                                searchResults.add( at );
-                                continue;
-                            }
-                        }
-
-                        // OID
-                        if ( searchScope.contains( SearchInEnum.OID ) )
-                        {
-                            if ( checkString( pattern, at.getOid() ) )
-                            {
-                                searchResults.add( at );
-                                continue;
-                            }
-                        }
-
-                        // Description
-                        if ( searchScope.contains( SearchInEnum.DESCRIPTION ) )
-                        {
-                            if ( checkString( pattern, at.getDescription() ) )
-                            {
-                                searchResults.add( at );
-                                continue;
-                            }
-                        }
-
-                        // Superior
-                        if ( searchScope.contains( SearchInEnum.SUPERIOR ) )
-                        {
-                            if ( checkString( pattern, at.getSuperiorOid() ) )
-                            {
-                                searchResults.add( at );
-                                continue;
-                            }
-                        }
-
-                        // Syntax
-                        if ( searchScope.contains( SearchInEnum.SYNTAX ) )
-                        {
-                            if ( checkString( pattern, at.getSyntaxOid() ) )
-                            {
-                                searchResults.add( at );
-                                continue;
-                            }
-                        }
-
-                        // Matching Rules
-                        if ( searchScope.contains( SearchInEnum.MATCHING_RULES ) )
-                        {
-                            // Equality
-                            if ( checkString( pattern, at.getEqualityOid() ) )
-                            {
-                                searchResults.add( at );
-                                continue;
-                            }
-
-                            // Ordering
-                            if ( checkString( pattern, at.getOrderingOid() ) )
-                            {
-                                searchResults.add( at );
-                                continue;
-                            }
-
-                            // Substring
-                            if ( checkString( pattern, at.getSubstringOid() ) )
-                            {
-                                searchResults.add( at );
-                                continue;
-                            }
-                        }
-                    }
-                }
-
-                if ( ( scope == PluginConstants.PREFS_SEARCH_PAGE_SCOPE_AT_AND_OC )
-                    || ( scope == PluginConstants.PREFS_SEARCH_PAGE_SCOPE_OC_ONLY ) )
-                {
-                    // Looping on object classes
-                    List<ObjectClass> objectClasses = schemaHandler.getObjectClasses();
-                    for ( ObjectClass oc : objectClasses )
-                    {
-                        // Aliases
-                        if ( searchScope.contains( SearchInEnum.ALIASES ) )
-                        {
-                            if ( checkList( pattern, oc.getNames() ) )
-                            {
-                                searchResults.add( oc );
-                                continue;
-                            }
-                        }
-
-                        // OID
-                        if ( searchScope.contains( SearchInEnum.OID ) )
-                        {
-                            if ( checkString( pattern, oc.getOid() ) )
-                            {
-                                searchResults.add( oc );
-                                continue;
-                            }
-                        }
-
-                        // Description
-                        if ( searchScope.contains( SearchInEnum.DESCRIPTION ) )
-                        {
-                            if ( checkString( pattern, oc.getDescription() ) )
-                            {
-                                searchResults.add( oc );
-                                continue;
-                            }
-                        }
-
-                        // Superiors
-                        if ( searchScope.contains( SearchInEnum.SUPERIORS ) )
-                        {
-                            if ( checkList( pattern, oc.getSuperiorOids() ) )
-                            {
-                                searchResults.add( oc );
-                                continue;
-                            }
-                        }
-
-                        // Mandatory Attributes
-                        if ( searchScope.contains( SearchInEnum.MANDATORY_ATTRIBUTES ) )
-                        {
-                            if ( checkList( pattern, oc.getMustAttributeTypeOids() ) )
-                            {
-                                searchResults.add( oc );
-                                continue;
-                            }
-                        }
-
-                        // Optional Attributes
-                        if ( searchScope.contains( SearchInEnum.OPTIONAL_ATTRIBUTES ) )
-                        {
-                            if ( checkList( pattern, oc.getMayAttributeTypeOids() ) )
-                            {
-                                searchResults.add( oc );
-                                continue;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-
-        return searchResults;
-    }
-
-
-    /**
-     * Check an array with the given pattern.
-     *
-     * @param pattern
-     *      the Regex pattern
-     * @param list
-     *      the array
-     * @return
-     *      true if the pattern matches one of the aliases, false, if not.
-     */
-    private boolean checkList( Pattern pattern, List<String> list )
-    {
-        if ( list != null )
-        {
-            for ( String string : list )
-            {
-                if ( pattern.matcher( string ).matches() )
-                {
-                    return true;
-                }
-            }
-        }
-
-        return false;
-    }
-
-
-    private boolean checkString( Pattern pattern, String string )
-    {
-        if ( string != null )
-        {
-            return pattern.matcher( string ).matches();
-        }
-
-        return false;
+        return searchIndex.search( searchString, searchIn, scope );
     }
 
 
@@ -968,6 +767,18 @@ public class SearchView extends ViewPart
     }
 
 
+    /**
+     * Gets the search index.
+     *
+     * @return
+     *      the search index
+     */
+    public SchemaSearchIndex getSearchIndex()
+    {
+        return searchIndex;
+    }
+
+
     /**
      * Refreshes the view.
      */
@@ -975,4 +786,16 @@ public class SearchView extends ViewPart
     {
         resultsTableViewer.refresh();
     }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void dispose()
+    {
+        controller.dispose();
+        searchIndex.dispose();
+
+        super.dispose();
+    }
 }
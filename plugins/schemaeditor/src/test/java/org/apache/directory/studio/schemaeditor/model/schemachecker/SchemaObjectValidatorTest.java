@@ -0,0 +1,202 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.studio.schemaeditor.model.schemachecker;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.exception.LdapSchemaException;
+import org.apache.directory.api.ldap.model.exception.LdapSchemaExceptionCodes;
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.LdapSyntax;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.studio.schemaeditor.controller.SchemaHandler;
+import org.apache.directory.studio.schemaeditor.model.Schema;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * This class tests the SchemaObjectValidator and SchemaDependencyIndex classes.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SchemaObjectValidatorTest
+{
+    private static final String SYNTAX_OID = "1.3.6.1.4.1.1466.115.121.1.15"; //$NON-NLS-1$
+
+    private SchemaHandler schemaHandler;
+
+    private Schema schema;
+
+
+    @BeforeEach
+    public void setUp()
+    {
+        schema = new Schema( "test" ); //$NON-NLS-1$
+        schema.addSyntax( new LdapSyntax( SYNTAX_OID ) );
+        schemaHandler = new SchemaHandler();
+    }
+
+
+    /**
+     * Tests a valid attribute type and a valid object class.
+     */
+    @Test
+    public void testValid() throws Exception
+    {
+        AttributeType name = createAttributeType( "1.1.1", "name", null ); //$NON-NLS-1$ //$NON-NLS-2$
+        ObjectClass person = createObjectClass( "1.1.2", "person", "name" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        schemaHandler.addSchema( schema );
+
+        SchemaObjectValidator validator = new SchemaObjectValidator( schemaHandler );
+
+        assertTrue( validator.validate( name ).isEmpty() );
+        assertTrue( validator.validate( person ).isEmpty() );
+    }
+
+
+    /**
+     * Tests the errors on nonexistent references.
+     */
+    @Test
+    public void testNonexistentReferences() throws Exception
+    {
+        AttributeType cn = createAttributeType( "1.1.1", "cn", "name" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        ObjectClass person = createObjectClass( "1.1.2", "person", "sn" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        schemaHandler.addSchema( schema );
+
+        SchemaObjectValidator validator = new SchemaObjectValidator( schemaHandler );
+
+        List<LdapSchemaException> errors = validator.validate( cn );
+        assertEquals( 1, errors.size() );
+        assertEquals( LdapSchemaExceptionCodes.AT_NONEXISTENT_SUPERIOR, errors.get( 0 ).getCode() );
+        assertSame( cn, errors.get( 0 ).getSourceObject() );
+        assertEquals( "name", errors.get( 0 ).getRelatedId() ); //$NON-NLS-1$
+
+        errors = validator.validate( person );
+        assertEquals( 1, errors.size() );
+        assertEquals( LdapSchemaExceptionCodes.OC_NONEXISTENT_MUST_AT, errors.get( 0 ).getCode() );
+    }
+
+
+    /**
+     * Tests the error on a cycle in the attribute type hierarchy.
+     */
+    @Test
+    public void testSuperiorCycle() throws Exception
+    {
+        AttributeType a = createAttributeType( "1.1.1", "a", "c" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        createAttributeType( "1.1.2", "b", "a" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        createAttributeType( "1.1.3", "c", "b" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        schemaHandler.addSchema( schema );
+
+        List<LdapSchemaException> errors = new SchemaObjectValidator( schemaHandler ).validate( a );
+        assertEquals( 1, errors.size() );
+        assertEquals( LdapSchemaExceptionCodes.AT_CYCLE_TYPE_HIERARCHY, errors.get( 0 ).getCode() );
+    }
+
+
+    /**
+     * Tests the error on a name used by two attribute types.
+     */
+    @Test
+    public void testDuplicateName() throws Exception
+    {
+        AttributeType a = createAttributeType( "1.1.1", "name", null ); //$NON-NLS-1$ //$NON-NLS-2$
+        AttributeType b = createAttributeType( "1.1.2", "NAME", null ); //$NON-NLS-1$ //$NON-NLS-2$
+        schemaHandler.addSchema( schema );
+
+        List<LdapSchemaException> errors = new SchemaObjectValidator( schemaHandler ).validate( a );
+        assertEquals( 1, errors.size() );
+        assertEquals( LdapSchemaExceptionCodes.NAME_ALREADY_REGISTERED, errors.get( 0 ).getCode() );
+        assertSame( b, errors.get( 0 ).getOtherObject() );
+    }
+
+
+    /**
+     * Tests the dependents found by the dependency index.
+     */
+    @Test
+    public void testDependencyIndex() throws Exception
+    {
+        AttributeType name = createAttributeType( "1.1.1", "name", null ); //$NON-NLS-1$ //$NON-NLS-2$
+        AttributeType cn = createAttributeType( "1.1.2", "cn", "NAME" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        ObjectClass person = createObjectClass( "1.1.3", "person", "name" ); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+        SchemaDependencyIndex index = new SchemaDependencyIndex();
+        index.put( name );
+        index.put( cn );
+        index.put( person );
+
+        List<?> dependents = index.getDependents( index.getIndexedIds( name ) );
+        assertEquals( 2, dependents.size() );
+        assertTrue( dependents.contains( cn ) );
+        assertTrue( dependents.contains( person ) );
+
+        // The old names are kept until the object is indexed again
+        name.setNames( "fullName" ); //$NON-NLS-1$
+        assertTrue( index.getIndexedIds( name ).contains( "name" ) ); //$NON-NLS-1$
+        index.put( name );
+        assertEquals( 0, index.getDependents( index.getIndexedIds( name ) ).size() );
+
+        index.remove( person );
+        assertEquals( Arrays.asList( cn ), index.getDependents( Arrays.asList( "name" ) ) ); //$NON-NLS-1$
+    }
+
+
+    private AttributeType createAttributeType( String oid, String name, String superior )
+    {
+        AttributeType attributeType = new AttributeType( oid );
+        attributeType.setNames( name );
+        attributeType.setSchemaName( schema.getSchemaName() );
+
+        if ( superior != null )
+        {
+            attributeType.setSuperiorOid( superior );
+        }
+        else
+        {
+            attributeType.setSyntaxOid( SYNTAX_OID );
+        }
+
+        schema.addAttributeType( attributeType );
+
+        return attributeType;
+    }
+
+
+    private ObjectClass createObjectClass( String oid, String name, String must )
+    {
+        ObjectClass objectClass = new ObjectClass( oid );
+        objectClass.setNames( name );
+        objectClass.setSchemaName( schema.getSchemaName() );
+        objectClass.setMustAttributeTypeOids( Arrays.asList( must ) );
+        schema.addObjectClass( objectClass );
+
+        return objectClass;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.schemaeditor.view.search;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.ldap.model.schema.SchemaObject;
+import org.apache.directory.studio.schemaeditor.PluginConstants;
+import org.apache.directory.studio.schemaeditor.controller.SchemaHandler;
+import org.apache.directory.studio.schemaeditor.model.Schema;
+import org.apache.directory.studio.schemaeditor.view.search.SearchPage.SearchInEnum;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * This class tests the SchemaSearchIndex class.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SchemaSearchIndexTest
+{
+    private static final SearchInEnum[] ALL = SearchInEnum.values();
+
+    private SchemaHandler schemaHandler;
+
+    private SchemaSearchIndex index;
+
+    private AttributeType cn;
+
+    private AttributeType commonName;
+
+    private ObjectClass person;
+
+
+    @BeforeEach
+    public void setUp()
+    {
+        Schema schema = new Schema( "test" ); //$NON-NLS-1$
+
+        cn = new AttributeType( "2.5.4.3" ); //$NON-NLS-1$
+        cn.setNames( "cn", "commonName" ); //$NON-NLS-1$ //$NON-NLS-2$
+        cn.setDescription( "RFC4519: common name(s) for which the entity is known by" ); //$NON-NLS-1$
+        cn.setSchemaName( "test" ); //$NON-NLS-1$
+        schema.addAttributeType( cn );
+
+        commonName = new AttributeType( "1.2.3.4" ); //$NON-NLS-1$
+        commonName.setNames( "myCommonNameCopy" ); //$NON-NLS-1$
+        commonName.setSuperiorOid( "cn" ); //$NON-NLS-1$
+        commonName.setSchemaName( "test" ); //$NON-NLS-1$
+        schema.addAttributeType( commonName );
+
+        person = new ObjectClass( "2.5.6.6" ); //$NON-NLS-1$
+        person.setNames( "person" ); //$NON-NLS-1$
+        person.setMustAttributeTypeOids( Arrays.asList( "sn", "cn" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        person.setSchemaName( "test" ); //$NON-NLS-1$
+        schema.addObjectClass( person );
+
+        schemaHandler = new SchemaHandler();
+        schemaHandler.addSchema( schema );
+
+        index = new SchemaSearchIndex();
+        index.setSchemaHandler( schemaHandler );
+    }
+
+
+    @Test
+    public void testExactMatch()
+    {
+        List<SchemaObject> results = search( "CN", SearchInEnum.ALIASES ); //$NON-NLS-1$
+
+        assertEquals( 1, results.size() );
+        assertSame( cn, results.get( 0 ) );
+    }
+
+
+    @Test
+    public void testWildcards()
+    {
+        assertEquals( 2, search( "*commonName*", SearchInEnum.ALIASES ).size() ); //$NON-NLS-1$
+        assertEquals( 3, search( "c?", ALL ).size() ); //$NON-NLS-1$
+        assertEquals( 1, search( "per*", SearchInEnum.ALIASES ).size() ); //$NON-NLS-1$
+        assertEquals( 0, search( "*xyz*", ALL ).size() ); //$NON-NLS-1$
+    }
+
+
+    @Test
+    public void testOid()
+    {
+        assertSame( cn, search( "2.5.4.3", SearchInEnum.OID ).get( 0 ) ); //$NON-NLS-1$
+        assertEquals( 2, search( "2.5.*", SearchInEnum.OID ).size() ); //$NON-NLS-1$
+    }
+
+
+    @Test
+    public void testRegularExpression()
+    {
+        assertEquals( 1, search( "RFC4519: common name\\(s\\).*", SearchInEnum.DESCRIPTION ).size() ); //$NON-NLS-1$
+        assertEquals( 2, search( "(cn|person)", SearchInEnum.ALIASES ).size() ); //$NON-NLS-1$
+    }
+
+
+    @Test
+    public void testScope()
+    {
+        List<SchemaObject> results = index.search( "cn", ALL, PluginConstants.PREFS_SEARCH_PAGE_SCOPE_OC_ONLY ); //$NON-NLS-1$
+
+        assertEquals( 1, results.size() );
+        assertSame( person, results.get( 0 ) );
+        assertEquals( 3, search( "cn", ALL ).size() ); //$NON-NLS-1$
+    }
+
+
+    @Test
+    public void testUpdates()
+    {
+        assertEquals( 1, search( "person", SearchInEnum.ALIASES ).size() ); //$NON-NLS-1$
+
+        ObjectClass newPerson = new ObjectClass( "2.5.6.6" ); //$NON-NLS-1$
+        newPerson.setNames( "human" ); //$NON-NLS-1$
+        schemaHandler.modifyObjectClass( person, newPerson );
+
+        assertEquals( 0, search( "person", SearchInEnum.ALIASES ).size() ); //$NON-NLS-1$
+        assertSame( person, search( "hum*", SearchInEnum.ALIASES ).get( 0 ) ); //$NON-NLS-1$
+
+        schemaHandler.removeAttributeType( commonName );
+        assertEquals( 1, search( "*commonName*", SearchInEnum.ALIASES ).size() ); //$NON-NLS-1$
+
+        AttributeType sn = new AttributeType( "2.5.4.4" ); //$NON-NLS-1$
+        sn.setNames( "sn", "surname" ); //$NON-NLS-1$ //$NON-NLS-2$
+        sn.setSchemaName( "test" ); //$NON-NLS-1$
+        schemaHandler.addAttributeType( sn );
+
+        List<SchemaObject> results = search( "*name", SearchInEnum.ALIASES ); //$NON-NLS-1$
+        assertEquals( 2, results.size() );
+        assertTrue( results.contains( sn ) );
+    }
+
+
+    private List<SchemaObject> search( String searchString, SearchInEnum... searchIn )
+    {
+        return index.search( searchString, searchIn, PluginConstants.PREFS_SEARCH_PAGE_SCOPE_AT_AND_OC );
+    }
+}
@@ -104,6 +104,8 @@ import org.apache.directory.studio.connection.core.IReferralHandler;
 import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
 import org.apache.directory.studio.connection.core.io.ConnectionWrapper;
 import org.apache.directory.studio.connection.core.io.StudioLdapException;
+import org.apache.directory.studio.connection.core.io.WritePipeline;
+import org.apache.directory.studio.connection.core.io.WritePipeline.PendingWrite;
 import org.apache.directory.studio.connection.core.io.api.DirectoryApiConnectionWrapper;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResult;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
@@ -1028,6 +1030,51 @@ public class DirectoryApiConnectionWrapperTest
     }
 
 
+    /**
+     * Test parallel searches using the connection pool.
+     */
+    @ParameterizedTest
+    @LdapServersSource
+    public void testSearchWithConnectionPool( TestLdapServer ldapServer ) throws Exception
+    {
+        StudioProgressMonitor monitor = getProgressMonitor();
+        Connection connection = getConnection( monitor, ldapServer, ldapServer.getAdminDn(),
+            ldapServer.getAdminPassword() );
+        connection.getConnectionParameter().setPoolEnabled( true );
+        connection.getConnectionParameter().setPoolMaxSize( 2 );
+        connectionWrapper.connect( monitor );
+        connectionWrapper.bind( monitor );
+        assertTrue( connectionWrapper.isConnected() );
+        assertNull( monitor.getException() );
+
+        ExecutorService pool = Executors.newFixedThreadPool( 4 );
+        List<Future<Integer>> futures = new ArrayList<>();
+        for ( int i = 0; i < 8; i++ )
+        {
+            futures.add( pool.submit( () -> {
+                StudioProgressMonitor searchMonitor = getProgressMonitor();
+                SearchControls searchControls = new SearchControls();
+                searchControls.setSearchScope( SearchControls.SUBTREE_SCOPE );
+                StudioSearchResultEnumeration result = connectionWrapper.search( USERS_DN.getName(),
+                    "(objectClass=*)", searchControls, AliasDereferencingMethod.NEVER,
+                    ReferralHandlingMethod.IGNORE, null, searchMonitor, null );
+                assertFalse( searchMonitor.errorsReported() );
+                return consume( result, sr -> sr.getDn() ).size();
+            } ) );
+        }
+
+        int expected = futures.get( 0 ).get( 60, TimeUnit.SECONDS );
+        assertTrue( expected > 0 );
+        for ( Future<Integer> future : futures )
+        {
+            assertEquals( expected, future.get( 60, TimeUnit.SECONDS ) );
+        }
+
+        pool.shutdownNow();
+        pool.awaitTermination( 60, TimeUnit.SECONDS );
+    }
+
+
     /**
      * Test binary attributes.
      */
@@ -1305,6 +1352,47 @@ public class DirectoryApiConnectionWrapperTest
     }
 
 
+    @ParameterizedTest
+    @LdapServersSource
+    public void testAddWithWritePipeline( TestLdapServer ldapServer ) throws Exception
+    {
+        StudioProgressMonitor monitor = getProgressMonitor();
+        WritePipeline pipeline = getConnectionWrapper( monitor, ldapServer ).openWritePipeline( 4, monitor );
+
+        // send more requests than the window size
+        List<PendingWrite> pendingWrites = new ArrayList<>();
+        for ( int i = 0; i < 10; i++ )
+        {
+            Entry entry = new DefaultEntry( "uid=user.X" + i + "," + USERS_DN, "objectClass: inetOrgPerson",
+                "sn: X", "cn: X", "uid: user.X" + i );
+            pendingWrites.add( pipeline.createEntry( entry, null ) );
+        }
+
+        // an existing entry
+        Entry existingEntry = new DefaultEntry( "uid=user.X0," + USERS_DN, "objectClass: inetOrgPerson",
+            "sn: X", "cn: X", "uid: user.X0" );
+        PendingWrite failingWrite = pipeline.createEntry( existingEntry, null );
+
+        // should have created all entries
+        for ( int i = 0; i < 10; i++ )
+        {
+            StudioProgressMonitor writeMonitor = getProgressMonitor();
+            pendingWrites.get( i ).await( writeMonitor );
+            assertFalse( writeMonitor.errorsReported() );
+            String dn = "uid=user.X" + i + "," + USERS_DN;
+            assertTrue( ldapServer.withAdminConnectionAndGet( connection -> connection.exists( dn ) ) );
+        }
+
+        // should report the error of the failed request
+        StudioProgressMonitor failingMonitor = getProgressMonitor();
+        failingWrite.await( failingMonitor );
+        assertTrue( failingMonitor.errorsReported() );
+        assertTrue( StudioLdapException.isEntryAlreadyExistsException( failingMonitor.getException() ) );
+
+        pipeline.close();
+    }
+
+
     @ParameterizedTest
     @LdapServersSource
     public void testModify( TestLdapServer ldapServer ) throws Exception